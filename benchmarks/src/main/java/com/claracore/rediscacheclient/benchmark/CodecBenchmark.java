@@ -0,0 +1,109 @@
+package com.claracore.rediscacheclient.benchmark;
+
+import com.claracore.rediscacheclient.config.CacheChunks;
+import com.claracore.rediscacheclient.config.CacheCodecs;
+import com.claracore.rediscacheclient.config.JsonCacheCodec;
+import com.claracore.rediscacheclient.config.SmileCacheCodec;
+import com.claracore.rediscacheclient.config.TimedCacheable;
+import com.claracore.rediscacheclient.config.TtlInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding cost of the cache codecs across payload sizes, with and without compression.
+ * The {@code json} codec without compression is the format of the {@code GenericJackson2JsonRedisSerializer}
+ * of the RedisTemplate. The encoded size is printed once per trial. Chunked encoding streams into pooled
+ * 16 KiB buffers and chunked decoding reads the stored chunks in sequence, see {@link CacheChunks}.
+ *
+ * @author CGI
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int posts;
+
+    @Param({JsonCacheCodec.NAME, SmileCacheCodec.NAME})
+    public String codec;
+
+    @Param({"0", "1024"})
+    public int compressionThreshold;
+
+    private CacheCodecs cacheCodecs;
+    private TtlInfo ttlInfo;
+    private List<Post> payload;
+    private byte[] encoded;
+    private final CacheChunks.BufferPool bufferPool = new CacheChunks.BufferPool(64);
+    private CacheChunks.Manifest manifest;
+    private List<byte[]> chunks;
+
+    @Setup
+    public void setUp() {
+        cacheCodecs = new CacheCodecs(List.of(new JsonCacheCodec(new GenericJackson2JsonRedisSerializer()), new SmileCacheCodec()));
+        ttlInfo = TtlInfo.builder()
+                .ttl(10)
+                .timeUnit(TimeUnit.MINUTES)
+                .cacheType(TimedCacheable.CacheType.REDIS)
+                .codec(codec)
+                .compressionThreshold(compressionThreshold)
+                .chunkThreshold(1)
+                .chunkSize(16 * 1024)
+                .build();
+        payload = new ArrayList<>(posts);
+        for (int i = 0; i < posts; i++) {
+            payload.add(new Post(i, i % 10, "Title of post " + i,
+                    "Body of post " + i + ", long enough to look like the text of a real resource returned by an API."));
+        }
+        encoded = cacheCodecs.encode(payload, ttlInfo);
+        try (CacheChunks encodedChunks = cacheCodecs.encodeChunks(payload, ttlInfo, bufferPool)) {
+            chunks = new ArrayList<>(encodedChunks.getChunkCount());
+            for (int i = 0; i < encodedChunks.getChunkCount(); i++) {
+                // Uncompressed full chunks are the pooled buffers themselves
+                chunks.add(cacheCodecs.encodeChunk(encodedChunks, i, compressionThreshold > 0).clone());
+            }
+            manifest = new CacheChunks.Manifest("bench#chunk:0:", encodedChunks.getChunkSize(), encodedChunks.getChunkCount(),
+                    encodedChunks.getLength(), compressionThreshold > 0);
+        }
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return cacheCodecs.encode(payload, ttlInfo);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return cacheCodecs.decode(encoded);
+    }
+
+    @Benchmark
+    public int encodeChunks() {
+        try (CacheChunks encodedChunks = cacheCodecs.encodeChunks(payload, ttlInfo, bufferPool)) {
+            return encodedChunks.getLength();
+        }
+    }
+
+    @Benchmark
+    public Object decodeChunks() {
+        return cacheCodecs.decode(manifest, chunks, bufferPool);
+    }
+}
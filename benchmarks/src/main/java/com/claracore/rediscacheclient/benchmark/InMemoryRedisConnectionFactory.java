@@ -0,0 +1,138 @@
+package com.claracore.rediscacheclient.benchmark;
+
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.async.RedisStringAsyncCommands;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory stand-in for a Redis connection factory, so that the benchmarks measure the starter
+ * rather than the network.
+ * <p>
+ * Only the string commands used by the cache store are implemented: {@code GET}, {@code MGET} and
+ * {@code SET}, both through the Spring Data connection and through the native asynchronous Lettuce
+ * commands, whose futures complete immediately. Expirations are ignored. Other commands return
+ * the default value of their return type.
+ * </p>
+ *
+ * @author CGI
+ */
+public class InMemoryRedisConnectionFactory {
+    private final Map<ByteBuffer, byte[]> data = new ConcurrentHashMap<>();
+    private final boolean retainWrites;
+
+    /**
+     * @param retainWrites whether SET commands store their value, false keeping every lookup a miss
+     */
+    public InMemoryRedisConnectionFactory(boolean retainWrites) {
+        this.retainWrites = retainWrites;
+    }
+
+    /**
+     * Stores a raw entry, bypassing the write policy.
+     *
+     * @param key the key
+     * @param value the encoded value
+     */
+    public void preload(byte[] key, byte[] value) {
+        data.put(ByteBuffer.wrap(key), value);
+    }
+
+    /**
+     * @return a connection factory whose connections operate on the in-memory data
+     */
+    public RedisConnectionFactory create() {
+        RedisStringCommands stringCommands = proxy(RedisStringCommands.class, this::stringCommand);
+        RedisStringAsyncCommands<?, ?> asyncCommands = proxy(RedisStringAsyncCommands.class, (target, method, args) ->
+                future(stringCommand(target, method, args)));
+        RedisConnection connection = proxy(RedisConnection.class, (target, method, args) -> switch (method.getName()) {
+            case "stringCommands" -> stringCommands;
+            case "getNativeConnection" -> asyncCommands;
+            default -> defaultValue(method);
+        });
+        return proxy(RedisConnectionFactory.class, (target, method, args) ->
+                "getConnection".equals(method.getName()) ? connection : defaultValue(method));
+    }
+
+    private Object stringCommand(Object target, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "get":
+                return data.get(ByteBuffer.wrap((byte[]) args[0]));
+            case "mget":
+                List<KeyValue<byte[], byte[]>> values = new ArrayList<>();
+                for (Object key : (Object[]) args[0]) {
+                    values.add(KeyValue.fromNullable((byte[]) key, data.get(ByteBuffer.wrap((byte[]) key))));
+                }
+                return values;
+            case "set":
+                if (retainWrites) {
+                    data.put(ByteBuffer.wrap((byte[]) args[0]), (byte[]) args[1]);
+                }
+                return method.getReturnType() == RedisFuture.class ? "OK" : Boolean.TRUE;
+            default:
+                return defaultValue(method);
+        }
+    }
+
+    /**
+     * Adapts a result to a completed {@link RedisFuture}, delegating to a {@link CompletableFuture}.
+     */
+    private static RedisFuture<?> future(Object result) {
+        CompletableFuture<Object> completed = CompletableFuture.completedFuture(result);
+        return proxy(RedisFuture.class, (target, method, args) -> switch (method.getName()) {
+            case "getError" -> null;
+            case "await" -> true;
+            default -> {
+                try {
+                    yield method.invoke(completed, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (target, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return target == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(target);
+                    default:
+                        return "InMemory" + type.getSimpleName();
+                }
+            }
+            return handler.invoke(target, method, args);
+        });
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> returnType = method.getReturnType();
+        if (returnType == boolean.class) {
+            return false;
+        }
+        if (returnType == int.class) {
+            return 0;
+        }
+        if (returnType == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+}
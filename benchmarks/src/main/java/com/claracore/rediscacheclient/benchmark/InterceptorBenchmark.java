@@ -0,0 +1,132 @@
+package com.claracore.rediscacheclient.benchmark;
+
+import com.claracore.rediscacheclient.config.AnnotationCacheOperationSourceApi;
+import com.claracore.rediscacheclient.config.CacheCodecs;
+import com.claracore.rediscacheclient.config.CacheInterceptorApi;
+import com.claracore.rediscacheclient.config.CacheEvictor;
+import com.claracore.rediscacheclient.config.CacheExecutor;
+import com.claracore.rediscacheclient.config.CacheGenerations;
+import com.claracore.rediscacheclient.config.CacheKeys;
+import com.claracore.rediscacheclient.config.CacheMemory;
+import com.claracore.rediscacheclient.config.CacheMetrics;
+import com.claracore.rediscacheclient.config.CacheRefresher;
+import com.claracore.rediscacheclient.config.CacheWarmUp;
+import com.claracore.rediscacheclient.config.HazelcastCacheStore;
+import com.claracore.rediscacheclient.config.HotKeyDetector;
+import com.claracore.rediscacheclient.config.JsonCacheCodec;
+import com.claracore.rediscacheclient.config.NearCacheManager;
+import com.claracore.rediscacheclient.config.OffHeapCacheStore;
+import com.claracore.rediscacheclient.config.RedisCacheStore;
+import com.claracore.rediscacheclient.config.RedisCircuitBreaker;
+import com.claracore.rediscacheclient.config.RedisConfig;
+import com.claracore.rediscacheclient.config.SmileCacheCodec;
+import com.claracore.rediscacheclient.config.TtlRegistry;
+import com.claracore.rediscacheclient.config.WriteBehindQueue;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.annotation.SpringCacheAnnotationParserApi;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of {@link CacheInterceptorApi#invoke} on a hit and on a miss, compared with a direct call.
+ * On a miss, writes are discarded by the in-memory Redis, so that every call misses.
+ *
+ * @author CGI
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InterceptorBenchmark {
+
+    @Param({"hit", "miss"})
+    public String mode;
+
+    private PostService direct;
+    private PostService cached;
+    private CacheExecutor cacheExecutor;
+    private WriteBehindQueue writeBehindQueue;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryRedisConnectionFactory redis = new InMemoryRedisConnectionFactory("hit".equals(mode));
+        RedisTemplate<String, Object> redisTemplate = new RedisConfig().redisTemplate(redis.create());
+        redisTemplate.afterPropertiesSet();
+        CacheCodecs cacheCodecs = new CacheCodecs(List.of(new JsonCacheCodec(new GenericJackson2JsonRedisSerializer()), new SmileCacheCodec()));
+        RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker(true, 100, 20, 50, Duration.ofMillis(100), 80, Duration.ofSeconds(5), 5);
+        RedisCacheStore cacheStore = new RedisCacheStore(redisTemplate, cacheCodecs, Duration.ofMillis(250), circuitBreaker);
+
+        TtlRegistry ttlRegistry = new TtlRegistry();
+        cacheExecutor = new CacheExecutor(true, 1, 16, 64);
+        CacheRefresher cacheRefresher = new CacheRefresher(cacheExecutor);
+        NearCacheManager nearCacheManager = new NearCacheManager();
+        HazelcastCacheStore hazelcastCacheStore = new HazelcastCacheStore(() -> {
+            throw new IllegalStateException("No Hazelcast cache in the benchmark");
+        }, false, cacheCodecs, nearCacheManager);
+        OffHeapCacheStore offHeapCacheStore = new OffHeapCacheStore(cacheCodecs);
+        CacheGenerations cacheGenerations = new CacheGenerations(cacheStore, 1000);
+        CacheKeys cacheKeys = new CacheKeys("bench", cacheGenerations);
+        CacheMetrics cacheMetrics = new CacheMetrics(new SimpleMeterRegistry(), ttlRegistry);
+        CacheMemory cacheMemory = new CacheMemory(cacheStore, cacheKeys, ttlRegistry, nearCacheManager, cacheMetrics, cacheExecutor, 16, 16, 1000);
+        writeBehindQueue = new WriteBehindQueue(cacheStore, cacheMemory, 1000, 64, 10, WriteBehindQueue.OverflowPolicy.SYNC);
+        CacheEvictor cacheEvictor = new CacheEvictor(cacheStore, hazelcastCacheStore, offHeapCacheStore, cacheKeys, cacheGenerations, nearCacheManager,
+                ttlRegistry, writeBehindQueue, cacheMemory, 1000, cacheExecutor);
+        AnnotationCacheOperationSourceApi cacheOperationSource = new AnnotationCacheOperationSourceApi(
+                new SpringCacheAnnotationParserApi(new StandardEnvironment(), ttlRegistry));
+        CacheInterceptorApi interceptor = new CacheInterceptorApi(cacheStore, hazelcastCacheStore, offHeapCacheStore, cacheKeys, nearCacheManager,
+                ttlRegistry, cacheRefresher, writeBehindQueue, cacheMetrics,
+                new HotKeyDetector(16, 16, 1000),
+                new CacheWarmUp(cacheStore, nearCacheManager, ttlRegistry, new StaticListableBeanFactory(), cacheOperationSource, cacheExecutor, "", 16, 100, 1, 30000, false),
+                cacheEvictor, cacheMemory, cacheExecutor);
+        interceptor.setCacheOperationSources(cacheOperationSource);
+        interceptor.setCacheManager(new ConcurrentMapCacheManager());
+        interceptor.afterPropertiesSet();
+        interceptor.afterSingletonsInstantiated();
+
+        direct = new PostService();
+        ProxyFactory proxyFactory = new ProxyFactory(direct);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(interceptor);
+        cached = (PostService) proxyFactory.getProxy();
+        cached.getPost("1");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        writeBehindQueue.shutdown();
+        cacheExecutor.shutdown();
+    }
+
+    @Benchmark
+    public Post direct() {
+        return direct.getPost("1");
+    }
+
+    @Benchmark
+    public Post cached() {
+        return cached.getPost("1");
+    }
+}
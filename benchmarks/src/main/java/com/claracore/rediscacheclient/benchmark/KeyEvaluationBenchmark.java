@@ -0,0 +1,77 @@
+package com.claracore.rediscacheclient.benchmark;
+
+import com.claracore.rediscacheclient.config.ParameterKeyGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.interceptor.SimpleKeyGenerator;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of evaluating a typical {@code key = "#postId"} expression per call, as Spring caching does,
+ * interpreted and compiled, compared with the {@link ParameterKeyGenerator} fast path of the starter
+ * and the default key generator.
+ *
+ * @author CGI
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyEvaluationBenchmark {
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final SimpleKeyGenerator keyGenerator = new SimpleKeyGenerator();
+    private final PostService target = new PostService();
+    private final Object[] args = {"42"};
+    private Method method;
+    private Expression interpreted;
+    private Expression compiled;
+    private ParameterKeyGenerator parameterKeyGenerator;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        method = PostService.class.getMethod("getPost", String.class);
+        interpreted = new SpelExpressionParser().parseExpression("#postId");
+        compiled = new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.IMMEDIATE, getClass().getClassLoader()))
+                .parseExpression("#postId");
+        parameterKeyGenerator = ParameterKeyGenerator.compile("#postId", method);
+    }
+
+    @Benchmark
+    public Object interpreted() {
+        return interpreted.getValue(new MethodBasedEvaluationContext(target, method, args, parameterNameDiscoverer));
+    }
+
+    @Benchmark
+    public Object compiled() {
+        return compiled.getValue(new MethodBasedEvaluationContext(target, method, args, parameterNameDiscoverer));
+    }
+
+    @Benchmark
+    public Object parameterKeyGenerator() {
+        return parameterKeyGenerator.generate(target, method, args);
+    }
+
+    @Benchmark
+    public Object simpleKeyGenerator() {
+        return keyGenerator.generate(target, method, args);
+    }
+}
@@ -0,0 +1,55 @@
+package com.claracore.rediscacheclient.benchmark;
+
+/**
+ * Cached value used by the benchmarks, shaped like a typical REST resource.
+ *
+ * @author CGI
+ */
+public class Post {
+    private long id;
+    private long userId;
+    private String title;
+    private String body;
+
+    public Post() {
+    }
+
+    public Post(long id, long userId, String title, String body) {
+        this.id = id;
+        this.userId = userId;
+        this.title = title;
+        this.body = body;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(long userId) {
+        this.userId = userId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+}
@@ -0,0 +1,19 @@
+package com.claracore.rediscacheclient.benchmark;
+
+import com.claracore.rediscacheclient.config.TimedCacheable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service with a cached method, proxied by the interceptor in the benchmarks.
+ * The method itself is trivial, so that the benchmarks measure the caching overhead.
+ *
+ * @author CGI
+ */
+public class PostService {
+
+    @TimedCacheable(cacheNames = "getPost", key = "#postId", ttl = "10", timeunit = TimeUnit.MINUTES)
+    public Post getPost(String postId) {
+        return new Post(Long.parseLong(postId), 1, "Post " + postId, "Body of post " + postId);
+    }
+}
@@ -0,0 +1,75 @@
+package com.claracore.rediscacheclient.benchmark;
+
+import com.claracore.rediscacheclient.config.TimedCacheable;
+import com.claracore.rediscacheclient.config.TtlInfo;
+import com.claracore.rediscacheclient.config.TtlRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup cost of the {@link TtlRegistry} under contention: 8 readers alone, then 7 readers
+ * while one thread keeps publishing configuration changes.
+ *
+ * @author CGI
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TtlRegistryBenchmark {
+    private static final int CACHES = 100;
+
+    private final TtlRegistry ttlRegistry = new TtlRegistry();
+    private final String[] cacheNames = new String[CACHES];
+    private final TtlInfo[] ttlInfos = new TtlInfo[CACHES];
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < CACHES; i++) {
+            cacheNames[i] = "cache" + i;
+            ttlInfos[i] = TtlInfo.builder().ttl(i + 1).timeUnit(TimeUnit.MINUTES).cacheType(TimedCacheable.CacheType.REDIS).build();
+            ttlRegistry.register(cacheNames[i], ttlInfos[i]);
+        }
+    }
+
+    @Benchmark
+    @Group("readOnly")
+    @GroupThreads(8)
+    public TtlInfo readOnly(Cursor cursor) {
+        return ttlRegistry.get(cacheNames[cursor.next++ % CACHES]);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(7)
+    public TtlInfo read(Cursor cursor) {
+        return ttlRegistry.get(cacheNames[cursor.next++ % CACHES]);
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void write(Cursor cursor) {
+        int i = cursor.next++ % CACHES;
+        ttlRegistry.register(cacheNames[i], ttlInfos[i]);
+    }
+}
@@ -0,0 +1,103 @@
+package com.claracore.rediscacheclient.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides which computed results are worth writing to the cache.
+ * <p>
+ * A cache can require a minimum compute cost, the time the underlying method took in
+ * milliseconds, so that results cheaper to recompute than to serialize and fetch are not
+ * cached; a maximum payload size in bytes, so that huge entries do not take the memory of
+ * the others; and a minimum frequency, the number of recent lookups of the key estimated by
+ * a TinyLFU {@link FrequencySketch}, so that keys requested once do not pollute the cache.
+ * Negative entries are always admitted. Rejected results are returned to the caller but not
+ * written, and counted per cache and reason.
+ * </p>
+ * <p>
+ * Example configuration in application.properties:
+ * <pre>
+ * cache.getPostRT.admissionMinCost=5
+ * cache.getPostRT.admissionMaxBytes=1048576
+ * cache.getPostRT.admissionMinFrequency=2
+ * </pre>
+ * </p>
+ *
+ * @author CGI
+ */
+public class AdmissionPolicy {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdmissionPolicy.class);
+
+    static final int SKETCH_SIZE = 8_192;
+
+    private final Map<String, FrequencySketch> sketches = new ConcurrentHashMap<>();
+    private final CacheMetrics cacheMetrics;
+
+    public AdmissionPolicy(CacheMetrics cacheMetrics) {
+        this.cacheMetrics = cacheMetrics;
+    }
+
+    /**
+     * Records a lookup of a key, for caches admitting entries by frequency.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the configuration of the cache
+     * @param key the stored key of the entry
+     */
+    public void recordAccess(String cacheName, TtlInfo ttlInfo, String key) {
+        if (ttlInfo.getAdmissionMinFrequency() > 0) {
+            sketches.computeIfAbsent(cacheName, name -> new FrequencySketch(SKETCH_SIZE)).increment(key.hashCode());
+        }
+    }
+
+    /**
+     * Checks the compute cost and the frequency of a computed result.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the configuration of the cache
+     * @param key the stored key of the entry
+     * @param stored the value to store
+     * @param computeMillis how long the method took to compute the result
+     * @return true if the result may be written
+     */
+    public boolean admits(String cacheName, TtlInfo ttlInfo, String key, Object stored, long computeMillis) {
+        if (ttlInfo.isNegativeCaching() && NegativeEntries.isNegative(stored)) {
+            return true;
+        }
+        if (computeMillis < ttlInfo.getAdmissionMinCost()) {
+            return reject(cacheName, key, "cost");
+        }
+        if (ttlInfo.getAdmissionMinFrequency() > 0) {
+            FrequencySketch sketch = sketches.get(cacheName);
+            if (sketch == null || sketch.frequency(key.hashCode()) < ttlInfo.getAdmissionMinFrequency()) {
+                return reject(cacheName, key, "frequency");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks the size of an encoded result.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the configuration of the cache
+     * @param key the stored key of the entry
+     * @param bytes the size of the encoded entry
+     * @return true if the entry may be written
+     */
+    public boolean admitsSize(String cacheName, TtlInfo ttlInfo, String key, int bytes) {
+        if (ttlInfo.getAdmissionMaxBytes() > 0 && bytes > ttlInfo.getAdmissionMaxBytes()) {
+            return reject(cacheName, key, "size");
+        }
+        return true;
+    }
+
+    private boolean reject(String cacheName, String key, String reason) {
+        cacheMetrics.recordRejected(cacheName, reason);
+        LOGGER.debug("Key {} of cache {} not admitted ({})", key, cacheName, reason);
+        return false;
+    }
+}
@@ -0,0 +1,243 @@
+package com.claracore.rediscacheclient.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.core.ReactiveAdapterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Serves the cache operations of methods returning a {@link CompletableFuture} or a reactive type
+ * without blocking.
+ * <p>
+ * Spring caching resolves the returned value before caching it and composes cache lookups into
+ * the returned pipeline through {@link Cache#retrieve(Object)}. This class implements these
+ * retrievals and the following puts with the asynchronous Lettuce commands of the shared
+ * connection, so that neither event-loop nor carrier threads wait for Redis. Entries are the
+ * same as for synchronous methods: near cache, pending writes, codecs and circuit breaker apply alike.
+ * Entries of Hazelcast caches are read and written with the asynchronous map operations of the
+ * {@link HazelcastCacheStore}.
+ * </p>
+ *
+ * @author CGI
+ */
+public class AsyncCacheSupport {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncCacheSupport.class);
+
+    private final RedisCacheStore cacheStore;
+    private final HazelcastCacheStore hazelcastCacheStore;
+    private final OffHeapCacheStore offHeapCacheStore;
+    private final CacheKeys cacheKeys;
+    private final NearCacheManager nearCacheManager;
+    private final TtlRegistry ttlRegistry;
+    private final WriteBehindQueue writeBehindQueue;
+    private final CacheMetrics cacheMetrics;
+    private final CacheMemory cacheMemory;
+
+    public AsyncCacheSupport(RedisCacheStore cacheStore, HazelcastCacheStore hazelcastCacheStore, OffHeapCacheStore offHeapCacheStore, CacheKeys cacheKeys,
+                             NearCacheManager nearCacheManager, TtlRegistry ttlRegistry, WriteBehindQueue writeBehindQueue,
+                             CacheMetrics cacheMetrics, CacheMemory cacheMemory) {
+        this.cacheStore = cacheStore;
+        this.hazelcastCacheStore = hazelcastCacheStore;
+        this.offHeapCacheStore = offHeapCacheStore;
+        this.cacheKeys = cacheKeys;
+        this.nearCacheManager = nearCacheManager;
+        this.ttlRegistry = ttlRegistry;
+        this.writeBehindQueue = writeBehindQueue;
+        this.cacheMetrics = cacheMetrics;
+        this.cacheMemory = cacheMemory;
+    }
+
+    /**
+     * Checks whether a method return type is resolved asynchronously.
+     *
+     * @param returnType the return type of a cached method
+     * @return true for {@link CompletableFuture} and the reactive types known to Spring
+     */
+    public static boolean isAsyncType(Class<?> returnType) {
+        return CompletableFuture.class.isAssignableFrom(returnType)
+                || ReactiveAdapterRegistry.getSharedInstance().getAdapter(returnType) != null;
+    }
+
+    /**
+     * Wraps a cache resolved for a cache operation.
+     *
+     * @param cache the resolved cache
+     * @param async whether the cached method returns an asynchronous type
+     * @return the wrapped cache
+     */
+    public TimedCache wrap(Cache cache, boolean async) {
+        return new TimedCache(cache, async, this);
+    }
+
+    /**
+     * Retrieves an entry without blocking. Redis errors are logged and reported as a miss.
+     *
+     * @param cacheName the cache name
+     * @param key the cache key of the entry
+     * @return a future of the value wrapper, completed with null on a miss
+     */
+    public CompletableFuture<Cache.ValueWrapper> retrieve(String cacheName, Object key) {
+        TtlInfo ttlInfo = ttlRegistry.get(cacheName);
+        if (ttlInfo == null || ttlInfo.getTtl() < 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        boolean hazelcast = ttlInfo.getCacheType() == TimedCacheable.CacheType.HAZELCAST;
+
+        String redisKey;
+        try {
+            redisKey = cacheKeys.toRedisKey(cacheName, ttlInfo, key);
+        } catch (IllegalArgumentException e) {
+            cacheMetrics.recordGetError(cacheName);
+            cacheMetrics.recordMiss(cacheName);
+            LOGGER.error("Error in retrieve: " + e.getMessage(), e);
+            return CompletableFuture.completedFuture(null);
+        }
+        if (ttlInfo.getCacheType() == TimedCacheable.CacheType.LOCAL_OFFHEAP) {
+            Object stored = offHeapCacheStore.get(cacheName, ttlInfo, redisKey);
+            if (stored == null || CacheEnvelope.isExpired(stored)) {
+                cacheMetrics.recordMiss(cacheName);
+                return CompletableFuture.completedFuture(null);
+            }
+            cacheMetrics.recordHit(cacheName);
+            return CompletableFuture.completedFuture(new SimpleValueWrapper(CacheEnvelope.unwrap(stored)));
+        }
+        NearCache nearCache = nearCacheManager.getNearCache(cacheName, ttlInfo);
+        Object stored = !hazelcast && ttlInfo.isWriteBehind() ? writeBehindQueue.getPending(redisKey) : null;
+        if (stored == null && nearCache != null) {
+            stored = nearCache.get(redisKey);
+        }
+        if (stored != null && !CacheEnvelope.isExpired(stored)) {
+            cacheMetrics.recordHit(cacheName);
+            return CompletableFuture.completedFuture(new SimpleValueWrapper(CacheEnvelope.unwrap(stored)));
+        }
+        if (!hazelcast && !cacheStore.getCircuitBreaker().isCallPermitted()) {
+            cacheMetrics.recordMiss(cacheName);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        try {
+            long invalidationSequence = nearCache != null ? nearCache.getInvalidationSequence(redisKey) : 0;
+            long start = System.nanoTime();
+            CompletableFuture<Object> lookup = hazelcast
+                    ? hazelcastCacheStore.getAsync(cacheName, redisKey) : cacheStore.getAsync(redisKey);
+            return lookup.handle((value, e) -> {
+                cacheMetrics.recordGet(cacheName, System.nanoTime() - start);
+                if (e != null) {
+                    cacheMetrics.recordGetError(cacheName);
+                    cacheMetrics.recordMiss(cacheName);
+                    LOGGER.error("Error in retrieve: " + e.getMessage(), e);
+                    return null;
+                }
+                if (value == null || CacheEnvelope.isExpired(value)) {
+                    cacheMetrics.recordMiss(cacheName);
+                    return null;
+                }
+                cacheMetrics.recordHit(cacheName);
+                if (nearCache != null) {
+                    nearCache.populate(redisKey, value, invalidationSequence);
+                }
+                return new SimpleValueWrapper(CacheEnvelope.unwrap(value));
+            });
+        } catch (CircuitBreakerOpenException e) {
+            cacheMetrics.recordMiss(cacheName);
+            LOGGER.debug("Redis bypassed in retrieve: {}", e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            cacheMetrics.recordGetError(cacheName);
+            cacheMetrics.recordMiss(cacheName);
+            LOGGER.error("Error in retrieve: " + e.getMessage(), e);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Retrieves an entry without blocking, loading and storing it on a miss.
+     *
+     * @param cacheName the cache name
+     * @param key the cache key of the entry
+     * @param valueLoader the loader of the value
+     * @return a future of the value
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> retrieve(String cacheName, Object key, Supplier<CompletableFuture<T>> valueLoader) {
+        return retrieve(cacheName, key).thenCompose(hit -> {
+            if (hit != null) {
+                return CompletableFuture.completedFuture((T) hit.get());
+            }
+            return valueLoader.get().thenApply(value -> {
+                TtlInfo ttlInfo = ttlRegistry.get(cacheName);
+                if (ttlInfo != null) {
+                    put(cacheName, key, value, ttlInfo);
+                }
+                return value;
+            });
+        });
+    }
+
+    /**
+     * Stores a resolved value without blocking. Redis errors are logged.
+     *
+     * @param cacheName the cache name
+     * @param key the cache key of the entry
+     * @param value the resolved value
+     * @param ttlInfo the configuration of the cache
+     */
+    public void put(String cacheName, Object key, Object value, TtlInfo ttlInfo) {
+        if ((value == null && !ttlInfo.isNegativeCaching()) || ttlInfo.getTtl() < 0) {
+            return;
+        }
+        Object stored = ttlInfo.isNegativeCaching() && NegativeEntries.isNegative(value) ? NegativeEntries.toStored(value) : value;
+        String redisKey;
+        try {
+            redisKey = cacheKeys.toRedisKey(cacheName, ttlInfo, key);
+        } catch (IllegalArgumentException e) {
+            cacheMetrics.recordPutError(cacheName);
+            LOGGER.error("Error in doPut: " + e.getMessage(), e);
+            return;
+        }
+        try {
+            if (ttlInfo.getCacheType() == TimedCacheable.CacheType.LOCAL_OFFHEAP) {
+                long start = System.nanoTime();
+                int size = offHeapCacheStore.set(cacheName, ttlInfo, redisKey, stored);
+                cacheMetrics.recordPut(cacheName, System.nanoTime() - start, size);
+            } else if (ttlInfo.getCacheType() == TimedCacheable.CacheType.HAZELCAST) {
+                long start = System.nanoTime();
+                hazelcastCacheStore.setAsync(cacheName, redisKey, stored, ttlInfo).whenComplete((result, e) -> {
+                    if (e != null) {
+                        cacheMetrics.recordPutError(cacheName);
+                        LOGGER.error("Error in doPut: " + e.getMessage(), e);
+                    } else {
+                        cacheMetrics.recordPut(cacheName, System.nanoTime() - start, -1);
+                    }
+                });
+            } else if (ttlInfo.isWriteBehind()) {
+                writeBehindQueue.enqueue(cacheName, redisKey, stored, ttlInfo);
+                cacheMetrics.recordPut(cacheName, -1, -1);
+            } else if (cacheStore.getCircuitBreaker().isCallPermitted()) {
+                long start = System.nanoTime();
+                cacheStore.setAsync(redisKey, stored, ttlInfo).whenComplete((size, e) -> {
+                    if (e != null) {
+                        cacheMetrics.recordPutError(cacheName);
+                        LOGGER.error("Error in doPut: " + e.getMessage(), e);
+                    } else {
+                        cacheMetrics.recordPut(cacheName, System.nanoTime() - start, size);
+                        cacheMemory.recordPut(cacheName, ttlInfo, redisKey, size, ttlInfo.getEntryTtlMillis(stored));
+                    }
+                });
+            }
+        } catch (CircuitBreakerOpenException e) {
+            LOGGER.debug("Redis bypassed in doPut: {}", e.getMessage());
+        } catch (Exception e) {
+            cacheMetrics.recordPutError(cacheName);
+            LOGGER.error("Error in doPut: " + e.getMessage(), e);
+        }
+        NearCache nearCache = nearCacheManager.getNearCache(cacheName, ttlInfo);
+        if (nearCache != null) {
+            nearCache.invalidate(redisKey);
+        }
+    }
+}
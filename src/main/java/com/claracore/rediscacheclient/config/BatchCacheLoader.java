@@ -0,0 +1,234 @@
+package com.claracore.rediscacheclient.config;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.ProxyMethodInvocation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads the entries of a {@link TimedCacheableBatch} method one element at a time from the cache.
+ * <p>
+ * The elements found in the near cache or in Redis are served from the cache; the method is
+ * invoked once with the remaining elements, and its results are written back in one batch.
+ * With negative caching enabled, the elements the method returned no result for are cached as
+ * negative entries, so that requesting them again does not invoke the method.
+ * </p>
+ *
+ * @author CGI
+ */
+public class BatchCacheLoader {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchCacheLoader.class);
+
+    private final RedisCacheStore cacheStore;
+    private final CacheKeys cacheKeys;
+    private final NearCacheManager nearCacheManager;
+    private final TtlRegistry ttlRegistry;
+    private final WriteBehindQueue writeBehindQueue;
+    private final CacheMetrics cacheMetrics;
+    private final CacheMemory cacheMemory;
+
+    public BatchCacheLoader(RedisCacheStore cacheStore, CacheKeys cacheKeys, NearCacheManager nearCacheManager, TtlRegistry ttlRegistry,
+                            WriteBehindQueue writeBehindQueue, CacheMetrics cacheMetrics, CacheMemory cacheMemory) {
+        this.cacheStore = cacheStore;
+        this.cacheKeys = cacheKeys;
+        this.nearCacheManager = nearCacheManager;
+        this.ttlRegistry = ttlRegistry;
+        this.writeBehindQueue = writeBehindQueue;
+        this.cacheMetrics = cacheMetrics;
+        this.cacheMemory = cacheMemory;
+    }
+
+    /**
+     * Serves a batch method invocation from the cache, invoking the method for the missing elements only.
+     * A List result not aligned with the elements is not cached; it is returned as is when the method was
+     * invoked with all the requested elements, and cannot be merged with the hits otherwise.
+     *
+     * @param operation the batch operation of the method
+     * @param invocation the method invocation
+     * @return the result of the method for all requested elements
+     * @throws IllegalStateException if a List result not aligned with the missing elements cannot be merged with the hits
+     * @throws Throwable if the method invocation fails
+     */
+    public Object load(TimedCacheableBatchOperation operation, MethodInvocation invocation) throws Throwable {
+        String cacheName = operation.getCacheNames().iterator().next();
+        TtlInfo ttlInfo = ttlRegistry.get(cacheName);
+        int parameterIndex = operation.getParameterIndex();
+        Collection<?> elements = (Collection<?>) invocation.getArguments()[parameterIndex];
+        Class<?> parameterType = invocation.getMethod().getParameterTypes()[parameterIndex];
+        if (ttlInfo == null || ttlInfo.getTtl() < 0 || ttlInfo.getCacheType() != TimedCacheable.CacheType.REDIS
+                || elements == null || elements.isEmpty() || !(invocation instanceof ProxyMethodInvocation proxyInvocation)
+                || !(parameterType.isAssignableFrom(ArrayList.class) || parameterType.isAssignableFrom(LinkedHashSet.class))) {
+            return invocation.proceed();
+        }
+
+        Map<Object, String> keys = new LinkedHashMap<>();
+        try {
+            for (Object element : elements) {
+                keys.putIfAbsent(element, cacheKeys.toRedisKey(cacheName, ttlInfo, element));
+            }
+        } catch (IllegalArgumentException e) {
+            cacheMetrics.recordGetError(cacheName);
+            LOGGER.error("Error in batch get: " + e.getMessage(), e);
+            return invocation.proceed();
+        }
+        Map<String, Object> hits = lookup(cacheName, ttlInfo, keys.values());
+
+        List<Object> missing = new ArrayList<>();
+        keys.forEach((element, key) -> {
+            if (!hits.containsKey(key)) {
+                missing.add(element);
+                cacheMetrics.recordMiss(cacheName);
+            } else {
+                cacheMetrics.recordHit(cacheName);
+            }
+        });
+        LOGGER.debug("Method {} found {} of {} elements in cache {}", invocation.getMethod().getName(),
+                keys.size() - missing.size(), keys.size(), cacheName);
+
+        Map<Object, Object> loaded = new HashMap<>();
+        if (!missing.isEmpty()) {
+            Object[] arguments = invocation.getArguments().clone();
+            arguments[parameterIndex] = parameterType.isAssignableFrom(ArrayList.class) ? missing : new LinkedHashSet<>(missing);
+            long start = System.nanoTime();
+            Object result = proxyInvocation.invocableClone(arguments).proceed();
+            cacheMetrics.recordInvocation(cacheName, System.nanoTime() - start);
+            if (!collectResults(missing, result, loaded)) {
+                if (missing.size() != elements.size()) {
+                    throw new IllegalStateException("@TimedCacheableBatch method " + invocation.getMethod()
+                            + " returned a List not aligned with its " + missing.size() + " elements");
+                }
+                LOGGER.warn("Method {} returned a result not aligned with its {} elements, result not cached",
+                        invocation.getMethod().getName(), missing.size());
+                return result;
+            }
+            store(cacheName, ttlInfo, keys, missing, loaded);
+        }
+
+        if (Map.class.isAssignableFrom(invocation.getMethod().getReturnType())) {
+            Map<Object, Object> result = new LinkedHashMap<>();
+            keys.forEach((element, key) -> {
+                Object value = hits.containsKey(key) ? hits.get(key) : loaded.get(element);
+                if (value != null) {
+                    result.put(element, value);
+                }
+            });
+            return result;
+        }
+        List<Object> result = new ArrayList<>(elements.size());
+        for (Object element : elements) {
+            String key = keys.get(element);
+            result.add(hits.containsKey(key) ? hits.get(key) : loaded.get(element));
+        }
+        return result;
+    }
+
+    /**
+     * Looks up the keys in the pending writes and the near cache, then in Redis.
+     * Redis errors are logged and the affected keys treated as misses.
+     */
+    private Map<String, Object> lookup(String cacheName, TtlInfo ttlInfo, Collection<String> keys) {
+        Map<String, Object> hits = new HashMap<>();
+        NearCache nearCache = nearCacheManager.getNearCache(cacheName, ttlInfo);
+        List<String> remaining = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            Object stored = ttlInfo.isWriteBehind() ? writeBehindQueue.getPending(key) : null;
+            if (stored == null && nearCache != null) {
+                stored = nearCache.get(key);
+            }
+            if (stored != null && !CacheEnvelope.isExpired(stored)) {
+                hits.put(key, CacheEnvelope.unwrap(stored));
+            } else {
+                remaining.add(key);
+            }
+        }
+        if (remaining.isEmpty() || !cacheStore.getCircuitBreaker().isCallPermitted()) {
+            return hits;
+        }
+
+        try {
+            long[] invalidationSequences = nearCache != null ? nearCache.getInvalidationSequences() : null;
+            long start = System.nanoTime();
+            Map<String, Object> found = cacheStore.multiGet(remaining);
+            cacheMetrics.recordGet(cacheName, System.nanoTime() - start);
+            found.forEach((key, stored) -> {
+                if (CacheEnvelope.isExpired(stored)) {
+                    return;
+                }
+                if (nearCache != null) {
+                    nearCache.populate(key, stored, invalidationSequences);
+                }
+                hits.put(key, CacheEnvelope.unwrap(stored));
+            });
+        } catch (CircuitBreakerOpenException e) {
+            LOGGER.debug("Redis bypassed in batch get: {}", e.getMessage());
+        } catch (Exception e) {
+            cacheMetrics.recordGetError(cacheName);
+            LOGGER.error("Error in batch get: " + e.getMessage(), e);
+        }
+        return hits;
+    }
+
+    private void store(String cacheName, TtlInfo ttlInfo, Map<Object, String> keys, List<Object> missing, Map<Object, Object> loaded) {
+        Map<String, Object> entries = new HashMap<>();
+        for (Object element : missing) {
+            Object value = loaded.get(element);
+            if (ttlInfo.isNegativeCaching() && NegativeEntries.isNegative(value)) {
+                entries.put(keys.get(element), NegativeEntries.toStored(value));
+            } else if (value != null) {
+                entries.put(keys.get(element), value);
+            }
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+        try {
+            if (ttlInfo.isWriteBehind()) {
+                entries.forEach((key, value) -> writeBehindQueue.enqueue(cacheName, key, value, ttlInfo));
+            } else if (cacheStore.getCircuitBreaker().isCallPermitted()) {
+                long start = System.nanoTime();
+                Map<String, Integer> sizes = cacheStore.multiSet(cacheName, entries, ttlInfo);
+                cacheMetrics.recordPut(cacheName, System.nanoTime() - start, -1);
+                sizes.forEach((key, size) -> cacheMemory.recordPut(cacheName, ttlInfo, key, size,
+                        ttlInfo.getEntryTtlMillis(entries.get(key))));
+            }
+        } catch (CircuitBreakerOpenException e) {
+            LOGGER.debug("Redis bypassed in batch put: {}", e.getMessage());
+        } catch (Exception e) {
+            cacheMetrics.recordPutError(cacheName);
+            LOGGER.error("Error in batch put: " + e.getMessage(), e);
+        }
+        NearCache nearCache = nearCacheManager.getNearCache(cacheName, ttlInfo);
+        if (nearCache != null) {
+            entries.keySet().forEach(nearCache::invalidate);
+        }
+    }
+
+    /**
+     * Collects the result of each missing element from a Map keyed by element, or from a List aligned with the elements.
+     *
+     * @return false if a List result is not aligned with the elements
+     */
+    private static boolean collectResults(List<Object> missing, Object result, Map<Object, Object> loaded) {
+        if (result instanceof Map<?, ?> map) {
+            for (Object element : missing) {
+                loaded.put(element, map.get(element));
+            }
+        } else if (result instanceof List<?> list) {
+            if (list.size() != missing.size()) {
+                return false;
+            }
+            for (int i = 0; i < missing.size(); i++) {
+                loaded.put(missing.get(i), list.get(i));
+            }
+        }
+        return true;
+    }
+}
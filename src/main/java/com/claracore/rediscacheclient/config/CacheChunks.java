@@ -0,0 +1,341 @@
+package com.claracore.rediscacheclient.config;
+
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * An encoded cache entry held in fixed-size chunk buffers taken from a {@link BufferPool}, so that
+ * large values are encoded in streaming fashion without growing and copying one contiguous array.
+ * <p>
+ * The entries of a Redis cache with a chunk threshold are encoded into chunks. Below the threshold
+ * they are stored as usual; from the threshold on, every chunk is stored under its own key with the
+ * TTL of the entry, and the entry key holds a small manifest naming the chunks, see
+ * {@link RedisCacheStore#writeChunks}. Chunks are compressed one by one when the cache compresses
+ * its entries, so that each of them can be decompressed on its own.
+ * </p>
+ * <p>
+ * The manifest starts with the header byte {@code 0x10}, the compression flag with codec id 0, which
+ * no other entry uses, followed by a flag byte, the chunk size, the chunk count and the encoded length
+ * on four bytes each, and the prefix of the chunk keys. Chunk keys extend the entry key with
+ * {@code #chunk:<write id>:<index>}, so that they are purged along with the entries of their cache,
+ * and a reader of a previous manifest never mixes chunks of two writes.
+ * </p>
+ * <p>
+ * Instances are not thread-safe. Closing an instance returns its buffers to the pool.
+ * </p>
+ *
+ * @author CGI
+ */
+public class CacheChunks implements AutoCloseable {
+    static final byte MANIFEST_HEADER = 0x10;
+    private static final int COMPRESSED_FLAG = 0x01;
+    private static final int MANIFEST_FIXED_LENGTH = 14;
+    private static final String CHUNK_SEGMENT = "#chunk:";
+
+    private final BufferPool pool;
+    private final int chunkSize;
+    private final List<byte[]> buffers = new ArrayList<>();
+    private int length;
+    private boolean detached;
+    private final OutputStream outputStream = new OutputStream() {
+        @Override
+        public void write(int b) {
+            int position = length % chunkSize;
+            if (position == 0) {
+                buffers.add(pool.acquire(chunkSize));
+            }
+            buffers.get(buffers.size() - 1)[position] = (byte) b;
+            length++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            while (len > 0) {
+                int position = length % chunkSize;
+                if (position == 0) {
+                    buffers.add(pool.acquire(chunkSize));
+                }
+                int count = Math.min(len, chunkSize - position);
+                System.arraycopy(b, off, buffers.get(buffers.size() - 1), position, count);
+                off += count;
+                len -= count;
+                length += count;
+            }
+        }
+
+        @Override
+        public void close() {
+            // Codecs may close the stream they write to; the buffers are released by the owner
+        }
+    };
+
+    /**
+     * @param pool the pool of the chunk buffers
+     * @param chunkSize the size of the chunks in bytes
+     */
+    public CacheChunks(BufferPool pool, int chunkSize) {
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return the stream writing into the chunks
+     */
+    public OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    /**
+     * @return the encoded length in bytes
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return the size of the chunks in bytes
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @return the number of chunks
+     */
+    public int getChunkCount() {
+        return buffers.size();
+    }
+
+    /**
+     * Returns the buffer of a chunk, which may be longer than the chunk.
+     *
+     * @param index the index of the chunk
+     * @return the buffer of the chunk
+     */
+    public byte[] getBuffer(int index) {
+        return buffers.get(index);
+    }
+
+    /**
+     * @param index the index of the chunk
+     * @return the length of the chunk in bytes
+     */
+    public int getChunkLength(int index) {
+        return index < buffers.size() - 1 ? chunkSize : length - index * chunkSize;
+    }
+
+    /**
+     * Copies the chunks into one array.
+     *
+     * @return the encoded entry
+     */
+    public byte[] toByteArray() {
+        byte[] data = new byte[length];
+        for (int i = 0; i < buffers.size(); i++) {
+            System.arraycopy(buffers.get(i), 0, data, i * chunkSize, getChunkLength(i));
+        }
+        return data;
+    }
+
+    /**
+     * Keeps the buffers out of the pool when closed, for buffers that may still be read by commands
+     * that did not complete.
+     */
+    public void detach() {
+        detached = true;
+    }
+
+    /**
+     * Returns the buffers to the pool, unless detached.
+     */
+    @Override
+    public void close() {
+        if (!detached) {
+            for (byte[] buffer : buffers) {
+                pool.release(buffer);
+            }
+        }
+        buffers.clear();
+    }
+
+    /**
+     * Checks whether stored bytes are a chunk manifest.
+     *
+     * @param data the stored bytes
+     * @return true if the bytes are a manifest
+     */
+    public static boolean isManifest(byte[] data) {
+        return data != null && data.length > MANIFEST_FIXED_LENGTH && data[0] == MANIFEST_HEADER;
+    }
+
+    /**
+     * Returns a new prefix for the chunk keys of an entry, unique to the write.
+     *
+     * @param key the key of the entry
+     * @return the chunk key prefix
+     */
+    public static String newChunkKeyPrefix(String key) {
+        return key + CHUNK_SEGMENT + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ':';
+    }
+
+    /**
+     * The manifest of a chunked entry.
+     *
+     * @param chunkKeyPrefix the prefix of the chunk keys, followed by the chunk index
+     * @param chunkSize the size of the chunks in bytes, before compression
+     * @param chunkCount the number of chunks
+     * @param length the encoded length of the entry, before compression
+     * @param compressed whether every chunk is compressed on its own
+     */
+    public record Manifest(String chunkKeyPrefix, int chunkSize, int chunkCount, int length, boolean compressed) {
+
+        /**
+         * @param index the index of the chunk
+         * @return the key of the chunk
+         */
+        public String chunkKey(int index) {
+            return chunkKeyPrefix + index;
+        }
+
+        /**
+         * @return the stored bytes of the manifest
+         */
+        public byte[] toBytes() {
+            byte[] prefix = chunkKeyPrefix.getBytes(StandardCharsets.UTF_8);
+            byte[] data = new byte[MANIFEST_FIXED_LENGTH + prefix.length];
+            data[0] = MANIFEST_HEADER;
+            data[1] = (byte) (compressed ? COMPRESSED_FLAG : 0);
+            writeInt(data, 2, chunkSize);
+            writeInt(data, 6, chunkCount);
+            writeInt(data, 10, length);
+            System.arraycopy(prefix, 0, data, MANIFEST_FIXED_LENGTH, prefix.length);
+            return data;
+        }
+
+        /**
+         * Parses stored manifest bytes.
+         *
+         * @param data the stored bytes, see {@link #isManifest}
+         * @return the manifest
+         * @throws SerializationException if the bytes are not a manifest
+         */
+        public static Manifest parse(byte[] data) {
+            if (!isManifest(data)) {
+                throw new SerializationException("Not a chunk manifest");
+            }
+            return new Manifest(new String(data, MANIFEST_FIXED_LENGTH, data.length - MANIFEST_FIXED_LENGTH, StandardCharsets.UTF_8),
+                    readInt(data, 2), readInt(data, 6), readInt(data, 10), (data[1] & COMPRESSED_FLAG) != 0);
+        }
+    }
+
+    static void writeInt(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >>> 24);
+        data[offset + 1] = (byte) (value >>> 16);
+        data[offset + 2] = (byte) (value >>> 8);
+        data[offset + 3] = (byte) value;
+    }
+
+    static int readInt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16) | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+
+    /**
+     * A pool of chunk buffers, keeping at most a fixed number of free buffers of each size.
+     */
+    public static final class BufferPool {
+        private final int maxFreeBuffers;
+        private final Map<Integer, Queue<byte[]>> freeBuffers = new ConcurrentHashMap<>();
+
+        /**
+         * @param maxFreeBuffers the maximum number of free buffers kept for each size
+         */
+        public BufferPool(int maxFreeBuffers) {
+            this.maxFreeBuffers = maxFreeBuffers;
+        }
+
+        /**
+         * @param size the size of the buffer
+         * @return a free buffer of the pool, or a new one
+         */
+        public byte[] acquire(int size) {
+            Queue<byte[]> free = freeBuffers.get(size);
+            byte[] buffer = free != null ? free.poll() : null;
+            return buffer != null ? buffer : new byte[size];
+        }
+
+        /**
+         * Returns a buffer to the pool, dropped if the pool is full.
+         *
+         * @param buffer the buffer
+         */
+        public void release(byte[] buffer) {
+            if (maxFreeBuffers > 0) {
+                freeBuffers.computeIfAbsent(buffer.length, size -> new ArrayBlockingQueue<>(maxFreeBuffers)).offer(buffer);
+            }
+        }
+    }
+
+    /**
+     * Reads chunk buffers in sequence, without copying them into one array.
+     */
+    static final class ChunkInputStream extends InputStream {
+        private final List<byte[]> chunks;
+        private final int[] lengths;
+        private int chunk;
+        private int position;
+
+        /**
+         * @param chunks the chunk buffers
+         * @param lengths the length of each chunk
+         */
+        ChunkInputStream(List<byte[]> chunks, int[] lengths) {
+            this.chunks = chunks;
+            this.lengths = lengths;
+        }
+
+        @Override
+        public int read() {
+            if (!advance()) {
+                return -1;
+            }
+            return chunks.get(chunk)[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!advance()) {
+                return -1;
+            }
+            int count = Math.min(len, lengths[chunk] - position);
+            System.arraycopy(chunks.get(chunk), position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return chunk < lengths.length ? lengths[chunk] - position : 0;
+        }
+
+        private boolean advance() {
+            while (chunk < lengths.length && position == lengths[chunk]) {
+                chunk++;
+                position = 0;
+            }
+            return chunk < lengths.length;
+        }
+    }
+}
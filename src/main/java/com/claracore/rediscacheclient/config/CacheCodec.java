@@ -0,0 +1,63 @@
+package com.claracore.rediscacheclient.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Codec turning cached values into bytes stored in Redis and back.
+ * <p>
+ * Every codec has a unique id between 1 and 15, stored in the header byte of encoded entries
+ * so that an entry can be decoded regardless of the codec currently configured for its cache.
+ * Codecs are selected per cache by name with the {@code cache.<name>.codec} property.
+ * Additional codecs can be contributed as beans.
+ * </p>
+ *
+ * @author CGI
+ * @see CacheCodecs
+ */
+public interface CacheCodec {
+
+    /**
+     * @return the id of the codec, stored in the header byte of encoded entries
+     */
+    byte getId();
+
+    /**
+     * @return the name of the codec, used to select it in the cache properties
+     */
+    String getName();
+
+    /**
+     * Encodes a value.
+     *
+     * @param value the value to encode
+     * @param out the stream to write the encoded value to
+     * @throws IOException if the value cannot be encoded
+     */
+    void encode(Object value, OutputStream out) throws IOException;
+
+    /**
+     * Decodes a value.
+     *
+     * @param data the buffer holding the encoded value
+     * @param offset the offset of the encoded value in the buffer
+     * @param length the length of the encoded value
+     * @return the decoded value
+     * @throws IOException if the value cannot be decoded
+     */
+    Object decode(byte[] data, int offset, int length) throws IOException;
+
+    /**
+     * Decodes a value from a stream, used for the entries stored in chunks, see {@link CacheChunks}.
+     * The default implementation reads the whole stream into an array first.
+     *
+     * @param in the stream holding the encoded value
+     * @return the decoded value
+     * @throws IOException if the value cannot be decoded
+     */
+    default Object decode(InputStream in) throws IOException {
+        byte[] data = in.readAllBytes();
+        return decode(data, 0, data.length);
+    }
+}
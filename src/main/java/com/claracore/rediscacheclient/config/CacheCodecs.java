@@ -0,0 +1,293 @@
+package com.claracore.rediscacheclient.config;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of the {@link CacheCodec codecs} available to the caches, encoding and decoding
+ * the bytes stored in Redis.
+ * <p>
+ * Encoded entries start with a header byte holding the id of the codec in its low four bits
+ * and a compression flag. Compressed entries continue with the uncompressed length on four
+ * bytes followed by the LZ4 block. Since JSON text never starts with a byte below {@code 0x20},
+ * uncompressed JSON entries are stored without header, which keeps them compatible with entries
+ * written by the {@code RedisTemplate} and by previous versions of the starter. The cached null
+ * of a {@link NegativeEntries negative entry}, {@link NullValue#INSTANCE}, is stored as the single
+ * header byte {@code 0x00}, codec id 0 being reserved.
+ * </p>
+ * <p>
+ * Entries are always decoded with the codec named in their header, so changing the codec or the
+ * compression threshold of a cache does not invalidate the entries already stored. Large entries
+ * may be encoded into chunk buffers and stored in chunks, each compressed on its own, see {@link CacheChunks}.
+ * </p>
+ *
+ * @author CGI
+ */
+public class CacheCodecs {
+    private static final int COMPRESSED_FLAG = 0x10;
+    private static final int CODEC_ID_MASK = 0x0F;
+    private static final int MAX_HEADER = 0x1F;
+    private static final byte[] NULL_ENTRY = {0};
+
+    private final Map<String, CacheCodec> codecsByName = new HashMap<>();
+    private final CacheCodec[] codecsById = new CacheCodec[CODEC_ID_MASK + 1];
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+
+    public CacheCodecs(Collection<? extends CacheCodec> codecs) {
+        for (CacheCodec codec : codecs) {
+            int id = codec.getId();
+            if (id < 1 || id > CODEC_ID_MASK) {
+                throw new IllegalArgumentException("Codec id of " + codec.getName() + " must be between 1 and " + CODEC_ID_MASK);
+            }
+            if (codecsById[id] != null || codecsByName.containsKey(codec.getName())) {
+                throw new IllegalArgumentException("Duplicate cache codec " + codec.getName() + " with id " + id);
+            }
+            codecsById[id] = codec;
+            codecsByName.put(codec.getName(), codec);
+        }
+    }
+
+    /**
+     * Checks that a codec is registered under the given name.
+     *
+     * @param name the name of the codec
+     * @return true if the codec exists
+     */
+    public boolean contains(String name) {
+        return codecsByName.containsKey(name);
+    }
+
+    /**
+     * Encodes a value with the codec and compression threshold configured for its cache.
+     *
+     * @param value the value to encode
+     * @param ttlInfo the configuration of the cache
+     * @return the bytes to store
+     * @throws SerializationException if the value cannot be encoded
+     */
+    public byte[] encode(Object value, TtlInfo ttlInfo) {
+        if (value == NullValue.INSTANCE) {
+            return NULL_ENTRY;
+        }
+        CacheCodec codec = codecsByName.get(ttlInfo.getCodec());
+        if (codec == null) {
+            throw new SerializationException("Unknown cache codec " + ttlInfo.getCodec());
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            if (codec.getId() != JsonCacheCodec.ID) {
+                out.write(codec.getId());
+            }
+            codec.encode(value, out);
+        } catch (IOException e) {
+            throw new SerializationException("Could not encode value with codec " + codec.getName(), e);
+        }
+        return compressIfLarge(out.toByteArray(), ttlInfo);
+    }
+
+    /**
+     * Encodes a value with the codec configured for its cache in streaming fashion, into chunk buffers
+     * of the size configured for the cache. The chunks hold the uncompressed format of {@link #encode}.
+     *
+     * @param value the value to encode
+     * @param ttlInfo the configuration of the cache
+     * @param pool the pool of the chunk buffers
+     * @return the encoded chunks, to be closed by the caller
+     * @throws SerializationException if the value cannot be encoded
+     */
+    public CacheChunks encodeChunks(Object value, TtlInfo ttlInfo, CacheChunks.BufferPool pool) {
+        CacheChunks chunks = new CacheChunks(pool, ttlInfo.getChunkSize());
+        try {
+            if (value == NullValue.INSTANCE) {
+                chunks.getOutputStream().write(NULL_ENTRY);
+                return chunks;
+            }
+            CacheCodec codec = codecsByName.get(ttlInfo.getCodec());
+            if (codec == null) {
+                throw new SerializationException("Unknown cache codec " + ttlInfo.getCodec());
+            }
+            if (codec.getId() != JsonCacheCodec.ID) {
+                chunks.getOutputStream().write(codec.getId());
+            }
+            codec.encode(value, chunks.getOutputStream());
+            return chunks;
+        } catch (IOException e) {
+            chunks.close();
+            throw new SerializationException("Could not encode value with codec " + ttlInfo.getCodec(), e);
+        } catch (RuntimeException e) {
+            chunks.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Copies encoded chunks into the bytes of a plain entry, compressed as {@link #encode} does.
+     *
+     * @param chunks the encoded chunks
+     * @param ttlInfo the configuration of the cache
+     * @return the bytes to store
+     */
+    public byte[] toEntry(CacheChunks chunks, TtlInfo ttlInfo) {
+        return compressIfLarge(chunks.toByteArray(), ttlInfo);
+    }
+
+    /**
+     * Returns the bytes to store for a chunk: the chunk itself, copied only when shorter than its buffer,
+     * or, compressed, its length on four bytes followed by its LZ4 block.
+     *
+     * @param chunks the encoded chunks
+     * @param index the index of the chunk
+     * @param compressed whether to compress the chunk
+     * @return the bytes to store, possibly the buffer of the chunk itself
+     */
+    public byte[] encodeChunk(CacheChunks chunks, int index, boolean compressed) {
+        byte[] buffer = chunks.getBuffer(index);
+        int length = chunks.getChunkLength(index);
+        if (!compressed) {
+            return length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+        }
+        byte[] block = new byte[4 + compressor.maxCompressedLength(length)];
+        CacheChunks.writeInt(block, 0, length);
+        int compressedLength = compressor.compress(buffer, 0, length, block, 4);
+        return Arrays.copyOf(block, 4 + compressedLength);
+    }
+
+    /**
+     * Decodes the stored chunks of an entry with the codec named in their header, reading the chunks
+     * in sequence; compressed chunks are decompressed into buffers of the pool.
+     *
+     * @param manifest the manifest of the entry
+     * @param chunks the stored chunks, in order
+     * @param pool the pool of the decompression buffers
+     * @return the decoded value, {@link NullValue#INSTANCE} for a cached null
+     * @throws SerializationException if the chunks cannot be decoded
+     */
+    public Object decode(CacheChunks.Manifest manifest, List<byte[]> chunks, CacheChunks.BufferPool pool) {
+        int[] lengths = new int[chunks.size()];
+        List<byte[]> buffers = manifest.compressed() ? new ArrayList<>(chunks.size()) : chunks;
+        try {
+            long total = 0;
+            for (int i = 0; i < chunks.size(); i++) {
+                byte[] chunk = chunks.get(i);
+                if (manifest.compressed()) {
+                    int length = CacheChunks.readInt(chunk, 0);
+                    if (length > manifest.chunkSize()) {
+                        throw new SerializationException("Invalid chunk of " + length + " bytes");
+                    }
+                    byte[] buffer = pool.acquire(manifest.chunkSize());
+                    buffers.add(buffer);
+                    decompressor.decompress(chunk, 4, buffer, 0, length);
+                    lengths[i] = length;
+                } else {
+                    lengths[i] = chunk.length;
+                }
+                total += lengths[i];
+            }
+            if (total != manifest.length() || total == 0) {
+                throw new SerializationException("Chunked entry of " + total + " bytes, expected " + manifest.length());
+            }
+            return decode(new CacheChunks.ChunkInputStream(buffers, lengths), buffers.get(0)[0] & 0xFF, manifest.length());
+        } finally {
+            if (manifest.compressed()) {
+                for (byte[] buffer : buffers) {
+                    pool.release(buffer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes stored bytes with the codec named in their header.
+     *
+     * @param data the stored bytes
+     * @return the decoded value, {@link NullValue#INSTANCE} for a cached null, or null if data is null
+     * @throws SerializationException if the bytes cannot be decoded
+     */
+    public Object decode(byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        int header = data[0] & 0xFF;
+        if (header == 0 && data.length == 1) {
+            return NullValue.INSTANCE;
+        }
+        if (header > MAX_HEADER) {
+            return decode(codecsById[JsonCacheCodec.ID], data, 0, data.length);
+        }
+        CacheCodec codec = codecsById[header & CODEC_ID_MASK];
+        if (codec == null) {
+            throw new SerializationException("Unknown cache codec id " + (header & CODEC_ID_MASK));
+        }
+        if ((header & COMPRESSED_FLAG) == 0) {
+            return decode(codec, data, 1, data.length - 1);
+        }
+        int length = ((data[1] & 0xFF) << 24) | ((data[2] & 0xFF) << 16) | ((data[3] & 0xFF) << 8) | (data[4] & 0xFF);
+        byte[] decompressed = new byte[length];
+        decompressor.decompress(data, 5, decompressed, 0, length);
+        return decode(codec, decompressed, 0, length);
+    }
+
+    private Object decode(CacheChunks.ChunkInputStream in, int header, int length) {
+        if (header == 0 && length == 1) {
+            return NullValue.INSTANCE;
+        }
+        CacheCodec codec = codecsById[header > MAX_HEADER ? JsonCacheCodec.ID : header & CODEC_ID_MASK];
+        if (codec == null || (header <= MAX_HEADER && (header & COMPRESSED_FLAG) != 0)) {
+            throw new SerializationException("Invalid header " + header + " of chunked entry");
+        }
+        try {
+            if (header <= MAX_HEADER) {
+                in.read();
+            }
+            return codec.decode(in);
+        } catch (IOException e) {
+            throw new SerializationException("Could not decode value with codec " + codec.getName(), e);
+        }
+    }
+
+    private byte[] compressIfLarge(byte[] encoded, TtlInfo ttlInfo) {
+        int threshold = ttlInfo.getCompressionThreshold();
+        if (threshold <= 0 || encoded.length < threshold || (encoded.length == 1 && encoded[0] == 0)) {
+            return encoded;
+        }
+        int header = encoded[0] & 0xFF;
+        if (header > MAX_HEADER) {
+            return compress(JsonCacheCodec.ID, encoded, 0, encoded.length);
+        }
+        return compress((byte) (header & CODEC_ID_MASK), encoded, 1, encoded.length - 1);
+    }
+
+    private byte[] compress(byte codecId, byte[] data, int offset, int length) {
+        byte[] compressed = new byte[5 + compressor.maxCompressedLength(length)];
+        compressed[0] = (byte) (COMPRESSED_FLAG | codecId);
+        compressed[1] = (byte) (length >>> 24);
+        compressed[2] = (byte) (length >>> 16);
+        compressed[3] = (byte) (length >>> 8);
+        compressed[4] = (byte) length;
+        int compressedLength = compressor.compress(data, offset, length, compressed, 5);
+        byte[] result = new byte[5 + compressedLength];
+        System.arraycopy(compressed, 0, result, 0, result.length);
+        return result;
+    }
+
+    private static Object decode(CacheCodec codec, byte[] data, int offset, int length) {
+        try {
+            return codec.decode(data, offset, length);
+        } catch (IOException e) {
+            throw new SerializationException("Could not decode value with codec " + codec.getName(), e);
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package com.claracore.rediscacheclient.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.annotation.SpringCacheAnnotationParserApi;
 import org.springframework.cache.interceptor.CacheInterceptor;
@@ -12,10 +17,11 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.env.Environment;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -32,59 +38,349 @@ public class CacheConfig {
 
     private final CacheProperties cacheProperties;
     private final Environment env;
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisCacheStore cacheStore;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private Map<String, Object> appliedCacheProperties;
 
-    public CacheConfig(Environment env, CacheProperties cacheProperties, RedisTemplate<String, Object> redisTemplate) {
+    @Value("${timedcache.executor.virtual-threads:true}")
+    private boolean executorVirtualThreads;
+
+    @Value("${timedcache.executor.platform-threads:${timedcache.refresh-ahead.threads:16}}")
+    private int executorPlatformThreads;
+
+    @Value("${timedcache.executor.queue-capacity:${timedcache.refresh-ahead.queue-capacity:1000}}")
+    private int executorQueueCapacity;
+
+    @Value("${timedcache.executor.max-concurrency:64}")
+    private int executorMaxConcurrency;
+
+    @Value("${timedcache.write-behind.queue-capacity:10000}")
+    private int writeBehindQueueCapacity;
+
+    @Value("${timedcache.write-behind.batch-size:256}")
+    private int writeBehindBatchSize;
+
+    @Value("${timedcache.write-behind.flush-interval:10}")
+    private long writeBehindFlushInterval;
+
+    @Value("${timedcache.write-behind.overflow:SYNC}")
+    private WriteBehindQueue.OverflowPolicy writeBehindOverflow;
+
+    @Value("${timedcache.key-prefix:}")
+    private String keyPrefix;
+
+    @Value("${timedcache.hot-keys.sample-rate:16}")
+    private int hotKeySampleRate;
+
+    @Value("${timedcache.hot-keys.top-k:16}")
+    private int hotKeyTopK;
+
+    @Value("${timedcache.hot-keys.window:1000}")
+    private long hotKeyWindow;
+
+    @Value("${timedcache.warm-up.location:}")
+    private String warmUpLocation;
+
+    @Value("${timedcache.warm-up.sample-rate:16}")
+    private int warmUpSampleRate;
+
+    @Value("${timedcache.warm-up.batch-size:100}")
+    private int warmUpBatchSize;
+
+    @Value("${timedcache.warm-up.parallelism:4}")
+    private int warmUpParallelism;
+
+    @Value("${timedcache.warm-up.timeout:30000}")
+    private long warmUpTimeout;
+
+    @Value("${timedcache.warm-up.reinvoke:false}")
+    private boolean warmUpReinvoke;
+
+    @Value("${timedcache.eviction.generation-refresh:1000}")
+    private long generationRefresh;
+
+    @Value("${timedcache.eviction.batch-size:1000}")
+    private int evictionBatchSize;
+
+    @Value("${timedcache.memory.sample-size:16}")
+    private int memorySampleSize;
+
+    @Value("${timedcache.memory.access-sample-rate:16}")
+    private int memoryAccessSampleRate;
+
+    @Value("${timedcache.memory.batch-size:1000}")
+    private int memoryBatchSize;
+
+    public CacheConfig(Environment env, CacheProperties cacheProperties, RedisCacheStore cacheStore,
+                       ObjectProvider<MeterRegistry> meterRegistry) {
         this.env = env;
         this.cacheProperties = cacheProperties;
-        this.redisTemplate = redisTemplate;
+        this.cacheStore = cacheStore;
+        this.meterRegistry = meterRegistry;
+        this.appliedCacheProperties = new HashMap<>(cacheProperties.getCache());
+    }
+
+    /**
+     * Bean definition for the registry holding the TTL configuration of every cache.
+     *
+     * @return a new TtlRegistry
+     */
+    @Bean
+    public TtlRegistry ttlRegistry() {
+        return new TtlRegistry();
     }
 
+    /**
+     * Bean definition for the generations of the caches configured with generations.
+     * The refresh interval is expressed in milliseconds.
+     *
+     * @return a new CacheGenerations
+     */
+    @Bean
+    public CacheGenerations cacheGenerations() {
+        return new CacheGenerations(cacheStore, generationRefresh);
+    }
+
+    /**
+     * Bean definition for the layout of the Redis keys of cache entries.
+     *
+     * @return a new CacheKeys
+     */
+    @Bean
+    public CacheKeys cacheKeys() {
+        return new CacheKeys(keyPrefix, cacheGenerations());
+    }
+
+    /**
+     * Bean definition for the near caches kept in front of Redis.
+     *
+     * @return a new NearCacheManager
+     */
+    @Bean
+    public NearCacheManager nearCacheManager() {
+        return new NearCacheManager();
+    }
+
+    /**
+     * Bean definition for the detector of the hot keys of every cache.
+     * The window is expressed in milliseconds.
+     *
+     * @return a new HotKeyDetector
+     */
+    @Bean
+    public HotKeyDetector hotKeyDetector() {
+        return new HotKeyDetector(hotKeySampleRate, hotKeyTopK, hotKeyWindow);
+    }
+
+    /**
+     * Bean definition for the warm-up of the caches from the manifest of their most accessed keys.
+     * The manifest is persisted periodically and once more at shutdown; the timeout is expressed in milliseconds.
+     *
+     * @param beanFactory the bean factory resolving the beans of the cached methods to recompute
+     * @return a new CacheWarmUp
+     */
+    @Bean(destroyMethod = "persist")
+    public CacheWarmUp cacheWarmUp(BeanFactory beanFactory) {
+        return new CacheWarmUp(cacheStore, nearCacheManager(), ttlRegistry(), beanFactory, customCacheOperationSource(), cacheExecutor(), warmUpLocation, warmUpSampleRate,
+                warmUpBatchSize, warmUpParallelism, warmUpTimeout, warmUpReinvoke);
+    }
+
+    /**
+     * Bean definition for the store of the local off-heap caches.
+     *
+     * @param cacheCodecs the codec registry
+     * @return a new OffHeapCacheStore
+     */
+    @Bean
+    public OffHeapCacheStore offHeapCacheStore(CacheCodecs cacheCodecs) {
+        return new OffHeapCacheStore(cacheCodecs);
+    }
+
+    /**
+     * Bean definition for the evictions by key, by tag and of whole caches, also available to the application.
+     *
+     * @param hazelcastCacheStore the store of the Hazelcast caches, absent without Hazelcast on the classpath
+     * @param offHeapCacheStore the store of the local off-heap caches
+     * @return a new CacheEvictor
+     */
+    @Bean
+    public CacheEvictor cacheEvictor(ObjectProvider<HazelcastCacheStore> hazelcastCacheStore, OffHeapCacheStore offHeapCacheStore) {
+        return new CacheEvictor(cacheStore, hazelcastCacheStore.getIfAvailable(), offHeapCacheStore, cacheKeys(), cacheGenerations(), nearCacheManager(),
+                ttlRegistry(), writeBehindQueue(), cacheMemory(), evictionBatchSize, cacheExecutor());
+    }
+
+    /**
+     * Bean definition for the memory accounting of the Redis caches, enforcing their maximum entries and bytes.
+     * The enforcement and sampling intervals are read by its scheduled methods.
+     *
+     * @return a new CacheMemory
+     */
+    @Bean
+    public CacheMemory cacheMemory() {
+        return new CacheMemory(cacheStore, cacheKeys(), ttlRegistry(), nearCacheManager(), cacheMetrics(), cacheExecutor(),
+                memorySampleSize, memoryAccessSampleRate, memoryBatchSize);
+    }
+
+    /**
+     * Bean definition for the executor of the cache I/O and background cache work, on virtual threads when available.
+     * The platform threads and queue capacity default to the former refresh-ahead settings.
+     *
+     * @return a new CacheExecutor
+     */
+    @Bean(destroyMethod = "shutdown")
+    public CacheExecutor cacheExecutor() {
+        return new CacheExecutor(executorVirtualThreads, executorPlatformThreads, executorQueueCapacity, executorMaxConcurrency);
+    }
+
+    /**
+     * Bean definition for the refreshes of entries of refresh-ahead caches.
+     *
+     * @return a new CacheRefresher
+     */
+    @Bean
+    public CacheRefresher cacheRefresher() {
+        return new CacheRefresher(cacheExecutor());
+    }
+
+    /**
+     * Bean definition for the queue writing entries of write-behind caches.
+     * The flush interval is expressed in milliseconds.
+     *
+     * @return a new WriteBehindQueue
+     */
+    @Bean(destroyMethod = "shutdown")
+    public WriteBehindQueue writeBehindQueue() {
+        return new WriteBehindQueue(cacheStore, cacheMemory(), writeBehindQueueCapacity, writeBehindBatchSize, writeBehindFlushInterval, writeBehindOverflow);
+    }
+
+    /**
+     * Bean definition for the metrics of every cache, registered in the application MeterRegistry
+     * along with the meters of the Redis circuit breaker.
+     * A SimpleMeterRegistry keeps the statistics when the application has none.
+     *
+     * @return a new CacheMetrics
+     */
+    @Bean
+    public CacheMetrics cacheMetrics() {
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        cacheStore.getCircuitBreaker().registerMeters(registry);
+        return new CacheMetrics(registry, ttlRegistry());
+    }
+
+    /**
+     * Bean definition for the actuator endpoint exposing the configuration and statistics of every cache.
+     *
+     * @return a new TimedCachesEndpoint
+     */
+    @Bean
+    public TimedCachesEndpoint timedCachesEndpoint() {
+        return new TimedCachesEndpoint(ttlRegistry(), cacheMetrics(), hotKeyDetector());
+    }
+
+    /**
+     * Bean definition for the cache operation source parsing the custom cache annotations.
+     * It is the primary source, so that the caching advisor also applies to methods carrying
+     * only a @TimedCacheableBatch annotation.
+     *
+     * @return a new AnnotationCacheOperationSourceApi
+     */
+    @Primary
     @Bean
     public CacheOperationSource customCacheOperationSource() {
-        return new AnnotationCacheOperationSourceApi(new SpringCacheAnnotationParserApi(env));
+        return new AnnotationCacheOperationSourceApi(new SpringCacheAnnotationParserApi(env, ttlRegistry()));
     }
 
     /**
      * Bean definition for custom CacheInterceptor.
      *
+     * @param hazelcastCacheStore the store of the Hazelcast caches, absent without Hazelcast on the classpath
+     * @param offHeapCacheStore the store of the local off-heap caches
+     * @param cacheWarmUp the warm-up recording the most accessed keys
+     * @param cacheEvictor the evictions of the caches
+     * @param cacheMemory the memory accounting of the caches
      * @return a new instance of CacheInterceptorApi
      */
     @Primary
     @Bean
-    public CacheInterceptor customCacheInterceptor() {
-        CacheInterceptor interceptor = new CacheInterceptorApi(redisTemplate);
+    public CacheInterceptor customCacheInterceptor(ObjectProvider<HazelcastCacheStore> hazelcastCacheStore, OffHeapCacheStore offHeapCacheStore,
+                                                   CacheWarmUp cacheWarmUp, CacheEvictor cacheEvictor, CacheMemory cacheMemory) {
+        CacheInterceptor interceptor = new CacheInterceptorApi(cacheStore, hazelcastCacheStore.getIfAvailable(), offHeapCacheStore, cacheKeys(), nearCacheManager(), ttlRegistry(), cacheRefresher(), writeBehindQueue(),
+                cacheMetrics(), hotKeyDetector(), cacheWarmUp, cacheEvictor, cacheMemory, cacheExecutor());
         interceptor.setCacheOperationSources(customCacheOperationSource());
         return interceptor;
     }
 
     /**
      * Event listener for handling RefreshScopeRefreshedEvent.
-     * Updates TTL information for caches based on configuration properties.
+     * Compares the refreshed cache properties with the ones applied previously and publishes
+     * the new TTL information of all changed caches as one consistent snapshot.
      *
      * @param event the refresh event
      */
     @EventListener(RefreshScopeRefreshedEvent.class)
-    public void onRefresh(RefreshScopeRefreshedEvent event) {
-        for (String cacheName : cacheProperties.getCache().keySet()) {
-            if (cacheName.equalsIgnoreCase(CacheConstants.DEFAULT_CACHE_NAME) || !(cacheProperties.getCache().get(cacheName) instanceof Map)) {
+    public synchronized void onRefresh(RefreshScopeRefreshedEvent event) {
+        Map<String, Object> refreshedCacheProperties = new HashMap<>(cacheProperties.getCache());
+        Map<String, TtlInfo> changes = new HashMap<>();
+
+        for (Map.Entry<String, Object> entry : refreshedCacheProperties.entrySet()) {
+            String cacheName = entry.getKey();
+            if (cacheName.equalsIgnoreCase(CacheConstants.DEFAULT_CACHE_NAME) || !(entry.getValue() instanceof Map)) {
+                continue;
+            }
+            if (Objects.equals(entry.getValue(), appliedCacheProperties.get(cacheName))) {
                 continue;
             }
 
             @SuppressWarnings("unchecked")
-            Map<String, String> cacheConfig = (Map<String, String>) cacheProperties.getCache().get(cacheName);
-            long ttl = Long.parseLong(cacheConfig.get(CacheConstants.TTL));
-            TimeUnit timeUnit = getTimeUnit(cacheConfig.get(CacheConstants.TIME_UNIT));
-            TimedCacheable.CacheType cacheType = TimedCacheable.CacheType.valueOf(cacheConfig.get(CacheConstants.CACHE_TYPE).toUpperCase());
-
-            if (CacheInterceptorApi.getTtlCache().get(cacheName) != null) {
-                CacheInterceptorApi.getTtlCache().get(cacheName).setTtl(ttl);
-                CacheInterceptorApi.getTtlCache().get(cacheName).setTimeUnit(timeUnit);
-                CacheInterceptorApi.getTtlCache().get(cacheName).setCacheType(cacheType);
-            } else {
-                CacheInterceptorApi.getTtlCache().put(cacheName, new TtlInfo(ttl, timeUnit, cacheType));
+            Map<String, String> cacheConfig = (Map<String, String>) entry.getValue();
+            TtlInfo ttlInfo;
+            try {
+                ttlInfo = toTtlInfo(cacheName, cacheConfig, ttlRegistry().get(cacheName));
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn("Ignoring invalid refreshed configuration of cache {}, keeping the current one: {}", cacheName, e.getMessage());
+                continue;
+            }
+            if (ttlInfo != null) {
+                changes.put(cacheName, ttlInfo);
             }
         }
+
+        ttlRegistry().registerAll(changes);
+        appliedCacheProperties = refreshedCacheProperties;
+        LOGGER.debug("Refreshed cache configuration of caches {}", changes.keySet());
+    }
+
+    /**
+     * Builds the TTL information of a cache from its properties.
+     * Properties that are absent keep the value of the current configuration.
+     *
+     * @param cacheName the cache name
+     * @param cacheConfig the properties of the cache
+     * @param current the current configuration of the cache, or null if the cache is not registered yet
+     * @return the new validated TTL information, or null if the properties are incomplete
+     * @throws IllegalArgumentException if the properties are invalid
+     */
+    private TtlInfo toTtlInfo(String cacheName, Map<String, String> cacheConfig, TtlInfo current) {
+        String ttl = cacheConfig.get(CacheConstants.TTL);
+        String cacheType = cacheConfig.get(CacheConstants.CACHE_TYPE);
+        if (current == null && (ttl == null || cacheType == null)) {
+            LOGGER.warn("Ignoring refreshed configuration of cache {}: {} and {} are required", cacheName, CacheConstants.TTL, CacheConstants.CACHE_TYPE);
+            return null;
+        }
+
+        TtlInfo.TtlInfoBuilder builder = current != null ? current.toBuilder() : TtlInfo.builder().timeUnit(TimeUnit.MINUTES);
+        if (ttl != null) {
+            builder.ttl(Long.parseLong(ttl));
+        }
+        if (cacheConfig.containsKey(CacheConstants.TIME_UNIT)) {
+            builder.timeUnit(getTimeUnit(cacheConfig.get(CacheConstants.TIME_UNIT)));
+        }
+        if (cacheType != null) {
+            builder.cacheType(TimedCacheable.CacheType.valueOf(cacheType.toUpperCase()));
+        }
+        TtlInfo ttlInfo = builder.build().withSettings(cacheConfig::get);
+        ttlInfo.validate();
+        return ttlInfo;
     }
 
     /**
@@ -99,6 +395,9 @@ public class CacheConfig {
             return timeUnit;
         }
         switch (timeLetter) {
+            case "ms":
+                timeUnit = TimeUnit.MILLISECONDS;
+                break;
             case "s":
                 timeUnit = TimeUnit.SECONDS;
                 break;
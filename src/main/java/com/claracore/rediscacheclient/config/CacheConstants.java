@@ -11,6 +11,46 @@ public final class CacheConstants {
     public static final String TTL = "ttl";
     public static final String TIME_UNIT = "timeUnit";
     public static final String CACHE_TYPE = "cacheType";
+    public static final String NEAR_CACHE = "nearCache";
+    public static final String NEAR_CACHE_MAX_ENTRIES = "nearCacheMaxEntries";
+    public static final String NEAR_CACHE_TTL = "nearCacheTtl";
+    public static final long DEFAULT_NEAR_CACHE_MAX_ENTRIES = 10_000;
+    public static final String SINGLE_FLIGHT = "singleFlight";
+    public static final String SINGLE_FLIGHT_LEASE = "singleFlightLease";
+    public static final String SINGLE_FLIGHT_TIMEOUT = "singleFlightTimeout";
+    public static final long DEFAULT_SINGLE_FLIGHT_LEASE_MILLIS = 5_000;
+    public static final long DEFAULT_SINGLE_FLIGHT_TIMEOUT_MILLIS = 3_000;
+    public static final String REFRESH_AHEAD = "refreshAhead";
+    public static final String REFRESH_AHEAD_BETA = "refreshAheadBeta";
+    public static final double DEFAULT_REFRESH_AHEAD_BETA = 1.0;
+    public static final String WRITE_BEHIND = "writeBehind";
+    public static final String CODEC = "codec";
+    public static final String COMPRESSION_THRESHOLD = "compressionThreshold";
+    public static final String DEFAULT_CODEC = JsonCacheCodec.NAME;
+    public static final String HASH_TAG = "hashTag";
+    public static final String NEGATIVE_TTL = "negativeTtl";
+    public static final String STALE_WHILE_REVALIDATE = "staleWhileRevalidate";
+    public static final String STALE_IF_ERROR = "staleIfError";
+    public static final String ADMISSION_MIN_COST = "admissionMinCost";
+    public static final String ADMISSION_MAX_BYTES = "admissionMaxBytes";
+    public static final String ADMISSION_MIN_FREQUENCY = "admissionMinFrequency";
+    public static final String HOT_KEY_THRESHOLD = "hotKeyThreshold";
+    public static final String HOT_KEY_LOCAL_TTL = "hotKeyLocalTtl";
+    public static final String HOT_KEY_REPLICAS = "hotKeyReplicas";
+    public static final long DEFAULT_HOT_KEY_LOCAL_TTL_MILLIS = 1_000;
+    public static final String WARM_UP_KEYS = "warmUpKeys";
+    public static final String TTL_JITTER = "ttlJitter";
+    public static final String TTL_EXPRESSION = "ttlExpression";
+    public static final String SLIDING_EXPIRATION = "slidingExpiration";
+    public static final String OFF_HEAP_MAX_BYTES = "offHeapMaxBytes";
+    public static final long DEFAULT_OFF_HEAP_MAX_BYTES = 64L * 1024 * 1024;
+    public static final String GENERATIONS = "generations";
+    public static final String MAX_CONCURRENCY = "maxConcurrency";
+    public static final String MAX_ENTRIES = "maxEntries";
+    public static final String MAX_BYTES = "maxBytes";
+    public static final String CHUNK_THRESHOLD = "chunkThreshold";
+    public static final String CHUNK_SIZE = "chunkSize";
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
 
     // Private constructor to prevent instantiation
     private CacheConstants() {
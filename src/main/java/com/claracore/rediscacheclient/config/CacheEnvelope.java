@@ -0,0 +1,68 @@
+package com.claracore.rediscacheclient.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.cache.support.NullValue;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cached value stored together with the metadata needed to refresh it ahead of its expiry,
+ * or to serve it stale after its logical expiry.
+ * <p>
+ * The envelope records how long the underlying method took to compute the value and when
+ * the value expires, which drives the XFetch probabilistic early recomputation: a read
+ * triggers a refresh when {@code now - delta * beta * ln(random) >= expiry}, so entries that
+ * are expensive to recompute are refreshed earlier, and the closer an entry is to its expiry,
+ * the more likely a read is to refresh it.
+ * </p>
+ * <p>
+ * Values written without envelope remain readable: {@link #unwrap(Object)} returns them as is,
+ * except the cached null of a {@link NegativeEntries negative entry}, returned as null.
+ * </p>
+ *
+ * @author CGI
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheEnvelope {
+    private Object value;
+    private long delta;
+    private long expiresAt;
+
+    /**
+     * Returns the cached value held by a stored object.
+     *
+     * @param stored the object read from the cache
+     * @return the value of the envelope, null for a cached null, or the object itself otherwise
+     */
+    public static Object unwrap(Object stored) {
+        if (stored == NullValue.INSTANCE) {
+            return null;
+        }
+        return stored instanceof CacheEnvelope envelope ? envelope.getValue() : stored;
+    }
+
+    /**
+     * Checks whether a stored object is an envelope past its logical expiry.
+     *
+     * @param stored the object read from the cache
+     * @return true if the object is an expired envelope
+     */
+    public static boolean isExpired(Object stored) {
+        return stored instanceof CacheEnvelope envelope && System.currentTimeMillis() >= envelope.getExpiresAt();
+    }
+
+    /**
+     * Decides whether the value should be recomputed now, following the XFetch algorithm.
+     *
+     * @param beta the eagerness of the refresh, 1.0 being the optimal value for most workloads
+     * @return true if the value should be refreshed ahead of its expiry
+     */
+    public boolean shouldRefresh(double beta) {
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return System.currentTimeMillis() - delta * beta * Math.log(random) >= expiresAt;
+    }
+}
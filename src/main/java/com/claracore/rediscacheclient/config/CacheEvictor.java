@@ -0,0 +1,232 @@
+package com.claracore.rediscacheclient.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Evicts cache entries by key, by tag or for a whole cache, for {@link TimedCacheEvict} and for
+ * programmatic use.
+ * <p>
+ * The keys of the Redis entries written by a cache with tag expressions, and of their hot key
+ * replicas, are added to one Redis set per tag, whose TTL is extended to the longest TTL of its
+ * entries. Evicting a tag first renames its set, so that entries tagged meanwhile start a new set,
+ * then walks it with {@code SSCAN} and removes its keys with one {@code UNLINK} per cluster hash
+ * slot, the slot groups being sent in parallel.
+ * </p>
+ * <p>
+ * Evicting a Redis cache configured with generations increments its generation, a single command
+ * whatever the number of entries, see {@link CacheGenerations}. Other Redis caches are purged
+ * with {@code SCAN} over their keys on every node, batch by batch. Hazelcast and local off-heap
+ * caches are cleared in place; the entries of an off-heap cache are only removed from this instance.
+ * </p>
+ * <p>
+ * Tag and cache-wide purges run on the {@link CacheExecutor} and never block the caller, who gets a
+ * future completed once the purge is done. Local near cache copies of the removed keys are dropped,
+ * and the pending writes of write-behind caches discarded. Evicted entries of a cache with a maximum
+ * number of entries or bytes are dropped from its index, see {@link CacheMemory}. The chunks of an entry
+ * evicted by key are removed with it, see {@link CacheChunks}; chunks of entries evicted by tag expire with them.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>
+ * cacheEvictor.evict("getPostRT", postId);
+ * cacheEvictor.evictTag("user:" + userId);
+ * cacheEvictor.evictAll("getPostRT").join();
+ * </pre>
+ * </p>
+ *
+ * @author CGI
+ */
+public class CacheEvictor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheEvictor.class);
+    private static final String PURGE_SUFFIX = ":purge:";
+
+    private final RedisCacheStore cacheStore;
+    private final HazelcastCacheStore hazelcastCacheStore;
+    private final OffHeapCacheStore offHeapCacheStore;
+    private final CacheKeys cacheKeys;
+    private final CacheGenerations cacheGenerations;
+    private final NearCacheManager nearCacheManager;
+    private final TtlRegistry ttlRegistry;
+    private final WriteBehindQueue writeBehindQueue;
+    private final CacheMemory cacheMemory;
+    private final int batchSize;
+    private final CacheExecutor cacheExecutor;
+
+    /**
+     * @param cacheStore the store of the Redis caches
+     * @param hazelcastCacheStore the store of the Hazelcast caches
+     * @param offHeapCacheStore the store of the local off-heap caches
+     * @param cacheKeys the layout of the keys
+     * @param cacheGenerations the generations of the caches
+     * @param nearCacheManager the near caches to invalidate
+     * @param ttlRegistry the configuration of the caches
+     * @param writeBehindQueue the pending writes to discard
+     * @param cacheMemory the memory accounting of the caches
+     * @param batchSize the number of keys scanned and removed per command
+     * @param cacheExecutor the executor running purges
+     */
+    public CacheEvictor(RedisCacheStore cacheStore, HazelcastCacheStore hazelcastCacheStore, OffHeapCacheStore offHeapCacheStore,
+                        CacheKeys cacheKeys, CacheGenerations cacheGenerations, NearCacheManager nearCacheManager,
+                        TtlRegistry ttlRegistry, WriteBehindQueue writeBehindQueue, CacheMemory cacheMemory, int batchSize,
+                        CacheExecutor cacheExecutor) {
+        this.cacheStore = cacheStore;
+        this.hazelcastCacheStore = hazelcastCacheStore;
+        this.offHeapCacheStore = offHeapCacheStore;
+        this.cacheKeys = cacheKeys;
+        this.cacheGenerations = cacheGenerations;
+        this.nearCacheManager = nearCacheManager;
+        this.ttlRegistry = ttlRegistry;
+        this.writeBehindQueue = writeBehindQueue;
+        this.cacheMemory = cacheMemory;
+        this.batchSize = batchSize;
+        this.cacheExecutor = cacheExecutor;
+    }
+
+    /**
+     * Evicts the entry of a key.
+     *
+     * @param cacheName the cache name
+     * @param key the cache key
+     * @throws IllegalArgumentException if the cache is unknown
+     */
+    public void evict(String cacheName, Object key) {
+        TtlInfo ttlInfo = getTtlInfo(cacheName);
+        String storeKey = cacheKeys.toRedisKey(cacheName, ttlInfo, key);
+        switch (ttlInfo.getCacheType()) {
+            case HAZELCAST -> hazelcastCacheStore.remove(cacheName, storeKey);
+            case LOCAL_OFFHEAP -> offHeapCacheStore.remove(cacheName, ttlInfo, storeKey);
+            default -> {
+                writeBehindQueue.discard(storeKey);
+                List<String> keys = withReplicas(storeKey, ttlInfo);
+                if (ttlInfo.isChunked()) {
+                    cacheStore.unlinkWithChunks(keys);
+                } else {
+                    cacheStore.unlink(keys);
+                }
+                nearCacheManager.invalidate(storeKey);
+                cacheMemory.recordEviction(cacheName, ttlInfo, storeKey);
+            }
+        }
+        LOGGER.debug("Evicted key {} of cache {}", storeKey, cacheName);
+    }
+
+    /**
+     * Evicts all entries of a cache.
+     *
+     * @param cacheName the cache name
+     * @return a future completed once the entries are removed
+     * @throws IllegalArgumentException if the cache is unknown
+     */
+    public CompletableFuture<Void> evictAll(String cacheName) {
+        TtlInfo ttlInfo = getTtlInfo(cacheName);
+        if (ttlInfo.getCacheType() == TimedCacheable.CacheType.REDIS && ttlInfo.isGenerations()) {
+            String keyPrefix = cacheKeys.toKeyPrefix(cacheName, ttlInfo);
+            long generation = cacheGenerations.increment(cacheKeys.toGenerationKey(cacheName, ttlInfo));
+            writeBehindQueue.discardAll(keyPrefix);
+            nearCacheManager.clear(cacheName);
+            cacheMemory.clear(cacheName, ttlInfo);
+            LOGGER.debug("Evicted all entries of cache {}, now in generation {}", cacheName, generation);
+            return CompletableFuture.completedFuture(null);
+        }
+        return cacheExecutor.run(() -> {
+            switch (ttlInfo.getCacheType()) {
+                case HAZELCAST -> hazelcastCacheStore.clear(cacheName);
+                case LOCAL_OFFHEAP -> offHeapCacheStore.clear(cacheName);
+                default -> purge(cacheName, ttlInfo);
+            }
+        }).whenComplete((ignored, e) -> {
+            if (e != null) {
+                LOGGER.error("Error evicting all entries of cache " + cacheName + ": " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Evicts the Redis entries tagged with a tag.
+     *
+     * @param tag the tag
+     * @return a future completed with the number of removed keys
+     */
+    public CompletableFuture<Long> evictTag(String tag) {
+        return cacheExecutor.supply(() -> {
+            String tagKey = cacheKeys.toTagKey(tag);
+            String purgeKey = RedisKeys.companionKey(tagKey, PURGE_SUFFIX + UUID.randomUUID());
+            if (!cacheStore.renameIfExists(tagKey, purgeKey)) {
+                return 0L;
+            }
+            AtomicLong removed = new AtomicLong();
+            cacheStore.scanMembers(purgeKey, batchSize, keys -> removed.addAndGet(remove(keys)));
+            cacheStore.unlink(List.of(purgeKey));
+            LOGGER.debug("Evicted {} entries tagged {}", removed.get(), tag);
+            return removed.get();
+        }).whenComplete((ignored, e) -> {
+            if (e != null) {
+                LOGGER.error("Error evicting tag " + tag + ": " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Records the tags of a Redis entry that was written.
+     *
+     * @param redisKey the Redis key of the entry
+     * @param ttlInfo the configuration of the cache
+     * @param tags the tags of the entry
+     * @param ttlMillis the TTL of the entry in milliseconds
+     */
+    public void recordTags(String redisKey, TtlInfo ttlInfo, Collection<String> tags, long ttlMillis) {
+        List<String> members = withReplicas(redisKey, ttlInfo);
+        for (String tag : tags) {
+            cacheStore.addToSet(cacheKeys.toTagKey(tag), members, ttlMillis);
+        }
+    }
+
+    /**
+     * Removes the Redis entries of a cache found by {@code SCAN}, including the hot key replicas of a
+     * cache with a hash tag, which carry no hash tag.
+     */
+    private void purge(String cacheName, TtlInfo ttlInfo) {
+        writeBehindQueue.discardAll(cacheKeys.toKeyPrefix(cacheName, ttlInfo));
+        AtomicLong removed = new AtomicLong();
+        cacheStore.scan(cacheKeys.toPattern(cacheName, ttlInfo), batchSize, keys -> removed.addAndGet(cacheStore.unlink(keys)));
+        if (ttlInfo.isHashTag() && ttlInfo.getHotKeyReplicas() > 0) {
+            TtlInfo untagged = ttlInfo.toBuilder().hashTag(false).build();
+            cacheStore.scan(cacheKeys.toPattern(cacheName, untagged), batchSize, keys -> removed.addAndGet(cacheStore.unlink(keys)));
+        }
+        nearCacheManager.clear(cacheName);
+        cacheMemory.clear(cacheName, ttlInfo);
+        LOGGER.debug("Evicted {} entries of cache {}", removed.get(), cacheName);
+    }
+
+    private long remove(List<String> keys) {
+        long removed = cacheStore.unlink(keys);
+        for (String key : keys) {
+            writeBehindQueue.discard(key);
+            nearCacheManager.invalidate(key);
+        }
+        return removed;
+    }
+
+    private List<String> withReplicas(String redisKey, TtlInfo ttlInfo) {
+        List<String> keys = new ArrayList<>(ttlInfo.getHotKeyReplicas() + 1);
+        keys.add(redisKey);
+        keys.addAll(HotKeyDetector.replicaKeys(redisKey, ttlInfo.getHotKeyReplicas()));
+        return keys;
+    }
+
+    private TtlInfo getTtlInfo(String cacheName) {
+        TtlInfo ttlInfo = ttlRegistry.get(cacheName);
+        if (ttlInfo == null) {
+            throw new IllegalArgumentException("Unknown cache " + cacheName);
+        }
+        return ttlInfo;
+    }
+}
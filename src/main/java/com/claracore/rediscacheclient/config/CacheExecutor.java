@@ -0,0 +1,201 @@
+package com.claracore.rediscacheclient.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs the background work of the caches: refreshes, side writes of the interceptor, purges and warm-up.
+ * <p>
+ * Tasks run on virtual threads when the JVM supports them, one thread per task, so that thousands of
+ * blocking Redis calls in flight need no more OS threads than the Lettuce event loops. Otherwise, on
+ * Java 19 and 20 without preview features or when disabled, they run on a bounded pool of platform
+ * threads, with a bounded queue.
+ * </p>
+ * <p>
+ * The tasks of each cache are limited to the maximum concurrency of the cache, or the default
+ * maximum concurrency. A task of a cache at its limit, or rejected by a full platform pool, is not run,
+ * so that a burst of background work never queues up behind the caller.
+ * </p>
+ * <p>
+ * Example configuration in application.properties:
+ * <pre>
+ * timedcache.executor.virtual-threads=true
+ * timedcache.executor.platform-threads=16
+ * timedcache.executor.queue-capacity=1000
+ * timedcache.executor.max-concurrency=64
+ * cache.getPostRT.maxConcurrency=16
+ * </pre>
+ * </p>
+ *
+ * @author CGI
+ */
+public class CacheExecutor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheExecutor.class);
+    private static final String THREAD_PREFIX = "cache-io-";
+
+    private final ExecutorService executor;
+    private final boolean virtual;
+    private final int defaultConcurrency;
+    private final Map<String, Limit> limits = new ConcurrentHashMap<>();
+
+    /**
+     * @param virtualThreads whether to use virtual threads when the JVM supports them
+     * @param platformThreads the number of platform threads without virtual threads
+     * @param queueCapacity the queue capacity of the platform threads
+     * @param defaultConcurrency the maximum number of concurrent tasks of a cache without maximum concurrency
+     */
+    public CacheExecutor(boolean virtualThreads, int platformThreads, int queueCapacity, int defaultConcurrency) {
+        if (platformThreads <= 0 || queueCapacity <= 0 || defaultConcurrency <= 0) {
+            throw new IllegalArgumentException("Invalid cache executor: platformThreads=" + platformThreads
+                    + ", queueCapacity=" + queueCapacity + ", defaultConcurrency=" + defaultConcurrency);
+        }
+        ExecutorService virtualExecutor = virtualThreads ? newVirtualThreadExecutor() : null;
+        if (virtualExecutor != null) {
+            this.executor = virtualExecutor;
+        } else {
+            ThreadPoolExecutor platformExecutor = new ThreadPoolExecutor(platformThreads, platformThreads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory(THREAD_PREFIX));
+            platformExecutor.allowCoreThreadTimeOut(true);
+            this.executor = platformExecutor;
+        }
+        this.virtual = virtualExecutor != null;
+        this.defaultConcurrency = defaultConcurrency;
+        LOGGER.info("Cache executor running on {} threads", virtual ? "virtual" : platformThreads + " platform");
+    }
+
+    /**
+     * Runs a task of a cache in the background, unless the cache already runs its maximum number of tasks.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the configuration of the cache
+     * @param task the task
+     * @return true if the task was scheduled, false if it was not run
+     */
+    public boolean execute(String cacheName, TtlInfo ttlInfo, Runnable task) {
+        Semaphore permits = getLimit(cacheName, ttlInfo).permits;
+        if (!permits.tryAcquire()) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            return false;
+        }
+    }
+
+    /**
+     * Runs a task not bound to a cache in the background, or on the caller thread if the platform pool is full.
+     *
+     * @param task the task
+     * @param <T> the type of the result
+     * @return a future of the result of the task
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException e) {
+            try {
+                return CompletableFuture.completedFuture(task.get());
+            } catch (RuntimeException taskError) {
+                return CompletableFuture.failedFuture(taskError);
+            }
+        }
+    }
+
+    /**
+     * Runs a task not bound to a cache in the background, or on the caller thread if the platform pool is full.
+     *
+     * @param task the task
+     * @return a future completed once the task is done
+     */
+    public CompletableFuture<Void> run(Runnable task) {
+        return supply(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return true if tasks run on virtual threads
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Stops accepting tasks and waits briefly for the running ones.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Limit getLimit(String cacheName, TtlInfo ttlInfo) {
+        int concurrency = ttlInfo.getMaxConcurrency() > 0 ? ttlInfo.getMaxConcurrency() : defaultConcurrency;
+        Limit limit = limits.get(cacheName);
+        if (limit == null || limit.concurrency != concurrency) {
+            limit = limits.compute(cacheName, (name, current) -> current != null && current.concurrency == concurrency
+                    ? current : new Limit(concurrency));
+        }
+        return limit;
+    }
+
+    /**
+     * Creates an executor starting a virtual thread per task, through reflection since the build
+     * targets Java 19, where virtual threads are a preview feature.
+     *
+     * @return the executor, or null if virtual threads are not available
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, THREAD_PREFIX, 0L);
+            ThreadFactory threadFactory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, threadFactory);
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            LOGGER.debug("Virtual threads not available: {}", e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * The concurrency limit of one cache, replaced when its maximum concurrency changes.
+     */
+    private static final class Limit {
+        private final int concurrency;
+        private final Semaphore permits;
+
+        private Limit(int concurrency) {
+            this.concurrency = concurrency;
+            this.permits = new Semaphore(concurrency);
+        }
+    }
+}
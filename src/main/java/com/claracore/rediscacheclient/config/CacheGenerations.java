@@ -0,0 +1,102 @@
+package com.claracore.rediscacheclient.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the generation of the caches configured with {@code generations=true}, a counter in Redis
+ * that is part of the keys of their entries, see {@link CacheKeys}.
+ * <p>
+ * Incrementing the generation of a cache evicts all its entries at once, whatever their number:
+ * the entries of older generations are no longer looked up and expire with their TTL. Each
+ * instance reads the generation again once the refresh interval has elapsed, by a single caller
+ * while the others keep using the known generation, so that a generation incremented by another
+ * instance is observed within that interval. An instance that cannot read the generation keeps
+ * using the last one it knows.
+ * </p>
+ * <p>
+ * Example configuration in application.properties:
+ * <pre>
+ * timedcache.eviction.generation-refresh=1000
+ * cache.getPostRT.generations=true
+ * </pre>
+ * </p>
+ *
+ * @author CGI
+ */
+public class CacheGenerations {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheGenerations.class);
+
+    private final RedisCacheStore cacheStore;
+    private final long refreshMillis;
+    private final Map<String, Generation> generations = new ConcurrentHashMap<>();
+
+    /**
+     * @param cacheStore the store holding the generations
+     * @param refreshMillis the interval after which a generation is read again, in milliseconds
+     */
+    public CacheGenerations(RedisCacheStore cacheStore, long refreshMillis) {
+        this.cacheStore = cacheStore;
+        this.refreshMillis = refreshMillis;
+    }
+
+    /**
+     * Returns the current generation of a cache.
+     *
+     * @param generationKey the Redis key of the generation, see {@link CacheKeys#toGenerationKey}
+     * @return the generation, 0 if the cache was never evicted
+     */
+    public long current(String generationKey) {
+        Generation generation = generations.computeIfAbsent(generationKey, key -> new Generation());
+        long now = System.currentTimeMillis();
+        if (generation.readAt == 0 || (now - generation.readAt >= refreshMillis && generation.refreshing.compareAndSet(false, true))) {
+            try {
+                generation.update(read(generationKey));
+            } catch (Exception e) {
+                LOGGER.debug("Generation {} not refreshed: {}", generationKey, e.getMessage());
+            } finally {
+                generation.readAt = now;
+                generation.refreshing.set(false);
+            }
+        }
+        return generation.value;
+    }
+
+    /**
+     * Increments the generation of a cache, evicting all its entries.
+     *
+     * @param generationKey the Redis key of the generation
+     * @return the new generation
+     */
+    public long increment(String generationKey) {
+        long value = cacheStore.increment(generationKey);
+        Generation generation = generations.computeIfAbsent(generationKey, key -> new Generation());
+        generation.update(value);
+        generation.readAt = System.currentTimeMillis();
+        return value;
+    }
+
+    private long read(String generationKey) {
+        byte[] value = cacheStore.getBytes(generationKey);
+        return value != null ? Long.parseLong(new String(value, StandardCharsets.UTF_8)) : 0;
+    }
+
+    /**
+     * The last known generation of a cache. A generation never goes back, so that a read racing
+     * with a local increment cannot resurrect the evicted entries.
+     */
+    private static final class Generation {
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile long value;
+        private volatile long readAt;
+
+        private synchronized void update(long read) {
+            value = Math.max(value, read);
+        }
+    }
+}
@@ -1,39 +1,111 @@
 package com.claracore.rediscacheclient.config;
 
-import lombok.Getter;
 import org.aopalliance.intercept.MethodInvocation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.support.AopUtils;
 import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheEvictOperation;
 import org.springframework.cache.interceptor.CacheInterceptor;
+import org.springframework.cache.interceptor.CacheOperation;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.cache.interceptor.CacheOperationSource;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.cache.interceptor.CacheOperationInvoker;
+import org.springframework.cache.interceptor.CachePutOperation;
+import org.springframework.cache.interceptor.CacheableOperation;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleCacheResolver;
 import org.springframework.cache.support.SimpleValueWrapper;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.core.MethodClassKey;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
 
-import java.util.HashMap;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Custom CacheInterceptor that handles caching operations for different cache types.
  * It extends the default {@link CacheInterceptor} to add specific logic for Redis and Hazelcast caches.
+ * Redis caches are served by the {@link RedisCacheStore}, Hazelcast caches by the {@link HazelcastCacheStore};
+ * both share the key layout, codecs, near cache and metrics. Evictions are delegated to the {@link CacheEvictor}.
+ * Refreshes, hot key replicas and tags are written on the {@link CacheExecutor}.
+ * Redis writes and hits are accounted by the {@link CacheMemory}.
  *
  * @author CGI
  */
 public class CacheInterceptorApi extends CacheInterceptor {
     private static final Logger LOGGER = LoggerFactory.getLogger(CacheInterceptorApi.class);
 
-    @Getter
-    private static final Map<String, TtlInfo> ttlCache = new HashMap<>();
-    private final ThreadLocal<String> methodName = new ThreadLocal<>();
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final ThreadLocal<CacheInvocationContext> invocationContext = new ThreadLocal<>();
+    private final Map<CacheOperationMetadata, CacheOperationMetadata> compiledMetadata = new ConcurrentHashMap<>();
+    private final Map<MethodClassKey, String[]> populatedCacheNames = new ConcurrentHashMap<>();
+    private final RedisCacheStore cacheStore;
+    private final HazelcastCacheStore hazelcastCacheStore;
+    private final OffHeapCacheStore offHeapCacheStore;
+    private final CacheKeys cacheKeys;
+    private final NearCacheManager nearCacheManager;
+    private final TtlRegistry ttlRegistry;
+    private final CacheRefresher cacheRefresher;
+    private final WriteBehindQueue writeBehindQueue;
+    private final CacheMetrics cacheMetrics;
+    private final SingleFlight singleFlight;
+    private final BatchCacheLoader batchCacheLoader;
+    private final AsyncCacheSupport asyncCacheSupport;
+    private final AdmissionPolicy admissionPolicy;
+    private final HotKeyDetector hotKeyDetector;
+    private final CacheWarmUp cacheWarmUp;
+    private final CacheEvictor cacheEvictor;
+    private final CacheMemory cacheMemory;
+    private final CacheExecutor cacheExecutor;
+    private final TtlExpressionEvaluator ttlExpressionEvaluator = new TtlExpressionEvaluator();
+    private final CacheTagEvaluator cacheTagEvaluator = new CacheTagEvaluator();
 
-    public CacheInterceptorApi(RedisTemplate<String, Object> redisTemplate) {
-        this.redisTemplate = redisTemplate;
+    public CacheInterceptorApi(RedisCacheStore cacheStore, HazelcastCacheStore hazelcastCacheStore, OffHeapCacheStore offHeapCacheStore, CacheKeys cacheKeys,
+                               NearCacheManager nearCacheManager, TtlRegistry ttlRegistry, CacheRefresher cacheRefresher,
+                               WriteBehindQueue writeBehindQueue, CacheMetrics cacheMetrics, HotKeyDetector hotKeyDetector,
+                               CacheWarmUp cacheWarmUp, CacheEvictor cacheEvictor, CacheMemory cacheMemory, CacheExecutor cacheExecutor) {
+        this.cacheStore = cacheStore;
+        this.hazelcastCacheStore = hazelcastCacheStore;
+        this.offHeapCacheStore = offHeapCacheStore;
+        this.cacheKeys = cacheKeys;
+        this.nearCacheManager = nearCacheManager;
+        this.ttlRegistry = ttlRegistry;
+        this.cacheRefresher = cacheRefresher;
+        this.writeBehindQueue = writeBehindQueue;
+        this.cacheMetrics = cacheMetrics;
+        this.singleFlight = new SingleFlight(cacheStore);
+        this.batchCacheLoader = new BatchCacheLoader(cacheStore, cacheKeys, nearCacheManager, ttlRegistry, writeBehindQueue, cacheMetrics, cacheMemory);
+        this.asyncCacheSupport = new AsyncCacheSupport(cacheStore, hazelcastCacheStore, offHeapCacheStore, cacheKeys, nearCacheManager, ttlRegistry, writeBehindQueue, cacheMetrics, cacheMemory);
+        this.admissionPolicy = new AdmissionPolicy(cacheMetrics);
+        this.hotKeyDetector = hotKeyDetector;
+        this.cacheWarmUp = cacheWarmUp;
+        this.cacheEvictor = cacheEvictor;
+        this.cacheMemory = cacheMemory;
+        this.cacheExecutor = cacheExecutor;
+        setKeyGenerator(new CacheKeyGenerator());
     }
 
     /**
      * Retrieves a value from the cache, considering the TTL and cache type.
-     * For Redis, it fetches the value using redisTemplate.
-     * Placeholder for Hazelcast cache type is included.
+     * For Redis, the value is looked up in the pending writes, the near cache and the hot key replica
+     * of the cache, then in Redis unless the {@link RedisCircuitBreaker} is open.
+     * An expired or soon expiring entry may be served while it is recomputed in the background.
+     * A single-flight miss is recorded for the following invocation.
+     * For Hazelcast and local off-heap caches, the value is read from their store.
      *
      * @param cache the cache to retrieve the value from
      * @param key the key of the value to retrieve
@@ -41,38 +113,125 @@ public class CacheInterceptorApi extends CacheInterceptor {
      */
     @Override
     protected Cache.ValueWrapper doGet(Cache cache, Object key) {
-        TtlInfo ttlInfo = ttlCache.get(cache.getName());
+        TtlInfo ttlInfo = ttlRegistry.get(cache.getName());
         if (ttlInfo == null || ttlInfo.getTtl() < 0) {
             return null;
         }
 
+        CacheInvocationContext context = invocationContext.get();
         Cache.ValueWrapper value = null;
+        boolean bypassed = false;
+        String redisKey = null;
         try {
             if (ttlInfo.getCacheType() == TimedCacheable.CacheType.HAZELCAST) {
-                // Placeholder for Hazelcast get operation
-                LOGGER.warn("Hazelcast cache type is not implemented.");
-                return null;
+                String storeKey = cacheKeys.toRedisKey(cache.getName(), ttlInfo, key);
+                admissionPolicy.recordAccess(cache.getName(), ttlInfo, storeKey);
+                NearCache nearCache = nearCacheManager.getNearCache(cache.getName(), ttlInfo);
+                Object stored = nearCache != null ? nearCache.get(storeKey) : null;
+                if (stored == null) {
+                    long invalidationSequence = nearCache != null ? nearCache.getInvalidationSequence(storeKey) : 0;
+                    long start = System.nanoTime();
+                    stored = hazelcastCacheStore.get(cache.getName(), storeKey);
+                    cacheMetrics.recordGet(cache.getName(), System.nanoTime() - start);
+                    if (stored != null && nearCache != null) {
+                        nearCache.populate(storeKey, stored, invalidationSequence);
+                    }
+                }
+                if (stored != null) {
+                    value = new SimpleValueWrapper(CacheEnvelope.unwrap(stored));
+                }
+            } else if (ttlInfo.getCacheType() == TimedCacheable.CacheType.LOCAL_OFFHEAP) {
+                String storeKey = cacheKeys.toRedisKey(cache.getName(), ttlInfo, key);
+                admissionPolicy.recordAccess(cache.getName(), ttlInfo, storeKey);
+                long start = System.nanoTime();
+                Object stored = offHeapCacheStore.get(cache.getName(), ttlInfo, storeKey);
+                cacheMetrics.recordGet(cache.getName(), System.nanoTime() - start);
+                if (stored != null && !CacheEnvelope.isExpired(stored)) {
+                    value = new SimpleValueWrapper(CacheEnvelope.unwrap(stored));
+                }
             } else if (ttlInfo.getCacheType() == TimedCacheable.CacheType.REDIS) {
-                Object redisValue = redisTemplate.opsForValue().get(key);
-                if (redisValue != null) {
-                    value = new SimpleValueWrapper(redisValue);
+                redisKey = cacheKeys.toRedisKey(cache.getName(), ttlInfo, key);
+                admissionPolicy.recordAccess(cache.getName(), ttlInfo, redisKey);
+                boolean hot = hotKeyDetector.recordAccess(cache.getName(), ttlInfo, redisKey);
+                cacheWarmUp.recordAccess(cache.getName(), ttlInfo, redisKey, context != null ? context.getInvocation() : null);
+                NearCache nearCache = nearCacheManager.getNearCache(cache.getName(), ttlInfo);
+                NearCache hotReplica = hot
+                        ? nearCacheManager.getHotReplica(cache.getName(), hotKeyDetector.getTopK(), ttlInfo.getHotKeyLocalTtl()) : null;
+                Object stored = ttlInfo.isWriteBehind() ? writeBehindQueue.getPending(redisKey) : null;
+                if (stored == null && nearCache != null) {
+                    stored = nearCache.get(redisKey);
+                }
+                if (stored == null && hotReplica != null) {
+                    stored = hotReplica.get(redisKey);
+                }
+                if (stored == null) {
+                    bypassed = !cacheStore.getCircuitBreaker().isCallPermitted();
+                }
+                if (stored == null && !bypassed) {
+                    long invalidationSequence = nearCache != null ? nearCache.getInvalidationSequence(redisKey) : 0;
+                    long hotReplicaSequence = hotReplica != null ? hotReplica.getInvalidationSequence(redisKey) : 0;
+                    long start = System.nanoTime();
+                    stored = hot ? getHotEntry(redisKey, ttlInfo) : getEntry(redisKey, ttlInfo);
+                    cacheMetrics.recordGet(cache.getName(), System.nanoTime() - start);
+                    if (stored != null && nearCache != null) {
+                        nearCache.populate(redisKey, stored, invalidationSequence);
+                    }
+                    if (stored != null && hotReplica != null) {
+                        hotReplica.populate(redisKey, stored, hotReplicaSequence);
+                    }
+                }
+                if (stored != null && !ttlInfo.isStaleServing() && CacheEnvelope.isExpired(stored)) {
+                    // Past its logical expiry, but still held by the near cache
+                    stored = null;
+                }
+                if (stored != null && ttlInfo.isStaleServing() && CacheEnvelope.isExpired(stored)) {
+                    CacheEnvelope envelope = (CacheEnvelope) stored;
+                    long staleMillis = System.currentTimeMillis() - envelope.getExpiresAt();
+                    if (staleMillis < ttlInfo.getTimeUnit().toMillis(ttlInfo.getStaleWhileRevalidate())) {
+                        value = new SimpleValueWrapper(envelope.getValue());
+                        cacheMetrics.recordStale(cache.getName(), false);
+                        refreshAhead(cache, redisKey, context);
+                    } else if (context != null && staleMillis < ttlInfo.getTimeUnit().toMillis(ttlInfo.getStaleIfError())) {
+                        context.recordStale(cache.getName(), redisKey, envelope.getValue());
+                    }
+                } else if (stored != null) {
+                    value = new SimpleValueWrapper(CacheEnvelope.unwrap(stored));
+                    cacheMemory.recordAccess(cache.getName(), ttlInfo, redisKey);
+                    if (stored instanceof CacheEnvelope envelope && ttlInfo.isRefreshAhead()
+                            && envelope.shouldRefresh(ttlInfo.getRefreshAheadBeta())) {
+                        refreshAhead(cache, redisKey, context);
+                    }
                 }
             }
+        } catch (CircuitBreakerOpenException e) {
+            bypassed = true;
+            LOGGER.debug("Redis bypassed in doGet: {}", e.getMessage());
         } catch (Exception e) {
+            cacheMetrics.recordGetError(cache.getName());
             LOGGER.error("Error in doGet: " + e.getMessage(), e);
         }
 
+        if (value != null) {
+            cacheMetrics.recordHit(cache.getName());
+        } else {
+            cacheMetrics.recordMiss(cache.getName());
+        }
         if (value != null && value.get() != null) {
-            LOGGER.debug("Method {} returned from cache {}", methodName.get(), cache.getName());
-            methodName.remove();
+            LOGGER.debug("Method {} returned from cache {}", context != null ? context.getMethodName() : null, cache.getName());
+        } else if (value == null && !bypassed && redisKey != null && context != null && ttlInfo.isSingleFlight()) {
+            context.recordMiss(cache.getName(), redisKey, ttlInfo);
         }
         return value;
     }
 
     /**
      * Puts a value into the cache, setting the TTL and cache type.
-     * For Redis, it stores the value using redisTemplate.
-     * Placeholder for Hazelcast cache type is included.
+     * The value is written only when admitted by the {@link AdmissionPolicy} of the cache, then the near
+     * cache copies of the key are dropped.
+     * For Redis, the value is written by the single-flight lease holder or queued for a write-behind cache,
+     * and not at all while the {@link RedisCircuitBreaker} is open; see {@link #putEntry} for the encoding.
+     * A stale value served because the method failed is not written back.
+     * For Hazelcast and local off-heap caches, the value is written to their store.
      *
      * @param cache the cache to store the value in
      * @param key the key of the value to store
@@ -80,26 +239,252 @@ public class CacheInterceptorApi extends CacheInterceptor {
      */
     @Override
     protected void doPut(Cache cache, Object key, Object result) {
-        TtlInfo ttlInfo = ttlCache.get(cache.getName());
+        TtlInfo ttlInfo = ttlRegistry.get(cache.getName());
         if (ttlInfo == null || ttlInfo.getTtl() < 0) {
             return;
         }
 
+        CacheInvocationContext staleContext = invocationContext.get();
+        if (staleContext != null && staleContext.isStaleServed()) {
+            return;
+        }
         try {
-            if (ttlInfo.getCacheType() == TimedCacheable.CacheType.HAZELCAST) {
-                // Placeholder for Hazelcast put operation
-                LOGGER.warn("Hazelcast cache type is not implemented.");
+            if (cache instanceof TimedCache timedCache && timedCache.isAsync()) {
+                asyncCacheSupport.put(cache.getName(), key, result, ttlInfo);
                 return;
+            }
+            if (ttlInfo.getCacheType() == TimedCacheable.CacheType.HAZELCAST) {
+                String storeKey = cacheKeys.toRedisKey(cache.getName(), ttlInfo, key);
+                CacheInvocationContext context = invocationContext.get();
+                long computeMillis = context != null ? context.getComputeMillis() : 0;
+                Object stored = ttlInfo.isNegativeCaching() && NegativeEntries.isNegative(result) ? NegativeEntries.toStored(result) : result;
+                if (!admissionPolicy.admits(cache.getName(), ttlInfo, storeKey, stored, computeMillis)) {
+                    return;
+                }
+                byte[] data = hazelcastCacheStore.encode(stored, ttlInfo);
+                if (!admissionPolicy.admitsSize(cache.getName(), ttlInfo, storeKey, data.length)) {
+                    return;
+                }
+                long start = System.nanoTime();
+                hazelcastCacheStore.set(cache.getName(), storeKey, data, ttlInfo.getEntryTtlMillis(stored), ttlInfo.isSlidingExpiration());
+                cacheMetrics.recordPut(cache.getName(), System.nanoTime() - start, data.length);
+                invalidateNearCache(cache.getName(), storeKey, ttlInfo);
+            } else if (ttlInfo.getCacheType() == TimedCacheable.CacheType.LOCAL_OFFHEAP) {
+                String storeKey = cacheKeys.toRedisKey(cache.getName(), ttlInfo, key);
+                CacheInvocationContext context = invocationContext.get();
+                long computeMillis = context != null ? context.getComputeMillis() : 0;
+                Object stored = toStored(result, computeMillis, ttlInfo);
+                if (!admissionPolicy.admits(cache.getName(), ttlInfo, storeKey, stored, computeMillis)) {
+                    return;
+                }
+                byte[] data = offHeapCacheStore.encode(stored, ttlInfo);
+                if (!admissionPolicy.admitsSize(cache.getName(), ttlInfo, storeKey, data.length)) {
+                    return;
+                }
+                long start = System.nanoTime();
+                offHeapCacheStore.set(cache.getName(), ttlInfo, storeKey, data, ttlInfo.getEntryTtlMillis(stored));
+                cacheMetrics.recordPut(cache.getName(), System.nanoTime() - start, data.length);
             } else if (ttlInfo.getCacheType() == TimedCacheable.CacheType.REDIS) {
-                redisTemplate.opsForValue().set((String) key, result, ttlInfo.getTtl(), ttlInfo.getTimeUnit());
+                String redisKey = cacheKeys.toRedisKey(cache.getName(), ttlInfo, key);
+                CacheInvocationContext context = invocationContext.get();
+                long computeMillis = context != null ? context.getComputeMillis() : 0;
+                if (context != null && context.isMiss(cache.getName(), redisKey) && context.isResultShared()) {
+                    // Written by the caller that invoked the method
+                    return;
+                }
+                Object stored = toStored(result, computeMillis, ttlInfo);
+                if (!admissionPolicy.admits(cache.getName(), ttlInfo, redisKey, stored, computeMillis)) {
+                    return;
+                }
+                if (context != null && context.isMiss(cache.getName(), redisKey) && context.getLeaseToken() != null) {
+                    if (!putEntry(cache.getName(), redisKey, stored, ttlInfo, context)) {
+                        return;
+                    }
+                    invalidateNearCache(cache.getName(), redisKey, ttlInfo);
+                    recordTags(cache.getName(), redisKey, stored, ttlInfo, context.getInvocation(), result);
+                    return;
+                }
+                writeRedis(cache.getName(), redisKey, stored, ttlInfo);
+                recordTags(cache.getName(), redisKey, stored, ttlInfo, context != null ? context.getInvocation() : null, result);
             }
+        } catch (CircuitBreakerOpenException e) {
+            LOGGER.debug("Redis bypassed in doPut: {}", e.getMessage());
         } catch (Exception e) {
+            cacheMetrics.recordPutError(cache.getName());
             LOGGER.error("Error in doPut: " + e.getMessage(), e);
         }
     }
 
     /**
-     * Intercepts the method invocation to set the method name in the thread-local variable.
+     * Evicts the entry of a key through the {@link CacheEvictor}: removed from Redis together with its
+     * hot key replicas, from the Hazelcast map or from the off-heap cache of the cache.
+     * Caches without TTL configuration are evicted by the wrapped cache.
+     *
+     * @param cache the cache to evict the entry from
+     * @param key the key of the entry
+     * @param immediate whether the eviction is expected to be visible immediately
+     */
+    @Override
+    protected void doEvict(Cache cache, Object key, boolean immediate) {
+        if (ttlRegistry.get(cache.getName()) == null) {
+            super.doEvict(cache, key, immediate);
+            return;
+        }
+        try {
+            cacheEvictor.evict(cache.getName(), key);
+        } catch (CircuitBreakerOpenException e) {
+            LOGGER.debug("Redis bypassed in doEvict: {}", e.getMessage());
+        } catch (Exception e) {
+            LOGGER.error("Error in doEvict: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Evicts all entries of a cache through the {@link CacheEvictor}. The purge runs in the background,
+     * unless the eviction is expected to be visible immediately, e.g. before the method is invoked.
+     * Caches without TTL configuration are cleared by the wrapped cache.
+     *
+     * @param cache the cache to clear
+     * @param immediate whether the eviction is expected to be visible immediately
+     */
+    @Override
+    protected void doClear(Cache cache, boolean immediate) {
+        if (ttlRegistry.get(cache.getName()) == null) {
+            super.doClear(cache, immediate);
+            return;
+        }
+        try {
+            CompletableFuture<Void> purge = cacheEvictor.evictAll(cache.getName());
+            if (immediate) {
+                purge.join();
+            }
+        } catch (Exception e) {
+            LOGGER.error("Error in doClear: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Resolves the caches of an operation and wraps them, so that the asynchronous retrievals
+     * of methods returning a {@link java.util.concurrent.CompletableFuture} or a reactive type
+     * are served by the {@link AsyncCacheSupport}.
+     * Tag evictions, which are not bound to caches, resolve no cache.
+     *
+     * @param context the invocation context of the cache operation
+     * @param cacheResolver the cache resolver of the operation
+     * @return the wrapped caches
+     */
+    @Override
+    protected Collection<? extends Cache> getCaches(CacheOperationInvocationContext<CacheOperation> context, CacheResolver cacheResolver) {
+        if (context.getOperation() instanceof TimedCacheEvictOperation) {
+            return List.of();
+        }
+        Collection<? extends Cache> caches = super.getCaches(context, cacheResolver);
+        boolean async = AsyncCacheSupport.isAsyncType(context.getMethod().getReturnType());
+        List<Cache> timedCaches = new ArrayList<>(caches.size());
+        for (Cache cache : caches) {
+            timedCaches.add(asyncCacheSupport.wrap(cache, async));
+        }
+        return timedCaches;
+    }
+
+    /**
+     * Resolves the metadata of a cache operation, compiling key expressions that only reference a
+     * method parameter into a {@link ParameterKeyGenerator}, so that their keys are computed without SpEL.
+     *
+     * @param operation the cache operation
+     * @param method the cached method
+     * @param targetClass the target class
+     * @return the metadata of the operation, with a compiled key when possible
+     */
+    @Override
+    protected CacheOperationMetadata getCacheOperationMetadata(CacheOperation operation, Method method, Class<?> targetClass) {
+        CacheOperationMetadata metadata = super.getCacheOperationMetadata(operation, method, targetClass);
+        return compiledMetadata.computeIfAbsent(metadata, interpreted -> {
+            KeyGenerator keyGenerator = ParameterKeyGenerator.compile(operation.getKey(), AopUtils.getMostSpecificMethod(method, targetClass));
+            CacheOperation compiled = keyGenerator != null ? withoutKey(operation) : null;
+            if (compiled == null) {
+                return interpreted;
+            }
+            return new CacheOperationMetadata(compiled, method, targetClass, keyGenerator, resolveCacheResolver(operation));
+        });
+    }
+
+    /**
+     * Invokes the underlying method, measuring how long it takes to compute the result.
+     * After a single-flight miss, the invocation is coordinated so that only one caller
+     * in the cluster invokes the method for the missed key.
+     * If the method fails while an expired value within its stale-if-error period was found,
+     * the expired value is returned instead of the failure.
+     *
+     * @param invoker the invoker of the underlying method
+     * @return the result of the method invocation
+     */
+    @Override
+    protected Object invokeOperation(CacheOperationInvoker invoker) {
+        CacheInvocationContext context = invocationContext.get();
+        if (context == null) {
+            return super.invokeOperation(invoker);
+        }
+        long start = System.nanoTime();
+        try {
+            if (context.getMissKey() == null) {
+                return super.invokeOperation(invoker);
+            }
+            return singleFlight.execute(context, invoker);
+        } catch (CacheOperationInvoker.ThrowableWrapper e) {
+            if (!context.hasStaleValue()) {
+                throw e;
+            }
+            context.setStaleServed(true);
+            cacheMetrics.recordStale(context.getStaleCacheName(), true);
+            LOGGER.warn("Method {} failed, serving stale value of key {} from cache {}: {}", context.getMethodName(),
+                    context.getStaleKey(), context.getStaleCacheName(), e.getOriginal().toString());
+            Object stale = context.getStaleValue();
+            return Optional.class == context.getMethod().getReturnType() ? Optional.ofNullable(stale) : stale;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            context.setComputeMillis(TimeUnit.NANOSECONDS.toMillis(nanos));
+            recordInvocation(context.getInvocation(), nanos);
+        }
+    }
+
+    /**
+     * Records the duration of an invocation of a cached method in the metrics of each cache it populates.
+     * The cache names are resolved once per method and target class.
+     */
+    private void recordInvocation(MethodInvocation invocation, long nanos) {
+        CacheOperationSource cacheOperationSource = getCacheOperationSource();
+        if (cacheOperationSource == null || invocation.getThis() == null) {
+            return;
+        }
+        Class<?> targetClass = AopProxyUtils.ultimateTargetClass(invocation.getThis());
+        String[] cacheNames = populatedCacheNames.computeIfAbsent(new MethodClassKey(invocation.getMethod(), targetClass),
+                methodClassKey -> resolvePopulatedCacheNames(cacheOperationSource, invocation.getMethod(), targetClass));
+        for (String cacheName : cacheNames) {
+            cacheMetrics.recordInvocation(cacheName, nanos);
+        }
+    }
+
+    private static String[] resolvePopulatedCacheNames(CacheOperationSource cacheOperationSource, Method method, Class<?> targetClass) {
+        Collection<CacheOperation> operations = cacheOperationSource.getCacheOperations(method, targetClass);
+        if (operations == null) {
+            return new String[0];
+        }
+        Set<String> cacheNames = new HashSet<>();
+        for (CacheOperation operation : operations) {
+            if (operation instanceof CacheableOperation || operation instanceof CachePutOperation) {
+                cacheNames.addAll(operation.getCacheNames());
+            }
+        }
+        return cacheNames.toArray(new String[0]);
+    }
+
+    /**
+     * Intercepts the method invocation to bind a fresh invocation context to the current thread.
+     * The context of an enclosing cached invocation is restored afterwards, and a single-flight
+     * lease that was not released by a put is released.
+     * Methods annotated with {@link TimedCacheableBatch} are loaded element by element by the {@link BatchCacheLoader}.
+     * The tags of methods annotated with {@link TimedCacheEvict} are evicted before the invocation, or after it returned.
      *
      * @param invocation the method invocation
      * @return the result of the method invocation
@@ -107,8 +492,353 @@ public class CacheInterceptorApi extends CacheInterceptor {
      */
     @Override
     public Object invoke(MethodInvocation invocation) throws Throwable {
-        methodName.set(invocation.getMethod().getName());
-        return super.invoke(invocation);
+        TimedCacheableBatchOperation batchOperation = findOperation(invocation, TimedCacheableBatchOperation.class);
+        if (batchOperation != null) {
+            return batchCacheLoader.load(batchOperation, invocation);
+        }
+        TimedCacheEvictOperation evictOperation = findOperation(invocation, TimedCacheEvictOperation.class);
+        if (evictOperation != null && evictOperation.isBeforeInvocation()) {
+            evictTags(evictOperation, invocation, null);
+        }
+
+        CacheInvocationContext enclosing = invocationContext.get();
+        CacheInvocationContext context = new CacheInvocationContext(invocation);
+        invocationContext.set(context);
+        try {
+            Object result = super.invoke(invocation);
+            if (evictOperation != null && !evictOperation.isBeforeInvocation()) {
+                evictTags(evictOperation, invocation, result);
+            }
+            return result;
+        } finally {
+            if (context.getLeaseToken() != null) {
+                singleFlight.release(context);
+            }
+            if (enclosing != null) {
+                invocationContext.set(enclosing);
+            } else {
+                invocationContext.remove();
+            }
+        }
+    }
+
+    private <T extends CacheOperation> T findOperation(MethodInvocation invocation, Class<T> operationType) {
+        CacheOperationSource cacheOperationSource = getCacheOperationSource();
+        if (cacheOperationSource == null || invocation.getThis() == null) {
+            return null;
+        }
+        Class<?> targetClass = AopProxyUtils.ultimateTargetClass(invocation.getThis());
+        Collection<CacheOperation> operations = cacheOperationSource.getCacheOperations(invocation.getMethod(), targetClass);
+        if (operations != null) {
+            for (CacheOperation operation : operations) {
+                if (operationType.isInstance(operation)) {
+                    return operationType.cast(operation);
+                }
+            }
+        }
+        return null;
     }
 
+    /**
+     * Evicts the tags of an evict operation in the background, if its condition passes.
+     */
+    private void evictTags(TimedCacheEvictOperation operation, MethodInvocation invocation, Object result) {
+        try {
+            if (!cacheTagEvaluator.isConditionPassing(operation.getCondition(), invocation, result)) {
+                return;
+            }
+            for (String tag : cacheTagEvaluator.evaluate(operation.getTags(), invocation, result)) {
+                cacheEvictor.evictTag(tag);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Error evicting cache tags: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Records the key of a Redis entry under the tags of its cache, for at least as long as the entry lives.
+     * The tags are evaluated on the caller thread, where the invocation is valid, and written on the
+     * cache executor. Tag errors are logged, the entry itself being written.
+     */
+    private void recordTags(String cacheName, String redisKey, Object stored, TtlInfo ttlInfo, MethodInvocation invocation,
+                            Object result) {
+        if (ttlInfo.getTags().isEmpty() || invocation == null) {
+            return;
+        }
+        try {
+            Set<String> tags = cacheTagEvaluator.evaluate(ttlInfo.getTags(), invocation, result);
+            if (!tags.isEmpty()) {
+                long ttlMillis = stored instanceof CacheEnvelope
+                        ? ttlInfo.getEntryTtlMillis(stored)
+                        : ttlInfo.getTimeUnit().toMillis(ttlInfo.getTtl()) * (100 + ttlInfo.getTtlJitter()) / 100;
+                runInBackground(cacheName, ttlInfo, () -> {
+                    try {
+                        cacheEvictor.recordTags(redisKey, ttlInfo, tags, ttlMillis);
+                    } catch (CircuitBreakerOpenException e) {
+                        LOGGER.debug("Redis bypassed recording tags: {}", e.getMessage());
+                    } catch (Exception e) {
+                        LOGGER.error("Error recording cache tags: " + e.getMessage(), e);
+                    }
+                });
+            }
+        } catch (Exception e) {
+            LOGGER.error("Error recording cache tags: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Runs a side write of an entry on the cache executor, or on the caller thread when the cache
+     * already runs its maximum number of background tasks.
+     */
+    private void runInBackground(String cacheName, TtlInfo ttlInfo, Runnable task) {
+        if (!cacheExecutor.execute(cacheName, ttlInfo, task)) {
+            task.run();
+        }
+    }
+
+    /**
+     * Schedules the asynchronous recomputation of an entry, refreshed ahead of its expiry or
+     * revalidated after it, by invoking a copy of the current method invocation on the refresh executor.
+     * The new result is written only if the condition and unless expressions of the operation allow it,
+     * and it is admitted by the {@link AdmissionPolicy}, as for a put.
+     *
+     * @param cache the cache of the entry
+     * @param redisKey the Redis key of the entry
+     * @param context the invocation context of the current caller
+     */
+    private void refreshAhead(Cache cache, String redisKey, CacheInvocationContext context) {
+        if (context == null || !(context.getInvocation() instanceof ProxyMethodInvocation proxyInvocation)) {
+            return;
+        }
+        MethodInvocation refreshInvocation = proxyInvocation.invocableClone();
+        String cacheName = cache.getName();
+        TtlInfo cacheTtlInfo = ttlRegistry.get(cacheName);
+        if (cacheTtlInfo == null) {
+            return;
+        }
+        boolean scheduled = cacheRefresher.submit(cacheName, cacheTtlInfo, redisKey, () -> {
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = ObjectUtils.unwrapOptional(refreshInvocation.proceed());
+            } catch (Throwable e) {
+                LOGGER.error("Error refreshing cache " + cacheName + ": " + e.getMessage(), e);
+                return;
+            }
+            long computeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            TtlInfo ttlInfo = ttlRegistry.get(cacheName);
+            if (result == null || ttlInfo == null || !isCacheable(cacheName, refreshInvocation, result)) {
+                return;
+            }
+            Object stored = toStored(result, computeMillis, ttlInfo);
+            if (admissionPolicy.admits(cacheName, ttlInfo, redisKey, stored, computeMillis)) {
+                writeRedis(cacheName, redisKey, stored, ttlInfo);
+                recordTags(cacheName, redisKey, stored, ttlInfo, refreshInvocation, result);
+            }
+        });
+        if (scheduled) {
+            LOGGER.debug("Refreshing key {} of cache {} ahead of expiry", redisKey, cacheName);
+        }
+    }
+
+    /**
+     * Checks that the cacheable and put operations of a method on a cache allow caching a result:
+     * their condition passes and their unless expression does not veto the result.
+     */
+    private boolean isCacheable(String cacheName, MethodInvocation invocation, Object result) {
+        CacheOperationSource cacheOperationSource = getCacheOperationSource();
+        if (cacheOperationSource == null || invocation.getThis() == null) {
+            return true;
+        }
+        Collection<CacheOperation> operations = cacheOperationSource.getCacheOperations(invocation.getMethod(),
+                AopProxyUtils.ultimateTargetClass(invocation.getThis()));
+        if (operations == null) {
+            return true;
+        }
+        for (CacheOperation operation : operations) {
+            String unless = operation instanceof CacheableOperation cacheable ? cacheable.getUnless()
+                    : operation instanceof CachePutOperation put ? put.getUnless() : null;
+            if (unless == null || !operation.getCacheNames().contains(cacheName)) {
+                continue;
+            }
+            if (!cacheTagEvaluator.isConditionPassing(operation.getCondition(), invocation, result)
+                    || (!unless.isEmpty() && cacheTagEvaluator.isConditionPassing(unless, invocation, result))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeRedis(String cacheName, String redisKey, Object stored, TtlInfo ttlInfo) {
+        if (ttlInfo.isWriteBehind()) {
+            writeBehindQueue.enqueue(cacheName, redisKey, stored, ttlInfo);
+            cacheMetrics.recordPut(cacheName, -1, -1);
+        } else if (cacheStore.getCircuitBreaker().isCallPermitted() && !putEntry(cacheName, redisKey, stored, ttlInfo, null)) {
+            return;
+        }
+        invalidateNearCache(cacheName, redisKey, ttlInfo);
+    }
+
+    /**
+     * Encodes and writes a Redis entry if admitted by its size, fenced by the single-flight lease of the
+     * context if given, then its hot key replicas. Entries of a chunked cache are encoded into pooled
+     * chunk buffers and, from the chunk threshold of the cache on, written as chunks with the manifest
+     * under the key of the entry, see {@link CacheChunks}.
+     *
+     * @return false if the entry was not admitted
+     */
+    private boolean putEntry(String cacheName, String redisKey, Object stored, TtlInfo ttlInfo, CacheInvocationContext leaseContext) {
+        long ttlMillis = ttlInfo.getEntryTtlMillis(stored);
+        if (!ttlInfo.isChunked()) {
+            byte[] data = cacheStore.encode(stored, ttlInfo);
+            if (!admissionPolicy.admitsSize(cacheName, ttlInfo, redisKey, data.length)) {
+                return false;
+            }
+            long start = System.nanoTime();
+            if (leaseContext != null) {
+                singleFlight.fencedPut(leaseContext, data, ttlMillis);
+            } else {
+                cacheStore.set(redisKey, data, ttlMillis);
+            }
+            recordWrite(cacheName, redisKey, data, data.length, ttlMillis, ttlInfo, start);
+            return true;
+        }
+        try (CacheChunks chunks = cacheStore.encodeChunks(stored, ttlInfo)) {
+            if (!admissionPolicy.admitsSize(cacheName, ttlInfo, redisKey, chunks.getLength())) {
+                return false;
+            }
+            long start = System.nanoTime();
+            byte[] data = chunks.getLength() < ttlInfo.getChunkThreshold()
+                    ? cacheStore.toEntry(chunks, ttlInfo) : cacheStore.writeChunks(redisKey, chunks, ttlInfo, ttlMillis);
+            if (leaseContext != null) {
+                singleFlight.fencedPut(leaseContext, data, ttlMillis);
+            } else {
+                cacheStore.replace(redisKey, data, ttlMillis);
+            }
+            recordWrite(cacheName, redisKey, data, chunks.getLength(), ttlMillis, ttlInfo, start);
+            return true;
+        }
+    }
+
+    private void recordWrite(String cacheName, String redisKey, byte[] data, int size, long ttlMillis, TtlInfo ttlInfo, long start) {
+        cacheMetrics.recordPut(cacheName, System.nanoTime() - start, size);
+        cacheMemory.recordPut(cacheName, ttlInfo, redisKey, size, ttlMillis);
+        writeHotReplicas(cacheName, redisKey, data, ttlMillis, ttlInfo);
+    }
+
+    /**
+     * Copies a cache operation without its key expression, the key being computed by a compiled key generator.
+     *
+     * @param operation the cache operation
+     * @return the copy, or null if the type of the operation is not supported
+     */
+    private static CacheOperation withoutKey(CacheOperation operation) {
+        CacheOperation.Builder builder;
+        if (operation instanceof CacheableOperation cacheable) {
+            CacheableOperation.Builder cacheableBuilder = new CacheableOperation.Builder();
+            cacheableBuilder.setUnless(cacheable.getUnless());
+            cacheableBuilder.setSync(cacheable.isSync());
+            builder = cacheableBuilder;
+        } else if (operation instanceof CachePutOperation put) {
+            CachePutOperation.Builder putBuilder = new CachePutOperation.Builder();
+            putBuilder.setUnless(put.getUnless());
+            builder = putBuilder;
+        } else if (operation instanceof CacheEvictOperation evict) {
+            CacheEvictOperation.Builder evictBuilder = new CacheEvictOperation.Builder();
+            evictBuilder.setCacheWide(evict.isCacheWide());
+            evictBuilder.setBeforeInvocation(evict.isBeforeInvocation());
+            builder = evictBuilder;
+        } else {
+            return null;
+        }
+        builder.setName(operation.getName());
+        builder.setCacheNames(operation.getCacheNames().toArray(new String[0]));
+        builder.setCacheManager(operation.getCacheManager());
+        builder.setCacheResolver(operation.getCacheResolver());
+        builder.setCondition(operation.getCondition());
+        return builder.build();
+    }
+
+    /**
+     * Resolves the cache resolver of an operation, as the default metadata resolution does.
+     */
+    private CacheResolver resolveCacheResolver(CacheOperation operation) {
+        if (StringUtils.hasText(operation.getCacheResolver())) {
+            return getBean(operation.getCacheResolver(), CacheResolver.class);
+        }
+        if (StringUtils.hasText(operation.getCacheManager())) {
+            return new SimpleCacheResolver(getBean(operation.getCacheManager(), CacheManager.class));
+        }
+        return getCacheResolver();
+    }
+
+    private Object toStored(Object result, long computeMillis, TtlInfo ttlInfo) {
+        if (ttlInfo.isNegativeCaching() && NegativeEntries.isNegative(result)) {
+            return NegativeEntries.toStored(result);
+        }
+        if (!ttlInfo.isEnvelopeStored()) {
+            return result;
+        }
+        long expiresAt = System.currentTimeMillis() + ttlInfo.jitter(ttlExpressionEvaluator.getTtlMillis(ttlInfo, result));
+        return new CacheEnvelope(result, computeMillis, expiresAt);
+    }
+
+    private void invalidateNearCache(String cacheName, String redisKey, TtlInfo ttlInfo) {
+        NearCache nearCache = nearCacheManager.getNearCache(cacheName, ttlInfo);
+        if (nearCache != null) {
+            nearCache.invalidate(redisKey);
+        }
+        if (ttlInfo.getHotKeyThreshold() > 0) {
+            nearCacheManager.invalidateHotReplica(cacheName, redisKey);
+        }
+    }
+
+    /**
+     * Reads a hot entry from a random one of its replicas, falling back to the entry itself
+     * when the replica was not written yet.
+     */
+    private Object getHotEntry(String redisKey, TtlInfo ttlInfo) {
+        if (ttlInfo.getHotKeyReplicas() > 0) {
+            int replica = ThreadLocalRandom.current().nextInt(ttlInfo.getHotKeyReplicas());
+            Object stored = cacheStore.get(HotKeyDetector.replicaKey(redisKey, replica));
+            if (stored != null) {
+                return stored;
+            }
+        }
+        return getEntry(redisKey, ttlInfo);
+    }
+
+    /**
+     * Reads an entry, resetting its TTL in the same command for caches with sliding expiration.
+     */
+    private Object getEntry(String redisKey, TtlInfo ttlInfo) {
+        if (ttlInfo.isSlidingExpiration()) {
+            return cacheStore.getAndExpire(redisKey, ttlInfo.jitter(ttlInfo.getTimeUnit().toMillis(ttlInfo.getTtl())));
+        }
+        return cacheStore.get(redisKey);
+    }
+
+    /**
+     * Writes the replicas of an entry hot on this instance, spread over the cluster slots, on the cache executor.
+     * The replicas of other entries are removed, since the entry may be hot on other instances, which read
+     * its replicas first. Replica errors are logged, the entry itself being written.
+     */
+    private void writeHotReplicas(String cacheName, String redisKey, byte[] data, long ttlMillis, TtlInfo ttlInfo) {
+        if (ttlInfo.getHotKeyReplicas() <= 0) {
+            return;
+        }
+        List<String> replicaKeys = HotKeyDetector.replicaKeys(redisKey, ttlInfo.getHotKeyReplicas());
+        boolean hot = hotKeyDetector.isHot(cacheName, redisKey);
+        runInBackground(cacheName, ttlInfo, () -> {
+            try {
+                if (hot) {
+                    cacheStore.multiSet(replicaKeys, data, ttlMillis);
+                } else {
+                    cacheStore.unlink(replicaKeys);
+                }
+            } catch (Exception e) {
+                LOGGER.error("Error writing hot key replicas: " + e.getMessage(), e);
+            }
+        });
+    }
 }
@@ -0,0 +1,95 @@
+package com.claracore.rediscacheclient.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.Method;
+import java.util.Objects;
+
+/**
+ * State of a single intercepted method invocation, shared between {@link CacheInterceptorApi#doGet},
+ * {@link CacheInterceptorApi#invokeOperation} and {@link CacheInterceptorApi#doPut}, which Spring
+ * calls in sequence on the invoking thread.
+ * <p>
+ * It records the cache miss that led to invoking the underlying method, so that the invocation
+ * can be coordinated with other callers, how the result was obtained and how long the
+ * underlying method took to compute it. It also keeps the expired value found by the lookup,
+ * served instead of the result if the method fails within the stale-if-error period.
+ * </p>
+ *
+ * @author CGI
+ */
+@Getter
+@Setter
+class CacheInvocationContext {
+    private final MethodInvocation invocation;
+    private String missCacheName;
+    private Object missKey;
+    private TtlInfo missTtlInfo;
+    private String leaseKey;
+    private String leaseToken;
+    private boolean resultShared;
+    private long computeMillis;
+    private String staleCacheName;
+    private Object staleKey;
+    private Object staleValue;
+    private boolean staleServed;
+
+    CacheInvocationContext(MethodInvocation invocation) {
+        this.invocation = invocation;
+    }
+
+    Method getMethod() {
+        return invocation.getMethod();
+    }
+
+    String getMethodName() {
+        return invocation.getMethod().getName();
+    }
+
+    /**
+     * Records a cache miss, unless one was already recorded for this invocation.
+     *
+     * @param cacheName the cache name
+     * @param key the cache key
+     * @param ttlInfo the cache configuration
+     */
+    void recordMiss(String cacheName, Object key, TtlInfo ttlInfo) {
+        if (missKey == null) {
+            missCacheName = cacheName;
+            missKey = key;
+            missTtlInfo = ttlInfo;
+        }
+    }
+
+    /**
+     * Records the expired value of a cache entry, unless one was already recorded for this invocation.
+     *
+     * @param cacheName the cache name
+     * @param key the cache key
+     * @param value the expired value
+     */
+    void recordStale(String cacheName, Object key, Object value) {
+        if (staleKey == null) {
+            staleCacheName = cacheName;
+            staleKey = key;
+            staleValue = value;
+        }
+    }
+
+    boolean hasStaleValue() {
+        return staleKey != null;
+    }
+
+    /**
+     * Checks whether the recorded miss is the one for the given cache entry.
+     *
+     * @param cacheName the cache name
+     * @param key the cache key
+     * @return true if the miss was recorded for this entry
+     */
+    boolean isMiss(String cacheName, Object key) {
+        return missKey != null && missCacheName.equals(cacheName) && Objects.equals(missKey, key);
+    }
+}
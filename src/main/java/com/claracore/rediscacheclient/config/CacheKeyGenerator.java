@@ -0,0 +1,27 @@
+package com.claracore.rediscacheclient.config;
+
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKeyGenerator;
+
+import java.lang.reflect.Method;
+
+/**
+ * Default key generator of the cached methods without key expression.
+ * <p>
+ * Like the {@link SimpleKeyGenerator}, a single non-null parameter is the key itself. Several
+ * parameters are encoded right away as one composite key by {@link CacheKeys#encodeComposite},
+ * instead of being wrapped in a {@code SimpleKey} whose string form is neither compact nor unambiguous.
+ * </p>
+ *
+ * @author CGI
+ */
+public class CacheKeyGenerator implements KeyGenerator {
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        if (params.length == 1 && params[0] != null) {
+            return params[0];
+        }
+        return CacheKeys.encodeComposite(params);
+    }
+}
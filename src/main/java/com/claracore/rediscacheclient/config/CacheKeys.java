@@ -0,0 +1,302 @@
+package com.claracore.rediscacheclient.config;
+
+import java.lang.reflect.Array;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Derives the Redis keys of cache entries from their cache keys.
+ * <p>
+ * Entries are stored under {@code <prefix>:<cacheName>:<key>}, the prefix segment being omitted
+ * when no prefix is configured, so that caches sharing key values do not collide. The cache name
+ * of a cache configured with {@code hashTag=true} is wrapped in a hash tag,
+ * {@code <prefix>:{<cacheName>}:<key>}, so that all its entries share one cluster hash slot.
+ * Since only the first hash tag of a key counts, a key expression such as
+ * {@code "'{' + #userId + '}:' + #postId"} co-locates related entries of other caches instead. The cache name of a cache configured with
+ * {@code generations=true} is followed by the current generation of the cache,
+ * {@code <prefix>:<cacheName>@<generation>:<key>}, see {@link CacheGenerations}.
+ * </p>
+ * <p>
+ * Strings, numbers, booleans, characters, enums and UUIDs are written as is, byte arrays in
+ * URL-safe Base64, and other objects as their {@link Object#toString()}, which they must override.
+ * Composite keys, such as arrays, collections and the keys generated for methods with several
+ * parameters, are written as their elements separated by {@code ':'}, null elements being written
+ * as {@code \0}. Colons and backslashes are escaped with a backslash in every key and element, so
+ * that a key such as {@code "a:b"} does not share the Redis key of the composite key
+ * {@code ("a", "b")}. A composite key of a single element shares the Redis key of that element.
+ * </p>
+ * <p>
+ * Example configuration in application.properties:
+ * <pre>
+ * timedcache.key-prefix=myapp
+ * cache.getPostRT.hashTag=true
+ * cache.getPostRT.generations=true
+ * </pre>
+ * </p>
+ *
+ * @author CGI
+ */
+public class CacheKeys {
+    private static final char SEPARATOR = ':';
+    private static final char GENERATION_SEPARATOR = '@';
+    private static final String GENERATION_SUFFIX = "#generation";
+    private static final String TAG_SEGMENT = "#tag:";
+    private static final String INDEX_SUFFIX = "#index";
+    private static final String INDEX_SIZES_SUFFIX = ":sizes";
+    private static final char ESCAPE = '\\';
+    private static final String NULL_ELEMENT = "\\0";
+    private static final ClassValue<Boolean> STRING_CONVERTIBLE = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("toString").getDeclaringClass() != Object.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
+    private final String prefix;
+    private final CacheGenerations generations;
+
+    /**
+     * @param prefix the prefix of all keys, empty for none
+     */
+    public CacheKeys(String prefix) {
+        this(prefix, null);
+    }
+
+    /**
+     * @param prefix the prefix of all keys, empty for none
+     * @param generations the generations of the caches configured with generations, null to ignore them
+     */
+    public CacheKeys(String prefix, CacheGenerations generations) {
+        this.prefix = prefix == null || prefix.isEmpty() ? "" : prefix + SEPARATOR;
+        this.generations = generations;
+    }
+
+    /**
+     * Returns the part shared by the Redis keys of all caches.
+     *
+     * @return the configured prefix followed by the separator, empty when no prefix is configured
+     */
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Returns the Redis key of a cache entry.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the configuration of the cache
+     * @param key the cache key
+     * @return the Redis key
+     * @throws IllegalArgumentException if the key cannot be converted to a String
+     */
+    public String toRedisKey(String cacheName, TtlInfo ttlInfo, Object key) {
+        String encodedKey = encode(key);
+        StringBuilder redisKey = new StringBuilder(prefix.length() + cacheName.length() + encodedKey.length() + 3);
+        appendKeyPrefix(redisKey, cacheName, ttlInfo);
+        return redisKey.append(encodedKey).toString();
+    }
+
+    /**
+     * Returns the part shared by the Redis keys of all entries of a cache, in its current generation.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the configuration of the cache
+     * @return the key prefix of the cache, ending with the separator
+     */
+    public String toKeyPrefix(String cacheName, TtlInfo ttlInfo) {
+        StringBuilder keyPrefix = new StringBuilder(prefix.length() + cacheName.length() + 3);
+        appendKeyPrefix(keyPrefix, cacheName, ttlInfo);
+        return keyPrefix.toString();
+    }
+
+    /**
+     * Returns a {@code SCAN} pattern matching the Redis keys of all entries of a cache, in its current generation.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the configuration of the cache
+     * @return the pattern
+     */
+    public String toPattern(String cacheName, TtlInfo ttlInfo) {
+        String keyPrefix = toKeyPrefix(cacheName, ttlInfo);
+        StringBuilder pattern = new StringBuilder(keyPrefix.length() + 2);
+        for (int i = 0; i < keyPrefix.length(); i++) {
+            char c = keyPrefix.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == ']' || c == ESCAPE) {
+                pattern.append(ESCAPE);
+            }
+            pattern.append(c);
+        }
+        return pattern.append('*').toString();
+    }
+
+    /**
+     * Returns the Redis key holding the generation of a cache.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the configuration of the cache
+     * @return the generation key
+     */
+    public String toGenerationKey(String cacheName, TtlInfo ttlInfo) {
+        return prefix + (ttlInfo.isHashTag() ? "{" + cacheName + "}" : cacheName) + GENERATION_SUFFIX;
+    }
+
+    /**
+     * Returns the Redis key of the index of the entries of a cache with a maximum number of entries or
+     * bytes, a sorted set of their keys scored by last access, see {@link CacheMemory}.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the configuration of the cache
+     * @return the index key
+     */
+    public String toIndexKey(String cacheName, TtlInfo ttlInfo) {
+        return prefix + (ttlInfo.isHashTag() ? "{" + cacheName + "}" : cacheName) + INDEX_SUFFIX;
+    }
+
+    /**
+     * Returns the Redis key of the sizes of the entries of the index of a cache, in the same cluster
+     * hash slot as the index.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the configuration of the cache
+     * @return the sizes key
+     */
+    public String toIndexSizesKey(String cacheName, TtlInfo ttlInfo) {
+        return RedisKeys.companionKey(toIndexKey(cacheName, ttlInfo), INDEX_SIZES_SUFFIX);
+    }
+
+    /**
+     * Returns the Redis key of the set of the keys tagged with a tag.
+     *
+     * @param tag the tag
+     * @return the tag key
+     */
+    public String toTagKey(String tag) {
+        return prefix + TAG_SEGMENT + tag;
+    }
+
+    private void appendKeyPrefix(StringBuilder keyPrefix, String cacheName, TtlInfo ttlInfo) {
+        keyPrefix.append(prefix);
+        if (ttlInfo.isHashTag()) {
+            keyPrefix.append('{').append(cacheName).append('}');
+        } else {
+            keyPrefix.append(cacheName);
+        }
+        if (ttlInfo.isGenerations() && generations != null) {
+            keyPrefix.append(GENERATION_SEPARATOR).append(generations.current(toGenerationKey(cacheName, ttlInfo)));
+        }
+        keyPrefix.append(SEPARATOR);
+    }
+
+    /**
+     * Encodes a cache key.
+     *
+     * @param key the cache key
+     * @return the encoded key
+     * @throws IllegalArgumentException if the key cannot be converted to a String
+     */
+    public static String encode(Object key) {
+        if (key instanceof EncodedKey encodedKey) {
+            return encodedKey.value();
+        }
+        StringBuilder encoded = new StringBuilder();
+        if (key instanceof Collection<?> || (key != null && key.getClass().isArray() && !(key instanceof byte[]))) {
+            appendComposite(encoded, key);
+        } else {
+            appendEscaped(encoded, encodeElement(key));
+        }
+        return encoded.toString();
+    }
+
+    /**
+     * Encodes the parameters of a method as one composite key.
+     *
+     * @param params the method parameters
+     * @return the encoded key, used as is by {@link #encode}
+     */
+    public static EncodedKey encodeComposite(Object... params) {
+        StringBuilder encoded = new StringBuilder();
+        appendComposite(encoded, params);
+        return new EncodedKey(encoded.toString());
+    }
+
+    private static void appendComposite(StringBuilder encoded, Object composite) {
+        if (composite instanceof Collection<?> elements) {
+            boolean first = true;
+            for (Object element : elements) {
+                if (!first) {
+                    encoded.append(SEPARATOR);
+                }
+                appendElement(encoded, element);
+                first = false;
+            }
+        } else {
+            int length = Array.getLength(composite);
+            for (int i = 0; i < length; i++) {
+                if (i > 0) {
+                    encoded.append(SEPARATOR);
+                }
+                appendElement(encoded, Array.get(composite, i));
+            }
+        }
+    }
+
+    private static void appendElement(StringBuilder encoded, Object element) {
+        if (element == null) {
+            encoded.append(NULL_ELEMENT);
+            return;
+        }
+        appendEscaped(encoded, element instanceof Collection<?> || (element.getClass().isArray() && !(element instanceof byte[]))
+                ? encode(element) : encodeElement(element));
+    }
+
+    private static void appendEscaped(StringBuilder encoded, String value) {
+        if (value.indexOf(SEPARATOR) < 0 && value.indexOf(ESCAPE) < 0) {
+            encoded.append(value);
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == SEPARATOR || c == ESCAPE) {
+                encoded.append(ESCAPE);
+            }
+            encoded.append(c);
+        }
+    }
+
+    private static String encodeElement(Object key) {
+        if (key instanceof String string) {
+            return string;
+        }
+        if (key instanceof Number || key instanceof Boolean || key instanceof Character || key instanceof UUID) {
+            return key.toString();
+        }
+        if (key instanceof Enum<?> constant) {
+            return constant.name();
+        }
+        if (key instanceof byte[] bytes) {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        }
+        if (key == null || !STRING_CONVERTIBLE.get(key.getClass())) {
+            throw new IllegalArgumentException("Cannot convert cache key " + key + " to a String: use a key expression,"
+                    + " a key generator returning a String or a key type overriding toString()");
+        }
+        return key.toString();
+    }
+
+    /**
+     * A cache key already encoded, written as is in the Redis key.
+     *
+     * @param value the encoded key
+     */
+    public record EncodedKey(String value) {
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.claracore.rediscacheclient.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Accounts for the Redis memory of every Redis cache and keeps the caches with a maximum number of
+ * entries or bytes within their bounds, so that a runaway cache cannot push Redis into evicting
+ * unrelated data.
+ * <p>
+ * The keys written by the caches with {@code maxEntries} or {@code maxBytes} are added to an index
+ * of the cache in Redis, a sorted set scored by last access along with a hash of their encoded
+ * sizes and their total, see {@link CacheKeys#toIndexKey}. One hit out of {@code access-sample-rate}
+ * updates the access time of its key, which makes the index an approximate LRU order. Every
+ * {@code enforce-interval} milliseconds, the keys of the oldest index batch that expired meanwhile are
+ * dropped from the index, then the least recently used keys are popped from the index and removed
+ * from Redis until the cache is back within its bounds. Instances enforcing the same cache at the same
+ * time pop distinct keys, since each pop is a script.
+ * </p>
+ * <p>
+ * Every {@code sample-interval} milliseconds, {@code MEMORY USAGE} is read for the last
+ * {@code sample-size} keys written by each Redis cache, giving the Redis memory per entry, overhead
+ * included. The entries, encoded bytes, memory per entry and estimated memory of each cache, and the
+ * entries evicted to enforce its bounds, are published as {@code timedcache.memory.*} metrics.
+ * </p>
+ * <p>
+ * Every write of an entry is accounted, whether one by one, by a batch load, by an asynchronous
+ * method or by the flush of a write-behind cache. Only the hot key replicas are not.
+ * </p>
+ * <p>
+ * Example configuration in application.properties:
+ * <pre>
+ * timedcache.memory.enforce-interval=1000
+ * timedcache.memory.sample-interval=60000
+ * timedcache.memory.sample-size=16
+ * timedcache.memory.access-sample-rate=16
+ * timedcache.memory.batch-size=1000
+ * cache.getPostRT.maxEntries=100000
+ * cache.getPostRT.maxBytes=268435456
+ * </pre>
+ * </p>
+ *
+ * @author CGI
+ */
+public class CacheMemory {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheMemory.class);
+    private static final int MAX_TRIMS_PER_RUN = 100;
+
+    private final RedisCacheStore cacheStore;
+    private final CacheKeys cacheKeys;
+    private final TtlRegistry ttlRegistry;
+    private final NearCacheManager nearCacheManager;
+    private final CacheMetrics cacheMetrics;
+    private final CacheExecutor cacheExecutor;
+    private final int sampleSize;
+    private final int accessSampleRate;
+    private final int batchSize;
+    private final Map<String, RecentKeys> recentKeys = new ConcurrentHashMap<>();
+
+    /**
+     * @param cacheStore the store of the Redis caches
+     * @param cacheKeys the layout of the keys
+     * @param ttlRegistry the configuration of the caches
+     * @param nearCacheManager the near caches to invalidate
+     * @param cacheMetrics the metrics publishing the memory of the caches
+     * @param cacheExecutor the executor running the index updates
+     * @param sampleSize the number of recent keys of each cache whose memory usage is sampled
+     * @param accessSampleRate one hit out of accessSampleRate updates the access time of its key
+     * @param batchSize the number of keys checked or evicted per command
+     */
+    public CacheMemory(RedisCacheStore cacheStore, CacheKeys cacheKeys, TtlRegistry ttlRegistry, NearCacheManager nearCacheManager,
+                       CacheMetrics cacheMetrics, CacheExecutor cacheExecutor, int sampleSize, int accessSampleRate, int batchSize) {
+        if (sampleSize <= 0 || accessSampleRate <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Invalid memory accounting: sampleSize=" + sampleSize
+                    + ", accessSampleRate=" + accessSampleRate + ", batchSize=" + batchSize);
+        }
+        this.cacheStore = cacheStore;
+        this.cacheKeys = cacheKeys;
+        this.ttlRegistry = ttlRegistry;
+        this.nearCacheManager = nearCacheManager;
+        this.cacheMetrics = cacheMetrics;
+        this.cacheExecutor = cacheExecutor;
+        this.sampleSize = sampleSize;
+        this.accessSampleRate = accessSampleRate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Records an entry written to Redis, added to the index of a cache with bounds.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the configuration of the cache
+     * @param redisKey the Redis key of the entry
+     * @param bytes the encoded size of the entry
+     * @param ttlMillis the TTL of the entry in milliseconds
+     */
+    public void recordPut(String cacheName, TtlInfo ttlInfo, String redisKey, int bytes, long ttlMillis) {
+        RecentKeys keys = recentKeys.get(cacheName);
+        if (keys == null) {
+            keys = recentKeys.computeIfAbsent(cacheName, name -> new RecentKeys(sampleSize));
+        }
+        keys.add(redisKey);
+        if (!ttlInfo.isMemoryBounded()) {
+            return;
+        }
+        Runnable index = () -> {
+            try {
+                cacheStore.addToIndex(cacheKeys.toIndexKey(cacheName, ttlInfo), cacheKeys.toIndexSizesKey(cacheName, ttlInfo),
+                        redisKey, System.currentTimeMillis(), bytes, ttlMillis);
+            } catch (CircuitBreakerOpenException e) {
+                LOGGER.debug("Redis bypassed indexing key {}: {}", redisKey, e.getMessage());
+            } catch (Exception e) {
+                LOGGER.error("Error indexing cache key " + redisKey + ": " + e.getMessage(), e);
+            }
+        };
+        if (!cacheExecutor.execute(cacheName, ttlInfo, index)) {
+            index.run();
+        }
+    }
+
+    /**
+     * Records a hit, sampled, updating the access time of the key in the index of a cache with bounds.
+     * The update is skipped while the cache is busy.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the configuration of the cache
+     * @param redisKey the Redis key of the entry
+     */
+    public void recordAccess(String cacheName, TtlInfo ttlInfo, String redisKey) {
+        if (!ttlInfo.isMemoryBounded()
+                || (accessSampleRate > 1 && ThreadLocalRandom.current().nextInt(accessSampleRate) != 0)) {
+            return;
+        }
+        cacheExecutor.execute(cacheName, ttlInfo, () -> {
+            try {
+                cacheStore.touchIndex(cacheKeys.toIndexKey(cacheName, ttlInfo), redisKey, System.currentTimeMillis());
+            } catch (Exception e) {
+                LOGGER.debug("Access of key {} not recorded: {}", redisKey, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Removes an evicted entry from the index of a cache with bounds.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the configuration of the cache
+     * @param redisKey the Redis key of the entry
+     */
+    public void recordEviction(String cacheName, TtlInfo ttlInfo, String redisKey) {
+        if (ttlInfo.isMemoryBounded()) {
+            cacheStore.removeFromIndex(cacheKeys.toIndexKey(cacheName, ttlInfo), cacheKeys.toIndexSizesKey(cacheName, ttlInfo),
+                    List.of(redisKey));
+        }
+    }
+
+    /**
+     * Drops the index of a cache with bounds whose entries were all evicted.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the configuration of the cache
+     */
+    public void clear(String cacheName, TtlInfo ttlInfo) {
+        if (ttlInfo.isMemoryBounded()) {
+            cacheStore.unlink(List.of(cacheKeys.toIndexKey(cacheName, ttlInfo), cacheKeys.toIndexSizesKey(cacheName, ttlInfo)));
+            cacheMetrics.recordMemory(cacheName, 0, 0);
+        }
+    }
+
+    /**
+     * Keeps every cache with bounds within its maximum entries and bytes, evicting its least recently
+     * used entries.
+     */
+    @Scheduled(fixedDelayString = "${timedcache.memory.enforce-interval:1000}",
+            initialDelayString = "${timedcache.memory.enforce-interval:1000}")
+    public void enforce() {
+        ttlRegistry.getSnapshot().forEach((cacheName, ttlInfo) -> {
+            if (!ttlInfo.isMemoryBounded() || !cacheStore.getCircuitBreaker().isCallPermitted()) {
+                return;
+            }
+            try {
+                enforce(cacheName, ttlInfo);
+            } catch (CircuitBreakerOpenException e) {
+                LOGGER.debug("Redis bypassed enforcing the bounds of cache {}: {}", cacheName, e.getMessage());
+            } catch (Exception e) {
+                LOGGER.error("Error enforcing the bounds of cache " + cacheName + ": " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Samples the Redis memory usage of the last keys written by every Redis cache.
+     */
+    @Scheduled(fixedDelayString = "${timedcache.memory.sample-interval:60000}",
+            initialDelayString = "${timedcache.memory.sample-interval:60000}")
+    public void sample() {
+        recentKeys.forEach((cacheName, keys) -> {
+            List<String> sample = keys.snapshot();
+            if (sample.isEmpty() || !cacheStore.getCircuitBreaker().isCallPermitted()) {
+                return;
+            }
+            try {
+                Map<String, Long> usage = cacheStore.memoryUsage(sample);
+                if (!usage.isEmpty()) {
+                    long total = 0;
+                    for (long bytes : usage.values()) {
+                        total += bytes;
+                    }
+                    cacheMetrics.recordMemoryUsage(cacheName, total / usage.size());
+                }
+            } catch (CircuitBreakerOpenException e) {
+                LOGGER.debug("Redis bypassed sampling the memory of cache {}: {}", cacheName, e.getMessage());
+            } catch (Exception e) {
+                LOGGER.error("Error sampling the memory of cache " + cacheName + ": " + e.getMessage(), e);
+            }
+        });
+    }
+
+    private void enforce(String cacheName, TtlInfo ttlInfo) {
+        String indexKey = cacheKeys.toIndexKey(cacheName, ttlInfo);
+        String sizesKey = cacheKeys.toIndexSizesKey(cacheName, ttlInfo);
+        List<String> expired = cacheStore.missing(cacheStore.oldestInIndex(indexKey, batchSize));
+        cacheStore.removeFromIndex(indexKey, sizesKey, expired);
+
+        long evicted = 0;
+        RedisCacheStore.IndexTrim trim;
+        int trims = 0;
+        do {
+            trim = cacheStore.trimIndex(indexKey, sizesKey, ttlInfo.getMaxEntries(), ttlInfo.getMaxBytes(), batchSize);
+            if (!trim.evicted().isEmpty()) {
+                evicted += ttlInfo.isChunked() ? cacheStore.unlinkWithChunks(trim.evicted()) : cacheStore.unlink(trim.evicted());
+                for (String key : trim.evicted()) {
+                    nearCacheManager.invalidate(key);
+                }
+            }
+        } while (trim.evicted().size() == batchSize && ++trims < MAX_TRIMS_PER_RUN);
+        cacheMetrics.recordMemory(cacheName, trim.entries(), trim.bytes());
+        if (evicted > 0) {
+            cacheMetrics.recordMemoryEvictions(cacheName, evicted);
+            LOGGER.debug("Evicted {} entries of cache {}, now {} entries of {} bytes", evicted, cacheName,
+                    trim.entries(), trim.bytes());
+        }
+    }
+
+    /**
+     * The last keys written by a cache, in a ring overwritten without locking.
+     */
+    private static final class RecentKeys {
+        private final AtomicReferenceArray<String> keys;
+        private final AtomicInteger next = new AtomicInteger();
+
+        private RecentKeys(int size) {
+            this.keys = new AtomicReferenceArray<>(size);
+        }
+
+        private void add(String key) {
+            keys.set(Math.floorMod(next.getAndIncrement(), keys.length()), key);
+        }
+
+        private List<String> snapshot() {
+            List<String> snapshot = new ArrayList<>(keys.length());
+            for (int i = 0; i < keys.length(); i++) {
+                String key = keys.get(i);
+                if (key != null && !snapshot.contains(key)) {
+                    snapshot.add(key);
+                }
+            }
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.claracore.rediscacheclient.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The meters of a single cache, registered once so that recording never allocates.
+ * All meters carry a {@code cache} tag holding the cache name. The memory gauges report NaN
+ * until a value is known, see {@link CacheMemory}.
+ *
+ * @author CGI
+ */
+public class CacheMeters {
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter puts;
+    private final Counter getErrors;
+    private final Counter putErrors;
+    private final Counter staleRevalidations;
+    private final Counter staleOnErrors;
+    private final Counter costRejections;
+    private final Counter sizeRejections;
+    private final Counter frequencyRejections;
+    private final Timer getLatency;
+    private final Timer putLatency;
+    private final Timer invocations;
+    private final DistributionSummary payloadSize;
+    private final Counter memoryEvictions;
+    private final AtomicLong memoryEntries = new AtomicLong(-1);
+    private final AtomicLong memoryBytes = new AtomicLong(-1);
+    private final AtomicLong memoryUsage = new AtomicLong(-1);
+
+    public CacheMeters(MeterRegistry registry, String cacheName) {
+        this.hits = Counter.builder("timedcache.gets").tag("cache", cacheName).tag("result", "hit")
+                .description("Cache lookups").register(registry);
+        this.misses = Counter.builder("timedcache.gets").tag("cache", cacheName).tag("result", "miss")
+                .description("Cache lookups").register(registry);
+        this.puts = Counter.builder("timedcache.puts").tag("cache", cacheName)
+                .description("Cache writes").register(registry);
+        this.getErrors = Counter.builder("timedcache.errors").tag("cache", cacheName).tag("operation", "get")
+                .description("Failed cache operations").register(registry);
+        this.putErrors = Counter.builder("timedcache.errors").tag("cache", cacheName).tag("operation", "put")
+                .description("Failed cache operations").register(registry);
+        this.staleRevalidations = Counter.builder("timedcache.stale").tag("cache", cacheName).tag("reason", "revalidate")
+                .description("Expired entries served stale").register(registry);
+        this.staleOnErrors = Counter.builder("timedcache.stale").tag("cache", cacheName).tag("reason", "error")
+                .description("Expired entries served stale").register(registry);
+        this.costRejections = rejectionCounter(registry, cacheName, "cost");
+        this.sizeRejections = rejectionCounter(registry, cacheName, "size");
+        this.frequencyRejections = rejectionCounter(registry, cacheName, "frequency");
+        this.getLatency = Timer.builder("timedcache.redis").tag("cache", cacheName).tag("operation", "get")
+                .description("Latency of Redis cache operations").register(registry);
+        this.putLatency = Timer.builder("timedcache.redis").tag("cache", cacheName).tag("operation", "put")
+                .description("Latency of Redis cache operations").register(registry);
+        this.invocations = Timer.builder("timedcache.invocations").tag("cache", cacheName)
+                .description("Execution time of the cached method on a miss").register(registry);
+        this.payloadSize = DistributionSummary.builder("timedcache.payload").tag("cache", cacheName).baseUnit("bytes")
+                .description("Size of the encoded cache entries").register(registry);
+        this.memoryEvictions = Counter.builder("timedcache.memory.evictions").tag("cache", cacheName)
+                .description("Entries evicted to keep the cache within its maximum entries or bytes").register(registry);
+        Gauge.builder("timedcache.memory.entries", memoryEntries, CacheMeters::known).tag("cache", cacheName)
+                .description("Entries of the cache in Redis").register(registry);
+        Gauge.builder("timedcache.memory.bytes", memoryBytes, CacheMeters::known).tag("cache", cacheName).baseUnit("bytes")
+                .description("Encoded size of the entries of the cache in Redis").register(registry);
+        Gauge.builder("timedcache.memory.usage", memoryUsage, CacheMeters::known).tag("cache", cacheName).baseUnit("bytes")
+                .description("Sampled Redis memory usage per entry, overhead included").register(registry);
+        Gauge.builder("timedcache.memory.estimated", this, CacheMeters::estimatedMemory).tag("cache", cacheName).baseUnit("bytes")
+                .description("Estimated Redis memory of the cache").register(registry);
+    }
+
+    public void recordHit() {
+        hits.increment();
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    public void recordGet(long nanos) {
+        getLatency.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPut(long nanos, int bytes) {
+        puts.increment();
+        if (nanos >= 0) {
+            putLatency.record(nanos, TimeUnit.NANOSECONDS);
+        }
+        if (bytes >= 0) {
+            payloadSize.record(bytes);
+        }
+    }
+
+    public void recordInvocation(long nanos) {
+        invocations.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordGetError() {
+        getErrors.increment();
+    }
+
+    public void recordPutError() {
+        putErrors.increment();
+    }
+
+    public void recordStale(boolean onError) {
+        (onError ? staleOnErrors : staleRevalidations).increment();
+    }
+
+    /**
+     * Records a result not admitted into the cache.
+     *
+     * @param reason the failed criterion: {@code cost}, {@code size} or {@code frequency}
+     */
+    public void recordRejected(String reason) {
+        switch (reason) {
+            case "cost" -> costRejections.increment();
+            case "size" -> sizeRejections.increment();
+            default -> frequencyRejections.increment();
+        }
+    }
+
+    /**
+     * Records the size of the cache in Redis.
+     *
+     * @param entries the number of entries
+     * @param bytes the encoded size of the entries
+     */
+    public void recordMemory(long entries, long bytes) {
+        memoryEntries.set(entries);
+        memoryBytes.set(bytes);
+    }
+
+    /**
+     * Records the mean Redis memory usage of a sample of entries.
+     *
+     * @param bytes the memory per entry, overhead included
+     */
+    public void recordMemoryUsage(long bytes) {
+        memoryUsage.set(bytes);
+    }
+
+    /**
+     * Records entries evicted to keep the cache within its bounds.
+     *
+     * @param count the number of evicted entries
+     */
+    public void recordMemoryEvictions(long count) {
+        memoryEvictions.increment(count);
+    }
+
+    /**
+     * Returns the current statistics of the cache, latencies being expressed in milliseconds.
+     *
+     * @return the statistics by name
+     */
+    public Map<String, Object> getStats() {
+        double lookups = hits.count() + misses.count();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", (long) hits.count());
+        stats.put("misses", (long) misses.count());
+        stats.put("hitRatio", lookups > 0 ? hits.count() / lookups : 0);
+        stats.put("puts", (long) puts.count());
+        stats.put("getErrors", (long) getErrors.count());
+        stats.put("putErrors", (long) putErrors.count());
+        stats.put("staleRevalidations", (long) staleRevalidations.count());
+        stats.put("staleOnErrors", (long) staleOnErrors.count());
+        stats.put("admissionRejections", (long) (costRejections.count() + sizeRejections.count() + frequencyRejections.count()));
+        stats.put("getLatencyMean", getLatency.mean(TimeUnit.MILLISECONDS));
+        stats.put("getLatencyMax", getLatency.max(TimeUnit.MILLISECONDS));
+        stats.put("putLatencyMean", putLatency.mean(TimeUnit.MILLISECONDS));
+        stats.put("putLatencyMax", putLatency.max(TimeUnit.MILLISECONDS));
+        stats.put("invocationMean", invocations.mean(TimeUnit.MILLISECONDS));
+        stats.put("invocationMax", invocations.max(TimeUnit.MILLISECONDS));
+        stats.put("payloadMean", payloadSize.mean());
+        stats.put("payloadMax", payloadSize.max());
+        stats.put("memoryEntries", known(memoryEntries));
+        stats.put("memoryBytes", known(memoryBytes));
+        stats.put("memoryUsage", known(memoryUsage));
+        stats.put("memoryEstimated", estimatedMemory(this));
+        stats.put("memoryEvictions", (long) memoryEvictions.count());
+        return stats;
+    }
+
+    /**
+     * Estimates the Redis memory of the cache from the number of entries and the sampled memory per
+     * entry, or from the encoded size when no memory usage was sampled yet.
+     */
+    private static double estimatedMemory(CacheMeters cacheMeters) {
+        long entries = cacheMeters.memoryEntries.get();
+        long usage = cacheMeters.memoryUsage.get();
+        if (entries >= 0 && usage >= 0) {
+            return (double) entries * usage;
+        }
+        return known(cacheMeters.memoryBytes);
+    }
+
+    private static double known(AtomicLong value) {
+        long current = value.get();
+        return current >= 0 ? current : Double.NaN;
+    }
+
+    private static Counter rejectionCounter(MeterRegistry registry, String cacheName, String reason) {
+        return Counter.builder("timedcache.admission.rejected").tag("cache", cacheName).tag("reason", reason)
+                .description("Results not admitted into the cache").register(registry);
+    }
+}
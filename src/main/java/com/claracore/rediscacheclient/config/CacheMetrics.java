@@ -0,0 +1,148 @@
+package com.claracore.rediscacheclient.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the Micrometer metrics of every cache.
+ * <p>
+ * The {@link CacheMeters} of a cache are registered as soon as its {@link TtlInfo} is published
+ * in the {@link TtlRegistry}, so that recording is a lookup followed by an update of existing
+ * meters. Operations on caches without registered meters are not recorded.
+ * </p>
+ *
+ * @author CGI
+ */
+public class CacheMetrics {
+    private final Map<String, CacheMeters> meters = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+
+    public CacheMetrics(MeterRegistry registry, TtlRegistry ttlRegistry) {
+        this.registry = registry;
+        ttlRegistry.addListener((cacheName, ttlInfo) -> register(cacheName));
+    }
+
+    /**
+     * Registers the meters of a cache, if not registered yet.
+     *
+     * @param cacheName the cache name
+     */
+    public void register(String cacheName) {
+        meters.computeIfAbsent(cacheName, name -> new CacheMeters(registry, name));
+    }
+
+    /**
+     * Returns the meters of a cache.
+     *
+     * @param cacheName the cache name
+     * @return the meters, or null if the cache is unknown
+     */
+    public CacheMeters get(String cacheName) {
+        return meters.get(cacheName);
+    }
+
+    public void recordHit(String cacheName) {
+        CacheMeters cacheMeters = meters.get(cacheName);
+        if (cacheMeters != null) {
+            cacheMeters.recordHit();
+        }
+    }
+
+    public void recordMiss(String cacheName) {
+        CacheMeters cacheMeters = meters.get(cacheName);
+        if (cacheMeters != null) {
+            cacheMeters.recordMiss();
+        }
+    }
+
+    public void recordGet(String cacheName, long nanos) {
+        CacheMeters cacheMeters = meters.get(cacheName);
+        if (cacheMeters != null) {
+            cacheMeters.recordGet(nanos);
+        }
+    }
+
+    /**
+     * Records a write.
+     *
+     * @param cacheName the cache name
+     * @param nanos the duration of the write, or -1 if the write is deferred
+     * @param bytes the size of the encoded entry, or -1 if unknown
+     */
+    public void recordPut(String cacheName, long nanos, int bytes) {
+        CacheMeters cacheMeters = meters.get(cacheName);
+        if (cacheMeters != null) {
+            cacheMeters.recordPut(nanos, bytes);
+        }
+    }
+
+    /**
+     * Records an invocation of the cached method.
+     *
+     * @param cacheName the cache name
+     * @param nanos the duration of the invocation
+     */
+    public void recordInvocation(String cacheName, long nanos) {
+        CacheMeters cacheMeters = meters.get(cacheName);
+        if (cacheMeters != null) {
+            cacheMeters.recordInvocation(nanos);
+        }
+    }
+
+    public void recordGetError(String cacheName) {
+        CacheMeters cacheMeters = meters.get(cacheName);
+        if (cacheMeters != null) {
+            cacheMeters.recordGetError();
+        }
+    }
+
+    public void recordPutError(String cacheName) {
+        CacheMeters cacheMeters = meters.get(cacheName);
+        if (cacheMeters != null) {
+            cacheMeters.recordPutError();
+        }
+    }
+
+    /**
+     * Records an expired entry served stale.
+     *
+     * @param cacheName the cache name
+     * @param onError true if served because the method failed, false if served while revalidated
+     */
+    public void recordStale(String cacheName, boolean onError) {
+        CacheMeters cacheMeters = meters.get(cacheName);
+        if (cacheMeters != null) {
+            cacheMeters.recordStale(onError);
+        }
+    }
+
+    public void recordRejected(String cacheName, String reason) {
+        CacheMeters cacheMeters = meters.get(cacheName);
+        if (cacheMeters != null) {
+            cacheMeters.recordRejected(reason);
+        }
+    }
+
+    public void recordMemory(String cacheName, long entries, long bytes) {
+        CacheMeters cacheMeters = meters.get(cacheName);
+        if (cacheMeters != null) {
+            cacheMeters.recordMemory(entries, bytes);
+        }
+    }
+
+    public void recordMemoryUsage(String cacheName, long bytes) {
+        CacheMeters cacheMeters = meters.get(cacheName);
+        if (cacheMeters != null) {
+            cacheMeters.recordMemoryUsage(bytes);
+        }
+    }
+
+    public void recordMemoryEvictions(String cacheName, long count) {
+        CacheMeters cacheMeters = meters.get(cacheName);
+        if (cacheMeters != null) {
+            cacheMeters.recordMemoryEvictions(count);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.claracore.rediscacheclient.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs background recomputations of cache entries on the {@link CacheExecutor}.
+ * <p>
+ * At most one refresh per entry is in progress at any time. When the cache already runs its
+ * maximum number of background tasks, or the executor queue is full, a refresh is skipped rather
+ * than blocking the caller: the entry then simply expires and is recomputed on the next miss.
+ * </p>
+ *
+ * @author CGI
+ */
+public class CacheRefresher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheRefresher.class);
+
+    private final Set<Object> inProgress = ConcurrentHashMap.newKeySet();
+    private final CacheExecutor cacheExecutor;
+
+    public CacheRefresher(CacheExecutor cacheExecutor) {
+        this.cacheExecutor = cacheExecutor;
+    }
+
+    /**
+     * Schedules the refresh of an entry, unless a refresh of the same entry is already in progress.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the configuration of the cache
+     * @param refreshKey the identity of the refreshed entry
+     * @param refresh the refresh task
+     * @return true if the refresh was scheduled
+     */
+    public boolean submit(String cacheName, TtlInfo ttlInfo, Object refreshKey, Runnable refresh) {
+        if (!inProgress.add(refreshKey)) {
+            return false;
+        }
+        boolean scheduled = cacheExecutor.execute(cacheName, ttlInfo, () -> {
+            try {
+                refresh.run();
+            } catch (Exception e) {
+                LOGGER.error("Error refreshing cache entry " + refreshKey + ": " + e.getMessage(), e);
+            } finally {
+                inProgress.remove(refreshKey);
+            }
+        });
+        if (!scheduled) {
+            inProgress.remove(refreshKey);
+            LOGGER.debug("Cache {} busy, skipping refresh of cache entry {}", cacheName, refreshKey);
+        }
+        return scheduled;
+    }
+}
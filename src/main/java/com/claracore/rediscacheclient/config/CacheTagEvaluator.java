@@ -0,0 +1,114 @@
+package com.claracore.rediscacheclient.config;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.util.ObjectUtils;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evaluates the tag expressions of {@link TimedCacheable#tags()} and {@link TimedCacheEvict#tags()},
+ * and the conditions of cache operations, against a method invocation.
+ * <p>
+ * Expressions reference the method parameters by name or as {@code #p0}/{@code #a0}, and the result
+ * of the method as {@code #result}, the target bean being the root object. An expression may return
+ * one tag or a collection or array of tags; null tags are ignored. Parsed expressions are kept per
+ * expression string.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>
+ * {@literal @}TimedCacheable(cacheNames = "getPostRT", key = "#postId", ttl = "${cache.getPostRT}",
+ *         tags = {"'user:' + #userId", "'post:' + #postId"})
+ * </pre>
+ * </p>
+ *
+ * @author CGI
+ */
+public class CacheTagEvaluator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheTagEvaluator.class);
+
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+
+    /**
+     * Evaluates tag expressions.
+     *
+     * @param tagExpressions the tag expressions
+     * @param invocation the method invocation
+     * @param result the result of the method, or null if not known yet
+     * @return the tags, empty if no expression could be evaluated
+     */
+    public Set<String> evaluate(List<String> tagExpressions, MethodInvocation invocation, Object result) {
+        Set<String> tags = new LinkedHashSet<>();
+        EvaluationContext context = createContext(invocation, result);
+        for (String tagExpression : tagExpressions) {
+            try {
+                addTags(tags, getExpression(tagExpression).getValue(context));
+            } catch (Exception e) {
+                LOGGER.error("Error evaluating tag expression " + tagExpression + ": " + e.getMessage(), e);
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * Evaluates a condition expression.
+     *
+     * @param condition the condition expression, empty for none
+     * @param invocation the method invocation
+     * @param result the result of the method, or null if not known yet
+     * @return true if there is no condition or it evaluates to true
+     */
+    public boolean isConditionPassing(String condition, MethodInvocation invocation, Object result) {
+        if (condition == null || condition.isEmpty()) {
+            return true;
+        }
+        return Boolean.TRUE.equals(getExpression(condition).getValue(createContext(invocation, result), Boolean.class));
+    }
+
+    private Expression getExpression(String expression) {
+        return expressions.computeIfAbsent(expression, parser::parseExpression);
+    }
+
+    private EvaluationContext createContext(MethodInvocation invocation, Object result) {
+        Object target = invocation.getThis();
+        Method method = target != null
+                ? AopUtils.getMostSpecificMethod(invocation.getMethod(), AopProxyUtils.ultimateTargetClass(target))
+                : invocation.getMethod();
+        MethodBasedEvaluationContext context = new MethodBasedEvaluationContext(target, method, invocation.getArguments(),
+                parameterNameDiscoverer);
+        context.setVariable("result", ObjectUtils.unwrapOptional(result));
+        return context;
+    }
+
+    private static void addTags(Set<String> tags, Object value) {
+        if (value instanceof Collection<?> values) {
+            for (Object element : values) {
+                addTags(tags, element);
+            }
+        } else if (value instanceof Object[] values) {
+            for (Object element : values) {
+                addTags(tags, element);
+            }
+        } else if (value != null) {
+            tags.add(value.toString());
+        }
+    }
+}
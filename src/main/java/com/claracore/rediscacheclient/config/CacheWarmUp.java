@@ -0,0 +1,417 @@
+package com.claracore.rediscacheclient.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.cache.interceptor.CacheOperation;
+import org.springframework.cache.interceptor.CacheOperationSource;
+import org.springframework.cache.interceptor.CacheableOperation;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warms up the caches at startup from a manifest of their most accessed keys.
+ * <p>
+ * For caches configured with {@code warmUpKeys}, one lookup out of {@code sampleRate} is counted in
+ * a {@link FrequencySketch} per cache, and the looked up keys are kept as candidates along with the
+ * method and arguments that computed them. Every {@code persist-interval} milliseconds, and at
+ * shutdown, the most frequent {@code warmUpKeys} candidates of each cache are written to the manifest,
+ * a local file or, with a {@code redis:} location, a Redis key shared by all instances.
+ * </p>
+ * <p>
+ * At startup, the keys of the manifest of each cache with a near cache are read from Redis in pipelined
+ * batches, at most {@code parallelism} at a time on the {@link CacheExecutor}, and loaded into its near
+ * cache. With {@code reinvoke}, keys missing from Redis are recomputed by invoking their cached method
+ * through the application bean, with the arguments read back as JSON using the parameter types of the
+ * method; only their existence is checked for caches without a near cache. Caches without a near cache
+ * are skipped otherwise, as there is nothing to load locally. Since the manifest may be written by anyone
+ * with access to its location, only public methods caching their results in the warmed cache, according
+ * to the cache operation source, are invoked.
+ * </p>
+ * <p>
+ * The warm-up runs as an {@link ApplicationRunner}, so it delays readiness: the application only
+ * reports accepting traffic once the warm-up completed, or gave up after {@code timeout} milliseconds.
+ * </p>
+ * <p>
+ * Example configuration in application.properties:
+ * <pre>
+ * timedcache.warm-up.location=redis:myapp:warm-up
+ * timedcache.warm-up.persist-interval=60000
+ * timedcache.warm-up.sample-rate=16
+ * timedcache.warm-up.batch-size=100
+ * timedcache.warm-up.parallelism=4
+ * timedcache.warm-up.timeout=30000
+ * timedcache.warm-up.reinvoke=true
+ * cache.getPostRT.warmUpKeys=1000
+ * </pre>
+ * </p>
+ *
+ * @author CGI
+ */
+public class CacheWarmUp implements ApplicationRunner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheWarmUp.class);
+
+    private static final String REDIS_LOCATION_PREFIX = "redis:";
+    private static final long REDIS_MANIFEST_TTL_MILLIS = TimeUnit.DAYS.toMillis(7);
+    private static final TypeReference<Map<String, List<ManifestEntry>>> MANIFEST_TYPE = new TypeReference<>() {
+    };
+
+    private final RedisCacheStore cacheStore;
+    private final NearCacheManager nearCacheManager;
+    private final TtlRegistry ttlRegistry;
+    private final BeanFactory beanFactory;
+    private final CacheOperationSource cacheOperationSource;
+    private final CacheExecutor cacheExecutor;
+    private final String location;
+    private final int sampleRate;
+    private final int batchSize;
+    private final int parallelism;
+    private final long timeoutMillis;
+    private final boolean reinvoke;
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final Map<String, KeyTracker> trackers = new ConcurrentHashMap<>();
+
+    public CacheWarmUp(RedisCacheStore cacheStore, NearCacheManager nearCacheManager, TtlRegistry ttlRegistry, BeanFactory beanFactory,
+                       CacheOperationSource cacheOperationSource, CacheExecutor cacheExecutor, String location, int sampleRate, int batchSize, int parallelism, long timeoutMillis, boolean reinvoke) {
+        if (sampleRate <= 0 || batchSize <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("Invalid warm-up: sampleRate=" + sampleRate + ", batchSize=" + batchSize
+                    + ", parallelism=" + parallelism);
+        }
+        this.cacheStore = cacheStore;
+        this.nearCacheManager = nearCacheManager;
+        this.ttlRegistry = ttlRegistry;
+        this.beanFactory = beanFactory;
+        this.cacheOperationSource = cacheOperationSource;
+        this.cacheExecutor = cacheExecutor;
+        this.location = location;
+        this.sampleRate = sampleRate;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.timeoutMillis = timeoutMillis;
+        this.reinvoke = reinvoke;
+    }
+
+    /**
+     * Records a lookup of a key, sampled, for caches with warm-up enabled.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the configuration of the cache
+     * @param key the Redis key of the entry
+     * @param invocation the invocation of the cached method, or null if unknown
+     */
+    public void recordAccess(String cacheName, TtlInfo ttlInfo, String key, MethodInvocation invocation) {
+        if (ttlInfo.getWarmUpKeys() <= 0 || location.isEmpty()
+                || (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0)) {
+            return;
+        }
+        KeyTracker tracker = trackers.get(cacheName);
+        if (tracker == null) {
+            tracker = trackers.computeIfAbsent(cacheName, name -> new KeyTracker(ttlInfo.getWarmUpKeys()));
+        }
+        tracker.record(key, invocation, ttlInfo.getWarmUpKeys());
+    }
+
+    /**
+     * Writes the most frequent keys of every cache with warm-up enabled to the manifest.
+     * Nothing is written while no key was sampled, so that an idle instance does not wipe the manifest.
+     */
+    @Scheduled(fixedDelayString = "${timedcache.warm-up.persist-interval:60000}",
+            initialDelayString = "${timedcache.warm-up.persist-interval:60000}")
+    public void persist() {
+        if (location.isEmpty() || trackers.isEmpty()) {
+            return;
+        }
+        Map<String, List<ManifestEntry>> manifest = new LinkedHashMap<>();
+        trackers.forEach((cacheName, tracker) -> {
+            TtlInfo ttlInfo = ttlRegistry.get(cacheName);
+            if (ttlInfo != null && ttlInfo.getWarmUpKeys() > 0) {
+                manifest.put(cacheName, tracker.top(ttlInfo.getWarmUpKeys()));
+            }
+        });
+        try {
+            byte[] data = objectMapper.writeValueAsBytes(manifest);
+            if (location.startsWith(REDIS_LOCATION_PREFIX)) {
+                cacheStore.set(location.substring(REDIS_LOCATION_PREFIX.length()), data, REDIS_MANIFEST_TTL_MILLIS);
+            } else {
+                Path path = Paths.get(location);
+                Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+                Files.write(temp, data);
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            LOGGER.debug("Persisted warm-up manifest of caches {} to {}", manifest.keySet(), location);
+        } catch (Exception e) {
+            LOGGER.error("Error persisting warm-up manifest: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Warms up the caches from the manifest, before the application accepts traffic.
+     *
+     * @param args the application arguments
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (location.isEmpty()) {
+            return;
+        }
+        Map<String, List<ManifestEntry>> manifest;
+        try {
+            manifest = readManifest();
+        } catch (Exception e) {
+            LOGGER.error("Error reading warm-up manifest: " + e.getMessage(), e);
+            return;
+        }
+        if (manifest == null || manifest.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        AtomicInteger loaded = new AtomicInteger();
+        AtomicInteger recomputed = new AtomicInteger();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Semaphore slots = new Semaphore(parallelism);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        try {
+            for (Map.Entry<String, List<ManifestEntry>> cacheEntries : manifest.entrySet()) {
+                String cacheName = cacheEntries.getKey();
+                List<ManifestEntry> entries = cacheEntries.getValue();
+                TtlInfo ttlInfo = ttlRegistry.get(cacheName);
+                if (ttlInfo == null || ttlInfo.getCacheType() != TimedCacheable.CacheType.REDIS
+                        || (!ttlInfo.isNearCache() && !reinvoke)) {
+                    continue;
+                }
+                for (int from = 0; from < entries.size(); from += batchSize) {
+                    List<ManifestEntry> batch = entries.subList(from, Math.min(entries.size(), from + batchSize));
+                    if (!slots.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                        throw new TimeoutException();
+                    }
+                    batches.add(cacheExecutor.run(() -> {
+                        try {
+                            if (!cancelled.get()) {
+                                warmUp(cacheName, ttlInfo, batch, loaded, recomputed);
+                            }
+                        } finally {
+                            slots.release();
+                        }
+                    }));
+                }
+            }
+            CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.warn("Cache warm-up did not complete within {} ms", timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LOGGER.error("Error warming up caches: " + e.getMessage(), e);
+        } finally {
+            cancelled.set(true);
+        }
+        LOGGER.info("Warmed up caches {} in {} ms: {} entries loaded, {} recomputed", manifest.keySet(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), loaded.get(), recomputed.get());
+    }
+
+    private Map<String, List<ManifestEntry>> readManifest() throws Exception {
+        byte[] data;
+        if (location.startsWith(REDIS_LOCATION_PREFIX)) {
+            data = cacheStore.getBytes(location.substring(REDIS_LOCATION_PREFIX.length()));
+        } else {
+            Path path = Paths.get(location);
+            data = Files.exists(path) ? Files.readAllBytes(path) : null;
+        }
+        return data != null ? objectMapper.readValue(data, MANIFEST_TYPE) : null;
+    }
+
+    private void warmUp(String cacheName, TtlInfo ttlInfo, List<ManifestEntry> batch, AtomicInteger loaded, AtomicInteger recomputed) {
+        List<String> keys = new ArrayList<>(batch.size());
+        for (ManifestEntry entry : batch) {
+            keys.add(entry.key());
+        }
+        NearCache nearCache = nearCacheManager.getNearCache(cacheName, ttlInfo);
+        Set<String> missing;
+        if (nearCache != null) {
+            long[] invalidationSequences = nearCache.getInvalidationSequences();
+            Map<String, Object> entries = cacheStore.multiGet(keys);
+            entries.forEach((key, stored) -> nearCache.populate(key, stored, invalidationSequences));
+            loaded.addAndGet(entries.size());
+            if (!reinvoke) {
+                return;
+            }
+            missing = new HashSet<>(keys);
+            missing.removeAll(entries.keySet());
+        } else if (reinvoke) {
+            missing = new HashSet<>(cacheStore.missing(keys));
+        } else {
+            return;
+        }
+        for (ManifestEntry entry : batch) {
+            if (missing.contains(entry.key()) && entry.target() != null && recompute(cacheName, entry)) {
+                recomputed.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Invokes the cached method of a missing entry through its bean, so that the cache interceptor stores the result.
+     * The method must be public and cache its results in the warmed cache.
+     */
+    private boolean recompute(String cacheName, ManifestEntry entry) {
+        try {
+            Class<?> targetClass = ClassUtils.forName(entry.target(), null);
+            Class<?>[] parameterTypes = new Class<?>[entry.parameterTypes().size()];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                parameterTypes[i] = ClassUtils.forName(entry.parameterTypes().get(i), null);
+            }
+            Method method = targetClass.getMethod(entry.method(), parameterTypes);
+            if (!isCachedIn(cacheName, method, targetClass)) {
+                LOGGER.warn("Method {} of warm-up manifest is not cached in cache {}, not invoked", method, cacheName);
+                return false;
+            }
+            Object bean = beanFactory.getBeanProvider(targetClass).getIfUnique();
+            if (bean == null) {
+                return false;
+            }
+            Type[] genericTypes = method.getGenericParameterTypes();
+            Object[] args = new Object[genericTypes.length];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = objectMapper.readValue(entry.args().get(i), objectMapper.constructType(genericTypes[i]));
+            }
+            method.invoke(bean, args);
+            return true;
+        } catch (Exception e) {
+            LOGGER.debug("Could not recompute key {} during warm-up: {}", entry.key(), e.toString());
+            return false;
+        }
+    }
+
+    private boolean isCachedIn(String cacheName, Method method, Class<?> targetClass) {
+        Collection<CacheOperation> operations = cacheOperationSource.getCacheOperations(method, targetClass);
+        if (operations == null) {
+            return false;
+        }
+        for (CacheOperation operation : operations) {
+            if (operation instanceof CacheableOperation && operation.getCacheNames().contains(cacheName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * An entry of the manifest: the Redis key, and the method and JSON arguments computing it when known.
+     */
+    record ManifestEntry(String key, String target, String method, List<String> parameterTypes, List<String> args) {
+    }
+
+    /**
+     * A candidate key of the manifest, with the bean, method and arguments of its last sampled lookup, when known.
+     */
+    private record Candidate(Object target, Method method, Object[] args) {
+    }
+
+    /**
+     * The sampled frequencies and the candidate keys of one cache.
+     */
+    private final class KeyTracker {
+        private final FrequencySketch sketch;
+        private final Map<String, Candidate> candidates = new ConcurrentHashMap<>();
+
+        private KeyTracker(int maxKeys) {
+            this.sketch = new FrequencySketch(Math.max(1024, 4 * maxKeys));
+        }
+
+        private void record(String key, MethodInvocation invocation, int maxKeys) {
+            sketch.increment(key.hashCode());
+            if (candidates.containsKey(key)) {
+                return;
+            }
+            Candidate candidate = invocation != null
+                    ? new Candidate(invocation.getThis(), invocation.getMethod(), invocation.getArguments())
+                    : new Candidate(null, null, null);
+            if (candidates.putIfAbsent(key, candidate) == null && candidates.size() > 2 * maxKeys) {
+                trim(maxKeys);
+            }
+        }
+
+        /**
+         * Drops the least frequent candidates, once twice as many as needed were collected.
+         */
+        private synchronized void trim(int maxKeys) {
+            if (candidates.size() <= 2 * maxKeys) {
+                return;
+            }
+            List<String> keys = byFrequency();
+            for (String key : keys.subList(maxKeys, keys.size())) {
+                candidates.remove(key);
+            }
+        }
+
+        private List<ManifestEntry> top(int maxKeys) {
+            List<String> keys = byFrequency();
+            List<ManifestEntry> top = new ArrayList<>(Math.min(maxKeys, keys.size()));
+            for (String key : keys.subList(0, Math.min(maxKeys, keys.size()))) {
+                Candidate candidate = candidates.get(key);
+                if (candidate != null) {
+                    top.add(toManifestEntry(key, candidate));
+                }
+            }
+            return top;
+        }
+
+        private List<String> byFrequency() {
+            List<String> keys = new ArrayList<>(candidates.keySet());
+            keys.sort(Comparator.comparingInt((String key) -> sketch.frequency(key.hashCode())).reversed());
+            return keys;
+        }
+    }
+
+    private ManifestEntry toManifestEntry(String key, Candidate candidate) {
+        if (candidate.target() == null) {
+            return new ManifestEntry(key, null, null, null, null);
+        }
+        try {
+            List<String> parameterTypes = new ArrayList<>();
+            for (Class<?> parameterType : candidate.method().getParameterTypes()) {
+                parameterTypes.add(parameterType.getName());
+            }
+            List<String> args = new ArrayList<>();
+            for (Object arg : candidate.args()) {
+                args.add(objectMapper.writeValueAsString(arg));
+            }
+            return new ManifestEntry(key, AopProxyUtils.ultimateTargetClass(candidate.target()).getName(),
+                    candidate.method().getName(), parameterTypes, args);
+        } catch (Exception e) {
+            // Arguments that cannot be written as JSON: the entry can be prefetched, not recomputed
+            return new ManifestEntry(key, null, null, null, null);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.claracore.rediscacheclient.config;
+
+import lombok.Value;
+
+/**
+ * A cache entry to write to Redis, with the name and the configuration of its cache.
+ *
+ * @author CGI
+ */
+@Value
+public class CacheWrite {
+    String cacheName;
+    String key;
+    Object stored;
+    TtlInfo ttlInfo;
+}
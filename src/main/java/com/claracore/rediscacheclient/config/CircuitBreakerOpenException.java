@@ -0,0 +1,14 @@
+package com.claracore.rediscacheclient.config;
+
+/**
+ * Thrown when the {@link RedisCircuitBreaker} rejects a Redis call. It carries no stack trace,
+ * since it is thrown on every rejected call while Redis is bypassed.
+ *
+ * @author CGI
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+
+    public CircuitBreakerOpenException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,113 @@
+package com.claracore.rediscacheclient.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min sketch estimating how often keys were accessed recently, as in TinyLFU.
+ * <p>
+ * Each key is counted in four 4-bit counters, chosen by four hash functions within one
+ * 64-bit word of the table so that an update touches a single cache line. The estimated
+ * frequency of a key is the minimum of its counters, capped at 15. Once ten times as many
+ * increments as the sketch size have been recorded, all counters are halved, so that the
+ * estimates reflect recent accesses rather than the whole history.
+ * </p>
+ * <p>
+ * The sketch is lock-free: counters are updated by compare-and-set on their word, and the
+ * halving is done word by word by the caller whose increment reached the sample size.
+ * Increments racing with the halving may be halved or not, which only blurs the estimates.
+ * </p>
+ *
+ * @author CGI
+ */
+class FrequencySketch {
+    static final int MAX_FREQUENCY = 15;
+
+    private static final long RESET_MASK = 0x7777_7777_7777_7777L;
+    private static final long ONE_MASK = 0x1111_1111_1111_1111L;
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    private final AtomicLongArray table;
+    private final int tableMask;
+    private final int sampleSize;
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * @param maximumSize the number of distinct keys the sketch is sized for
+     */
+    FrequencySketch(int maximumSize) {
+        int length = Integer.highestOneBit(Math.max(16, maximumSize - 1) << 1);
+        this.table = new AtomicLongArray(length);
+        this.tableMask = length - 1;
+        this.sampleSize = 10 * maximumSize;
+    }
+
+    /**
+     * Returns the estimated number of recent accesses of a key.
+     *
+     * @param hash the hash code of the key
+     * @return the estimated frequency, at most {@link #MAX_FREQUENCY}
+     */
+    int frequency(int hash) {
+        int spread = spread(hash);
+        int start = (spread & 3) << 2;
+        int frequency = MAX_FREQUENCY;
+        for (int i = 0; i < 4; i++) {
+            int counter = (int) ((table.get(indexOf(spread, i)) >>> ((start + i) << 2)) & 0xF);
+            frequency = Math.min(frequency, counter);
+        }
+        return frequency;
+    }
+
+    /**
+     * Records an access of a key.
+     *
+     * @param hash the hash code of the key
+     */
+    void increment(int hash) {
+        int spread = spread(hash);
+        int start = (spread & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(spread, i), start + i);
+        }
+        if (added && size.incrementAndGet() == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xFL << offset;
+        long word;
+        do {
+            word = table.get(index);
+            if ((word & mask) == mask) {
+                return false;
+            }
+        } while (!table.compareAndSet(index, word, word + (1L << offset)));
+        return true;
+    }
+
+    private void reset() {
+        int odd = 0;
+        for (int i = 0; i < table.length(); i++) {
+            long word = table.getAndUpdate(i, current -> (current >>> 1) & RESET_MASK);
+            odd += Long.bitCount(word & ONE_MASK);
+        }
+        int removed = odd >>> 2;
+        size.updateAndGet(current -> Math.max(0, current - removed) >>> 1);
+    }
+
+    private int indexOf(int spread, int i) {
+        long hash = (spread + SEEDS[i]) * SEEDS[i];
+        hash += hash >>> 32;
+        return (int) hash & tableMask;
+    }
+
+    private static int spread(int hash) {
+        int x = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -0,0 +1,240 @@
+package com.claracore.rediscacheclient.config;
+
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.map.MapEvent;
+import com.hazelcast.map.listener.EntryEvictedListener;
+import com.hazelcast.map.listener.EntryExpiredListener;
+import com.hazelcast.map.listener.EntryRemovedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+import com.hazelcast.map.listener.MapClearedListener;
+import com.hazelcast.map.listener.MapEvictedListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Reads and writes the entries of {@link TimedCacheable.CacheType#HAZELCAST HAZELCAST} caches in a
+ * Hazelcast data grid, encoding values with the {@link CacheCodecs codec} configured for their cache.
+ * <p>
+ * Each cache is an {@link IMap} named after the cache, whose entries expire with the TTL of the
+ * cache. Values are stored as encoded bytes, so that cached types need not be serializable by
+ * Hazelcast and every member or client decodes them alike.
+ * </p>
+ * <p>
+ * The Hazelcast instance is created on first use, so that applications without Hazelcast caches
+ * do not start a member. Near cache entries of Hazelcast caches are invalidated by a listener on
+ * each map, which is notified of the updates, removals, expirations and evictions made by any
+ * member or client of the cluster.
+ * </p>
+ *
+ * @author CGI
+ */
+public class HazelcastCacheStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HazelcastCacheStore.class);
+
+    private final Supplier<HazelcastInstance> instanceFactory;
+    private final boolean ownsInstance;
+    private final CacheCodecs cacheCodecs;
+    private final NearCacheManager nearCacheManager;
+    private final Map<String, IMap<String, byte[]>> maps = new ConcurrentHashMap<>();
+    private volatile HazelcastInstance hazelcastInstance;
+
+    /**
+     * @param instanceFactory the factory of the Hazelcast instance, called on first use
+     * @param ownsInstance whether the instance is shut down with the store
+     * @param cacheCodecs the codec registry
+     * @param nearCacheManager the near caches to invalidate
+     */
+    public HazelcastCacheStore(Supplier<HazelcastInstance> instanceFactory, boolean ownsInstance, CacheCodecs cacheCodecs,
+                               NearCacheManager nearCacheManager) {
+        this.instanceFactory = instanceFactory;
+        this.ownsInstance = ownsInstance;
+        this.cacheCodecs = cacheCodecs;
+        this.nearCacheManager = nearCacheManager;
+    }
+
+    /**
+     * Reads an entry.
+     *
+     * @param cacheName the cache name
+     * @param key the key of the entry
+     * @return the decoded value, possibly a {@link CacheEnvelope}, or null if the key does not exist
+     */
+    public Object get(String cacheName, String key) {
+        return cacheCodecs.decode(getMap(cacheName).get(key));
+    }
+
+    /**
+     * Writes an entry with the TTL of its cache.
+     *
+     * @param cacheName the cache name
+     * @param key the key of the entry
+     * @param stored the value to store, possibly wrapped in a {@link CacheEnvelope}
+     * @param ttlInfo the configuration of the cache
+     * @return the size of the encoded entry in bytes
+     */
+    public int set(String cacheName, String key, Object stored, TtlInfo ttlInfo) {
+        byte[] data = cacheCodecs.encode(stored, ttlInfo);
+        set(cacheName, key, data, ttlInfo.getEntryTtlMillis(stored), ttlInfo.isSlidingExpiration());
+        return data.length;
+    }
+
+    /**
+     * Writes an encoded entry. A sliding entry has no fixed TTL but expires once it was not read
+     * for the given TTL, as the max idle time of the entry.
+     *
+     * @param cacheName the cache name
+     * @param key the key of the entry
+     * @param data the encoded entry
+     * @param ttlMillis the TTL of the entry in milliseconds
+     * @param sliding whether reads extend the TTL of the entry
+     */
+    public void set(String cacheName, String key, byte[] data, long ttlMillis, boolean sliding) {
+        if (sliding) {
+            getMap(cacheName).set(key, data, 0, TimeUnit.MILLISECONDS, ttlMillis, TimeUnit.MILLISECONDS);
+        } else {
+            getMap(cacheName).set(key, data, ttlMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Encodes a value with the codec and compression threshold of its cache.
+     *
+     * @param stored the value to encode
+     * @param ttlInfo the configuration of the cache
+     * @return the bytes to store
+     */
+    public byte[] encode(Object stored, TtlInfo ttlInfo) {
+        return cacheCodecs.encode(stored, ttlInfo);
+    }
+
+    /**
+     * Reads an entry without blocking.
+     *
+     * @param cacheName the cache name
+     * @param key the key of the entry
+     * @return a future of the decoded value, completed with null if the key does not exist
+     */
+    public CompletableFuture<Object> getAsync(String cacheName, String key) {
+        return getMap(cacheName).getAsync(key).toCompletableFuture().thenApply(cacheCodecs::decode);
+    }
+
+    /**
+     * Writes an entry with the TTL of its cache without blocking.
+     *
+     * @param cacheName the cache name
+     * @param key the key of the entry
+     * @param stored the value to store
+     * @param ttlInfo the configuration of the cache
+     * @return a future completed once the entry is written
+     */
+    public CompletableFuture<Void> setAsync(String cacheName, String key, Object stored, TtlInfo ttlInfo) {
+        byte[] data = cacheCodecs.encode(stored, ttlInfo);
+        if (ttlInfo.isSlidingExpiration()) {
+            return getMap(cacheName).setAsync(key, data, 0, TimeUnit.MILLISECONDS, ttlInfo.getEntryTtlMillis(stored), TimeUnit.MILLISECONDS)
+                    .toCompletableFuture();
+        }
+        return getMap(cacheName).setAsync(key, data, ttlInfo.getEntryTtlMillis(stored), TimeUnit.MILLISECONDS).toCompletableFuture();
+    }
+
+    /**
+     * Removes an entry.
+     *
+     * @param cacheName the cache name
+     * @param key the key of the entry
+     */
+    public void remove(String cacheName, String key) {
+        getMap(cacheName).delete(key);
+    }
+
+    /**
+     * Removes all entries of a cache.
+     *
+     * @param cacheName the cache name
+     */
+    public void clear(String cacheName) {
+        getMap(cacheName).clear();
+    }
+
+    /**
+     * Shuts down the Hazelcast instance, if it was created by the store.
+     */
+    public void shutdown() {
+        HazelcastInstance instance = hazelcastInstance;
+        if (ownsInstance && instance != null) {
+            instance.shutdown();
+        }
+    }
+
+    private IMap<String, byte[]> getMap(String cacheName) {
+        IMap<String, byte[]> map = maps.get(cacheName);
+        if (map != null) {
+            return map;
+        }
+        return maps.computeIfAbsent(cacheName, name -> {
+            IMap<String, byte[]> created = getInstance().getMap(name);
+            created.addEntryListener(new NearCacheInvalidator(), false);
+            LOGGER.debug("Created Hazelcast map of cache {}", name);
+            return created;
+        });
+    }
+
+    private HazelcastInstance getInstance() {
+        HazelcastInstance instance = hazelcastInstance;
+        if (instance == null) {
+            synchronized (this) {
+                instance = hazelcastInstance;
+                if (instance == null) {
+                    instance = instanceFactory.get();
+                    hazelcastInstance = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Drops the near cache copies of the entries modified in a Hazelcast map. The map of a cache is
+     * named after the cache, so clearing or evicting a map only clears the near cache of that cache.
+     */
+    private class NearCacheInvalidator implements EntryUpdatedListener<String, byte[]>, EntryRemovedListener<String, byte[]>,
+            EntryExpiredListener<String, byte[]>, EntryEvictedListener<String, byte[]>, MapClearedListener, MapEvictedListener {
+
+        @Override
+        public void entryUpdated(EntryEvent<String, byte[]> event) {
+            nearCacheManager.invalidate(event.getKey());
+        }
+
+        @Override
+        public void entryRemoved(EntryEvent<String, byte[]> event) {
+            nearCacheManager.invalidate(event.getKey());
+        }
+
+        @Override
+        public void entryExpired(EntryEvent<String, byte[]> event) {
+            nearCacheManager.invalidate(event.getKey());
+        }
+
+        @Override
+        public void entryEvicted(EntryEvent<String, byte[]> event) {
+            nearCacheManager.invalidate(event.getKey());
+        }
+
+        @Override
+        public void mapCleared(MapEvent event) {
+            nearCacheManager.clear(event.getName());
+        }
+
+        @Override
+        public void mapEvicted(MapEvent event) {
+            nearCacheManager.clear(event.getName());
+        }
+    }
+}
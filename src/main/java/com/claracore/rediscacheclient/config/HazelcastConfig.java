@@ -0,0 +1,111 @@
+package com.claracore.rediscacheclient.config;
+
+import com.hazelcast.client.HazelcastClient;
+import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Configuration class for setting up the Hazelcast data grid backing the
+ * {@link TimedCacheable.CacheType#HAZELCAST HAZELCAST} caches.
+ *
+ * <p>
+ * A {@link HazelcastInstance} bean of the application is used when there is one. Otherwise the
+ * store creates its own instance on first use: an embedded member, joining the listed members
+ * over TCP/IP, or a client of the listed members. An embedded member without members runs
+ * standalone in the JVM.
+ * </p>
+ * <p>
+ * The Hazelcast dependency is optional: without {@code com.hazelcast:hazelcast} on the classpath,
+ * this configuration is skipped and HAZELCAST caches are rejected.
+ * </p>
+ * <p>
+ * Example configuration in application.properties:
+ * <pre>
+ * timedcache.hazelcast.mode=embedded
+ * timedcache.hazelcast.cluster-name=timedcache
+ * timedcache.hazelcast.members=10.0.0.1:5701,10.0.0.2:5701
+ * timedcache.hazelcast.port=5701
+ * </pre>
+ * </p>
+ *
+ * @author CGI
+ */
+@Configuration
+@ConditionalOnClass(HazelcastInstance.class)
+public class HazelcastConfig {
+
+    /**
+     * Kinds of Hazelcast instance created by the starter.
+     */
+    public enum Mode {
+        EMBEDDED, CLIENT
+    }
+
+    @Value("${timedcache.hazelcast.mode:EMBEDDED}")
+    private Mode mode;
+
+    @Value("${timedcache.hazelcast.cluster-name:timedcache}")
+    private String clusterName;
+
+    @Value("${timedcache.hazelcast.members:}")
+    private String[] members;
+
+    @Value("${timedcache.hazelcast.port:5701}")
+    private int port;
+
+    /**
+     * Creates the store of the Hazelcast caches.
+     *
+     * @param applicationInstance the Hazelcast instance of the application, if any
+     * @param cacheCodecs the codec registry
+     * @param nearCacheManager the near caches to invalidate
+     * @return the Hazelcast cache store
+     */
+    @Bean(destroyMethod = "shutdown")
+    public HazelcastCacheStore hazelcastCacheStore(ObjectProvider<HazelcastInstance> applicationInstance, CacheCodecs cacheCodecs,
+                                                   NearCacheManager nearCacheManager) {
+        HazelcastInstance instance = applicationInstance.getIfUnique();
+        if (instance != null) {
+            return new HazelcastCacheStore(() -> instance, false, cacheCodecs, nearCacheManager);
+        }
+        return new HazelcastCacheStore(this::createHazelcastInstance, true, cacheCodecs, nearCacheManager);
+    }
+
+    /**
+     * Creates the Hazelcast instance of the starter, according to the configured mode.
+     *
+     * @return a started member or a connected client
+     */
+    private HazelcastInstance createHazelcastInstance() {
+        List<String> addresses = Arrays.stream(members).map(String::trim).filter(member -> !member.isEmpty()).toList();
+        if (mode == Mode.CLIENT) {
+            ClientConfig clientConfig = new ClientConfig();
+            clientConfig.setClusterName(clusterName);
+            clientConfig.setProperty("hazelcast.logging.type", "slf4j");
+            clientConfig.getNetworkConfig().setAddresses(addresses);
+            return HazelcastClient.newHazelcastClient(clientConfig);
+        }
+
+        Config config = new Config();
+        config.setClusterName(clusterName);
+        config.setProperty("hazelcast.logging.type", "slf4j");
+        config.setProperty("hazelcast.phone.home.enabled", "false");
+        config.getNetworkConfig().setPort(port).setPortAutoIncrement(true);
+        JoinConfig join = config.getNetworkConfig().getJoin();
+        join.getMulticastConfig().setEnabled(false);
+        join.getAutoDetectionConfig().setEnabled(false);
+        join.getTcpIpConfig().setEnabled(!addresses.isEmpty()).setMembers(addresses);
+        return Hazelcast.newHazelcastInstance(config);
+    }
+}
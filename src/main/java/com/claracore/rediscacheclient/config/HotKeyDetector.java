@@ -0,0 +1,223 @@
+package com.claracore.rediscacheclient.config;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Detects the hot keys of the caches configured with a {@code hotKeyThreshold}, the keys looked
+ * up so often that the Redis node holding them becomes a bottleneck.
+ * <p>
+ * One lookup out of {@code sampleRate} is counted in a count-min sketch per cache, updated with
+ * atomic increments only, whose counters are halved once per window so that the estimates follow
+ * the current traffic. A key whose estimated rate, in lookups per second, reaches the threshold of
+ * its cache enters the top-K hot keys of the cache, replacing the coolest one when the top-K is
+ * full, and leaves it once its rate falls below the threshold.
+ * </p>
+ * <p>
+ * Hot keys are served from a short-lived local replica, see {@link NearCacheManager#getHotReplica},
+ * and optionally read from one of {@code hotKeyReplicas} copies spread over the cluster slots.
+ * Since a key may be hot on some instances only, every write of an entry of a cache with replicas
+ * overwrites them where the key is hot and removes them elsewhere.
+ * </p>
+ * <p>
+ * Example configuration in application.properties (window in milliseconds, local TTL in milliseconds):
+ * <pre>
+ * timedcache.hot-keys.sample-rate=16
+ * timedcache.hot-keys.top-k=16
+ * timedcache.hot-keys.window=1000
+ * cache.getPostRT.hotKeyThreshold=500
+ * cache.getPostRT.hotKeyLocalTtl=1000
+ * cache.getPostRT.hotKeyReplicas=4
+ * </pre>
+ * </p>
+ *
+ * @author CGI
+ */
+public class HotKeyDetector {
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 2048;
+    private static final String REPLICA_SUFFIX = ":replica:";
+
+    private final int sampleRate;
+    private final int topK;
+    private final long windowNanos;
+    private final Map<String, HotKeys> hotKeysByCache = new ConcurrentHashMap<>();
+
+    public HotKeyDetector(int sampleRate, int topK, long windowMillis) {
+        if (sampleRate <= 0 || topK <= 0 || windowMillis <= 0) {
+            throw new IllegalArgumentException("Invalid hot key detection: sampleRate=" + sampleRate
+                    + ", topK=" + topK + ", window=" + windowMillis);
+        }
+        this.sampleRate = sampleRate;
+        this.topK = topK;
+        this.windowNanos = windowMillis * 1_000_000;
+    }
+
+    /**
+     * Records a lookup of a key, sampled, and tells whether the key is currently hot.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the configuration of the cache
+     * @param key the Redis key of the entry
+     * @return true if the key is one of the hot keys of the cache
+     */
+    public boolean recordAccess(String cacheName, TtlInfo ttlInfo, String key) {
+        if (ttlInfo.getHotKeyThreshold() <= 0) {
+            return false;
+        }
+        HotKeys hotKeys = hotKeysByCache.get(cacheName);
+        if (hotKeys == null) {
+            hotKeys = hotKeysByCache.computeIfAbsent(cacheName, name -> new HotKeys());
+        }
+        if (sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0) {
+            hotKeys.sample(key, ttlInfo.getHotKeyThreshold());
+        }
+        return hotKeys.hot.containsKey(key);
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    /**
+     * Tells whether a key is currently hot, without recording a lookup.
+     *
+     * @param cacheName the cache name
+     * @param key the Redis key of the entry
+     * @return true if the key is one of the hot keys of the cache
+     */
+    public boolean isHot(String cacheName, String key) {
+        HotKeys hotKeys = hotKeysByCache.get(cacheName);
+        return hotKeys != null && hotKeys.hot.containsKey(key);
+    }
+
+    /**
+     * Returns the hot keys of a cache, hottest first.
+     *
+     * @param cacheName the cache name
+     * @return the estimated rate in lookups per second of each hot key
+     */
+    public Map<String, Long> getHotKeys(String cacheName) {
+        HotKeys hotKeys = hotKeysByCache.get(cacheName);
+        Map<String, Long> rates = new LinkedHashMap<>();
+        if (hotKeys != null) {
+            List<Map.Entry<String, Long>> entries = new ArrayList<>(hotKeys.hot.entrySet());
+            entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+            entries.forEach(entry -> rates.put(entry.getKey(), entry.getValue()));
+        }
+        return rates;
+    }
+
+    /**
+     * Returns the key of a replica of a hot entry. Replica keys carry no hash tag, so that the
+     * replicas of an entry are spread over the cluster slots.
+     *
+     * @param key the Redis key of the entry
+     * @param replica the index of the replica
+     * @return the key of the replica
+     */
+    public static String replicaKey(String key, int replica) {
+        String untagged = key.indexOf('{') >= 0 ? key.replace("{", "").replace("}", "") : key;
+        return untagged + REPLICA_SUFFIX + replica;
+    }
+
+    /**
+     * Returns the keys of all replicas of an entry, see {@link #replicaKey}.
+     *
+     * @param key the Redis key of the entry
+     * @param replicas the number of replicas
+     * @return the keys of the replicas
+     */
+    public static List<String> replicaKeys(String key, int replicas) {
+        List<String> keys = new ArrayList<>(replicas);
+        for (int replica = 0; replica < replicas; replica++) {
+            keys.add(replicaKey(key, replica));
+        }
+        return keys;
+    }
+
+    /**
+     * The sketch and the hot keys of one cache.
+     */
+    private final class HotKeys {
+        private final AtomicLongArray counters = new AtomicLongArray(DEPTH * WIDTH);
+        private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+        private final Map<String, Long> hot = new ConcurrentHashMap<>();
+
+        private void sample(String key, long threshold) {
+            long now = System.nanoTime();
+            long start = windowStart.get();
+            if (now - start >= windowNanos && windowStart.compareAndSet(start, now)) {
+                decay(threshold);
+            }
+
+            int hash = spread(key.hashCode());
+            long estimate = Long.MAX_VALUE;
+            for (int i = 0; i < DEPTH; i++) {
+                estimate = Math.min(estimate, counters.incrementAndGet(indexOf(hash, i)));
+            }
+            long rate = toRate(estimate);
+            if (rate >= threshold) {
+                promote(key, rate);
+            }
+        }
+
+        private void promote(String key, long rate) {
+            if (hot.replace(key, rate) != null) {
+                return;
+            }
+            if (hot.size() < topK) {
+                hot.put(key, rate);
+                return;
+            }
+            hot.entrySet().stream().min(Comparator.comparingLong(Map.Entry::getValue))
+                    .filter(coolest -> coolest.getValue() < rate && hot.remove(coolest.getKey(), coolest.getValue()))
+                    .ifPresent(coolest -> hot.put(key, rate));
+        }
+
+        private void decay(long threshold) {
+            for (int i = 0; i < counters.length(); i++) {
+                counters.updateAndGet(i, count -> count >>> 1);
+            }
+            for (String key : hot.keySet()) {
+                int hash = spread(key.hashCode());
+                long estimate = Long.MAX_VALUE;
+                for (int i = 0; i < DEPTH; i++) {
+                    estimate = Math.min(estimate, counters.get(indexOf(hash, i)));
+                }
+                // Counters were halved: twice the estimate is the rate of the window that ended
+                long rate = toRate(2 * estimate);
+                if (rate < threshold) {
+                    hot.remove(key);
+                } else {
+                    hot.put(key, rate);
+                }
+            }
+        }
+
+        /**
+         * Converts a counter to a rate. Since counters are halved every window, a steady rate
+         * accumulates up to twice the samples of one window.
+         */
+        private long toRate(long sampledCount) {
+            return sampledCount * sampleRate * 1_000_000_000L / (2 * windowNanos);
+        }
+
+        private int indexOf(int hash, int row) {
+            int h = hash * (0x9E3779B9 + 2 * row + 1);
+            return row * WIDTH + ((h ^ (h >>> 15)) & (WIDTH - 1));
+        }
+
+        private int spread(int hash) {
+            int x = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+            return (x >>> 16) ^ x;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.claracore.rediscacheclient.config;
+
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * JSON codec based on {@link GenericJackson2JsonRedisSerializer}, the format used by the
+ * {@code RedisTemplate} of the starter. Uncompressed JSON entries are stored without header
+ * byte, so that they stay readable by every version of the starter.
+ *
+ * @author CGI
+ */
+public class JsonCacheCodec implements CacheCodec {
+    public static final byte ID = 1;
+    public static final String NAME = "json";
+
+    private final GenericJackson2JsonRedisSerializer serializer;
+
+    public JsonCacheCodec(GenericJackson2JsonRedisSerializer serializer) {
+        this.serializer = serializer;
+    }
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void encode(Object value, OutputStream out) throws IOException {
+        out.write(serializer.serialize(value));
+    }
+
+    @Override
+    public Object decode(byte[] data, int offset, int length) {
+        byte[] json = offset == 0 && length == data.length ? data : Arrays.copyOfRange(data, offset, offset + length);
+        return serializer.deserialize(json);
+    }
+}
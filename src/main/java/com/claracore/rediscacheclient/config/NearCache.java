@@ -0,0 +1,232 @@
+package com.claracore.rediscacheclient.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded in-process cache tier kept in front of Redis for a single cache.
+ * <p>
+ * Entries are spread over a fixed number of segments, each one an access-ordered
+ * {@link LinkedHashMap} guarded by its own monitor, so that concurrent readers of
+ * different keys rarely contend. Every segment evicts its least recently used entry
+ * once it holds more than its share of the configured maximum, and entries older than
+ * the near cache TTL are dropped lazily on access. Negative entries of a cache with negative
+ * caching enabled expire after the negative TTL, when shorter.
+ * </p>
+ * <p>
+ * Coherence with Redis is maintained by {@link NearCacheManager}, which removes entries
+ * when Redis reports that the underlying key was modified. Each segment counts the invalidations
+ * it received: a value read from Redis is only copied into the segment if no invalidation reached
+ * it since the read was issued, so that an invalidation racing with the read can never leave a
+ * stale value behind, while invalidations of other caches and segments never drop it.
+ * </p>
+ *
+ * @author CGI
+ */
+public class NearCache {
+    private static final int SEGMENT_COUNT = 16;
+
+    private final Segment[] segments;
+    private final long maxEntries;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+
+    public NearCache(long maxEntries, long ttl, long negativeTtl, TimeUnit timeUnit) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = timeUnit.toNanos(ttl);
+        this.negativeTtlNanos = negativeTtl > 0 ? Math.min(ttlNanos, timeUnit.toNanos(negativeTtl)) : ttlNanos;
+        int segmentCapacity = (int) Math.max(1, Math.min(Integer.MAX_VALUE, (maxEntries + SEGMENT_COUNT - 1) / SEGMENT_COUNT));
+        this.segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    /**
+     * Returns the locally cached value for the key.
+     *
+     * @param key the cache key
+     * @return the cached value, or null if absent or expired
+     */
+    public Object get(Object key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            TimedValue entry = segment.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt - System.nanoTime() < 0) {
+                segment.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    /**
+     * Stores a value for the key, evicting the least recently used entry of the segment if needed.
+     *
+     * @param key the cache key
+     * @param value the value to store
+     */
+    public void put(Object key, Object value) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            store(segment, key, value);
+        }
+    }
+
+    /**
+     * Returns the invalidation sequence of the segment of the key, to be captured before reading its value from Redis.
+     *
+     * @param key the cache key
+     * @return the invalidation sequence
+     */
+    public long getInvalidationSequence(Object key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.invalidations;
+        }
+    }
+
+    /**
+     * Stores a value read from Redis, unless its segment was invalidated since the read was issued.
+     *
+     * @param key the cache key
+     * @param value the value read from Redis
+     * @param sequence the invalidation sequence captured before the read
+     */
+    public void populate(Object key, Object value, long sequence) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            if (segment.invalidations == sequence) {
+                store(segment, key, value);
+            }
+        }
+    }
+
+    /**
+     * Returns the invalidation sequences of all segments, to be captured before reading a batch of values from Redis.
+     *
+     * @return the invalidation sequence of each segment
+     */
+    public long[] getInvalidationSequences() {
+        long[] sequences = new long[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            synchronized (segments[i]) {
+                sequences[i] = segments[i].invalidations;
+            }
+        }
+        return sequences;
+    }
+
+    /**
+     * Stores a value of a batch read from Redis, unless its segment was invalidated since the read was issued.
+     *
+     * @param key the cache key
+     * @param value the value read from Redis
+     * @param sequences the invalidation sequences of all segments captured before the read
+     */
+    public void populate(Object key, Object value, long[] sequences) {
+        int index = segmentIndex(key);
+        Segment segment = segments[index];
+        synchronized (segment) {
+            if (segment.invalidations == sequences[index]) {
+                store(segment, key, value);
+            }
+        }
+    }
+
+    /**
+     * Removes the entry for the key, if present.
+     *
+     * @param key the cache key
+     */
+    public void invalidate(Object key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.invalidations++;
+            segment.remove(key);
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.invalidations++;
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Checks whether this near cache was built with the settings currently configured for its cache.
+     *
+     * @param ttlInfo the current cache configuration
+     * @return true if the size bound and TTLs are unchanged
+     */
+    public boolean matches(TtlInfo ttlInfo) {
+        long expectedTtlNanos = ttlInfo.getTimeUnit().toNanos(ttlInfo.getEffectiveNearCacheTtl());
+        long expectedNegativeTtlNanos = ttlInfo.isNegativeCaching()
+                ? Math.min(expectedTtlNanos, ttlInfo.getTimeUnit().toNanos(ttlInfo.getNegativeTtl())) : expectedTtlNanos;
+        return maxEntries == ttlInfo.getNearCacheMaxEntries()
+                && ttlNanos == expectedTtlNanos
+                && negativeTtlNanos == expectedNegativeTtlNanos;
+    }
+
+    /**
+     * Checks whether this near cache was built with the given settings, for near caches not
+     * configured by a cache, such as the local replicas of hot keys.
+     *
+     * @param maxEntries the size bound
+     * @param ttl the TTL of the entries
+     * @param timeUnit the unit of the TTL
+     * @return true if the size bound and TTL are the same
+     */
+    public boolean matches(long maxEntries, long ttl, TimeUnit timeUnit) {
+        return this.maxEntries == maxEntries && ttlNanos == timeUnit.toNanos(ttl) && negativeTtlNanos == ttlNanos;
+    }
+
+    private void store(Segment segment, Object key, Object value) {
+        long entryTtlNanos = negativeTtlNanos != ttlNanos && NegativeEntries.isNegative(value) ? negativeTtlNanos : ttlNanos;
+        segment.put(key, new TimedValue(value, System.nanoTime() + entryTtlNanos));
+    }
+
+    private Segment segmentFor(Object key) {
+        return segments[segmentIndex(key)];
+    }
+
+    private static int segmentIndex(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1);
+    }
+
+    private static final class TimedValue {
+        private final Object value;
+        private final long expiresAt;
+
+        private TimedValue(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Segment extends LinkedHashMap<Object, TimedValue> {
+        private final int capacity;
+        private long invalidations;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, TimedValue> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.claracore.rediscacheclient.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the {@link NearCache} of every cache that has the near cache enabled
+ * and applies the invalidations received from Redis.
+ * <p>
+ * Values read from Redis are copied into a near cache with {@link NearCache#populate},
+ * which drops them if an invalidation reached the segment of the key since the read was issued.
+ * </p>
+ * <p>
+ * It also holds the local replicas of the hot keys detected by the {@link HotKeyDetector}:
+ * near caches bounded to the top-K hot keys, with a TTL of their own, invalidated alike.
+ * </p>
+ *
+ * @author CGI
+ */
+public class NearCacheManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NearCacheManager.class);
+
+    private final Map<String, NearCache> nearCaches = new ConcurrentHashMap<>();
+    private final Map<String, NearCache> hotReplicas = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the near cache of a cache, creating or rebuilding it when its settings changed.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the current cache configuration
+     * @return the near cache, or null if the near cache is disabled for this cache
+     */
+    public NearCache getNearCache(String cacheName, TtlInfo ttlInfo) {
+        if (!ttlInfo.isNearCache()) {
+            return null;
+        }
+        NearCache nearCache = nearCaches.get(cacheName);
+        if (nearCache == null || !nearCache.matches(ttlInfo)) {
+            nearCache = nearCaches.compute(cacheName, (name, current) -> current != null && current.matches(ttlInfo)
+                    ? current
+                    : new NearCache(ttlInfo.getNearCacheMaxEntries(), ttlInfo.getEffectiveNearCacheTtl(),
+                    ttlInfo.getNegativeTtl(), ttlInfo.getTimeUnit()));
+            LOGGER.debug("Near cache for cache {} configured with {} max entries", cacheName, ttlInfo.getNearCacheMaxEntries());
+        }
+        return nearCache;
+    }
+
+    /**
+     * Returns the local replica of the hot keys of a cache, creating or rebuilding it when its settings changed.
+     *
+     * @param cacheName the cache name
+     * @param maxEntries the maximum number of hot keys
+     * @param ttlMillis the TTL of the replicated entries in milliseconds
+     * @return the local replica
+     */
+    public NearCache getHotReplica(String cacheName, long maxEntries, long ttlMillis) {
+        NearCache hotReplica = hotReplicas.get(cacheName);
+        if (hotReplica == null || !hotReplica.matches(maxEntries, ttlMillis, TimeUnit.MILLISECONDS)) {
+            hotReplica = hotReplicas.compute(cacheName, (name, current) -> current != null
+                    && current.matches(maxEntries, ttlMillis, TimeUnit.MILLISECONDS)
+                    ? current
+                    : new NearCache(maxEntries, ttlMillis, 0, TimeUnit.MILLISECONDS));
+        }
+        return hotReplica;
+    }
+
+    /**
+     * Removes a key from the local replica of the hot keys of a cache, if any.
+     *
+     * @param cacheName the cache name
+     * @param key the Redis key that was modified
+     */
+    public void invalidateHotReplica(String cacheName, Object key) {
+        NearCache hotReplica = hotReplicas.get(cacheName);
+        if (hotReplica != null) {
+            hotReplica.invalidate(key);
+        }
+    }
+
+    /**
+     * Removes a key from every near cache.
+     *
+     * @param key the Redis key that was modified
+     */
+    public void invalidate(Object key) {
+        for (NearCache nearCache : nearCaches.values()) {
+            nearCache.invalidate(key);
+        }
+        for (NearCache hotReplica : hotReplicas.values()) {
+            hotReplica.invalidate(key);
+        }
+    }
+
+    /**
+     * Removes all entries of the near cache and of the hot key replica of a cache.
+     *
+     * @param cacheName the cache name
+     */
+    public void clear(String cacheName) {
+        NearCache nearCache = nearCaches.get(cacheName);
+        if (nearCache != null) {
+            nearCache.clear();
+        }
+        NearCache hotReplica = hotReplicas.get(cacheName);
+        if (hotReplica != null) {
+            hotReplica.clear();
+        }
+    }
+
+    /**
+     * Removes all entries of every near cache.
+     */
+    public void invalidateAll() {
+        for (NearCache nearCache : nearCaches.values()) {
+            nearCache.clear();
+        }
+        for (NearCache hotReplica : hotReplicas.values()) {
+            hotReplica.clear();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.claracore.rediscacheclient.config;
+
+import org.springframework.cache.support.NullValue;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Utility class for the negative entries of caches configured with a {@code negativeTtl}.
+ * <p>
+ * Negative results are null, empty {@link Optional optionals}, collections, maps, arrays and
+ * strings. Once negative caching is enabled for a cache, such results are stored with the
+ * negative TTL instead of the TTL of the cache, so that repeated lookups of absent data are
+ * served by the cache for a short while instead of reaching the backend. A null result is
+ * stored as {@link NullValue#INSTANCE}, which the {@link CacheCodecs} encode as a single byte
+ * and which is read back as a cached null.
+ * </p>
+ * <p>
+ * Example configuration in application.properties (expressed in the time unit of the cache):
+ * <pre>
+ * cache.getPostRT.negativeTtl=2
+ * </pre>
+ * </p>
+ *
+ * @author CGI
+ */
+public final class NegativeEntries {
+
+    // Private constructor to prevent instantiation
+    private NegativeEntries() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * Checks whether a result or stored value is negative.
+     *
+     * @param value the result of a method, or a value read from the cache
+     * @return true for null, {@link NullValue} and empty optionals, collections, maps, arrays and strings
+     */
+    public static boolean isNegative(Object value) {
+        if (value == null || value == NullValue.INSTANCE) {
+            return true;
+        }
+        if (value instanceof Collection<?> collection) {
+            return collection.isEmpty();
+        }
+        if (value instanceof Map<?, ?> map) {
+            return map.isEmpty();
+        }
+        if (value instanceof CharSequence chars) {
+            return chars.isEmpty();
+        }
+        if (value instanceof Optional<?> optional) {
+            return optional.isEmpty();
+        }
+        return value.getClass().isArray() && Array.getLength(value) == 0;
+    }
+
+    /**
+     * Returns the value to store for a negative result of a cache with negative caching enabled.
+     *
+     * @param result the negative result of a method
+     * @return {@link NullValue#INSTANCE} for null, the result itself otherwise
+     */
+    public static Object toStored(Object result) {
+        return result == null ? NullValue.INSTANCE : result;
+    }
+}
@@ -0,0 +1,362 @@
+package com.claracore.rediscacheclient.config;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Bounded in-process cache of encoded entries held outside the Java heap, for a single
+ * {@link TimedCacheable.CacheType#LOCAL_OFFHEAP LOCAL_OFFHEAP} cache.
+ * <p>
+ * Entries are spread over a fixed number of segments, each one guarded by its own monitor so that
+ * writers of different keys rarely contend. A segment appends its entries, key and encoded value
+ * together with their expiry, to a circular log in a direct {@link ByteBuffer} sized to its share of
+ * the memory budget, and locates them through an open-addressing index of primitive arrays mapping
+ * the 64-bit hash of each key to the offset of its entry. Only these arrays live on the heap,
+ * whatever the number of entries, so that large caches add no GC pressure.
+ * </p>
+ * <p>
+ * When the log is full, the oldest entries are evicted first. An entry read while in the oldest
+ * quarter of the log is moved back to its head, so that the log behaves as a segmented LRU: entries
+ * are admitted on probation and only those read again survive a full turn of the log. Expired entries
+ * are dropped on access, or when their space is reclaimed.
+ * </p>
+ *
+ * @author CGI
+ */
+public class OffHeapCache {
+    private static final int SEGMENT_COUNT = 16;
+    private static final int HEADER_BYTES = 24;
+    private static final int WRAP_MARKER = -1;
+    private static final int INITIAL_INDEX_CAPACITY = 1024;
+
+    private final Segment[] segments;
+    private final long maxBytes;
+
+    public OffHeapCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        int segmentBytes = (int) Math.min(Integer.MAX_VALUE, Math.max(4096, maxBytes / SEGMENT_COUNT));
+        this.segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(segmentBytes);
+        }
+    }
+
+    /**
+     * Returns the encoded value of a key.
+     *
+     * @param key the cache key
+     * @return the encoded value, or null if absent or expired
+     */
+    public byte[] get(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(keyBytes);
+        return segmentFor(hash).get(hash, keyBytes);
+    }
+
+    /**
+     * Stores the encoded value of a key, evicting the oldest entries of its segment if needed.
+     * Entries larger than a quarter of a segment are not stored.
+     *
+     * @param key the cache key
+     * @param value the encoded value
+     * @param ttlMillis the TTL of the entry in milliseconds
+     * @return true if the entry was stored
+     */
+    public boolean put(String key, byte[] value, long ttlMillis) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(keyBytes);
+        return segmentFor(hash).put(hash, keyBytes, value, System.currentTimeMillis() + ttlMillis);
+    }
+
+    /**
+     * Removes the entry of a key, if present.
+     *
+     * @param key the cache key
+     */
+    public void invalidate(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long hash = hash(keyBytes);
+        segmentFor(hash).remove(hash, keyBytes);
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * @return the number of entries, including expired entries not reclaimed yet
+     */
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return the bytes of the logs taken by entries, including evicted space not reclaimed yet
+     */
+    public long usedBytes() {
+        long used = 0;
+        for (Segment segment : segments) {
+            used += segment.usedBytes();
+        }
+        return used;
+    }
+
+    /**
+     * Checks whether this cache was built with the memory budget currently configured for its cache.
+     *
+     * @param ttlInfo the current cache configuration
+     * @return true if the memory budget is unchanged
+     */
+    public boolean matches(TtlInfo ttlInfo) {
+        return maxBytes == ttlInfo.getOffHeapMaxBytes();
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> 60) & (SEGMENT_COUNT - 1)];
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the key, never 0 since 0 marks the empty slots of the index.
+     */
+    private static long hash(byte[] keyBytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : keyBytes) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 29;
+        return hash != 0 ? hash : 1;
+    }
+
+    /**
+     * A circular log of entries and its index. Each entry is laid out as its total length, key
+     * hash, expiry in epoch milliseconds and key length, followed by the key and the value.
+     */
+    private static final class Segment {
+        private final int capacity;
+        private ByteBuffer log;
+        private int head;
+        private int tail;
+        private int used;
+        private long[] hashes = new long[INITIAL_INDEX_CAPACITY];
+        private int[] offsets = new int[INITIAL_INDEX_CAPACITY];
+        private int size;
+
+        private Segment(int capacity) {
+            this.capacity = capacity;
+        }
+
+        private synchronized byte[] get(long hash, byte[] keyBytes) {
+            int slot = find(hash);
+            if (slot < 0) {
+                return null;
+            }
+            int offset = offsets[slot];
+            if (!keyEquals(offset, keyBytes)) {
+                return null;
+            }
+            long expiresAt = log.getLong(offset + 12);
+            if (expiresAt - System.currentTimeMillis() <= 0) {
+                removeSlot(slot);
+                return null;
+            }
+            int length = log.getInt(offset);
+            byte[] value = new byte[length - HEADER_BYTES - keyBytes.length];
+            log.get(offset + HEADER_BYTES + keyBytes.length, value);
+            if (isProbation(offset)) {
+                append(hash, keyBytes, value, expiresAt);
+            }
+            return value;
+        }
+
+        private synchronized boolean put(long hash, byte[] keyBytes, byte[] value, long expiresAt) {
+            if (HEADER_BYTES + keyBytes.length + value.length > capacity / 4) {
+                remove(hash, keyBytes);
+                return false;
+            }
+            if (log == null) {
+                log = ByteBuffer.allocateDirect(capacity);
+            }
+            append(hash, keyBytes, value, expiresAt);
+            return true;
+        }
+
+        private synchronized void remove(long hash, byte[] keyBytes) {
+            int slot = find(hash);
+            if (slot >= 0 && keyEquals(offsets[slot], keyBytes)) {
+                removeSlot(slot);
+            }
+        }
+
+        private synchronized void clear() {
+            Arrays.fill(hashes, 0);
+            size = 0;
+            head = 0;
+            tail = 0;
+            used = 0;
+        }
+
+        private synchronized int size() {
+            return size;
+        }
+
+        private synchronized int usedBytes() {
+            return used;
+        }
+
+        /**
+         * Appends an entry at the head of the log, evicting from its tail until there is room,
+         * and points the index to it.
+         */
+        private void append(long hash, byte[] keyBytes, byte[] value, long expiresAt) {
+            int length = HEADER_BYTES + keyBytes.length + value.length;
+            if (used == 0) {
+                head = 0;
+                tail = 0;
+            }
+            boolean wrap = head + length > capacity;
+            int needed = wrap ? length + capacity - head : length;
+            while (capacity - used < needed) {
+                evictTail();
+                if (used == 0) {
+                    head = 0;
+                    tail = 0;
+                    wrap = false;
+                    needed = length;
+                }
+            }
+            if (wrap) {
+                if (capacity - head >= Integer.BYTES) {
+                    log.putInt(head, WRAP_MARKER);
+                }
+                used += capacity - head;
+                head = 0;
+            }
+
+            int offset = head;
+            log.putInt(offset, length);
+            log.putLong(offset + 4, hash);
+            log.putLong(offset + 12, expiresAt);
+            log.putInt(offset + 20, keyBytes.length);
+            log.put(offset + HEADER_BYTES, keyBytes);
+            log.put(offset + HEADER_BYTES + keyBytes.length, value);
+            head = offset + length == capacity ? 0 : offset + length;
+            used += length;
+
+            int slot = find(hash);
+            if (slot >= 0) {
+                offsets[slot] = offset;
+            } else {
+                insert(hash, offset);
+            }
+        }
+
+        /**
+         * Reclaims the oldest entry of the log, or the space skipped at its end by a wrap.
+         */
+        private void evictTail() {
+            if (capacity - tail < Integer.BYTES || log.getInt(tail) == WRAP_MARKER) {
+                used -= capacity - tail;
+                tail = 0;
+                return;
+            }
+            int length = log.getInt(tail);
+            int slot = find(log.getLong(tail + 4));
+            if (slot >= 0 && offsets[slot] == tail) {
+                removeSlot(slot);
+            }
+            used -= length;
+            tail = tail + length == capacity ? 0 : tail + length;
+        }
+
+        /**
+         * Checks whether an entry lies in the oldest quarter of the log, the next to be evicted.
+         */
+        private boolean isProbation(int offset) {
+            int age = offset >= tail ? offset - tail : capacity - tail + offset;
+            return age < used / 4;
+        }
+
+        private boolean keyEquals(int offset, byte[] keyBytes) {
+            if (log.getInt(offset + 20) != keyBytes.length) {
+                return false;
+            }
+            for (int i = 0; i < keyBytes.length; i++) {
+                if (log.get(offset + HEADER_BYTES + i) != keyBytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int find(long hash) {
+            int mask = hashes.length - 1;
+            for (int slot = (int) hash & mask; hashes[slot] != 0; slot = (slot + 1) & mask) {
+                if (hashes[slot] == hash) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        private void insert(long hash, int offset) {
+            if (2 * (size + 1) > hashes.length) {
+                resize();
+            }
+            int mask = hashes.length - 1;
+            int slot = (int) hash & mask;
+            while (hashes[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = hash;
+            offsets[slot] = offset;
+            size++;
+        }
+
+        /**
+         * Removes a slot by shifting back the entries of its probe sequence, leaving no tombstone.
+         */
+        private void removeSlot(int slot) {
+            int mask = hashes.length - 1;
+            int hole = slot;
+            for (int next = (hole + 1) & mask; hashes[next] != 0; next = (next + 1) & mask) {
+                int home = (int) hashes[next] & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    hashes[hole] = hashes[next];
+                    offsets[hole] = offsets[next];
+                    hole = next;
+                }
+            }
+            hashes[hole] = 0;
+            size--;
+        }
+
+        private void resize() {
+            long[] oldHashes = hashes;
+            int[] oldOffsets = offsets;
+            hashes = new long[oldHashes.length * 2];
+            offsets = new int[oldOffsets.length * 2];
+            int mask = hashes.length - 1;
+            for (int i = 0; i < oldHashes.length; i++) {
+                if (oldHashes[i] != 0) {
+                    int slot = (int) oldHashes[i] & mask;
+                    while (hashes[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    hashes[slot] = oldHashes[i];
+                    offsets[slot] = oldOffsets[i];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.claracore.rediscacheclient.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads and writes the entries of {@link TimedCacheable.CacheType#LOCAL_OFFHEAP LOCAL_OFFHEAP} caches,
+ * held in process outside the Java heap, encoding values with the {@link CacheCodecs codec} configured
+ * for their cache.
+ * <p>
+ * Each cache is an {@link OffHeapCache} bounded by the {@code offHeapMaxBytes} of the cache, created on
+ * first use and rebuilt empty when its memory budget changes. Entries expire with the TTL of their cache.
+ * </p>
+ * <p>
+ * Example configuration in application.properties:
+ * <pre>
+ * cache.referenceData.cacheType=LOCAL_OFFHEAP
+ * cache.referenceData.offHeapMaxBytes=1073741824
+ * </pre>
+ * </p>
+ *
+ * @author CGI
+ */
+public class OffHeapCacheStore {
+    private final CacheCodecs cacheCodecs;
+    private final Map<String, OffHeapCache> caches = new ConcurrentHashMap<>();
+
+    public OffHeapCacheStore(CacheCodecs cacheCodecs) {
+        this.cacheCodecs = cacheCodecs;
+    }
+
+    /**
+     * Reads an entry.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the configuration of the cache
+     * @param key the key of the entry
+     * @return the decoded value, possibly a {@link CacheEnvelope}, or null if the key does not exist
+     */
+    public Object get(String cacheName, TtlInfo ttlInfo, String key) {
+        return cacheCodecs.decode(getCache(cacheName, ttlInfo).get(key));
+    }
+
+    /**
+     * Writes an entry with the TTL of its cache.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the configuration of the cache
+     * @param key the key of the entry
+     * @param stored the value to store
+     * @return the size of the encoded entry in bytes
+     */
+    public int set(String cacheName, TtlInfo ttlInfo, String key, Object stored) {
+        byte[] data = cacheCodecs.encode(stored, ttlInfo);
+        set(cacheName, ttlInfo, key, data, ttlInfo.getEntryTtlMillis(stored));
+        return data.length;
+    }
+
+    /**
+     * Writes an encoded entry.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the configuration of the cache
+     * @param key the key of the entry
+     * @param data the encoded entry
+     * @param ttlMillis the TTL of the entry in milliseconds
+     */
+    public void set(String cacheName, TtlInfo ttlInfo, String key, byte[] data, long ttlMillis) {
+        getCache(cacheName, ttlInfo).put(key, data, ttlMillis);
+    }
+
+    /**
+     * Removes an entry.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the configuration of the cache
+     * @param key the key of the entry
+     */
+    public void remove(String cacheName, TtlInfo ttlInfo, String key) {
+        getCache(cacheName, ttlInfo).invalidate(key);
+    }
+
+    /**
+     * Removes all entries of a cache.
+     *
+     * @param cacheName the cache name
+     */
+    public void clear(String cacheName) {
+        OffHeapCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Encodes a value with the codec and compression threshold of its cache.
+     *
+     * @param stored the value to encode
+     * @param ttlInfo the configuration of the cache
+     * @return the bytes to store
+     */
+    public byte[] encode(Object stored, TtlInfo ttlInfo) {
+        return cacheCodecs.encode(stored, ttlInfo);
+    }
+
+    /**
+     * Returns the off-heap cache of a cache, creating or rebuilding it when its memory budget changed.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the configuration of the cache
+     * @return the off-heap cache
+     */
+    public OffHeapCache getCache(String cacheName, TtlInfo ttlInfo) {
+        OffHeapCache cache = caches.get(cacheName);
+        if (cache == null || !cache.matches(ttlInfo)) {
+            cache = caches.compute(cacheName, (name, current) -> current != null && current.matches(ttlInfo)
+                    ? current : new OffHeapCache(ttlInfo.getOffHeapMaxBytes()));
+        }
+        return cache;
+    }
+}
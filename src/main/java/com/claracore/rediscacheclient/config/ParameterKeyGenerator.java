@@ -0,0 +1,74 @@
+package com.claracore.rediscacheclient.config;
+
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+
+import java.lang.reflect.Method;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiled form of a key expression that only references a method parameter, such as
+ * {@code #postId}, {@code #p0} or {@code #a0}.
+ * <p>
+ * Such expressions are the vast majority of cache keys. Returning the referenced argument directly
+ * gives the same key as the SpEL evaluation, without building an evaluation context on every call.
+ * Parameter names take precedence over the {@code #pN} and {@code #aN} aliases, as in SpEL.
+ * </p>
+ *
+ * @author CGI
+ */
+public class ParameterKeyGenerator implements KeyGenerator {
+    private static final Pattern PARAMETER_REFERENCE = Pattern.compile("\\s*#(\\w+)\\s*");
+    private static final Pattern PARAMETER_ALIAS = Pattern.compile("[pa](\\d+)");
+    private static final ParameterNameDiscoverer PARAMETER_NAME_DISCOVERER = new DefaultParameterNameDiscoverer();
+
+    private final int parameterIndex;
+
+    private ParameterKeyGenerator(int parameterIndex) {
+        this.parameterIndex = parameterIndex;
+    }
+
+    /**
+     * Compiles a key expression.
+     *
+     * @param expression the key expression of a cache operation
+     * @param method the cached method
+     * @return the compiled key generator, or null if the expression is not a plain parameter reference
+     */
+    public static ParameterKeyGenerator compile(String expression, Method method) {
+        if (expression == null) {
+            return null;
+        }
+        Matcher reference = PARAMETER_REFERENCE.matcher(expression);
+        if (!reference.matches()) {
+            return null;
+        }
+        String variable = reference.group(1);
+        int parameterIndex = -1;
+        String[] parameterNames = PARAMETER_NAME_DISCOVERER.getParameterNames(method);
+        if (parameterNames != null) {
+            for (int i = 0; i < parameterNames.length; i++) {
+                if (variable.equals(parameterNames[i])) {
+                    parameterIndex = i;
+                }
+            }
+        }
+        Matcher alias = PARAMETER_ALIAS.matcher(variable);
+        if (parameterIndex < 0 && alias.matches() && alias.group(1).length() < 4) {
+            parameterIndex = Integer.parseInt(alias.group(1));
+        }
+        // Variable arguments are flattened by the cache interceptor and regrouped by SpEL
+        if (parameterIndex < 0 || parameterIndex >= method.getParameterCount()
+                || (method.isVarArgs() && parameterIndex == method.getParameterCount() - 1)) {
+            return null;
+        }
+        return new ParameterKeyGenerator(parameterIndex);
+    }
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        return params[parameterIndex];
+    }
+}
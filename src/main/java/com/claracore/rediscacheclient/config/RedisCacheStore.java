@@ -0,0 +1,932 @@
+package com.claracore.rediscacheclient.config;
+
+import io.lettuce.core.GetExArgs;
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.ValueScanCursor;
+import io.lettuce.core.ZAddArgs;
+import io.lettuce.core.api.async.RedisKeyAsyncCommands;
+import io.lettuce.core.api.async.RedisScriptingAsyncCommands;
+import io.lettuce.core.api.async.RedisServerAsyncCommands;
+import io.lettuce.core.api.async.RedisSetAsyncCommands;
+import io.lettuce.core.api.async.RedisSortedSetAsyncCommands;
+import io.lettuce.core.api.async.RedisStringAsyncCommands;
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.codec.ByteArrayCodec;
+import lombok.Getter;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Reads and writes cache entries in Redis, encoding values with the {@link CacheCodecs codec}
+ * configured for their cache.
+ * <p>
+ * Entries are exchanged with Redis as raw bytes through the asynchronous Lettuce commands of the
+ * shared connection of the {@link RedisTemplate}, bypassing its value serializer. Batches of entries
+ * are pipelined, and the entries of methods returning asynchronous types are exchanged without
+ * waiting for Redis.
+ * </p>
+ * <p>
+ * Every operation is bounded by the operation timeout, much tighter than the command timeout of the
+ * Lettuce client, and goes through the {@link RedisCircuitBreaker}, which rejects operations with a
+ * {@link CircuitBreakerOpenException} while Redis is failing or slow.
+ * </p>
+ * <p>
+ * Large entries of chunked caches are stored as chunks under their own keys, written and read in one
+ * pipeline each, with a manifest under the key of the entry, see {@link CacheChunks}. Every read resolves
+ * manifests transparently; an entry whose chunks are missing, expired or replaced meanwhile, is a miss.
+ * </p>
+ *
+ * @author CGI
+ */
+public class RedisCacheStore {
+    private static final RedisScript<Long> ADD_TO_SET = new DefaultRedisScript<>(
+            "local added = redis.call('SADD', KEYS[1], unpack(ARGV, 2)) "
+                    + "local ttl = redis.call('PTTL', KEYS[1]) "
+                    + "if ttl == -1 or ttl < tonumber(ARGV[1]) then redis.call('PEXPIRE', KEYS[1], ARGV[1]) end "
+                    + "return added", Long.class);
+    private static final RedisScript<Long> RENAME_IF_EXISTS = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end "
+                    + "redis.call('RENAME', KEYS[1], KEYS[2]) "
+                    + "return 1", Long.class);
+    private static final RedisScript<Long> SET_IF_LEASE_HOLDER = new DefaultRedisScript<>(
+            "local holder = redis.call('GET', KEYS[2]) "
+                    + "if holder and holder ~= ARGV[1] then return 0 end "
+                    + "redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3]) "
+                    + "if holder then redis.call('DEL', KEYS[2]) end "
+                    + "return 1", Long.class);
+    private static final RedisScript<Long> REMOVE_IF_EQUALS = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end "
+                    + "return 0", Long.class);
+    private static final String INDEX_BYTES_FIELD = "#bytes";
+    private static final RedisScript<Long> INDEX_ADD = new DefaultRedisScript<>(
+            "local old = tonumber(redis.call('HGET', KEYS[2], ARGV[1]) or 0) "
+                    + "redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1]) "
+                    + "redis.call('HSET', KEYS[2], ARGV[1], ARGV[3]) "
+                    + "local total = redis.call('HINCRBY', KEYS[2], '" + INDEX_BYTES_FIELD + "', tonumber(ARGV[3]) - old) "
+                    + "if redis.call('PTTL', KEYS[1]) < tonumber(ARGV[4]) then "
+                    + "redis.call('PEXPIRE', KEYS[1], ARGV[4]) redis.call('PEXPIRE', KEYS[2], ARGV[4]) end "
+                    + "return total", Long.class);
+    private static final RedisScript<Long> INDEX_REMOVE = new DefaultRedisScript<>(
+            "local freed = 0 "
+                    + "for i = 1, #ARGV do "
+                    + "freed = freed + tonumber(redis.call('HGET', KEYS[2], ARGV[i]) or 0) "
+                    + "redis.call('HDEL', KEYS[2], ARGV[i]) end "
+                    + "local removed = redis.call('ZREM', KEYS[1], unpack(ARGV)) "
+                    + "if freed > 0 then redis.call('HINCRBY', KEYS[2], '" + INDEX_BYTES_FIELD + "', -freed) end "
+                    + "return removed", Long.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> INDEX_TRIM = new DefaultRedisScript<>(
+            "local count = redis.call('ZCARD', KEYS[1]) "
+                    + "local total = tonumber(redis.call('HGET', KEYS[2], '" + INDEX_BYTES_FIELD + "') or 0) "
+                    + "local maxEntries = tonumber(ARGV[1]) "
+                    + "local maxBytes = tonumber(ARGV[2]) "
+                    + "local evicted = {} "
+                    + "while #evicted < tonumber(ARGV[3]) and count > 0 "
+                    + "and ((maxEntries > 0 and count > maxEntries) or (maxBytes > 0 and total > maxBytes)) do "
+                    + "local oldest = redis.call('ZPOPMIN', KEYS[1]) "
+                    + "total = total - tonumber(redis.call('HGET', KEYS[2], oldest[1]) or 0) "
+                    + "redis.call('HDEL', KEYS[2], oldest[1]) "
+                    + "count = count - 1 "
+                    + "evicted[#evicted + 1] = oldest[1] end "
+                    + "if total < 0 or count == 0 then total = 0 end "
+                    + "if #evicted > 0 then redis.call('HSET', KEYS[2], '" + INDEX_BYTES_FIELD + "', total) end "
+                    + "table.insert(evicted, 1, tostring(total)) "
+                    + "table.insert(evicted, 1, tostring(count)) "
+                    + "return evicted", List.class);
+    private static final int MAX_FREE_CHUNK_BUFFERS = 64;
+    private static final long CHUNK_TTL_GRACE_MILLIS = 1_000;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    @Getter
+    private final RedisCircuitBreaker circuitBreaker;
+    private final CacheCodecs cacheCodecs;
+    private final Duration operationTimeout;
+    private final CacheChunks.BufferPool bufferPool = new CacheChunks.BufferPool(MAX_FREE_CHUNK_BUFFERS);
+
+    public RedisCacheStore(RedisTemplate<String, Object> redisTemplate, CacheCodecs cacheCodecs, Duration operationTimeout,
+                           RedisCircuitBreaker circuitBreaker) {
+        this.redisTemplate = redisTemplate;
+        this.cacheCodecs = cacheCodecs;
+        this.operationTimeout = operationTimeout;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Reads an entry.
+     *
+     * @param key the key of the entry
+     * @return the decoded value, possibly a {@link CacheEnvelope}, or null if the key does not exist
+     */
+    public Object get(String key) {
+        return decode(getBytes(key));
+    }
+
+    /**
+     * Reads an entry and resets its TTL in the same command, with {@code GETEX}.
+     *
+     * @param key the key of the entry
+     * @param ttlMillis the new TTL of the entry in milliseconds
+     * @return the decoded value, or null if the key does not exist
+     */
+    public Object getAndExpire(String key, long ttlMillis) {
+        byte[] data = circuitBreaker.execute(() -> await(redisTemplate.execute((RedisCallback<RedisFuture<byte[]>>) connection ->
+                asyncCommands(connection).getex(bytes(key), GetExArgs.Builder.px(ttlMillis)))));
+        return decode(data, ttlMillis);
+    }
+
+    /**
+     * Reads the raw bytes of a key, without decoding them.
+     *
+     * @param key the key
+     * @return the bytes, or null if the key does not exist
+     */
+    public byte[] getBytes(String key) {
+        return circuitBreaker.execute(() -> await(redisTemplate.execute((RedisCallback<RedisFuture<byte[]>>) connection ->
+                asyncCommands(connection).get(bytes(key)))));
+    }
+
+    /**
+     * Writes an entry with the TTL of its cache, and removes the hot key replicas of the entry.
+     *
+     * @param key the key of the entry
+     * @param stored the value to store, possibly wrapped in a {@link CacheEnvelope}
+     * @param ttlInfo the configuration of the cache
+     * @return the size of the encoded entry in bytes
+     */
+    public int set(String key, Object stored, TtlInfo ttlInfo) {
+        byte[] data = encode(stored, ttlInfo);
+        set(key, data, ttlInfo.getEntryTtlMillis(stored));
+        unlink(HotKeyDetector.replicaKeys(key, ttlInfo.getHotKeyReplicas()));
+        return data.length;
+    }
+
+    /**
+     * Writes an encoded entry.
+     *
+     * @param key the key of the entry
+     * @param data the encoded entry
+     * @param ttlMillis the TTL of the entry in milliseconds
+     */
+    public void set(String key, byte[] data, long ttlMillis) {
+        SetArgs setArgs = SetArgs.Builder.px(ttlMillis);
+        circuitBreaker.execute(() -> await(redisTemplate.execute((RedisCallback<RedisFuture<String>>) connection ->
+                asyncCommands(connection).set(bytes(key), data, setArgs))));
+    }
+
+    /**
+     * Sets a key only if it does not exist, with {@code SET NX PX}.
+     *
+     * @param key the key
+     * @param value the value
+     * @param ttlMillis the TTL of the key in milliseconds
+     * @return true if the key was set
+     */
+    public boolean setIfAbsent(String key, byte[] value, long ttlMillis) {
+        SetArgs setArgs = SetArgs.Builder.nx().px(ttlMillis);
+        String reply = circuitBreaker.execute(() -> await(redisTemplate.execute((RedisCallback<RedisFuture<String>>) connection ->
+                asyncCommands(connection).set(bytes(key), value, setArgs))));
+        return "OK".equals(reply);
+    }
+
+    /**
+     * Writes an encoded entry unless its lease is held under another token, and removes the lease, in one script.
+     * Both keys must share a cluster hash slot, see {@link RedisKeys#companionKey}.
+     *
+     * @param key the key of the entry
+     * @param data the encoded entry
+     * @param ttlMillis the TTL of the entry in milliseconds
+     * @param leaseKey the key of the lease
+     * @param token the token of the lease holder
+     * @return false if the lease is held under another token, the entry not being written
+     */
+    public boolean setIfLeaseHolder(String key, byte[] data, long ttlMillis, String leaseKey, String token) {
+        Long written = evalScript(SET_IF_LEASE_HOLDER, ScriptOutputType.INTEGER, List.of(key, leaseKey), bytes(token), data,
+                bytes(String.valueOf(ttlMillis)));
+        return written != null && written == 1;
+    }
+
+    /**
+     * Removes a key if it holds the given value, in one script.
+     *
+     * @param key the key
+     * @param value the expected value
+     * @return true if the key was removed
+     */
+    public boolean removeIfEquals(String key, String value) {
+        Long removed = evalScript(REMOVE_IF_EQUALS, ScriptOutputType.INTEGER, List.of(key), bytes(value));
+        return removed != null && removed == 1;
+    }
+
+    /**
+     * Writes the same encoded entry under several keys as pipelined {@code SET} commands.
+     *
+     * @param keys the keys of the entry
+     * @param data the encoded entry
+     * @param ttlMillis the TTL of the entry in milliseconds
+     */
+    public void multiSet(Collection<String> keys, byte[] data, long ttlMillis) {
+        SetArgs setArgs = SetArgs.Builder.px(ttlMillis);
+        circuitBreaker.execute(() -> redisTemplate.execute((RedisCallback<Void>) connection -> {
+            RedisStringAsyncCommands<byte[], byte[]> commands = asyncCommands(connection);
+            List<RedisFuture<String>> futures = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                futures.add(commands.set(bytes(key), data, setArgs));
+            }
+            await(futures);
+            return null;
+        }));
+    }
+
+    /**
+     * Reads an entry without blocking, through the shared asynchronous Lettuce connection.
+     *
+     * @param key the key of the entry
+     * @return a future of the decoded value, possibly a {@link CacheEnvelope}, completed with null if the key does not exist
+     */
+    public CompletableFuture<Object> getAsync(String key) {
+        return circuitBreaker.executeAsync(() -> redisTemplate.execute((RedisCallback<RedisFuture<byte[]>>) connection ->
+                        asyncCommands(connection).get(bytes(key))).toCompletableFuture().orTimeout(operationTimeout.toNanos(), TimeUnit.NANOSECONDS))
+                .thenCompose(this::decodeAsync);
+    }
+
+    /**
+     * Writes an entry with the TTL of its cache without blocking, through the shared asynchronous Lettuce connection,
+     * and removes the hot key replicas of the entry in the same pipeline.
+     *
+     * @param key the key of the entry
+     * @param stored the value to store, possibly wrapped in a {@link CacheEnvelope}
+     * @param ttlInfo the configuration of the cache
+     * @return a future of the size of the encoded entry in bytes, completed once the entry is written and its replicas removed
+     */
+    public CompletableFuture<Integer> setAsync(String key, Object stored, TtlInfo ttlInfo) {
+        byte[] data = encode(stored, ttlInfo);
+        SetArgs setArgs = SetArgs.Builder.px(ttlInfo.getEntryTtlMillis(stored));
+        List<String> replicaKeys = HotKeyDetector.replicaKeys(key, ttlInfo.getHotKeyReplicas());
+        return circuitBreaker.executeAsync(() -> redisTemplate.execute((RedisCallback<CompletableFuture<Integer>>) connection -> {
+            CompletableFuture<String> set = asyncCommands(connection).set(bytes(key), data, setArgs).toCompletableFuture();
+            List<CompletableFuture<?>> futures = new ArrayList<>(replicaKeys.size() + 1);
+            futures.add(set);
+            for (String replicaKey : replicaKeys) {
+                futures.add(keyCommands(connection).unlink(bytes(replicaKey)).toCompletableFuture());
+            }
+            return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignored -> data.length);
+        }).orTimeout(operationTimeout.toNanos(), TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Reads a batch of entries with one {@code MGET} per cluster hash slot, the slot groups
+     * being sent together and awaited in parallel.
+     *
+     * @param keys the keys of the entries
+     * @return the decoded values of the existing keys, by key
+     */
+    public Map<String, Object> multiGet(Collection<String> keys) {
+        List<KeyValue<byte[], byte[]>> values = multiGetBytes(keys);
+        Map<String, Object> entries = new HashMap<>();
+        if (values != null) {
+            for (KeyValue<byte[], byte[]> value : values) {
+                if (value.hasValue()) {
+                    entries.put(new String(value.getKey(), StandardCharsets.UTF_8), decode(value.getValue()));
+                }
+            }
+        }
+        return entries;
+    }
+
+    private List<KeyValue<byte[], byte[]>> multiGetBytes(Collection<String> keys) {
+        List<byte[]> rawKeys = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            rawKeys.add(bytes(key));
+        }
+        return circuitBreaker.execute(() -> redisTemplate.execute((RedisCallback<List<KeyValue<byte[], byte[]>>>) connection -> {
+            RedisStringAsyncCommands<byte[], byte[]> commands = asyncCommands(connection);
+            List<RedisFuture<List<KeyValue<byte[], byte[]>>>> futures = new ArrayList<>();
+            for (List<byte[]> slotKeys : SlotHash.partition(ByteArrayCodec.INSTANCE, rawKeys).values()) {
+                futures.add(commands.mget(slotKeys.toArray(new byte[0][])));
+            }
+            await(futures);
+            List<KeyValue<byte[], byte[]>> result = new ArrayList<>(rawKeys.size());
+            for (RedisFuture<List<KeyValue<byte[], byte[]>>> future : futures) {
+                result.addAll(future.resultNow());
+            }
+            return result;
+        }));
+    }
+
+    /**
+     * Writes a batch of entries with the TTL of their cache as pipelined {@code SET} commands.
+     *
+     * @param cacheName the cache name
+     * @param entries the values to store by key, possibly wrapped in a {@link CacheEnvelope}
+     * @param ttlInfo the configuration of the cache
+     * @return the size of the encoded entries in bytes, by key
+     */
+    public Map<String, Integer> multiSet(String cacheName, Map<String, Object> entries, TtlInfo ttlInfo) {
+        List<CacheWrite> writes = new ArrayList<>(entries.size());
+        entries.forEach((key, stored) -> writes.add(new CacheWrite(cacheName, key, stored, ttlInfo)));
+        return multiSet(writes);
+    }
+
+    /**
+     * Writes a batch of entries, each with the TTL of its own cache, as pipelined {@code SET} commands
+     * issued slot group after slot group. The hot key replicas of the entries are removed in the same pipeline.
+     *
+     * @param writes the entries to write
+     * @return the size of the encoded entries in bytes, by key
+     */
+    public Map<String, Integer> multiSet(Collection<CacheWrite> writes) {
+        Map<Integer, List<CacheWrite>> slotGroups = new TreeMap<>();
+        List<byte[]> replicaKeys = new ArrayList<>();
+        for (CacheWrite write : writes) {
+            slotGroups.computeIfAbsent(SlotHash.getSlot(write.getKey()), slot -> new ArrayList<>()).add(write);
+            for (String replicaKey : HotKeyDetector.replicaKeys(write.getKey(), write.getTtlInfo().getHotKeyReplicas())) {
+                replicaKeys.add(bytes(replicaKey));
+            }
+        }
+        List<byte[][]> rawWrites = new ArrayList<>(writes.size());
+        List<SetArgs> setArgs = new ArrayList<>(writes.size());
+        Map<String, Integer> sizes = new HashMap<>();
+        for (List<CacheWrite> slotWrites : slotGroups.values()) {
+            for (CacheWrite write : slotWrites) {
+                TtlInfo ttlInfo = write.getTtlInfo();
+                byte[] data = encode(write.getStored(), ttlInfo);
+                rawWrites.add(new byte[][]{bytes(write.getKey()), data});
+                setArgs.add(SetArgs.Builder.px(ttlInfo.getEntryTtlMillis(write.getStored())));
+                sizes.put(write.getKey(), data.length);
+            }
+        }
+        circuitBreaker.execute(() -> redisTemplate.execute((RedisCallback<Void>) connection -> {
+            RedisStringAsyncCommands<byte[], byte[]> commands = asyncCommands(connection);
+            List<RedisFuture<?>> futures = new ArrayList<>(rawWrites.size() + replicaKeys.size());
+            for (int i = 0; i < rawWrites.size(); i++) {
+                futures.add(commands.set(rawWrites.get(i)[0], rawWrites.get(i)[1], setArgs.get(i)));
+            }
+            if (!replicaKeys.isEmpty()) {
+                RedisKeyAsyncCommands<byte[], byte[]> keyCommands = keyCommands(connection);
+                for (List<byte[]> slotKeys : SlotHash.partition(ByteArrayCodec.INSTANCE, replicaKeys).values()) {
+                    futures.add(keyCommands.unlink(slotKeys.toArray(new byte[0][])));
+                }
+            }
+            await(futures);
+            return null;
+        }));
+        return sizes;
+    }
+
+    /**
+     * Increments a counter.
+     *
+     * @param key the key of the counter
+     * @return the incremented value
+     */
+    public long increment(String key) {
+        Long value = circuitBreaker.execute(() -> await(redisTemplate.execute((RedisCallback<RedisFuture<Long>>) connection ->
+                asyncCommands(connection).incr(bytes(key)))));
+        return value != null ? value : 0;
+    }
+
+    /**
+     * Removes keys with one {@code UNLINK} per cluster hash slot, the slot groups being sent together
+     * and awaited in parallel. Redis reclaims the memory of the values in the background.
+     *
+     * @param keys the keys to remove
+     * @return the number of keys that existed
+     */
+    public long unlink(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        List<byte[]> rawKeys = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            rawKeys.add(bytes(key));
+        }
+        Long unlinked = circuitBreaker.execute(() -> redisTemplate.execute((RedisCallback<Long>) connection -> {
+            RedisKeyAsyncCommands<byte[], byte[]> commands = keyCommands(connection);
+            List<RedisFuture<Long>> futures = new ArrayList<>();
+            for (List<byte[]> slotKeys : SlotHash.partition(ByteArrayCodec.INSTANCE, rawKeys).values()) {
+                futures.add(commands.unlink(slotKeys.toArray(new byte[0][])));
+            }
+            await(futures);
+            long count = 0;
+            for (RedisFuture<Long> future : futures) {
+                count += future.resultNow();
+            }
+            return count;
+        }));
+        return unlinked != null ? unlinked : 0;
+    }
+
+    /**
+     * Removes entries together with the chunks of the chunked ones, whose manifests are read first with
+     * one {@code MGET} per cluster hash slot.
+     *
+     * @param keys the keys of the entries
+     * @return the number of entry keys that existed
+     */
+    public long unlinkWithChunks(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        List<String> chunkKeys = new ArrayList<>();
+        List<KeyValue<byte[], byte[]>> values = multiGetBytes(keys);
+        if (values != null) {
+            for (KeyValue<byte[], byte[]> value : values) {
+                if (value.hasValue() && CacheChunks.isManifest(value.getValue())) {
+                    chunkKeys.addAll(chunkKeys(CacheChunks.Manifest.parse(value.getValue())));
+                }
+            }
+        }
+        unlink(chunkKeys);
+        return unlink(keys);
+    }
+
+    /**
+     * Iterates over the keys matching a pattern with {@code SCAN}, on every upstream node in cluster mode,
+     * handing them over batch by batch. Each step is a separate command bounded by the operation timeout,
+     * so that Redis is never blocked for long.
+     *
+     * @param pattern the {@code MATCH} pattern
+     * @param batchSize the {@code COUNT} hint of each step
+     * @param batchConsumer the consumer of each non-empty batch of keys
+     */
+    public void scan(String pattern, int batchSize, Consumer<List<String>> batchConsumer) {
+        ScanArgs scanArgs = ScanArgs.Builder.matches(pattern).limit(batchSize);
+        ScanCursor cursor = ScanCursor.INITIAL;
+        do {
+            ScanCursor current = cursor;
+            KeyScanCursor<byte[]> step = circuitBreaker.execute(() -> await(redisTemplate.execute((RedisCallback<RedisFuture<KeyScanCursor<byte[]>>>) connection ->
+                    keyCommands(connection).scan(current, scanArgs))));
+            if (!step.getKeys().isEmpty()) {
+                batchConsumer.accept(strings(step.getKeys()));
+            }
+            cursor = step;
+        } while (!cursor.isFinished());
+    }
+
+    /**
+     * Iterates over the members of a set with {@code SSCAN}, handing them over batch by batch.
+     *
+     * @param key the key of the set
+     * @param batchSize the {@code COUNT} hint of each step
+     * @param batchConsumer the consumer of each non-empty batch of members
+     */
+    public void scanMembers(String key, int batchSize, Consumer<List<String>> batchConsumer) {
+        ScanArgs scanArgs = ScanArgs.Builder.limit(batchSize);
+        ScanCursor cursor = ScanCursor.INITIAL;
+        do {
+            ScanCursor current = cursor;
+            ValueScanCursor<byte[]> step = circuitBreaker.execute(() -> await(redisTemplate.execute((RedisCallback<RedisFuture<ValueScanCursor<byte[]>>>) connection ->
+                    setCommands(connection).sscan(bytes(key), current, scanArgs))));
+            if (!step.getValues().isEmpty()) {
+                batchConsumer.accept(strings(step.getValues()));
+            }
+            cursor = step;
+        } while (!cursor.isFinished());
+    }
+
+    /**
+     * Adds members to a set and extends the TTL of the set to at least the given TTL, in one script.
+     *
+     * @param key the key of the set
+     * @param members the members to add
+     * @param ttlMillis the minimum TTL of the set in milliseconds
+     */
+    public void addToSet(String key, Collection<String> members, long ttlMillis) {
+        byte[][] args = new byte[members.size() + 1][];
+        args[0] = bytes(String.valueOf(ttlMillis));
+        int i = 1;
+        for (String member : members) {
+            args[i++] = bytes(member);
+        }
+        evalScript(ADD_TO_SET, ScriptOutputType.INTEGER, List.of(key), args);
+    }
+
+    /**
+     * Renames a key if it exists. Both keys must share a cluster hash slot, see {@link RedisKeys#companionKey}.
+     *
+     * @param key the key to rename
+     * @param newKey the new name of the key
+     * @return true if the key existed and was renamed
+     */
+    public boolean renameIfExists(String key, String newKey) {
+        Long renamed = evalScript(RENAME_IF_EXISTS, ScriptOutputType.INTEGER, List.of(key, newKey));
+        return renamed != null && renamed == 1;
+    }
+
+    /**
+     * Adds or updates a member of an index: a sorted set scored by last access and a companion hash
+     * of the member sizes and their total, both in the same cluster hash slot. The TTL of the index
+     * is extended to at least the given TTL, in one script.
+     *
+     * @param indexKey the key of the sorted set
+     * @param sizesKey the key of the hash of the sizes, see {@link RedisKeys#companionKey}
+     * @param member the member, a Redis key
+     * @param score the access time of the member
+     * @param bytes the size of the member in bytes
+     * @param ttlMillis the minimum TTL of the index in milliseconds
+     * @return the total size of the members in bytes
+     */
+    public long addToIndex(String indexKey, String sizesKey, String member, long score, int bytes, long ttlMillis) {
+        Long total = evalScript(INDEX_ADD, ScriptOutputType.INTEGER, List.of(indexKey, sizesKey), bytes(member),
+                bytes(String.valueOf(score)), bytes(String.valueOf(bytes)), bytes(String.valueOf(ttlMillis)));
+        return total != null ? total : 0;
+    }
+
+    /**
+     * Updates the access time of a member of an index, if it is still a member, with {@code ZADD XX}.
+     *
+     * @param indexKey the key of the sorted set
+     * @param member the member
+     * @param score the access time of the member
+     */
+    public void touchIndex(String indexKey, String member, long score) {
+        circuitBreaker.execute(() -> await(redisTemplate.execute((RedisCallback<RedisFuture<Long>>) connection ->
+                sortedSetCommands(connection).zadd(bytes(indexKey), ZAddArgs.Builder.xx(), (double) score, bytes(member)))));
+    }
+
+    /**
+     * Removes members from an index, see {@link #addToIndex}.
+     *
+     * @param indexKey the key of the sorted set
+     * @param sizesKey the key of the hash of the sizes
+     * @param members the members to remove
+     * @return the number of members removed
+     */
+    public long removeFromIndex(String indexKey, String sizesKey, Collection<String> members) {
+        if (members.isEmpty()) {
+            return 0;
+        }
+        byte[][] args = new byte[members.size()][];
+        int i = 0;
+        for (String member : members) {
+            args[i++] = bytes(member);
+        }
+        Long removed = evalScript(INDEX_REMOVE, ScriptOutputType.INTEGER, List.of(indexKey, sizesKey), args);
+        return removed != null ? removed : 0;
+    }
+
+    /**
+     * Returns the least recently accessed members of an index.
+     *
+     * @param indexKey the key of the sorted set
+     * @param count the maximum number of members
+     * @return the members, least recently accessed first
+     */
+    public List<String> oldestInIndex(String indexKey, int count) {
+        List<byte[]> members = circuitBreaker.execute(() -> await(redisTemplate.execute((RedisCallback<RedisFuture<List<byte[]>>>) connection ->
+                sortedSetCommands(connection).zrange(bytes(indexKey), 0, count - 1))));
+        return members != null ? strings(members) : List.of();
+    }
+
+    /**
+     * Pops the least recently accessed members of an index while it holds more members or bytes
+     * than allowed, in one script. The caller removes the popped keys.
+     *
+     * @param indexKey the key of the sorted set
+     * @param sizesKey the key of the hash of the sizes
+     * @param maxEntries the maximum number of members, 0 for no limit
+     * @param maxBytes the maximum total size of the members in bytes, 0 for no limit
+     * @param limit the maximum number of members popped by this call
+     * @return the size of the index after trimming and the popped members
+     */
+    public IndexTrim trimIndex(String indexKey, String sizesKey, long maxEntries, long maxBytes, int limit) {
+        List<byte[]> values = evalScript(INDEX_TRIM, ScriptOutputType.MULTI, List.of(indexKey, sizesKey), bytes(String.valueOf(maxEntries)),
+                bytes(String.valueOf(maxBytes)), bytes(String.valueOf(limit)));
+        if (values == null || values.size() < 2) {
+            return new IndexTrim(0, 0, List.of());
+        }
+        List<String> result = strings(values);
+        return new IndexTrim(Long.parseLong(result.get(0)), Long.parseLong(result.get(1)), result.subList(2, result.size()));
+    }
+
+    /**
+     * Returns the keys that do not exist, with one pipelined {@code EXISTS} per key.
+     *
+     * @param keys the keys to check
+     * @return the missing keys
+     */
+    public List<String> missing(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        Map<String, Long> counts = circuitBreaker.execute(() -> redisTemplate.execute((RedisCallback<Map<String, Long>>) connection -> {
+            RedisKeyAsyncCommands<byte[], byte[]> commands = keyCommands(connection);
+            Map<String, RedisFuture<Long>> futures = new LinkedHashMap<>();
+            for (String key : keys) {
+                futures.put(key, commands.exists(bytes(key)));
+            }
+            await(new ArrayList<>(futures.values()));
+            Map<String, Long> results = new LinkedHashMap<>();
+            futures.forEach((key, future) -> results.put(key, future.resultNow()));
+            return results;
+        }));
+        List<String> missing = new ArrayList<>();
+        counts.forEach((key, count) -> {
+            if (count == 0) {
+                missing.add(key);
+            }
+        });
+        return missing;
+    }
+
+    /**
+     * Returns the memory used by keys in Redis, value and overhead included, with one pipelined
+     * {@code MEMORY USAGE} per key.
+     *
+     * @param keys the keys
+     * @return the memory of each existing key in bytes
+     */
+    public Map<String, Long> memoryUsage(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+        return circuitBreaker.execute(() -> redisTemplate.execute((RedisCallback<Map<String, Long>>) connection -> {
+            RedisServerAsyncCommands<byte[], byte[]> commands = serverCommands(connection);
+            Map<String, RedisFuture<Long>> futures = new LinkedHashMap<>();
+            for (String key : keys) {
+                futures.put(key, commands.memoryUsage(bytes(key)));
+            }
+            await(new ArrayList<>(futures.values()));
+            Map<String, Long> usage = new LinkedHashMap<>();
+            futures.forEach((key, future) -> {
+                Long bytes = future.resultNow();
+                if (bytes != null) {
+                    usage.put(key, bytes);
+                }
+            });
+            return usage;
+        }));
+    }
+
+    /**
+     * Encodes a value with the codec and compression threshold of its cache.
+     *
+     * @param stored the value to encode
+     * @param ttlInfo the configuration of the cache
+     * @return the bytes to store
+     */
+    public byte[] encode(Object stored, TtlInfo ttlInfo) {
+        return cacheCodecs.encode(stored, ttlInfo);
+    }
+
+    /**
+     * Encodes a value with the codec of its cache into chunk buffers of the chunk size of the cache,
+     * see {@link CacheChunks}.
+     *
+     * @param stored the value to encode
+     * @param ttlInfo the configuration of the cache
+     * @return the encoded chunks, to be closed by the caller
+     */
+    public CacheChunks encodeChunks(Object stored, TtlInfo ttlInfo) {
+        return cacheCodecs.encodeChunks(stored, ttlInfo, bufferPool);
+    }
+
+    /**
+     * Copies encoded chunks into the bytes of a plain entry, for entries below the chunk threshold.
+     *
+     * @param chunks the encoded chunks
+     * @param ttlInfo the configuration of the cache
+     * @return the bytes to store
+     */
+    public byte[] toEntry(CacheChunks chunks, TtlInfo ttlInfo) {
+        return cacheCodecs.toEntry(chunks, ttlInfo);
+    }
+
+    /**
+     * Writes the chunks of an entry as pipelined {@code SET} commands, each chunk compressed on its own
+     * when the cache compresses its entries. The chunks outlive the TTL of the entry by a second, so that
+     * a manifest read just before it expires still finds its chunks.
+     *
+     * @param key the key of the entry
+     * @param chunks the encoded chunks
+     * @param ttlInfo the configuration of the cache
+     * @param ttlMillis the TTL of the entry in milliseconds
+     * @return the manifest to write under the key of the entry once the chunks are written
+     */
+    public byte[] writeChunks(String key, CacheChunks chunks, TtlInfo ttlInfo, long ttlMillis) {
+        boolean compressed = ttlInfo.getCompressionThreshold() > 0;
+        CacheChunks.Manifest manifest = new CacheChunks.Manifest(CacheChunks.newChunkKeyPrefix(key), chunks.getChunkSize(),
+                chunks.getChunkCount(), chunks.getLength(), compressed);
+        SetArgs setArgs = SetArgs.Builder.px(ttlMillis + CHUNK_TTL_GRACE_MILLIS);
+        try {
+            circuitBreaker.execute(() -> redisTemplate.execute((RedisCallback<Void>) connection -> {
+                RedisStringAsyncCommands<byte[], byte[]> commands = asyncCommands(connection);
+                List<RedisFuture<String>> futures = new ArrayList<>(chunks.getChunkCount());
+                for (int i = 0; i < chunks.getChunkCount(); i++) {
+                    futures.add(commands.set(bytes(manifest.chunkKey(i)), cacheCodecs.encodeChunk(chunks, i, compressed), setArgs));
+                }
+                await(futures);
+                return null;
+            }));
+        } catch (RuntimeException e) {
+            // Commands still pending may read the buffers
+            chunks.detach();
+            throw e;
+        }
+        return manifest.toBytes();
+    }
+
+    /**
+     * Writes an encoded entry of a chunked cache with {@code SET ... GET}, then removes the chunks of the
+     * entry it replaced, if any. A concurrent reader of the replaced entry gets a miss.
+     *
+     * @param key the key of the entry
+     * @param data the encoded entry or manifest
+     * @param ttlMillis the TTL of the entry in milliseconds
+     */
+    public void replace(String key, byte[] data, long ttlMillis) {
+        SetArgs setArgs = SetArgs.Builder.px(ttlMillis);
+        byte[] previous = circuitBreaker.execute(() -> await(redisTemplate.execute((RedisCallback<RedisFuture<byte[]>>) connection ->
+                asyncCommands(connection).setGet(bytes(key), data, setArgs))));
+        if (CacheChunks.isManifest(previous)) {
+            unlink(chunkKeys(CacheChunks.Manifest.parse(previous)));
+        }
+    }
+
+    /**
+     * Decodes stored bytes, reading the chunks of a manifest.
+     *
+     * @param data the stored bytes
+     * @return the decoded value, or null if data is null or the chunks of the manifest are missing
+     */
+    public Object decode(byte[] data) {
+        return decode(data, 0);
+    }
+
+    /**
+     * Decodes stored bytes, reading the chunks of a manifest in one pipeline and resetting their TTL
+     * when a TTL is given.
+     */
+    private Object decode(byte[] data, long ttlMillis) {
+        if (!CacheChunks.isManifest(data)) {
+            return cacheCodecs.decode(data);
+        }
+        CacheChunks.Manifest manifest = CacheChunks.Manifest.parse(data);
+        List<byte[]> chunks = circuitBreaker.execute(() -> {
+            List<RedisFuture<byte[]>> futures = getChunks(manifest, ttlMillis);
+            await(futures);
+            return results(futures);
+        });
+        return chunks != null ? cacheCodecs.decode(manifest, chunks, bufferPool) : null;
+    }
+
+    private CompletableFuture<Object> decodeAsync(byte[] data) {
+        if (!CacheChunks.isManifest(data)) {
+            return CompletableFuture.completedFuture(cacheCodecs.decode(data));
+        }
+        CacheChunks.Manifest manifest = CacheChunks.Manifest.parse(data);
+        return circuitBreaker.executeAsync(() -> {
+            List<RedisFuture<byte[]>> futures = getChunks(manifest, 0);
+            return CompletableFuture.allOf(futures.stream().map(RedisFuture::toCompletableFuture).toArray(CompletableFuture[]::new))
+                    .orTimeout(operationTimeout.toNanos(), TimeUnit.NANOSECONDS)
+                    .thenApply(ignored -> results(futures));
+        }).thenApply(chunks -> chunks != null ? cacheCodecs.decode(manifest, chunks, bufferPool) : null);
+    }
+
+    /**
+     * Sends one {@code GET}, or {@code GETEX} when a TTL is given, per chunk of a manifest, without waiting.
+     */
+    private List<RedisFuture<byte[]>> getChunks(CacheChunks.Manifest manifest, long ttlMillis) {
+        GetExArgs getExArgs = ttlMillis > 0 ? GetExArgs.Builder.px(ttlMillis + CHUNK_TTL_GRACE_MILLIS) : null;
+        return redisTemplate.execute((RedisCallback<List<RedisFuture<byte[]>>>) connection -> {
+            RedisStringAsyncCommands<byte[], byte[]> commands = asyncCommands(connection);
+            List<RedisFuture<byte[]>> futures = new ArrayList<>(manifest.chunkCount());
+            for (int i = 0; i < manifest.chunkCount(); i++) {
+                byte[] chunkKey = bytes(manifest.chunkKey(i));
+                futures.add(getExArgs != null ? commands.getex(chunkKey, getExArgs) : commands.get(chunkKey));
+            }
+            return futures;
+        });
+    }
+
+    /**
+     * Returns the chunks read, or null if a chunk is missing.
+     */
+    private static List<byte[]> results(List<RedisFuture<byte[]>> futures) {
+        List<byte[]> chunks = new ArrayList<>(futures.size());
+        for (RedisFuture<byte[]> future : futures) {
+            byte[] chunk = future.resultNow();
+            if (chunk == null) {
+                return null;
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private static List<String> chunkKeys(CacheChunks.Manifest manifest) {
+        List<String> keys = new ArrayList<>(manifest.chunkCount());
+        for (int i = 0; i < manifest.chunkCount(); i++) {
+            keys.add(manifest.chunkKey(i));
+        }
+        return keys;
+    }
+
+    /**
+     * Runs a script with {@code EVALSHA}, loading it with {@code EVAL} if the node does not know it yet,
+     * bounded by the operation timeout.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T evalScript(RedisScript<?> script, ScriptOutputType outputType, List<String> keys, byte[]... args) {
+        byte[][] rawKeys = new byte[keys.size()][];
+        for (int i = 0; i < rawKeys.length; i++) {
+            rawKeys[i] = bytes(keys.get(i));
+        }
+        return circuitBreaker.execute(() -> {
+            try {
+                return (T) await(redisTemplate.execute((RedisCallback<RedisFuture<Object>>) connection ->
+                        scriptingCommands(connection).evalsha(script.getSha1(), outputType, rawKeys, args)));
+            } catch (RedisNoScriptException e) {
+                return (T) await(redisTemplate.execute((RedisCallback<RedisFuture<Object>>) connection ->
+                        scriptingCommands(connection).eval(script.getScriptAsString(), outputType, rawKeys, args)));
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RedisStringAsyncCommands<byte[], byte[]> asyncCommands(RedisConnection connection) {
+        return (RedisStringAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RedisKeyAsyncCommands<byte[], byte[]> keyCommands(RedisConnection connection) {
+        return (RedisKeyAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RedisSetAsyncCommands<byte[], byte[]> setCommands(RedisConnection connection) {
+        return (RedisSetAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RedisSortedSetAsyncCommands<byte[], byte[]> sortedSetCommands(RedisConnection connection) {
+        return (RedisSortedSetAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RedisServerAsyncCommands<byte[], byte[]> serverCommands(RedisConnection connection) {
+        return (RedisServerAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RedisScriptingAsyncCommands<byte[], byte[]> scriptingCommands(RedisConnection connection) {
+        return (RedisScriptingAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+    }
+
+    private static List<String> strings(List<byte[]> values) {
+        List<String> strings = new ArrayList<>(values.size());
+        for (byte[] value : values) {
+            strings.add(new String(value, StandardCharsets.UTF_8));
+        }
+        return strings;
+    }
+
+    private <T> T await(RedisFuture<T> future) {
+        return LettuceFutures.awaitOrCancel(future, operationTimeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private void await(List<? extends RedisFuture<?>> futures) {
+        if (!LettuceFutures.awaitAll(operationTimeout, futures.toArray(new RedisFuture[0]))) {
+            throw new RedisCommandTimeoutException("Batch of " + futures.size() + " commands timed out after " + operationTimeout);
+        }
+    }
+
+    static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The outcome of {@link #trimIndex}.
+     *
+     * @param entries the number of members left in the index
+     * @param bytes the total size of the members left in the index
+     * @param evicted the popped members
+     */
+    public record IndexTrim(long entries, long bytes, List<String> evicted) {
+    }
+}
@@ -0,0 +1,308 @@
+package com.claracore.rediscacheclient.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker guarding the Redis operations of the {@link RedisCacheStore}, so that a slow or
+ * unavailable Redis degrades cached methods to their uncached latency instead of the timeout latency.
+ * <p>
+ * The outcomes of the last {@code windowSize} calls are tracked in a sliding window. A call is slow
+ * when it succeeds after the slow-call duration, and failed when it throws, deadline expirations
+ * included. Once the window holds at least {@code minimumCalls} outcomes and the failure rate or the
+ * slow-call rate reaches its threshold, the breaker opens: calls are rejected and callers skip Redis.
+ * After the open duration, the breaker lets {@code halfOpenCalls} trial calls through. It closes when
+ * all of them succeed in time, and opens again on the first failed or slow trial call.
+ * </p>
+ * <p>
+ * Example configuration in application.properties (durations in milliseconds, rates in percent):
+ * <pre>
+ * timedcache.circuit-breaker.enabled=true
+ * timedcache.circuit-breaker.window-size=100
+ * timedcache.circuit-breaker.minimum-calls=20
+ * timedcache.circuit-breaker.failure-rate-threshold=50
+ * timedcache.circuit-breaker.slow-call-duration=100
+ * timedcache.circuit-breaker.slow-call-rate-threshold=80
+ * timedcache.circuit-breaker.open-duration=5000
+ * timedcache.circuit-breaker.half-open-calls=5
+ * </pre>
+ * </p>
+ *
+ * @author CGI
+ */
+public class RedisCircuitBreaker {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisCircuitBreaker.class);
+
+    private static final byte SUCCESS = 0;
+    private static final byte SLOW = 1;
+    private static final byte FAILURE = 2;
+
+    /**
+     * States of the circuit breaker.
+     */
+    public enum State {
+        /**
+         * Calls are permitted and their outcomes tracked.
+         */
+        CLOSED,
+        /**
+         * Calls are rejected until the open duration elapses.
+         */
+        OPEN,
+        /**
+         * A limited number of trial calls decides whether to close or to open again.
+         */
+        HALF_OPEN
+    }
+
+    private final boolean enabled;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long slowCallNanos;
+    private final int slowCallRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    private final byte[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+    private int windowSlowCalls;
+
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private int trialCallsStarted;
+    private int trialCallsSucceeded;
+
+    private Counter successCalls;
+    private Counter slowCalls;
+    private Counter failedCalls;
+    private Counter rejectedCalls;
+
+    public RedisCircuitBreaker(boolean enabled, int windowSize, int minimumCalls, int failureRateThreshold,
+                               Duration slowCallDuration, int slowCallRateThreshold, Duration openDuration, int halfOpenCalls) {
+        if (windowSize <= 0 || minimumCalls <= 0 || minimumCalls > windowSize || halfOpenCalls <= 0) {
+            throw new IllegalArgumentException("Invalid circuit breaker window: windowSize=" + windowSize
+                    + ", minimumCalls=" + minimumCalls + ", halfOpenCalls=" + halfOpenCalls);
+        }
+        this.enabled = enabled;
+        this.window = new byte[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = slowCallDuration.toNanos();
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    /**
+     * Registers the meters of the breaker: its state, the failure and slow-call rates of the window
+     * and the calls by outcome.
+     *
+     * @param registry the registry of the application
+     */
+    public void registerMeters(MeterRegistry registry) {
+        for (State meterState : State.values()) {
+            Gauge.builder("timedcache.circuit.state", this, breaker -> breaker.getState() == meterState ? 1 : 0)
+                    .tag("state", meterState.name().toLowerCase())
+                    .description("State of the Redis circuit breaker, 1 for the current state").register(registry);
+        }
+        Gauge.builder("timedcache.circuit.failure.rate", this, RedisCircuitBreaker::getFailureRate)
+                .baseUnit("percent").description("Failure rate of the Redis calls in the sliding window").register(registry);
+        Gauge.builder("timedcache.circuit.slow.rate", this, RedisCircuitBreaker::getSlowCallRate)
+                .baseUnit("percent").description("Slow-call rate of the Redis calls in the sliding window").register(registry);
+        successCalls = callCounter(registry, "success");
+        slowCalls = callCounter(registry, "slow");
+        failedCalls = callCounter(registry, "failure");
+        rejectedCalls = callCounter(registry, "rejected");
+    }
+
+    /**
+     * Checks whether Redis calls are currently permitted, without taking a permission. Callers use it
+     * to skip Redis altogether while the breaker is open.
+     *
+     * @return false if the breaker is open, or half-open with all trial calls started
+     */
+    public boolean isCallPermitted() {
+        State current = state;
+        if (current == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.OPEN) {
+                return System.nanoTime() - openedAt >= openNanos;
+            }
+            return state == State.CLOSED || trialCallsStarted < halfOpenCalls;
+        }
+    }
+
+    /**
+     * Executes a blocking Redis call, recording its outcome.
+     *
+     * @param call the Redis call, bounded by the operation deadline
+     * @return the result of the call
+     * @throws CircuitBreakerOpenException if the breaker does not permit the call
+     */
+    public <T> T execute(Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        acquirePermission();
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            onSuccess(System.nanoTime() - start);
+            return result;
+        } catch (RuntimeException e) {
+            onFailure();
+            throw e;
+        }
+    }
+
+    /**
+     * Executes a non-blocking Redis call, recording its outcome on completion.
+     *
+     * @param call the Redis call, whose future completes exceptionally after the operation deadline
+     * @return the future of the call
+     * @throws CircuitBreakerOpenException if the breaker does not permit the call
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        acquirePermission();
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            onFailure();
+            throw e;
+        }
+        return future.whenComplete((result, e) -> {
+            if (e != null) {
+                onFailure();
+            } else {
+                onSuccess(System.nanoTime() - start);
+            }
+        });
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return the failure rate of the sliding window in percent
+     */
+    public synchronized double getFailureRate() {
+        return windowCount > 0 ? 100.0 * windowFailures / windowCount : 0;
+    }
+
+    /**
+     * @return the slow-call rate of the sliding window in percent
+     */
+    public synchronized double getSlowCallRate() {
+        return windowCount > 0 ? 100.0 * windowSlowCalls / windowCount : 0;
+    }
+
+    private synchronized void acquirePermission() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.OPEN || (state == State.HALF_OPEN && trialCallsStarted >= halfOpenCalls)) {
+            increment(rejectedCalls);
+            throw new CircuitBreakerOpenException("Redis circuit breaker is " + state + ", call not permitted");
+        }
+        if (state == State.HALF_OPEN) {
+            trialCallsStarted++;
+        }
+    }
+
+    private synchronized void onSuccess(long nanos) {
+        boolean slow = nanos >= slowCallNanos;
+        increment(slow ? slowCalls : successCalls);
+        if (state == State.HALF_OPEN) {
+            if (slow) {
+                transitionTo(State.OPEN);
+            } else if (++trialCallsSucceeded >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+        } else if (state == State.CLOSED) {
+            record(slow ? SLOW : SUCCESS);
+        }
+    }
+
+    private synchronized void onFailure() {
+        increment(failedCalls);
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+        } else if (state == State.CLOSED) {
+            record(FAILURE);
+        }
+    }
+
+    private void record(byte outcome) {
+        if (windowCount == window.length) {
+            forget(window[windowIndex]);
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = outcome;
+        windowIndex = (windowIndex + 1) % window.length;
+        if (outcome == FAILURE) {
+            windowFailures++;
+        } else if (outcome == SLOW) {
+            windowSlowCalls++;
+        }
+
+        if (windowCount >= minimumCalls
+                && (windowFailures * 100 >= failureRateThreshold * windowCount
+                || windowSlowCalls * 100 >= slowCallRateThreshold * windowCount)) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void forget(byte outcome) {
+        if (outcome == FAILURE) {
+            windowFailures--;
+        } else if (outcome == SLOW) {
+            windowSlowCalls--;
+        }
+    }
+
+    private void transitionTo(State newState) {
+        if (newState == State.OPEN) {
+            LOGGER.warn("Redis circuit breaker opened (failure rate {}%, slow-call rate {}%), bypassing Redis for {} ms",
+                    getFailureRate(), getSlowCallRate(), openNanos / 1_000_000);
+            openedAt = System.nanoTime();
+        } else if (newState == State.CLOSED) {
+            LOGGER.info("Redis circuit breaker closed");
+        }
+        windowIndex = 0;
+        windowCount = 0;
+        windowFailures = 0;
+        windowSlowCalls = 0;
+        trialCallsStarted = 0;
+        trialCallsSucceeded = 0;
+        state = newState;
+    }
+
+    private Counter callCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("timedcache.circuit.calls").tag("outcome", outcome)
+                .description("Redis calls through the circuit breaker").register(registry);
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
@@ -1,17 +1,25 @@
 package com.claracore.rediscacheclient.config;
 
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
 import io.lettuce.core.resource.ClientResources;
 import io.lettuce.core.resource.DefaultClientResources;
 import io.lettuce.core.resource.Delay;
 import io.lettuce.core.resource.DnsResolvers;
 import io.lettuce.core.tracing.BraveTracing;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -19,6 +27,7 @@ import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSeriali
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -30,6 +39,24 @@ import java.util.stream.Stream;
  * This class provides the necessary beans for connecting to a Redis cluster and
  * setting up a RedisTemplate for Redis operations and a CacheManager for caching.
  * </p>
+ * <p>
+ * The client is tuned with the {@code redis.client.*} properties:
+ * <pre>
+ * redis.client.connection-mode=shared
+ * redis.client.read-from=REPLICA_PREFERRED
+ * redis.client.topology-refresh.adaptive=true
+ * redis.client.topology-refresh.period=60000
+ * redis.client.request-queue-size=10000
+ * redis.client.pool.max-total=8
+ * redis.client.pool.max-idle=8
+ * redis.client.pool.min-idle=0
+ * redis.client.io-thread-pool-size=8
+ * redis.client.computation-thread-pool-size=4
+ * redis.client.reconnect-delay=5000
+ * </pre>
+ * Durations are expressed in milliseconds; thread pool sizes of 0 default to twice and once the
+ * number of processors.
+ * </p>
  *
  * @Author CGI
  */
@@ -44,8 +71,80 @@ public class RedisConfig {
     @Value("${spring.redis.timeout}")
     private Duration timeout;
 
+    @Value("${redis.client.tracking.prefixes:}")
+    private String[] trackingPrefixes;
+
+    @Value("${redis.client.connection-mode:shared}")
+    private String connectionMode;
+
+    @Value("${redis.client.read-from:UPSTREAM}")
+    private String readFrom;
+
+    @Value("${redis.client.topology-refresh.adaptive:true}")
+    private boolean adaptiveTopologyRefresh;
+
+    @Value("${redis.client.topology-refresh.period:60000}")
+    private long topologyRefreshPeriod;
+
+    @Value("${redis.client.request-queue-size:" + Integer.MAX_VALUE + "}")
+    private int requestQueueSize;
+
+    @Value("${redis.client.pool.max-total:8}")
+    private int poolMaxTotal;
+
+    @Value("${redis.client.pool.max-idle:8}")
+    private int poolMaxIdle;
+
+    @Value("${redis.client.pool.min-idle:0}")
+    private int poolMinIdle;
+
+    @Value("${redis.client.io-thread-pool-size:0}")
+    private int ioThreadPoolSize;
+
+    @Value("${redis.client.computation-thread-pool-size:0}")
+    private int computationThreadPoolSize;
+
+    @Value("${redis.client.reconnect-delay:5000}")
+    private long reconnectDelay;
+
+    @Value("${timedcache.operation-timeout:250}")
+    private long operationTimeout;
+
+    @Value("${timedcache.circuit-breaker.enabled:true}")
+    private boolean circuitBreakerEnabled;
+
+    @Value("${timedcache.circuit-breaker.window-size:100}")
+    private int circuitBreakerWindowSize;
+
+    @Value("${timedcache.circuit-breaker.minimum-calls:20}")
+    private int circuitBreakerMinimumCalls;
+
+    @Value("${timedcache.circuit-breaker.failure-rate-threshold:50}")
+    private int circuitBreakerFailureRateThreshold;
+
+    @Value("${timedcache.circuit-breaker.slow-call-duration:100}")
+    private long circuitBreakerSlowCallDuration;
+
+    @Value("${timedcache.circuit-breaker.slow-call-rate-threshold:80}")
+    private int circuitBreakerSlowCallRateThreshold;
+
+    @Value("${timedcache.circuit-breaker.open-duration:5000}")
+    private long circuitBreakerOpenDuration;
+
+    @Value("${timedcache.circuit-breaker.half-open-calls:5}")
+    private int circuitBreakerHalfOpenCalls;
+
     /**
-     * Creates a LettuceConnectionFactory for connecting to a Redis cluster with connection pooling.
+     * Creates a LettuceConnectionFactory for connecting to a Redis cluster.
+     * <p>
+     * In the default {@code shared} connection mode, every operation is multiplexed over a single native
+     * connection per node, which needs the fewest connections and serves small commands best. In the
+     * {@code pool} mode, each operation borrows a dedicated connection from a pool, for applications
+     * issuing blocking commands. Reads are routed according to {@code redis.client.read-from}, for
+     * instance {@code REPLICA_PREFERRED} or {@code LOWEST_LATENCY} to spread cache reads over the
+     * replicas, at the cost of reading entries a replication lag behind their last write. The cluster
+     * topology is refreshed on redirections and reconnections, and periodically.
+     * </p>
      *
      * @return a configured LettuceConnectionFactory
      */
@@ -56,12 +155,48 @@ public class RedisConfig {
         RedisClusterConfiguration clusterConfig = new RedisClusterConfiguration(nodes);
         clusterConfig.setMaxRedirects(maxRedirects);
 
-        LettucePoolingClientConfiguration clientConfig = LettucePoolingClientConfiguration.builder()
-                .commandTimeout(timeout)
-                .clientResources(clientResources())  // Use the custom ClientResources
+        ClusterTopologyRefreshOptions.Builder topologyRefresh = ClusterTopologyRefreshOptions.builder();
+        if (adaptiveTopologyRefresh) {
+            topologyRefresh.enableAllAdaptiveRefreshTriggers();
+        }
+        if (topologyRefreshPeriod > 0) {
+            topologyRefresh.enablePeriodicRefresh(Duration.ofMillis(topologyRefreshPeriod));
+        }
+        ClusterClientOptions clientOptions = ClusterClientOptions.builder()
+                .topologyRefreshOptions(topologyRefresh.build())
+                .requestQueueSize(requestQueueSize)
+                .socketOptions(SocketOptions.builder().tcpNoDelay(true).build())
                 .build();
 
-        return new LettuceConnectionFactory(clusterConfig, clientConfig);
+        boolean pooled = "pool".equalsIgnoreCase(connectionMode);
+        if (!pooled && !"shared".equalsIgnoreCase(connectionMode)) {
+            throw new IllegalArgumentException("Unknown connection mode: " + connectionMode);
+        }
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder clientConfig;
+        if (pooled) {
+            GenericObjectPoolConfig<?> poolConfig = new GenericObjectPoolConfig<>();
+            poolConfig.setMaxTotal(poolMaxTotal);
+            poolConfig.setMaxIdle(poolMaxIdle);
+            poolConfig.setMinIdle(poolMinIdle);
+            clientConfig = LettucePoolingClientConfiguration.builder().poolConfig(poolConfig);
+        } else {
+            clientConfig = LettuceClientConfiguration.builder();
+        }
+        clientConfig.commandTimeout(timeout)
+                .readFrom(readFrom(readFrom))
+                .clientOptions(clientOptions)
+                .clientResources(clientResources());  // Use the custom ClientResources
+
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(clusterConfig, clientConfig.build());
+        connectionFactory.setShareNativeConnection(!pooled);
+        return connectionFactory;
+    }
+
+    /**
+     * Resolves a read routing by name, such as {@code UPSTREAM}, {@code REPLICA_PREFERRED} or {@code lowestLatency}.
+     */
+    static ReadFrom readFrom(String name) {
+        return ReadFrom.valueOf(name.replace("_", "").replace("-", ""));
     }
 
     /**
@@ -89,6 +224,51 @@ public class RedisConfig {
         return template;
     }
 
+    /**
+     * Creates the registry of the codecs used to encode cached values: the built-in JSON and Smile
+     * codecs, plus any {@link CacheCodec} bean of the application.
+     *
+     * @param customCodecs the codecs provided by the application
+     * @return the codec registry
+     */
+    @Bean
+    public CacheCodecs cacheCodecs(ObjectProvider<CacheCodec> customCodecs) {
+        List<CacheCodec> codecs = new ArrayList<>();
+        codecs.add(new JsonCacheCodec(new GenericJackson2JsonRedisSerializer()));
+        codecs.add(new SmileCacheCodec());
+        customCodecs.orderedStream().forEach(codecs::add);
+        return new CacheCodecs(codecs);
+    }
+
+    /**
+     * Creates the circuit breaker guarding the Redis operations of the cache store.
+     * Durations are expressed in milliseconds and rates in percent.
+     *
+     * @return the circuit breaker
+     */
+    @Bean
+    public RedisCircuitBreaker redisCircuitBreaker() {
+        return new RedisCircuitBreaker(circuitBreakerEnabled, circuitBreakerWindowSize, circuitBreakerMinimumCalls,
+                circuitBreakerFailureRateThreshold, Duration.ofMillis(circuitBreakerSlowCallDuration),
+                circuitBreakerSlowCallRateThreshold, Duration.ofMillis(circuitBreakerOpenDuration), circuitBreakerHalfOpenCalls);
+    }
+
+    /**
+     * Creates the store reading and writing cache entries with the codec of their cache.
+     * Its operations are bounded by {@code timedcache.operation-timeout}, in milliseconds, rather than
+     * by the command timeout of the client, so that a slow Redis does not stall cached methods.
+     *
+     * @param redisTemplate the RedisTemplate providing the connections
+     * @param cacheCodecs the codec registry
+     * @param redisCircuitBreaker the circuit breaker guarding the operations
+     * @return the cache store
+     */
+    @Bean
+    public RedisCacheStore redisCacheStore(RedisTemplate<String, Object> redisTemplate, CacheCodecs cacheCodecs,
+                                           RedisCircuitBreaker redisCircuitBreaker) {
+        return new RedisCacheStore(redisTemplate, cacheCodecs, Duration.ofMillis(operationTimeout), redisCircuitBreaker);
+    }
+
     /**
      * Creates a CacheManager for managing Redis-based caches.
      *
@@ -100,6 +280,26 @@ public class RedisConfig {
         return RedisCacheManager.builder(redisConnectionFactory).build();
     }
 
+    /**
+     * Creates the listener that invalidates near cache entries using Redis client-side caching.
+     * Tracking can be switched off with {@code redis.client.tracking.enabled=false}, in which case
+     * near cache entries only expire through their TTL. The tracked prefixes default to the key
+     * prefix of the caches when {@code redis.client.tracking.prefixes} is not set.
+     *
+     * @param redisConnectionFactory the Lettuce connection factory
+     * @param nearCacheManager the near caches to invalidate
+     * @param cacheKeys the layout of the Redis keys of cache entries
+     * @return the tracking listener
+     */
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(name = "redis.client.tracking.enabled", havingValue = "true", matchIfMissing = true)
+    public RedisTrackingListener redisTrackingListener(LettuceConnectionFactory redisConnectionFactory, NearCacheManager nearCacheManager,
+                                                       CacheKeys cacheKeys) {
+        String[] prefixes = trackingPrefixes.length > 0 || cacheKeys.getPrefix().isEmpty()
+                ? trackingPrefixes : new String[]{cacheKeys.getPrefix()};
+        return new RedisTrackingListener(redisConnectionFactory, nearCacheManager, prefixes);
+    }
+
     /**
      * Provides ClientResources for customizing client resources.
      * This configuration is suitable for a production environment, with optimized settings for performance and resource management.
@@ -108,11 +308,12 @@ public class RedisConfig {
      */
     @Bean(destroyMethod = "shutdown")
     public ClientResources clientResources() {
+        int processors = Runtime.getRuntime().availableProcessors();
         return DefaultClientResources.builder()
-                .ioThreadPoolSize(Runtime.getRuntime().availableProcessors() * 2)  // Customize the number of IO threads
-                .computationThreadPoolSize(Runtime.getRuntime().availableProcessors())  // Customize the number of computation threads
+                .ioThreadPoolSize(ioThreadPoolSize > 0 ? ioThreadPoolSize : processors * 2)  // Customize the number of IO threads
+                .computationThreadPoolSize(computationThreadPoolSize > 0 ? computationThreadPoolSize : processors)  // Customize the number of computation threads
                 .dnsResolver(DnsResolvers.JVM_DEFAULT)  // Use the JVM's default DNS resolver
-                .reconnectDelay(Delay.constant(Duration.ofSeconds(5)))  // Delay for reconnect attempts
+                .reconnectDelay(Delay.constant(Duration.ofMillis(reconnectDelay)))  // Delay for reconnect attempts
                 .build();
     }
 }
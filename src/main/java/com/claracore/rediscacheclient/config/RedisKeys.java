@@ -0,0 +1,36 @@
+package com.claracore.rediscacheclient.config;
+
+import io.lettuce.core.cluster.SlotHash;
+
+/**
+ * Utility class for deriving Redis keys from cache keys.
+ *
+ * @author CGI
+ */
+public final class RedisKeys {
+
+    // Private constructor to prevent instantiation
+    private RedisKeys() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * Derives a companion key stored in the same cluster hash slot as the given key,
+     * so that both keys can be used together in a script or a multi-key command.
+     * <p>
+     * If the key carries a hash tag the suffix is simply appended, otherwise the key itself
+     * is wrapped in a hash tag.
+     * </p>
+     *
+     * @param key the Redis key
+     * @param suffix the suffix identifying the companion key
+     * @return the companion key
+     */
+    public static String companionKey(String key, String suffix) {
+        String candidate = key + suffix;
+        if (SlotHash.getSlot(candidate) == SlotHash.getSlot(key)) {
+            return candidate;
+        }
+        return "{" + key + "}" + suffix;
+    }
+}
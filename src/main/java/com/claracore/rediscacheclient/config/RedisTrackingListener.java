@@ -0,0 +1,160 @@
+package com.claracore.rediscacheclient.config;
+
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.push.RedisClusterPushListener;
+import io.lettuce.core.cluster.event.ClusterTopologyChangedEvent;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.event.connection.ConnectionActivatedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the near caches coherent with Redis using Redis 6 client-side caching.
+ * <p>
+ * A dedicated RESP3 connection is opened with the Lettuce cluster client of the
+ * {@link LettuceConnectionFactory} and {@code CLIENT TRACKING ON BCAST} is enabled on every
+ * master node. Redis then pushes an {@code invalidate} message whenever a key matching the
+ * tracked prefixes is modified, which is forwarded to the {@link NearCacheManager}. The
+ * prefixes default to the key prefix of the caches, so that writes to unrelated keys sharing
+ * the cluster are not pushed to every instance.
+ * </p>
+ * <p>
+ * Tracking state is bound to a connection, so it is re-enabled whenever a connection is
+ * activated or the cluster topology changes. As invalidations may be lost while a node
+ * connection of the tracking connection is down, all near caches are cleared when one of them
+ * is disconnected. Disconnections of the other connections of the client are ignored.
+ * </p>
+ *
+ * @author CGI
+ */
+public class RedisTrackingListener implements RedisClusterPushListener, RedisConnectionStateListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisTrackingListener.class);
+    private static final String INVALIDATE = "invalidate";
+
+    private final LettuceConnectionFactory connectionFactory;
+    private final NearCacheManager nearCacheManager;
+    private final String[] prefixes;
+    private RedisClusterClient client;
+    private StatefulRedisClusterConnection<String, String> connection;
+    private volatile Set<RedisChannelHandler<?, ?>> nodeConnections = Collections.emptySet();
+    private Disposable eventSubscription;
+
+    public RedisTrackingListener(LettuceConnectionFactory connectionFactory, NearCacheManager nearCacheManager, String[] prefixes) {
+        this.connectionFactory = connectionFactory;
+        this.nearCacheManager = nearCacheManager;
+        this.prefixes = prefixes;
+    }
+
+    /**
+     * Opens the tracking connection and enables tracking on all master nodes.
+     * Failures are logged only: near caches then rely on their TTL alone.
+     */
+    public void start() {
+        if (prefixes.length == 0) {
+            LOGGER.warn("No Redis client tracking prefix configured, every key modified in the cluster invalidates the near caches");
+        }
+        try {
+            client = (RedisClusterClient) connectionFactory.getRequiredNativeClient();
+            connection = client.connect(StringCodec.UTF8);
+            connection.addListener((RedisClusterPushListener) this);
+            client.addListener(this);
+            enableTracking();
+            eventSubscription = connectionFactory.getClientResources().eventBus().get()
+                    .publishOn(Schedulers.boundedElastic())
+                    .subscribe(event -> {
+                        if (event instanceof ConnectionActivatedEvent || event instanceof ClusterTopologyChangedEvent) {
+                            enableTracking();
+                        }
+                    });
+        } catch (Exception e) {
+            LOGGER.warn("Could not enable Redis client tracking, near caches rely on their TTL only: " + e.getMessage(), e);
+            close();
+        }
+    }
+
+    /**
+     * Closes the tracking connection.
+     */
+    public void close() {
+        if (eventSubscription != null) {
+            eventSubscription.dispose();
+            eventSubscription = null;
+        }
+        if (client != null) {
+            client.removeListener(this);
+            client = null;
+        }
+        nodeConnections = Collections.emptySet();
+        if (connection != null) {
+            connection.close();
+            connection = null;
+        }
+    }
+
+    @Override
+    public void onPushMessage(RedisClusterNode node, PushMessage message) {
+        if (!INVALIDATE.equals(message.getType())) {
+            return;
+        }
+        List<Object> content = message.getContent(StringCodec.UTF8::decodeKey);
+        Object keys = content.size() > 1 ? content.get(1) : null;
+        if (keys instanceof List<?> invalidatedKeys) {
+            for (Object key : invalidatedKeys) {
+                nearCacheManager.invalidate(key);
+            }
+        } else {
+            // A null key list means the node was flushed
+            nearCacheManager.invalidateAll();
+        }
+    }
+
+    @Override
+    public void onRedisDisconnected(RedisChannelHandler<?, ?> disconnected) {
+        if (nodeConnections.contains(disconnected)) {
+            nearCacheManager.invalidateAll();
+        }
+    }
+
+    private void enableTracking() {
+        StatefulRedisClusterConnection<String, String> current = connection;
+        if (current == null) {
+            return;
+        }
+        TrackingArgs trackingArgs = TrackingArgs.Builder.enabled().bcast();
+        if (prefixes.length > 0) {
+            trackingArgs.prefixes(prefixes);
+        }
+        Set<RedisChannelHandler<?, ?>> trackedConnections = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (RedisClusterNode node : current.getPartitions()) {
+            if (!node.is(RedisClusterNode.NodeFlag.UPSTREAM)) {
+                continue;
+            }
+            try {
+                StatefulRedisConnection<String, String> nodeConnection = current.getConnection(node.getNodeId());
+                if (nodeConnection instanceof RedisChannelHandler<?, ?> handler) {
+                    trackedConnections.add(handler);
+                }
+                nodeConnection.sync().clientTracking(trackingArgs);
+            } catch (Exception e) {
+                LOGGER.error("Error enabling client tracking on node " + node.getNodeId() + ": " + e.getMessage(), e);
+            }
+        }
+        nodeConnections = trackedConnections;
+        LOGGER.debug("Redis client tracking enabled for prefixes {}", (Object) prefixes);
+    }
+}
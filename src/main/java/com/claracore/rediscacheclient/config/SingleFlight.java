@@ -0,0 +1,193 @@
+package com.claracore.rediscacheclient.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.interceptor.CacheOperationInvoker;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ensures that concurrent misses of the same cache entry invoke the underlying method only once
+ * across the cluster.
+ * <p>
+ * Within a JVM, the first caller registers an in-flight future that the other callers wait on.
+ * That caller then competes for a short Redis lease ({@code SET NX PX}) holding a unique token.
+ * The instance owning the lease invokes the method and writes the result with a script that
+ * checks the token, so that a caller whose lease expired cannot overwrite the value of a newer
+ * lease holder, and releases the lease in the same step. Instances that lose the race poll Redis
+ * for the value until it appears.
+ * </p>
+ * <p>
+ * Waiting is bounded by the single-flight timeout of the cache, after which a caller invokes the
+ * method itself rather than failing. The lease commands are sent by the {@link RedisCacheStore}, bounded
+ * by its operation timeout and guarded by its circuit breaker: while it is open, no lease is taken and
+ * callers invoke the method directly.
+ * </p>
+ *
+ * @author CGI
+ */
+public class SingleFlight {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SingleFlight.class);
+    private static final String LEASE_SUFFIX = ":lease";
+    private static final long POLL_INTERVAL_MILLIS = 20;
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final String instanceId = UUID.randomUUID().toString();
+    private final AtomicLong tokenSequence = new AtomicLong();
+    private final RedisCacheStore cacheStore;
+
+    public SingleFlight(RedisCacheStore cacheStore) {
+        this.cacheStore = cacheStore;
+    }
+
+    /**
+     * Invokes the underlying method for the miss recorded in the context, or waits for the result
+     * of a caller already doing so.
+     *
+     * @param context the invocation context holding the recorded miss
+     * @param invoker the invoker of the underlying method
+     * @return the result of the method
+     */
+    public Object execute(CacheInvocationContext context, CacheOperationInvoker invoker) {
+        String flightKey = context.getMissCacheName() + ':' + context.getMissKey();
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(flightKey, flight);
+        if (leader != null) {
+            return awaitLeader(context, leader, invoker);
+        }
+
+        try {
+            Object result = executeAsLocalLeader(context, invoker);
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    /**
+     * Writes the result of the lease holder, unless another caller acquired a newer lease,
+     * and releases the lease. If the write fails, the lease is still held by the context,
+     * to be released by {@link #release}.
+     *
+     * @param context the invocation context holding the lease
+     * @param data the encoded entry
+     * @param ttlMillis the TTL of the entry in milliseconds
+     */
+    public void fencedPut(CacheInvocationContext context, byte[] data, long ttlMillis) {
+        boolean written = cacheStore.setIfLeaseHolder((String) context.getMissKey(), data, ttlMillis,
+                context.getLeaseKey(), context.getLeaseToken());
+        context.setLeaseToken(null);
+        if (!written) {
+            LOGGER.debug("Lease on key {} was taken over, result not written", context.getMissKey());
+        }
+    }
+
+    /**
+     * Releases the lease held by the context, if the result was not written through {@link #fencedPut}.
+     *
+     * @param context the invocation context holding the lease
+     */
+    public void release(CacheInvocationContext context) {
+        try {
+            cacheStore.removeIfEquals(context.getLeaseKey(), context.getLeaseToken());
+        } catch (CircuitBreakerOpenException e) {
+            LOGGER.debug("Redis bypassed releasing single-flight lease {}: {}", context.getLeaseKey(), e.getMessage());
+        } catch (Exception e) {
+            LOGGER.error("Error releasing single-flight lease: " + e.getMessage(), e);
+        } finally {
+            context.setLeaseToken(null);
+        }
+    }
+
+    private Object awaitLeader(CacheInvocationContext context, CompletableFuture<Object> leader, CacheOperationInvoker invoker) {
+        try {
+            Object result = leader.get(context.getMissTtlInfo().getSingleFlightTimeout(), TimeUnit.MILLISECONDS);
+            context.setResultShared(true);
+            return result;
+        } catch (TimeoutException e) {
+            LOGGER.debug("Timed out waiting for in-flight invocation of key {}", context.getMissKey());
+            return invoker.invoke();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return invoker.invoke();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Object executeAsLocalLeader(CacheInvocationContext context, CacheOperationInvoker invoker) {
+        TtlInfo ttlInfo = context.getMissTtlInfo();
+        String key = (String) context.getMissKey();
+        String leaseKey = RedisKeys.companionKey(key, LEASE_SUFFIX);
+        String token = instanceId + ':' + tokenSequence.incrementAndGet();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlInfo.getSingleFlightTimeout());
+
+        try {
+            while (true) {
+                Boolean acquired = acquireLease(leaseKey, token, ttlInfo.getSingleFlightLease());
+                if (acquired == null) {
+                    return invoker.invoke();
+                }
+                if (acquired) {
+                    context.setLeaseKey(leaseKey);
+                    context.setLeaseToken(token);
+                    return invoker.invoke();
+                }
+                Object stored = readStored(key);
+                if (stored != null && !CacheEnvelope.isExpired(stored)) {
+                    context.setResultShared(true);
+                    Object value = CacheEnvelope.unwrap(stored);
+                    return Optional.class == context.getMethod().getReturnType() ? Optional.ofNullable(value) : value;
+                }
+                if (System.nanoTime() - deadline >= 0) {
+                    LOGGER.debug("Timed out waiting for the lease holder of key {}", key);
+                    return invoker.invoke();
+                }
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return invoker.invoke();
+        }
+    }
+
+    /**
+     * Tries to acquire the lease of a key.
+     *
+     * @return whether the lease was acquired, or null if Redis could not be reached
+     */
+    private Boolean acquireLease(String leaseKey, String token, long leaseMillis) {
+        try {
+            return cacheStore.setIfAbsent(leaseKey, RedisCacheStore.bytes(token), leaseMillis);
+        } catch (CircuitBreakerOpenException e) {
+            LOGGER.debug("Redis bypassed acquiring single-flight lease {}: {}", leaseKey, e.getMessage());
+            return null;
+        } catch (Exception e) {
+            LOGGER.error("Error acquiring single-flight lease: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private Object readStored(String key) {
+        try {
+            return cacheStore.get(key);
+        } catch (Exception e) {
+            LOGGER.error("Error reading single-flight result: " + e.getMessage(), e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.claracore.rediscacheclient.config;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Binary codec based on the Jackson Smile format.
+ * <p>
+ * Smile encodes the same data model as the JSON codec, including the type information needed
+ * to restore the cached classes, but with binary numbers and back-references to repeated
+ * property names and class names, which makes entries smaller and faster to parse.
+ * Values are written to and read from streams directly, so that chunked entries are never
+ * materialized as one array, see {@link CacheChunks}.
+ * </p>
+ *
+ * @author CGI
+ */
+public class SmileCacheCodec implements CacheCodec {
+    public static final byte ID = 2;
+    public static final String NAME = "smile";
+
+    private final ObjectMapper mapper;
+
+    @SuppressWarnings("deprecation")
+    public SmileCacheCodec() {
+        SmileFactory factory = new SmileFactory();
+        factory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+        this.mapper = new ObjectMapper(factory)
+                .findAndRegisterModules()
+                .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.EVERYTHING, JsonTypeInfo.As.PROPERTY);
+    }
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void encode(Object value, OutputStream out) throws IOException {
+        mapper.writeValue(out, value);
+    }
+
+    @Override
+    public Object decode(byte[] data, int offset, int length) throws IOException {
+        return mapper.readValue(data, offset, length, Object.class);
+    }
+
+    @Override
+    public Object decode(InputStream in) throws IOException {
+        return mapper.readValue(in, Object.class);
+    }
+}
@@ -0,0 +1,103 @@
+package com.claracore.rediscacheclient.config;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Cache handed to the cache operations of {@link CacheInterceptorApi}, wrapping the cache
+ * resolved by the cache manager.
+ * <p>
+ * Synchronous operations are delegated to the wrapped cache, since the interceptor reads and
+ * writes Redis itself. The asynchronous retrievals used for methods returning a
+ * {@link CompletableFuture} or a reactive type are served by the {@link AsyncCacheSupport},
+ * from the same entries as the synchronous methods.
+ * </p>
+ *
+ * @author CGI
+ */
+public class TimedCache implements Cache {
+    private final Cache target;
+    private final boolean async;
+    private final AsyncCacheSupport asyncCacheSupport;
+
+    public TimedCache(Cache target, boolean async, AsyncCacheSupport asyncCacheSupport) {
+        this.target = target;
+        this.async = async;
+        this.asyncCacheSupport = asyncCacheSupport;
+    }
+
+    /**
+     * @return true if the cached method returns an asynchronous type, its puts then being non-blocking
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    @Override
+    public String getName() {
+        return target.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return target.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return target.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return target.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return target.get(key, valueLoader);
+    }
+
+    @Override
+    public CompletableFuture<?> retrieve(Object key) {
+        return asyncCacheSupport.retrieve(getName(), key);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+        return asyncCacheSupport.retrieve(getName(), key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        target.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return target.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        target.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return target.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        target.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return target.invalidate();
+    }
+}
@@ -0,0 +1,71 @@
+package com.claracore.rediscacheclient.config;
+
+import org.springframework.core.annotation.AliasFor;
+
+import java.lang.annotation.*;
+
+/**
+ * Annotation to evict cache entries when a method is invoked, by key, for a whole cache or by tag.
+ * <p>
+ * The key or all entries of the named caches are evicted as with Spring's
+ * {@link org.springframework.cache.annotation.CacheEvict}, through the {@link CacheEvictor}.
+ * Tags are SpEL expressions evaluated by the {@link CacheTagEvaluator}, and evict the Redis entries of
+ * any cache recorded under the same tags by {@link TimedCacheable#tags()}. Without key, key generator
+ * or {@code allEntries}, a method with tags evicts its tags only. Cache-wide and tag evictions run in
+ * the background, see {@link CacheEvictor}.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>
+ * {@literal @}TimedCacheEvict(tags = "'user:' + #userId")
+ * public void updateUser(String userId, User user) {
+ *     // method implementation
+ * }
+ *
+ * {@literal @}TimedCacheEvict(cacheNames = "getPostRT", allEntries = true)
+ * public void reloadPosts() {
+ *     // method implementation
+ * }
+ * </pre>
+ * </p>
+ *
+ * @author CGI
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@Documented
+public @interface TimedCacheEvict {
+
+    @AliasFor("cacheNames")
+    String[] value() default {};
+
+    @AliasFor("value")
+    String[] cacheNames() default {};
+
+    String key() default "";
+
+    String keyGenerator() default "";
+
+    String cacheManager() default "";
+
+    String cacheResolver() default "";
+
+    String condition() default "";
+
+    /**
+     * Evicts all entries of the named caches rather than the entry of the key.
+     */
+    boolean allEntries() default false;
+
+    /**
+     * Evicts before the method is invoked, rather than after it returned successfully.
+     */
+    boolean beforeInvocation() default false;
+
+    /**
+     * SpEL expressions of the tags whose entries are evicted, with the result of the method
+     * as {@code #result} unless evicting before the invocation.
+     */
+    String[] tags() default {};
+}
@@ -0,0 +1,66 @@
+package com.claracore.rediscacheclient.config;
+
+import org.springframework.cache.interceptor.CacheOperation;
+
+import java.util.List;
+
+/**
+ * Cache operation describing the tags evicted by a method annotated with {@link TimedCacheEvict}.
+ * <p>
+ * The operation is ignored by the standard cache processing and handled as a whole by
+ * {@link CacheInterceptorApi}.
+ * </p>
+ *
+ * @author CGI
+ */
+public class TimedCacheEvictOperation extends CacheOperation {
+    private final List<String> tags;
+    private final boolean beforeInvocation;
+
+    public TimedCacheEvictOperation(Builder b) {
+        super(b);
+        this.tags = b.tags;
+        this.beforeInvocation = b.beforeInvocation;
+    }
+
+    /**
+     * @return the SpEL expressions of the evicted tags
+     */
+    public List<String> getTags() {
+        return tags;
+    }
+
+    /**
+     * @return true if the tags are evicted before the method is invoked
+     */
+    public boolean isBeforeInvocation() {
+        return beforeInvocation;
+    }
+
+    /**
+     * Builder of {@link TimedCacheEvictOperation}.
+     */
+    public static class Builder extends CacheOperation.Builder {
+        private List<String> tags = List.of();
+        private boolean beforeInvocation;
+
+        public void setTags(List<String> tags) {
+            this.tags = tags;
+        }
+
+        public void setBeforeInvocation(boolean beforeInvocation) {
+            this.beforeInvocation = beforeInvocation;
+        }
+
+        @Override
+        protected StringBuilder getOperationDescription() {
+            return super.getOperationDescription().append(" | tags=").append(tags)
+                    .append(" | beforeInvocation='").append(beforeInvocation).append('\'');
+        }
+
+        @Override
+        public TimedCacheEvictOperation build() {
+            return new TimedCacheEvictOperation(this);
+        }
+    }
+}
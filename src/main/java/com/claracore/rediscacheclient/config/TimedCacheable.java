@@ -74,13 +74,59 @@ public @interface TimedCacheable {
 
     /**
      * Cache type to determine which caching implementation to use.
+     * {@code LOCAL_OFFHEAP} caches are held in process, outside the Java heap, see {@link OffHeapCache}.
      */
     enum CacheType {
-        REDIS, HAZELCAST
+        REDIS, HAZELCAST, LOCAL_OFFHEAP
     }
 
     /**
      * Specifies the cache type to use.
      */
     CacheType cacheType() default CacheType.REDIS;
+
+    /**
+     * Coordinates concurrent misses of the same key, so that only one caller in the cluster
+     * invokes the method while the others wait for its result.
+     * Can be overridden with the {@code cache.<name>.singleFlight} property.
+     */
+    boolean singleFlight() default false;
+
+    /**
+     * Refreshes entries asynchronously shortly before they expire, the caller still getting the
+     * current value. Can be overridden with the {@code cache.<name>.refreshAhead} property.
+     */
+    boolean refreshAhead() default false;
+
+    /**
+     * Writes computed entries to Redis asynchronously in pipelined batches instead of on the calling thread.
+     * Can be overridden with the {@code cache.<name>.writeBehind} property.
+     */
+    boolean writeBehind() default false;
+
+    /**
+     * Spreads the TTL of each entry randomly by up to this percentage, up or down, so that entries
+     * written together do not expire together.
+     * Can be overridden with the {@code cache.<name>.ttlJitter} property.
+     */
+    int ttlJitter() default 0;
+
+    /**
+     * SpEL expression evaluated against the result, giving the TTL of its entry in the time unit of the
+     * cache, as a {@link java.time.Duration} or as the {@link java.time.Instant} of its expiry.
+     * Can be overridden with the {@code cache.<name>.ttlExpression} property.
+     */
+    String ttlExpression() default "";
+
+    /**
+     * Extends the TTL of an entry every time it is read from Redis, in the same command as the read.
+     * Can be overridden with the {@code cache.<name>.slidingExpiration} property.
+     */
+    boolean slidingExpiration() default false;
+
+    /**
+     * SpEL expressions of the tags of the Redis entries of the method, evaluated by the {@link CacheTagEvaluator},
+     * so that they can be evicted together with {@link TimedCacheEvict#tags()} or {@link CacheEvictor#evictTag}.
+     */
+    String[] tags() default {};
 }
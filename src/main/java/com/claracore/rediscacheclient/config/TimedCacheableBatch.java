@@ -0,0 +1,77 @@
+package com.claracore.rediscacheclient.config;
+
+import org.springframework.core.annotation.AliasFor;
+
+import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Annotation to enable per-element caching for methods loading a collection of entries.
+ * <p>
+ * Each element of the collection argument is cached under its own key, the string form of the
+ * element, so that overlapping requests share their entries, also with {@link TimedCacheable}
+ * methods using the same cache and the element as key. Hits are fetched with one {@code MGET}
+ * per cluster hash slot, the slot groups being queried in parallel. The method is invoked with
+ * the missing elements only, and its results are written back as one pipelined batch.
+ * </p>
+ * <p>
+ * The method must return either a {@link java.util.Map} keyed by element, or a {@link java.util.List}
+ * holding the result of each element at the position of the element in the argument.
+ * The result is returned in the order of the requested elements: a Map leaves out the elements
+ * without result, a List holds null for them.
+ * The result is returned as a {@link java.util.LinkedHashMap} or an {@link java.util.ArrayList},
+ * so the declared return type must accept one: {@code SortedMap} or {@code LinkedList} are rejected.
+ * </p>
+ * <p>
+ * Example usage:
+ * <pre>
+ * {@literal @}TimedCacheableBatch(cacheNames = "getPostRT", ttl = "${cache.getPostRT}")
+ * public Map&lt;String, Object&gt; getPostsRT(@RequestParam List&lt;String&gt; postIds) {
+ *     // method implementation
+ * }
+ * </pre>
+ * </p>
+ * <p>
+ * Note:
+ * - Single-flight and refresh-ahead are not applied to batch loads.
+ * </p>
+ *
+ * @author CGI
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface TimedCacheableBatch {
+
+    /**
+     * Name of the cache.
+     */
+    @AliasFor("cacheNames")
+    String[] value() default {};
+
+    /**
+     * Alias for {@link #value()}.
+     */
+    @AliasFor("value")
+    String[] cacheNames() default {};
+
+    /**
+     * Index of the collection argument, by default the first {@link java.util.Collection} parameter.
+     */
+    int parameter() default -1;
+
+    /**
+     * Time-to-live for the cache entries, either a number or a {@code ${cache.<name>}} placeholder.
+     */
+    String ttl();
+
+    /**
+     * Time unit of a numeric TTL.
+     */
+    TimeUnit timeunit() default TimeUnit.MINUTES;
+
+    /**
+     * Specifies the cache type to use. Only Redis caches are loaded in batches.
+     */
+    TimedCacheable.CacheType cacheType() default TimedCacheable.CacheType.REDIS;
+}
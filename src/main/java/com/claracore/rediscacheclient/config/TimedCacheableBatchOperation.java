@@ -0,0 +1,49 @@
+package com.claracore.rediscacheclient.config;
+
+import org.springframework.cache.interceptor.CacheOperation;
+
+/**
+ * Cache operation describing a method annotated with {@link TimedCacheableBatch}.
+ * <p>
+ * The operation is ignored by the standard cache processing and handled as a whole by
+ * {@link CacheInterceptorApi}.
+ * </p>
+ *
+ * @author CGI
+ */
+public class TimedCacheableBatchOperation extends CacheOperation {
+    private final int parameterIndex;
+
+    public TimedCacheableBatchOperation(Builder b) {
+        super(b);
+        this.parameterIndex = b.parameterIndex;
+    }
+
+    /**
+     * @return the index of the collection argument holding the elements to load
+     */
+    public int getParameterIndex() {
+        return parameterIndex;
+    }
+
+    /**
+     * Builder of {@link TimedCacheableBatchOperation}.
+     */
+    public static class Builder extends CacheOperation.Builder {
+        private int parameterIndex;
+
+        public void setParameterIndex(int parameterIndex) {
+            this.parameterIndex = parameterIndex;
+        }
+
+        @Override
+        protected StringBuilder getOperationDescription() {
+            return super.getOperationDescription().append(" | parameter='").append(parameterIndex).append('\'');
+        }
+
+        @Override
+        public TimedCacheableBatchOperation build() {
+            return new TimedCacheableBatchOperation(this);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.claracore.rediscacheclient.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Actuator endpoint exposing the configuration and live statistics of every cache
+ * at {@code /actuator/timedcaches}, including the current hot keys of the caches with hot key detection.
+ * <p>
+ * Example configuration in application.properties:
+ * <pre>
+ * management.endpoints.web.exposure.include=health,timedcaches
+ * </pre>
+ * </p>
+ *
+ * @author CGI
+ */
+@Endpoint(id = "timedcaches")
+public class TimedCachesEndpoint {
+    private final TtlRegistry ttlRegistry;
+    private final CacheMetrics cacheMetrics;
+    private final HotKeyDetector hotKeyDetector;
+
+    public TimedCachesEndpoint(TtlRegistry ttlRegistry, CacheMetrics cacheMetrics, HotKeyDetector hotKeyDetector) {
+        this.ttlRegistry = ttlRegistry;
+        this.cacheMetrics = cacheMetrics;
+        this.hotKeyDetector = hotKeyDetector;
+    }
+
+    /**
+     * @return the configuration and statistics of all caches, by cache name
+     */
+    @ReadOperation
+    public Map<String, Object> caches() {
+        Map<String, Object> caches = new TreeMap<>();
+        ttlRegistry.getSnapshot().forEach((cacheName, ttlInfo) -> caches.put(cacheName, describe(cacheName, ttlInfo)));
+        return caches;
+    }
+
+    /**
+     * @param name the cache name
+     * @return the configuration and statistics of the cache, or null if the cache is unknown
+     */
+    @ReadOperation
+    public Map<String, Object> cache(@Selector String name) {
+        TtlInfo ttlInfo = ttlRegistry.get(name);
+        return ttlInfo != null ? describe(name, ttlInfo) : null;
+    }
+
+    private Map<String, Object> describe(String cacheName, TtlInfo ttlInfo) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("config", ttlInfo);
+        CacheMeters meters = cacheMetrics.get(cacheName);
+        description.put("stats", meters != null ? meters.getStats() : Map.of());
+        if (ttlInfo.getHotKeyThreshold() > 0) {
+            description.put("hotKeys", hotKeyDetector.getHotKeys(cacheName));
+        }
+        return description;
+    }
+}
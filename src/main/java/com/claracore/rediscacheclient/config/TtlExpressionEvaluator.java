@@ -0,0 +1,75 @@
+package com.claracore.rediscacheclient.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evaluates the {@code ttlExpression} of a cache against a computed result, so that the TTL of an
+ * entry can follow the freshness of its data.
+ * <p>
+ * The expression is evaluated with the result as root object and as the {@code #result} variable.
+ * It may return a number, expressed in the time unit of the cache, a {@link Duration}, or the
+ * {@link Instant} at which the entry expires. A null, non-positive or invalid value falls back to
+ * the TTL of the cache. Parsed expressions are kept per expression string.
+ * </p>
+ * <p>
+ * Example configuration in application.properties:
+ * <pre>
+ * cache.getPostRT.ttlExpression=#result.published ? 3600 : 60
+ * </pre>
+ * </p>
+ *
+ * @author CGI
+ */
+public class TtlExpressionEvaluator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TtlExpressionEvaluator.class);
+
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final Map<String, Expression> expressions = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the TTL of a computed result in milliseconds, before jitter.
+     *
+     * @param ttlInfo the configuration of the cache
+     * @param result the result of the method
+     * @return the TTL given by the expression of the cache, or the TTL of the cache
+     */
+    public long getTtlMillis(TtlInfo ttlInfo, Object result) {
+        long cacheTtlMillis = ttlInfo.getTimeUnit().toMillis(ttlInfo.getTtl());
+        if (ttlInfo.getTtlExpression() == null || result == null) {
+            return cacheTtlMillis;
+        }
+        try {
+            Expression expression = expressions.computeIfAbsent(ttlInfo.getTtlExpression(), parser::parseExpression);
+            StandardEvaluationContext context = new StandardEvaluationContext(result);
+            context.setVariable("result", result);
+            Object value = expression.getValue(context);
+            long ttlMillis = toMillis(value, ttlInfo);
+            return ttlMillis > 0 ? ttlMillis : cacheTtlMillis;
+        } catch (Exception e) {
+            LOGGER.error("Error evaluating TTL expression " + ttlInfo.getTtlExpression() + ": " + e.getMessage(), e);
+            return cacheTtlMillis;
+        }
+    }
+
+    private static long toMillis(Object value, TtlInfo ttlInfo) {
+        if (value instanceof Number number) {
+            return ttlInfo.getTimeUnit().toMillis(number.longValue());
+        }
+        if (value instanceof Duration duration) {
+            return duration.toMillis();
+        }
+        if (value instanceof Instant instant) {
+            return instant.toEpochMilli() - System.currentTimeMillis();
+        }
+        return -1;
+    }
+}
@@ -1,21 +1,30 @@
 package com.claracore.rediscacheclient.config;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+import org.springframework.util.ClassUtils;
 
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Class representing Time-to-Live (TTL) information for caching.
  * <p>
  * This class encapsulates TTL value, the unit of time, and the cache type
- * used for caching operations.
+ * used for caching operations, together with the optional settings of the cache,
+ * each documented on its field. Durations without a unit are expressed in the time
+ * unit of the cache, and a setting of 0 disables its feature unless stated otherwise.
+ * </p>
+ * <p>
+ * Instances are immutable: a configuration change is published as a new instance
+ * through the {@link TtlRegistry}, so readers never observe a partially updated configuration.
  * </p>
  * <p>
  * Example usage:
  * <pre>
- * CacheTtlConfig ttlConfig = new CacheTtlConfig(10, TimeUnit.MINUTES, CacheType.REDIS);
+ * TtlInfo ttlInfo = TtlInfo.builder().ttl(10).timeUnit(TimeUnit.MINUTES).cacheType(CacheType.REDIS).build();
  * </pre>
  * </p>
  * <p>
@@ -25,19 +34,320 @@ import java.util.concurrent.TimeUnit;
  *
  * @author CGI
  */
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
+@Value
+@Builder(toBuilder = true)
 public class TtlInfo {
-    private long ttl;
-    private TimeUnit timeUnit;
-    private TimedCacheable.CacheType cacheType;
+    private static final boolean HAZELCAST_PRESENT =
+            ClassUtils.isPresent("com.hazelcast.core.HazelcastInstance", TtlInfo.class.getClassLoader());
+
+    /** TTL of the entries, in the time unit of the cache. */
+    long ttl;
+    TimeUnit timeUnit;
+    TimedCacheable.CacheType cacheType;
+    /** Whether values are also kept in a local near cache, see {@link NearCacheManager}. */
+    boolean nearCache;
+    @Builder.Default
+    long nearCacheMaxEntries = CacheConstants.DEFAULT_NEAR_CACHE_MAX_ENTRIES;
+    /** TTL of the near cache entries, 0 for the TTL of the cache. */
+    long nearCacheTtl;
+    /** Whether concurrent misses invoke the method only once across the cluster, see {@link SingleFlight}. */
+    boolean singleFlight;
+    /** Lease of a single-flight miss, in milliseconds. */
+    @Builder.Default
+    long singleFlightLease = CacheConstants.DEFAULT_SINGLE_FLIGHT_LEASE_MILLIS;
+    /** Time waited for the single-flight lease holder, in milliseconds. */
+    @Builder.Default
+    long singleFlightTimeout = CacheConstants.DEFAULT_SINGLE_FLIGHT_TIMEOUT_MILLIS;
+    /** Whether entries are refreshed in the background shortly before they expire, see {@link CacheRefresher}. */
+    boolean refreshAhead;
+    @Builder.Default
+    double refreshAheadBeta = CacheConstants.DEFAULT_REFRESH_AHEAD_BETA;
+    /** Whether entries are written to Redis in the background, see {@link WriteBehindQueue}. */
+    boolean writeBehind;
+    /** Name of the {@link CacheCodec} encoding the values. */
+    @Builder.Default
+    String codec = CacheConstants.DEFAULT_CODEC;
+    /** Encoded size in bytes from which values are compressed. */
+    int compressionThreshold;
+    /** Whether the keys of the cache share one cluster hash slot. */
+    boolean hashTag;
+    /** TTL of the cached negative results, see {@link NegativeEntries}. */
+    long negativeTtl;
+    /** Period after the logical expiry during which an entry is served while it is revalidated. */
+    long staleWhileRevalidate;
+    /** Period after the logical expiry during which an entry is served when the method fails. */
+    long staleIfError;
+    /** Minimum compute cost of an admitted result in milliseconds, see {@link AdmissionPolicy}. */
+    long admissionMinCost;
+    /** Maximum encoded size of an admitted result in bytes. */
+    int admissionMaxBytes;
+    /** Minimum recent lookup frequency of an admitted result, at most {@link FrequencySketch#MAX_FREQUENCY}. */
+    int admissionMinFrequency;
+    /** Lookups per second from which a key is served from a local replica, see {@link HotKeyDetector}. */
+    long hotKeyThreshold;
+    /** TTL of the local replicas of the hot keys, in milliseconds. */
+    @Builder.Default
+    long hotKeyLocalTtl = CacheConstants.DEFAULT_HOT_KEY_LOCAL_TTL_MILLIS;
+    /** Number of Redis copies of each hot key, spreading its reads. */
+    int hotKeyReplicas;
+    /** Number of most accessed keys recorded to warm the cache up at startup, see {@link CacheWarmUp}. */
+    int warmUpKeys;
+    /** Percentage by which the TTL of each entry is randomly spread, below 100. */
+    int ttlJitter;
+    /** Expression giving the TTL of each result, see {@link TtlExpressionEvaluator}. */
+    String ttlExpression;
+    /** Whether every Redis hit extends the TTL of the entry. */
+    boolean slidingExpiration;
+    /** Budget of a {@code LOCAL_OFFHEAP} cache in bytes, see {@link OffHeapCache}. */
+    @Builder.Default
+    long offHeapMaxBytes = CacheConstants.DEFAULT_OFF_HEAP_MAX_BYTES;
+    /** Whether the keys carry the generation of the cache, evicting all entries at once, see {@link CacheGenerations}. */
+    boolean generations;
+    /** Expressions of the tags the entries are tracked under, see {@link CacheEvictor}. */
+    @Builder.Default
+    List<String> tags = List.of();
+    /** Maximum number of background tasks of the cache at a time, 0 for the default of the {@link CacheExecutor}. */
+    int maxConcurrency;
+    /** Maximum number of entries of a Redis cache, see {@link CacheMemory}. */
+    long maxEntries;
+    /** Maximum encoded size of the entries of a Redis cache, in bytes. */
+    long maxBytes;
+    /** Encoded size in bytes from which entries are stored in chunks, see {@link CacheChunks}. */
+    int chunkThreshold;
+    /** Size of the chunks in bytes. */
+    @Builder.Default
+    int chunkSize = CacheConstants.DEFAULT_CHUNK_SIZE;
+
+    /**
+     * @return true if large entries are stored in chunks, see {@link CacheChunks}
+     */
+    public boolean isChunked() {
+        return chunkThreshold > 0;
+    }
+
+    /**
+     * @return true if the cache has a maximum number of entries or bytes, see {@link CacheMemory}
+     */
+    public boolean isMemoryBounded() {
+        return maxEntries > 0 || maxBytes > 0;
+    }
+
+    /**
+     * @return true if negative results are cached, see {@link NegativeEntries}
+     */
+    public boolean isNegativeCaching() {
+        return negativeTtl > 0;
+    }
+
+    /**
+     * @return true if expired entries are served while revalidated or when the method fails
+     */
+    public boolean isStaleServing() {
+        return staleWhileRevalidate > 0 || staleIfError > 0;
+    }
+
+    /**
+     * @return true if values are stored in a {@link CacheEnvelope}, for refresh-ahead, stale serving or a TTL expression
+     */
+    public boolean isEnvelopeStored() {
+        return refreshAhead || isStaleServing() || ttlExpression != null;
+    }
+
+    /**
+     * Returns the time-to-live of a stored entry in milliseconds: the negative TTL for the
+     * negative entries of a cache with negative caching enabled, the time left until the logical
+     * expiry of entries stored in a {@link CacheEnvelope}, extended by the stale periods, the
+     * cache TTL otherwise. The negative and cache TTLs are spread by the TTL jitter.
+     *
+     * @param stored the value to store
+     * @return the TTL of the entry in milliseconds
+     */
+    public long getEntryTtlMillis(Object stored) {
+        if (isNegativeCaching() && NegativeEntries.isNegative(stored)) {
+            return jitter(timeUnit.toMillis(negativeTtl));
+        }
+        if (stored instanceof CacheEnvelope envelope) {
+            return Math.max(1, envelope.getExpiresAt() - System.currentTimeMillis())
+                    + timeUnit.toMillis(Math.max(staleWhileRevalidate, staleIfError));
+        }
+        return jitter(timeUnit.toMillis(ttl));
+    }
+
+    /**
+     * Spreads a TTL randomly by up to the TTL jitter percentage, up or down.
+     *
+     * @param ttlMillis the TTL in milliseconds
+     * @return the spread TTL in milliseconds, at least 1
+     */
+    public long jitter(long ttlMillis) {
+        if (ttlJitter <= 0) {
+            return ttlMillis;
+        }
+        long spread = ttlMillis * ttlJitter / 100;
+        return Math.max(1, ttlMillis - spread + ThreadLocalRandom.current().nextLong(2 * spread + 1));
+    }
+
+    /**
+     * Returns the time-to-live of near cache entries, expressed in {@link #getTimeUnit()}.
+     * Falls back to the cache TTL when no dedicated near cache TTL is configured.
+     *
+     * @return the near cache TTL
+     */
+    public long getEffectiveNearCacheTtl() {
+        return nearCacheTtl > 0 ? nearCacheTtl : ttl;
+    }
+
+    /**
+     * Returns a copy of this configuration with the optional cache settings applied.
+     * Settings that are not present keep their current value.
+     *
+     * @param settings lookup of a cache setting by its name, e.g. {@code nearCacheMaxEntries}
+     * @return the updated configuration
+     */
+    public TtlInfo withSettings(Function<String, String> settings) {
+        TtlInfoBuilder builder = toBuilder();
+        String type = settings.apply(CacheConstants.CACHE_TYPE);
+        if (type != null) {
+            builder.cacheType(TimedCacheable.CacheType.valueOf(type.toUpperCase()));
+        }
+        String enabled = settings.apply(CacheConstants.NEAR_CACHE);
+        if (enabled != null) {
+            builder.nearCache(Boolean.parseBoolean(enabled));
+        }
+        String maxEntries = settings.apply(CacheConstants.NEAR_CACHE_MAX_ENTRIES);
+        if (maxEntries != null) {
+            builder.nearCacheMaxEntries(Long.parseLong(maxEntries));
+        }
+        String nearTtl = settings.apply(CacheConstants.NEAR_CACHE_TTL);
+        if (nearTtl != null) {
+            builder.nearCacheTtl(Long.parseLong(nearTtl));
+        }
+        String singleFlightEnabled = settings.apply(CacheConstants.SINGLE_FLIGHT);
+        if (singleFlightEnabled != null) {
+            builder.singleFlight(Boolean.parseBoolean(singleFlightEnabled));
+        }
+        String lease = settings.apply(CacheConstants.SINGLE_FLIGHT_LEASE);
+        if (lease != null) {
+            builder.singleFlightLease(Long.parseLong(lease));
+        }
+        String timeout = settings.apply(CacheConstants.SINGLE_FLIGHT_TIMEOUT);
+        if (timeout != null) {
+            builder.singleFlightTimeout(Long.parseLong(timeout));
+        }
+        String refreshAheadEnabled = settings.apply(CacheConstants.REFRESH_AHEAD);
+        if (refreshAheadEnabled != null) {
+            builder.refreshAhead(Boolean.parseBoolean(refreshAheadEnabled));
+        }
+        String beta = settings.apply(CacheConstants.REFRESH_AHEAD_BETA);
+        if (beta != null) {
+            builder.refreshAheadBeta(Double.parseDouble(beta));
+        }
+        String writeBehindEnabled = settings.apply(CacheConstants.WRITE_BEHIND);
+        if (writeBehindEnabled != null) {
+            builder.writeBehind(Boolean.parseBoolean(writeBehindEnabled));
+        }
+        String codecName = settings.apply(CacheConstants.CODEC);
+        if (codecName != null) {
+            builder.codec(codecName);
+        }
+        String threshold = settings.apply(CacheConstants.COMPRESSION_THRESHOLD);
+        if (threshold != null) {
+            builder.compressionThreshold(Integer.parseInt(threshold));
+        }
+        String hashTagEnabled = settings.apply(CacheConstants.HASH_TAG);
+        if (hashTagEnabled != null) {
+            builder.hashTag(Boolean.parseBoolean(hashTagEnabled));
+        }
+        String negative = settings.apply(CacheConstants.NEGATIVE_TTL);
+        if (negative != null) {
+            builder.negativeTtl(Long.parseLong(negative));
+        }
+        String whileRevalidate = settings.apply(CacheConstants.STALE_WHILE_REVALIDATE);
+        if (whileRevalidate != null) {
+            builder.staleWhileRevalidate(Long.parseLong(whileRevalidate));
+        }
+        String ifError = settings.apply(CacheConstants.STALE_IF_ERROR);
+        if (ifError != null) {
+            builder.staleIfError(Long.parseLong(ifError));
+        }
+        String minCost = settings.apply(CacheConstants.ADMISSION_MIN_COST);
+        if (minCost != null) {
+            builder.admissionMinCost(Long.parseLong(minCost));
+        }
+        String maxBytes = settings.apply(CacheConstants.ADMISSION_MAX_BYTES);
+        if (maxBytes != null) {
+            builder.admissionMaxBytes(Integer.parseInt(maxBytes));
+        }
+        String minFrequency = settings.apply(CacheConstants.ADMISSION_MIN_FREQUENCY);
+        if (minFrequency != null) {
+            builder.admissionMinFrequency(Integer.parseInt(minFrequency));
+        }
+        String hotThreshold = settings.apply(CacheConstants.HOT_KEY_THRESHOLD);
+        if (hotThreshold != null) {
+            builder.hotKeyThreshold(Long.parseLong(hotThreshold));
+        }
+        String hotLocalTtl = settings.apply(CacheConstants.HOT_KEY_LOCAL_TTL);
+        if (hotLocalTtl != null) {
+            builder.hotKeyLocalTtl(Long.parseLong(hotLocalTtl));
+        }
+        String hotReplicas = settings.apply(CacheConstants.HOT_KEY_REPLICAS);
+        if (hotReplicas != null) {
+            builder.hotKeyReplicas(Integer.parseInt(hotReplicas));
+        }
+        String warmUp = settings.apply(CacheConstants.WARM_UP_KEYS);
+        if (warmUp != null) {
+            builder.warmUpKeys(Integer.parseInt(warmUp));
+        }
+        String jitter = settings.apply(CacheConstants.TTL_JITTER);
+        if (jitter != null) {
+            builder.ttlJitter(Integer.parseInt(jitter));
+        }
+        String expression = settings.apply(CacheConstants.TTL_EXPRESSION);
+        if (expression != null) {
+            builder.ttlExpression(expression.isBlank() ? null : expression);
+        }
+        String sliding = settings.apply(CacheConstants.SLIDING_EXPIRATION);
+        if (sliding != null) {
+            builder.slidingExpiration(Boolean.parseBoolean(sliding));
+        }
+        String offHeapBytes = settings.apply(CacheConstants.OFF_HEAP_MAX_BYTES);
+        if (offHeapBytes != null) {
+            builder.offHeapMaxBytes(Long.parseLong(offHeapBytes));
+        }
+        String generationsEnabled = settings.apply(CacheConstants.GENERATIONS);
+        if (generationsEnabled != null) {
+            builder.generations(Boolean.parseBoolean(generationsEnabled));
+        }
+        String concurrency = settings.apply(CacheConstants.MAX_CONCURRENCY);
+        if (concurrency != null) {
+            builder.maxConcurrency(Integer.parseInt(concurrency));
+        }
+        String entries = settings.apply(CacheConstants.MAX_ENTRIES);
+        if (entries != null) {
+            builder.maxEntries(Long.parseLong(entries));
+        }
+        String bytes = settings.apply(CacheConstants.MAX_BYTES);
+        if (bytes != null) {
+            builder.maxBytes(Long.parseLong(bytes));
+        }
+        String chunkThresholdBytes = settings.apply(CacheConstants.CHUNK_THRESHOLD);
+        if (chunkThresholdBytes != null) {
+            builder.chunkThreshold(Integer.parseInt(chunkThresholdBytes));
+        }
+        String chunkBytes = settings.apply(CacheConstants.CHUNK_SIZE);
+        if (chunkBytes != null) {
+            builder.chunkSize(Integer.parseInt(chunkBytes));
+        }
+        return builder.build();
+    }
 
     /**
      * Validates the TTL information to ensure that it is correctly configured.
      * This can be useful to prevent misconfigurations in a production environment.
+     * Called on every configuration resolved from the annotations and the cache properties.
      *
-     * @throws IllegalArgumentException if the TTL value is non-positive or timeUnit/cacheType is null
+     * @throws IllegalArgumentException if the TTL value is non-positive, timeUnit/cacheType is null
+     *                                  or a cache setting is out of range or unsupported by the cache type
      */
     public void validate() {
         if (ttl <= 0) {
@@ -49,5 +359,69 @@ public class TtlInfo {
         if (cacheType == null) {
             throw new IllegalArgumentException("CacheType must not be null");
         }
+        if (cacheType == TimedCacheable.CacheType.HAZELCAST && !HAZELCAST_PRESENT) {
+            throw new IllegalArgumentException("Hazelcast caches require com.hazelcast:hazelcast on the classpath");
+        }
+        if (nearCache && nearCacheMaxEntries <= 0) {
+            throw new IllegalArgumentException("Near cache max entries must be positive");
+        }
+        if (singleFlight && (singleFlightLease <= 0 || singleFlightTimeout <= 0)) {
+            throw new IllegalArgumentException("Single-flight lease and timeout must be positive");
+        }
+        if (refreshAhead && refreshAheadBeta <= 0) {
+            throw new IllegalArgumentException("Refresh-ahead beta must be positive");
+        }
+        if (codec == null || codec.isEmpty()) {
+            throw new IllegalArgumentException("Codec must not be empty");
+        }
+        if (compressionThreshold < 0) {
+            throw new IllegalArgumentException("Compression threshold must not be negative");
+        }
+        if (negativeTtl < 0) {
+            throw new IllegalArgumentException("Negative TTL must not be negative");
+        }
+        if (staleWhileRevalidate < 0 || staleIfError < 0) {
+            throw new IllegalArgumentException("Stale periods must not be negative");
+        }
+        if (admissionMinCost < 0 || admissionMaxBytes < 0) {
+            throw new IllegalArgumentException("Admission cost and size limits must not be negative");
+        }
+        if (admissionMinFrequency < 0 || admissionMinFrequency > FrequencySketch.MAX_FREQUENCY) {
+            throw new IllegalArgumentException("Admission frequency must be between 0 and " + FrequencySketch.MAX_FREQUENCY);
+        }
+        if (hotKeyThreshold > 0 && (hotKeyLocalTtl <= 0 || hotKeyReplicas < 0)) {
+            throw new IllegalArgumentException("Hot key local TTL must be positive and replicas must not be negative");
+        }
+        if (warmUpKeys < 0) {
+            throw new IllegalArgumentException("Warm-up keys must not be negative");
+        }
+        if (ttlJitter < 0 || ttlJitter >= 100) {
+            throw new IllegalArgumentException("TTL jitter must be between 0 and 99 percent");
+        }
+        if (slidingExpiration && (isEnvelopeStored() || isNegativeCaching())) {
+            throw new IllegalArgumentException("Sliding expiration cannot be combined with refresh-ahead, stale serving, "
+                    + "TTL expressions or negative caching");
+        }
+        if (offHeapMaxBytes <= 0) {
+            throw new IllegalArgumentException("Off-heap budget must be positive");
+        }
+        if (generations && cacheType != TimedCacheable.CacheType.REDIS) {
+            throw new IllegalArgumentException("Generations are only supported by Redis caches");
+        }
+        if (maxConcurrency < 0) {
+            throw new IllegalArgumentException("Max concurrency must not be negative");
+        }
+        if (maxEntries < 0 || maxBytes < 0) {
+            throw new IllegalArgumentException("Max entries and max bytes must not be negative");
+        }
+        if (isMemoryBounded() && cacheType != TimedCacheable.CacheType.REDIS) {
+            throw new IllegalArgumentException("Max entries and max bytes are only supported by Redis caches");
+        }
+        if (chunkThreshold < 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk threshold must not be negative and chunk size must be positive");
+        }
+        if (isChunked() && cacheType != TimedCacheable.CacheType.REDIS) {
+            throw new IllegalArgumentException("Chunking is only supported by Redis caches");
+        }
     }
 }
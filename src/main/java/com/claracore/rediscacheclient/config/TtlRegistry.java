@@ -0,0 +1,85 @@
+package com.claracore.rediscacheclient.config;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+/**
+ * Registry of the {@link TtlInfo} of every cache.
+ * <p>
+ * The registry is read on every cache operation and written only when annotations are parsed
+ * or the configuration is refreshed. It therefore publishes an immutable snapshot map through an
+ * {@link AtomicReference}: readers perform a plain lookup without locking or allocating, while
+ * writers copy the current snapshot, apply their changes and swap the copy in with a CAS.
+ * A batch of changes is always published as a single snapshot, after which the listeners are
+ * notified of every changed cache.
+ * </p>
+ *
+ * @author CGI
+ */
+public class TtlRegistry {
+    private final AtomicReference<Map<String, TtlInfo>> snapshot = new AtomicReference<>(Map.of());
+    private final List<BiConsumer<String, TtlInfo>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Returns the configuration of a cache.
+     *
+     * @param cacheName the cache name
+     * @return the cache configuration, or null if the cache is unknown
+     */
+    public TtlInfo get(String cacheName) {
+        return snapshot.get().get(cacheName);
+    }
+
+    /**
+     * Returns the current snapshot of all cache configurations.
+     *
+     * @return an immutable map of cache name to configuration
+     */
+    public Map<String, TtlInfo> getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Adds a listener notified of every published cache configuration.
+     * The listener is first notified of the configurations already registered.
+     *
+     * @param listener the listener, receiving the cache name and its configuration
+     */
+    public void addListener(BiConsumer<String, TtlInfo> listener) {
+        listeners.add(listener);
+        snapshot.get().forEach(listener);
+    }
+
+    /**
+     * Publishes the configuration of a single cache.
+     *
+     * @param cacheName the cache name
+     * @param ttlInfo the cache configuration
+     */
+    public void register(String cacheName, TtlInfo ttlInfo) {
+        registerAll(Map.of(cacheName, ttlInfo));
+    }
+
+    /**
+     * Publishes the configuration of several caches as one consistent snapshot.
+     *
+     * @param changes the cache configurations to add or replace, by cache name
+     */
+    public void registerAll(Map<String, TtlInfo> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        snapshot.updateAndGet(current -> {
+            Map<String, TtlInfo> next = new HashMap<>(current);
+            next.putAll(changes);
+            return Map.copyOf(next);
+        });
+        for (BiConsumer<String, TtlInfo> listener : listeners) {
+            changes.forEach(listener);
+        }
+    }
+}
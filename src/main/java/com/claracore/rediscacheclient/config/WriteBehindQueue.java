@@ -0,0 +1,198 @@
+package com.claracore.rediscacheclient.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes cache entries to Redis in the background, for caches in write-behind mode.
+ * <p>
+ * Puts are recorded in a bounded, lock-free queue, the latest value of a key replacing a pending
+ * one, so that a key written repeatedly before a flush is sent only once. A single flusher thread
+ * drains the queue periodically into batches of pipelined {@code SET} commands grouped by hash slot.
+ * Pending values are served to readers of this instance until they are written, and written
+ * entries are then recorded in the {@link CacheMemory} of their cache.
+ * </p>
+ * <p>
+ * When the queue is full, the overflow policy either drops the write, the entry then being
+ * recomputed on the next miss, or writes it synchronously on the calling thread.
+ * While the {@link RedisCircuitBreaker} is open, flushes are suspended and overflowing writes dropped.
+ * On shutdown the queue is drained before the store is released.
+ * </p>
+ *
+ * @author CGI
+ */
+public class WriteBehindQueue {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+    /**
+     * Policy applied to writes that do not fit in the queue.
+     */
+    public enum OverflowPolicy {
+        DROP, SYNC
+    }
+
+    private final Map<String, CacheWrite> pending = new ConcurrentHashMap<>();
+    private final Queue<String> keys = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final RedisCacheStore cacheStore;
+    private final CacheMemory cacheMemory;
+    private final int capacity;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final ScheduledExecutorService flusher;
+
+    public WriteBehindQueue(RedisCacheStore cacheStore, CacheMemory cacheMemory, int capacity, int batchSize, long flushIntervalMillis,
+                            OverflowPolicy overflowPolicy) {
+        this.cacheStore = cacheStore;
+        this.cacheMemory = cacheMemory;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("cache-write-behind-"));
+        this.flusher.scheduleWithFixedDelay(this::flushIfPermitted, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues the write of an entry, replacing a pending write of the same key.
+     *
+     * @param cacheName the cache name
+     * @param key the key of the entry
+     * @param stored the value to store, possibly wrapped in a {@link CacheEnvelope}
+     * @param ttlInfo the configuration of the cache
+     */
+    public void enqueue(String cacheName, String key, Object stored, TtlInfo ttlInfo) {
+        CacheWrite write = new CacheWrite(cacheName, key, stored, ttlInfo);
+        if (pending.replace(key, write) != null) {
+            return;
+        }
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            overflow(write);
+            return;
+        }
+        if (pending.putIfAbsent(key, write) != null) {
+            // Queued concurrently by another caller, the latest write wins
+            size.decrementAndGet();
+            pending.replace(key, write);
+            return;
+        }
+        keys.offer(key);
+    }
+
+    /**
+     * Returns the value of a write that is still pending.
+     *
+     * @param key the key of the entry
+     * @return the pending value, or null if no write of the key is pending
+     */
+    public Object getPending(String key) {
+        CacheWrite write = pending.get(key);
+        return write != null ? write.getStored() : null;
+    }
+
+    /**
+     * Drops the pending write of a key, if any, so that an evicted entry is not written back.
+     *
+     * @param key the key of the entry
+     */
+    public void discard(String key) {
+        if (pending.remove(key) != null) {
+            size.decrementAndGet();
+        }
+    }
+
+    /**
+     * Drops the pending writes of all keys starting with a prefix.
+     *
+     * @param keyPrefix the prefix of the keys, e.g. the key prefix of a cache
+     */
+    public void discardAll(String keyPrefix) {
+        for (String key : pending.keySet()) {
+            if (key.startsWith(keyPrefix)) {
+                discard(key);
+            }
+        }
+    }
+
+    /**
+     * Stops the flusher and writes all pending entries.
+     */
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void flushIfPermitted() {
+        if (cacheStore.getCircuitBreaker().isCallPermitted()) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        List<CacheWrite> batch = new ArrayList<>(batchSize);
+        String key;
+        while ((key = keys.poll()) != null) {
+            CacheWrite write = pending.remove(key);
+            if (write != null) {
+                size.decrementAndGet();
+                batch.add(write);
+            }
+            if (batch.size() >= batchSize) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private void write(List<CacheWrite> batch) {
+        try {
+            Map<String, Integer> sizes = cacheStore.multiSet(batch);
+            LOGGER.debug("Wrote {} cache entries behind", batch.size());
+            for (CacheWrite write : batch) {
+                recordPut(write, sizes.get(write.getKey()));
+            }
+        } catch (Exception e) {
+            LOGGER.error("Error writing " + batch.size() + " cache entries behind: " + e.getMessage(), e);
+        }
+    }
+
+    private void overflow(CacheWrite write) {
+        if (overflowPolicy == OverflowPolicy.DROP || !cacheStore.getCircuitBreaker().isCallPermitted()) {
+            LOGGER.debug("Write-behind queue full, dropping write of key {}", write.getKey());
+            return;
+        }
+        try {
+            int size = cacheStore.set(write.getKey(), write.getStored(), write.getTtlInfo());
+            recordPut(write, size);
+        } catch (Exception e) {
+            LOGGER.error("Error in doPut: " + e.getMessage(), e);
+        }
+    }
+
+    private void recordPut(CacheWrite write, Integer size) {
+        if (size != null) {
+            cacheMemory.recordPut(write.getCacheName(), write.getTtlInfo(), write.getKey(), size,
+                    write.getTtlInfo().getEntryTtlMillis(write.getStored()));
+        }
+    }
+}
@@ -1,37 +1,50 @@
 package org.springframework.cache.annotation;
 
-import com.claracore.rediscacheclient.config.CacheInterceptorApi;
+import com.claracore.rediscacheclient.config.TimedCacheEvict;
+import com.claracore.rediscacheclient.config.TimedCacheEvictOperation;
 import com.claracore.rediscacheclient.config.TimedCacheable;
+import com.claracore.rediscacheclient.config.TimedCacheableBatch;
+import com.claracore.rediscacheclient.config.TimedCacheableBatchOperation;
 import com.claracore.rediscacheclient.config.TtlInfo;
+import com.claracore.rediscacheclient.config.TtlRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.interceptor.CacheEvictOperation;
 import org.springframework.cache.interceptor.CacheOperation;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.env.Environment;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Custom cache annotation parser that extends the default Spring cache annotation parser.
- * It handles custom annotations such as @TimedCacheable.
+ * It handles custom annotations such as @TimedCacheable, @TimedCacheableBatch and @TimedCacheEvict.
  *
  * @author CGI
  */
 public class SpringCacheAnnotationParserApi extends SpringCacheAnnotationParser {
     private final Environment env;
+    private final TtlRegistry ttlRegistry;
     private static final Pattern PATTERN = Pattern.compile("\\$\\{(cache\\.[a-zA-Z][a-zA-Z0-9]*)}");
     private static final Logger LOGGER = LoggerFactory.getLogger(SpringCacheAnnotationParserApi.class);
 
-    public SpringCacheAnnotationParserApi(Environment env) {
+    public SpringCacheAnnotationParserApi(Environment env, TtlRegistry ttlRegistry) {
         this.env = env;
+        this.ttlRegistry = ttlRegistry;
     }
 
     /**
      * Parses cache annotations on a given method and handles custom @TimedCacheable annotations.
+     * A @TimedCacheableBatch annotation adds a {@link TimedCacheableBatchOperation}, and a @TimedCacheEvict annotation
+     * a {@link CacheEvictOperation} and a {@link TimedCacheEvictOperation} for its tags.
      *
      * @param method the method to parse annotations on
      * @return a collection of CacheOperation
@@ -47,11 +60,147 @@ public class SpringCacheAnnotationParserApi extends SpringCacheAnnotationParser
                 handleCacheableApi(cacheable);
             }
         }
+
+        TimedCacheableBatch batch = AnnotatedElementUtils.findMergedAnnotation(method, TimedCacheableBatch.class);
+        if (batch != null) {
+            List<CacheOperation> batchOps = ops != null ? new ArrayList<>(ops) : new ArrayList<>();
+            batchOps.add(handleCacheableBatchApi(batch, method));
+            ops = batchOps;
+        }
+
+        TimedCacheEvict evict = AnnotatedElementUtils.findMergedAnnotation(method, TimedCacheEvict.class);
+        if (evict != null) {
+            List<CacheOperation> evictOps = ops != null ? new ArrayList<>(ops) : new ArrayList<>();
+            evictOps.addAll(handleCacheEvictApi(evict, method));
+            ops = evictOps;
+        }
         return ops;
     }
 
     private void handleCacheableApi(TimedCacheable cacheable) {
-        String ttlStr = cacheable.ttl();
+        TtlInfo ttlInfo = resolveTtlInfo(cacheable.value()[0], cacheable.ttl(), cacheable.timeunit(), TtlInfo.builder()
+                .cacheType(cacheable.cacheType())
+                .singleFlight(cacheable.singleFlight())
+                .refreshAhead(cacheable.refreshAhead())
+                .writeBehind(cacheable.writeBehind())
+                .ttlJitter(cacheable.ttlJitter())
+                .ttlExpression(cacheable.ttlExpression().isEmpty() ? null : cacheable.ttlExpression())
+                .slidingExpiration(cacheable.slidingExpiration())
+                .tags(List.of(cacheable.tags())));
+        ttlRegistry.register(cacheable.value()[0], ttlInfo);
+        LOGGER.debug("Added cache configuration for key: {}, TTL: {}, TimeUnit: {}, CacheType: {}",
+                cacheable.key(), ttlInfo.getTtl(), ttlInfo.getTimeUnit(), ttlInfo.getCacheType());
+    }
+
+    /**
+     * Handles the custom @TimedCacheableBatch annotation, registering the TTL of its cache unless
+     * a @TimedCacheable method already configured the cache, and describing the batch load as an operation.
+     *
+     * @param batch the TimedCacheableBatch annotation
+     * @param method the annotated method
+     * @return the batch operation
+     */
+    private TimedCacheableBatchOperation handleCacheableBatchApi(TimedCacheableBatch batch, Method method) {
+        if (batch.value().length != 1) {
+            throw new IllegalArgumentException("@TimedCacheableBatch on " + method + " must name exactly one cache");
+        }
+        String cacheName = batch.value()[0];
+        int parameterIndex = resolveBatchParameter(batch, method);
+        if (!Collection.class.isAssignableFrom(method.getParameterTypes()[parameterIndex])) {
+            throw new IllegalArgumentException("Parameter " + parameterIndex + " of " + method + " must be a Collection");
+        }
+        Class<?> returnType = method.getReturnType();
+        if (!(Map.class.isAssignableFrom(returnType) && returnType.isAssignableFrom(LinkedHashMap.class))
+                && !(List.class.isAssignableFrom(returnType) && returnType.isAssignableFrom(ArrayList.class))) {
+            throw new IllegalArgumentException("@TimedCacheableBatch method " + method
+                    + " must return a Map type accepting a LinkedHashMap or a List type accepting an ArrayList");
+        }
+
+        if (ttlRegistry.get(cacheName) == null) {
+            TtlInfo ttlInfo = resolveTtlInfo(cacheName, batch.ttl(), batch.timeunit(), TtlInfo.builder().cacheType(batch.cacheType()));
+            ttlRegistry.register(cacheName, ttlInfo);
+            LOGGER.debug("Added batch cache configuration for cache: {}, TTL: {}, TimeUnit: {}, CacheType: {}",
+                    cacheName, ttlInfo.getTtl(), ttlInfo.getTimeUnit(), ttlInfo.getCacheType());
+        }
+
+        TimedCacheableBatchOperation.Builder builder = new TimedCacheableBatchOperation.Builder();
+        builder.setName(method.toString());
+        builder.setCacheNames(cacheName);
+        builder.setParameterIndex(parameterIndex);
+        return builder.build();
+    }
+
+    /**
+     * Handles the custom @TimedCacheEvict annotation, describing the eviction of a key or of all entries
+     * as a standard evict operation, and the eviction of its tags as a {@link TimedCacheEvictOperation}.
+     *
+     * @param evict the TimedCacheEvict annotation
+     * @param method the annotated method
+     * @return the evict operations
+     */
+    private List<CacheOperation> handleCacheEvictApi(TimedCacheEvict evict, Method method) {
+        if (!evict.key().isEmpty() && !evict.keyGenerator().isEmpty()) {
+            throw new IllegalArgumentException("@TimedCacheEvict on " + method + " cannot have both a key and a key generator");
+        }
+        List<CacheOperation> operations = new ArrayList<>(2);
+        boolean evictsTags = evict.tags().length > 0;
+        if (!evictsTags || evict.allEntries() || !evict.key().isEmpty() || !evict.keyGenerator().isEmpty()) {
+            if (evict.cacheNames().length == 0) {
+                throw new IllegalArgumentException("@TimedCacheEvict on " + method + " must name the caches to evict");
+            }
+            CacheEvictOperation.Builder builder = new CacheEvictOperation.Builder();
+            builder.setName(method.toString());
+            builder.setCacheNames(evict.cacheNames());
+            builder.setCondition(evict.condition());
+            builder.setKey(evict.key());
+            builder.setKeyGenerator(evict.keyGenerator());
+            builder.setCacheManager(evict.cacheManager());
+            builder.setCacheResolver(evict.cacheResolver());
+            builder.setCacheWide(evict.allEntries());
+            builder.setBeforeInvocation(evict.beforeInvocation());
+            operations.add(builder.build());
+        }
+        if (evictsTags) {
+            TimedCacheEvictOperation.Builder builder = new TimedCacheEvictOperation.Builder();
+            builder.setName(method.toString());
+            builder.setCacheNames(evict.cacheNames());
+            builder.setCondition(evict.condition());
+            builder.setTags(List.of(evict.tags()));
+            builder.setBeforeInvocation(evict.beforeInvocation());
+            operations.add(builder.build());
+        }
+        LOGGER.debug("Added cache eviction for method: {}, caches: {}, tags: {}", method.getName(), evict.cacheNames(), evict.tags());
+        return operations;
+    }
+
+    private int resolveBatchParameter(TimedCacheableBatch batch, Method method) {
+        if (batch.parameter() >= 0) {
+            if (batch.parameter() >= method.getParameterCount()) {
+                throw new IllegalArgumentException("Invalid parameter index " + batch.parameter() + " for " + method);
+            }
+            return batch.parameter();
+        }
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (Collection.class.isAssignableFrom(parameterTypes[i])) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("@TimedCacheableBatch method " + method + " has no Collection parameter");
+    }
+
+    /**
+     * Resolves the TTL of a cache and applies the cache properties over the settings of its annotation.
+     *
+     * @param cacheName the cache name
+     * @param ttlStr the ttl attribute of the annotation
+     * @param defaultTimeUnit the time unit of a numeric ttl
+     * @param annotationSettings the settings declared by the annotation
+     * @return the validated TTL information of the cache
+     * @throws IllegalArgumentException if the configuration of the cache is invalid
+     */
+    private TtlInfo resolveTtlInfo(String cacheName, String ttlStr, TimeUnit defaultTimeUnit, TtlInfo.TtlInfoBuilder annotationSettings) {
+        String propertyBase = "cache." + cacheName;
         long ttl;
         TimeUnit timeUnit;
 
@@ -60,17 +209,26 @@ public class SpringCacheAnnotationParserApi extends SpringCacheAnnotationParser
             if (!matcher.matches()) {
                 throw new IllegalArgumentException("Invalid format for ttl parameter of @CacheableApi");
             }
-            String propertyBase = matcher.group(1);
+            propertyBase = matcher.group(1);
             ttl = resolveTtl(propertyBase);
             timeUnit = resolveTimeUnit(propertyBase);
         } else {
             ttl = Long.parseLong(ttlStr);
-            timeUnit = cacheable.timeunit();
+            timeUnit = defaultTimeUnit;
         }
 
-        TimedCacheable.CacheType cacheType = cacheable.cacheType();
-        CacheInterceptorApi.getTtlCache().put(cacheable.value()[0], new TtlInfo(ttl, timeUnit, cacheType));
-        LOGGER.debug("Added cache configuration for key: {}, TTL: {}, TimeUnit: {}, CacheType: {}", cacheable.key(), ttl, timeUnit, cacheType);
+        String settingsBase = propertyBase;
+        TtlInfo ttlInfo = annotationSettings
+                .ttl(ttl)
+                .timeUnit(timeUnit)
+                .build()
+                .withSettings(setting -> env.getProperty(settingsBase + "." + setting));
+        try {
+            ttlInfo.validate();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid configuration of cache " + cacheName + ": " + e.getMessage(), e);
+        }
+        return ttlInfo;
     }
 
     /**
@@ -120,6 +278,8 @@ public class SpringCacheAnnotationParserApi extends SpringCacheAnnotationParser
      */
     private TimeUnit parseTimeUnit(String timeUnitStr) {
         switch (timeUnitStr) {
+            case "ms":
+                return TimeUnit.MILLISECONDS;
             case "s":
                 return TimeUnit.SECONDS;
             case "m":
@@ -0,0 +1,102 @@
+package com.claracore.rediscacheclient.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AsyncCacheSupportTest {
+    private static final String KEY = "app:posts:42";
+
+    private final RedisCacheStore cacheStore = mock(RedisCacheStore.class);
+    private final CacheMetrics cacheMetrics = mock(CacheMetrics.class);
+    private final TtlRegistry ttlRegistry = new TtlRegistry();
+    private final AsyncCacheSupport asyncCacheSupport = new AsyncCacheSupport(cacheStore, null, null, new CacheKeys("app"),
+            new NearCacheManager(), ttlRegistry, mock(WriteBehindQueue.class), cacheMetrics, mock(CacheMemory.class));
+    private final TtlInfo ttlInfo = TtlInfo.builder().ttl(10).timeUnit(TimeUnit.MINUTES)
+            .cacheType(TimedCacheable.CacheType.REDIS).build();
+
+    @BeforeEach
+    void setUp() {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(false, 2, 2, 50, Duration.ofMinutes(1), 100, Duration.ofMinutes(1), 1);
+        when(cacheStore.getCircuitBreaker()).thenReturn(breaker);
+        ttlRegistry.register("posts", ttlInfo);
+    }
+
+    @Test
+    void retrieveCompletesWhenRedisReplies() {
+        CompletableFuture<Object> reply = new CompletableFuture<>();
+        when(cacheStore.getAsync(KEY)).thenReturn(reply);
+
+        CompletableFuture<Cache.ValueWrapper> retrieved = asyncCacheSupport.retrieve("posts", 42L);
+
+        assertThat(retrieved).isNotDone();
+        reply.complete("value");
+        assertThat(retrieved.join().get()).isEqualTo("value");
+        verify(cacheMetrics).recordHit("posts");
+    }
+
+    @Test
+    void redisErrorsAreReportedAsMisses() {
+        when(cacheStore.getAsync(KEY)).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Redis unavailable")));
+
+        assertThat(asyncCacheSupport.retrieve("posts", 42L).join()).isNull();
+        verify(cacheMetrics).recordGetError("posts");
+        verify(cacheMetrics).recordMiss("posts");
+    }
+
+    @Test
+    void redisIsNotReadWhileTheBreakerIsOpen() {
+        RedisCircuitBreaker open = mock(RedisCircuitBreaker.class);
+        when(cacheStore.getCircuitBreaker()).thenReturn(open);
+
+        assertThat(asyncCacheSupport.retrieve("posts", 42L).join()).isNull();
+        verify(cacheStore, never()).getAsync(anyString());
+        verify(cacheMetrics).recordMiss("posts");
+    }
+
+    @Test
+    void missIsLoadedAndStored() {
+        when(cacheStore.getAsync(KEY)).thenReturn(CompletableFuture.completedFuture(null));
+        when(cacheStore.setAsync(KEY, "loaded", ttlInfo)).thenReturn(CompletableFuture.completedFuture(64));
+
+        Object value = asyncCacheSupport.retrieve("posts", 42L, () -> CompletableFuture.completedFuture("loaded")).join();
+
+        assertThat(value).isEqualTo("loaded");
+        verify(cacheStore).setAsync(KEY, "loaded", ttlInfo);
+    }
+
+    @Test
+    void hitIsNotLoaded() {
+        when(cacheStore.getAsync(KEY)).thenReturn(CompletableFuture.completedFuture("cached"));
+
+        Object value = asyncCacheSupport.retrieve("posts", 42L, () -> CompletableFuture.completedFuture("loaded")).join();
+
+        assertThat(value).isEqualTo("cached");
+        verify(cacheStore, never()).setAsync(anyString(), any(), any());
+    }
+
+    @Test
+    void nearCacheServesTheValueReadFromRedis() {
+        ttlRegistry.register("posts", ttlInfo.toBuilder().nearCache(true).build());
+        when(cacheStore.getAsync(KEY)).thenReturn(CompletableFuture.completedFuture("value"));
+
+        asyncCacheSupport.retrieve("posts", 42L).join();
+        Cache.ValueWrapper cached = asyncCacheSupport.retrieve("posts", 42L).join();
+
+        assertThat(cached.get()).isEqualTo("value");
+        verify(cacheStore, times(1)).getAsync(KEY);
+    }
+}
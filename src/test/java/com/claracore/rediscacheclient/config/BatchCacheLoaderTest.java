@@ -0,0 +1,146 @@
+package com.claracore.rediscacheclient.config;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.cache.support.NullValue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchCacheLoaderTest {
+    private final RedisCacheStore cacheStore = mock(RedisCacheStore.class);
+    private final TtlRegistry ttlRegistry = new TtlRegistry();
+    private final BatchCacheLoader loader = new BatchCacheLoader(cacheStore, new CacheKeys("app"), new NearCacheManager(), ttlRegistry,
+            mock(WriteBehindQueue.class), mock(CacheMetrics.class), mock(CacheMemory.class));
+    private final TtlInfo ttlInfo = TtlInfo.builder().ttl(10).timeUnit(TimeUnit.MINUTES)
+            .cacheType(TimedCacheable.CacheType.REDIS).build();
+    private final List<List<String>> invocations = new ArrayList<>();
+    private TimedCacheableBatchOperation operation;
+
+    @BeforeEach
+    void setUp() {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(false, 2, 2, 50, Duration.ofMinutes(1), 100, Duration.ofMinutes(1), 1);
+        when(cacheStore.getCircuitBreaker()).thenReturn(breaker);
+        ttlRegistry.register("posts", ttlInfo);
+        TimedCacheableBatchOperation.Builder builder = new TimedCacheableBatchOperation.Builder();
+        builder.setName("getPosts");
+        builder.setCacheNames("posts");
+        builder.setParameterIndex(0);
+        operation = builder.build();
+    }
+
+    @Test
+    void hitsAndLoadedElementsAreMergedInRequestOrder() throws Throwable {
+        when(cacheStore.multiGet(any())).thenReturn(Map.of("app:posts:2", "cached 2"));
+
+        Object result = loader.load(operation, invocation("getPosts", List.of("1", "2", "3")));
+
+        assertThat(invocations).containsExactly(List.of("1", "3"));
+        assertThat(result).isInstanceOf(LinkedHashMap.class);
+        assertThat(asMap(result)).containsExactly(Map.entry("1", "post 1"), Map.entry("2", "cached 2"), Map.entry("3", "post 3"));
+        verify(cacheStore).multiSet("posts", Map.of("app:posts:1", "post 1", "app:posts:3", "post 3"), ttlInfo);
+    }
+
+    @Test
+    void listResultsHoldNullForElementsWithoutResult() throws Throwable {
+        when(cacheStore.multiGet(any())).thenReturn(Map.of("app:posts:1", "cached 1"));
+
+        Object result = loader.load(operation, invocation("getPostList", List.of("1", "2", "missing")));
+
+        assertThat(invocations).containsExactly(List.of("2", "missing"));
+        assertThat(asList(result)).containsExactly("cached 1", "post 2", null);
+        verify(cacheStore).multiSet("posts", Map.of("app:posts:2", "post 2"), ttlInfo);
+    }
+
+    @Test
+    void methodIsNotInvokedWhenAllElementsAreCached() throws Throwable {
+        when(cacheStore.multiGet(any())).thenReturn(Map.of("app:posts:1", "cached 1", "app:posts:2", "cached 2"));
+        ProxyMethodInvocation invocation = invocation("getPosts", List.of("1", "2"));
+
+        Object result = loader.load(operation, invocation);
+
+        assertThat(asMap(result)).containsExactly(Map.entry("1", "cached 1"), Map.entry("2", "cached 2"));
+        verify(invocation, never()).invocableClone(any(Object[].class));
+        verify(cacheStore, never()).multiSet(anyString(), anyMap(), any());
+    }
+
+    @Test
+    void negativeEntriesAreCachedAndServed() throws Throwable {
+        TtlInfo negative = ttlInfo.toBuilder().negativeTtl(1).build();
+        ttlRegistry.register("posts", negative);
+        when(cacheStore.multiGet(any())).thenReturn(Map.of("app:posts:2", NullValue.INSTANCE));
+
+        Object result = loader.load(operation, invocation("getPosts", List.of("1", "2", "missing")));
+
+        assertThat(invocations).containsExactly(List.of("1", "missing"));
+        assertThat(asMap(result)).containsExactly(Map.entry("1", "post 1"));
+        verify(cacheStore).multiSet(eq("posts"), eq(Map.<String, Object>of("app:posts:1", "post 1", "app:posts:missing", NullValue.INSTANCE)), eq(negative));
+    }
+
+    @Test
+    void unalignedListCannotBeMergedWithTheHits() throws Throwable {
+        when(cacheStore.multiGet(any())).thenReturn(Map.of("app:posts:1", "cached 1"));
+
+        assertThatThrownBy(() -> loader.load(operation, invocation("getUnalignedList", List.of("1", "2"))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private ProxyMethodInvocation invocation(String methodName, List<String> ids) throws NoSuchMethodException {
+        PostService service = new PostService();
+        ProxyMethodInvocation invocation = mock(ProxyMethodInvocation.class);
+        when(invocation.getMethod()).thenReturn(PostService.class.getMethod(methodName, List.class));
+        when(invocation.getArguments()).thenReturn(new Object[]{ids});
+        when(invocation.invocableClone(any(Object[].class))).thenAnswer(clone -> {
+            @SuppressWarnings("unchecked")
+            List<String> missing = (List<String>) ((Object[]) clone.getRawArguments()[0])[0];
+            invocations.add(missing);
+            MethodInvocation call = mock(MethodInvocation.class);
+            when(call.proceed()).thenReturn(PostService.class.getMethod(methodName, List.class).invoke(service, missing));
+            return call;
+        });
+        return invocation;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object result) {
+        return (Map<String, Object>) result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> asList(Object result) {
+        return (List<Object>) result;
+    }
+
+    public static class PostService {
+        public Map<String, String> getPosts(List<String> ids) {
+            Map<String, String> posts = new LinkedHashMap<>();
+            ids.stream().filter(id -> !id.equals("missing")).forEach(id -> posts.put(id, "post " + id));
+            return posts;
+        }
+
+        public List<String> getPostList(List<String> ids) {
+            return ids.stream().map(id -> id.equals("missing") ? null : "post " + id).toList();
+        }
+
+        public List<String> getUnalignedList(List<String> ids) {
+            return List.of();
+        }
+    }
+}
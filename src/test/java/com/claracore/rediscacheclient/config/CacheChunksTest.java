@@ -0,0 +1,97 @@
+package com.claracore.rediscacheclient.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CacheChunksTest {
+
+    @Test
+    void writesSplitIntoFixedSizeChunks() throws IOException {
+        byte[] data = bytes(10);
+        try (CacheChunks chunks = new CacheChunks(new CacheChunks.BufferPool(0), 4)) {
+            chunks.getOutputStream().write(data[0]);
+            chunks.getOutputStream().write(data, 1, data.length - 1);
+
+            assertThat(chunks.getLength()).isEqualTo(10);
+            assertThat(chunks.getChunkCount()).isEqualTo(3);
+            assertThat(chunks.getChunkLength(0)).isEqualTo(4);
+            assertThat(chunks.getChunkLength(1)).isEqualTo(4);
+            assertThat(chunks.getChunkLength(2)).isEqualTo(2);
+            assertThat(chunks.toByteArray()).isEqualTo(data);
+        }
+    }
+
+    @Test
+    void closeReturnsTheBuffersToThePool() throws IOException {
+        CacheChunks.BufferPool pool = new CacheChunks.BufferPool(4);
+        byte[] buffer;
+        try (CacheChunks chunks = new CacheChunks(pool, 4)) {
+            chunks.getOutputStream().write(bytes(4));
+            buffer = chunks.getBuffer(0);
+        }
+
+        assertThat(pool.acquire(4)).isSameAs(buffer);
+        assertThat(pool.acquire(4)).isNotSameAs(buffer);
+    }
+
+    @Test
+    void detachedBuffersAreNotReturnedToThePool() throws IOException {
+        CacheChunks.BufferPool pool = new CacheChunks.BufferPool(4);
+        byte[] buffer;
+        try (CacheChunks chunks = new CacheChunks(pool, 4)) {
+            chunks.getOutputStream().write(bytes(4));
+            buffer = chunks.getBuffer(0);
+            chunks.detach();
+        }
+
+        assertThat(pool.acquire(4)).isNotSameAs(buffer);
+    }
+
+    @Test
+    void manifestRoundTrips() {
+        String prefix = CacheChunks.newChunkKeyPrefix("app:cache:key");
+        CacheChunks.Manifest manifest = new CacheChunks.Manifest(prefix, 65_536, 3, 150_000, true);
+
+        byte[] data = manifest.toBytes();
+
+        assertThat(prefix).startsWith("app:cache:key#chunk:").endsWith(":");
+        assertThat(CacheChunks.isManifest(data)).isTrue();
+        assertThat(CacheChunks.Manifest.parse(data)).isEqualTo(manifest);
+        assertThat(manifest.chunkKey(2)).isEqualTo(prefix + 2);
+    }
+
+    @Test
+    void otherEntriesAreNotManifests() {
+        assertThat(CacheChunks.isManifest(null)).isFalse();
+        assertThat(CacheChunks.isManifest("{\"value\":1}".getBytes())).isFalse();
+        assertThat(CacheChunks.isManifest(new byte[]{CacheChunks.MANIFEST_HEADER, 0, 0})).isFalse();
+        assertThatThrownBy(() -> CacheChunks.Manifest.parse(new byte[]{2, 1, 2, 3}))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void chunkInputStreamReadsTheChunksInSequence() throws IOException {
+        List<byte[]> buffers = new ArrayList<>(List.of(new byte[]{1, 2, 3, 0}, new byte[]{}, new byte[]{4, 5}));
+        InputStream input = new CacheChunks.ChunkInputStream(buffers, new int[]{3, 0, 2});
+
+        assertThat(input.read()).isEqualTo(1);
+        assertThat(input.readAllBytes()).containsExactly(2, 3, 4, 5);
+        assertThat(input.read()).isEqualTo(-1);
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i + 1);
+        }
+        return data;
+    }
+}
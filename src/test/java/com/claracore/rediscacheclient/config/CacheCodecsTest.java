@@ -0,0 +1,117 @@
+package com.claracore.rediscacheclient.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CacheCodecsTest {
+    private static final String LARGE_VALUE = "value".repeat(2_000);
+
+    private final CacheCodecs codecs = new CacheCodecs(List.of(
+            new JsonCacheCodec(new GenericJackson2JsonRedisSerializer()), new SmileCacheCodec()));
+    private final TtlInfo json = TtlInfo.builder().ttl(10).timeUnit(TimeUnit.MINUTES)
+            .cacheType(TimedCacheable.CacheType.REDIS).build();
+    private final TtlInfo smile = json.toBuilder().codec(SmileCacheCodec.NAME).build();
+
+    @Test
+    void jsonEntriesHaveNoHeader() {
+        byte[] data = codecs.encode("value", json);
+
+        assertThat(data[0]).isEqualTo((byte) '"');
+        assertThat(codecs.decode(data)).isEqualTo("value");
+    }
+
+    @Test
+    void smileEntriesStartWithTheCodecId() {
+        List<String> value = new ArrayList<>(List.of("a", "b"));
+
+        byte[] data = codecs.encode(value, smile);
+
+        assertThat(data[0]).isEqualTo(SmileCacheCodec.ID);
+        assertThat(codecs.decode(data)).isEqualTo(value);
+    }
+
+    @Test
+    void nullValueIsStoredAsOneByte() {
+        byte[] data = codecs.encode(NullValue.INSTANCE, smile.toBuilder().compressionThreshold(1).build());
+
+        assertThat(data).containsExactly(0);
+        assertThat(codecs.decode(data)).isSameAs(NullValue.INSTANCE);
+        assertThat(codecs.decode(new byte[0])).isNull();
+        assertThat(codecs.decode((byte[]) null)).isNull();
+    }
+
+    @Test
+    void entriesFromTheThresholdOnAreCompressed() {
+        TtlInfo compressedJson = json.toBuilder().compressionThreshold(1_024).build();
+        TtlInfo compressedSmile = smile.toBuilder().compressionThreshold(1_024).build();
+
+        byte[] small = codecs.encode("value", compressedJson);
+        byte[] largeJson = codecs.encode(LARGE_VALUE, compressedJson);
+        byte[] largeSmile = codecs.encode(LARGE_VALUE, compressedSmile);
+
+        assertThat(small[0]).isEqualTo((byte) '"');
+        assertThat(largeJson[0]).isEqualTo((byte) (0x10 | JsonCacheCodec.ID));
+        assertThat(largeSmile[0]).isEqualTo((byte) (0x10 | SmileCacheCodec.ID));
+        assertThat(largeJson.length).isLessThan(LARGE_VALUE.length());
+        assertThat(codecs.decode(largeJson)).isEqualTo(LARGE_VALUE);
+        assertThat(codecs.decode(largeSmile)).isEqualTo(LARGE_VALUE);
+    }
+
+    @Test
+    void chunkedEntriesRoundTrip() {
+        for (TtlInfo ttlInfo : List.of(json, smile)) {
+            for (boolean compressed : new boolean[]{false, true}) {
+                assertThat(decodeChunks(LARGE_VALUE, ttlInfo.toBuilder().chunkSize(1_000).build(), compressed))
+                        .isEqualTo(LARGE_VALUE);
+            }
+        }
+    }
+
+    @Test
+    void chunksHoldTheUncompressedEntry() {
+        TtlInfo ttlInfo = smile.toBuilder().chunkSize(1_000).build();
+        try (CacheChunks chunks = codecs.encodeChunks(LARGE_VALUE, ttlInfo, new CacheChunks.BufferPool(0))) {
+            assertThat(chunks.getChunkCount()).isGreaterThan(1);
+            assertThat(chunks.toByteArray()).isEqualTo(codecs.encode(LARGE_VALUE, ttlInfo));
+            assertThat(codecs.decode(codecs.toEntry(chunks, ttlInfo))).isEqualTo(LARGE_VALUE);
+        }
+    }
+
+    @Test
+    void unknownCodecsAreRejected() {
+        assertThat(codecs.contains(JsonCacheCodec.NAME)).isTrue();
+        assertThat(codecs.contains("kryo")).isFalse();
+        assertThatThrownBy(() -> codecs.encode("value", json.toBuilder().codec("kryo").build()))
+                .isInstanceOf(SerializationException.class);
+        assertThatThrownBy(() -> codecs.decode(new byte[]{7, 1, 2}))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void duplicateCodecsAreRejected() {
+        assertThatThrownBy(() -> new CacheCodecs(List.of(new SmileCacheCodec(), new SmileCacheCodec())))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Object decodeChunks(Object value, TtlInfo ttlInfo, boolean compressed) {
+        CacheChunks.BufferPool pool = new CacheChunks.BufferPool(4);
+        try (CacheChunks chunks = codecs.encodeChunks(value, ttlInfo, pool)) {
+            List<byte[]> stored = new ArrayList<>();
+            for (int i = 0; i < chunks.getChunkCount(); i++) {
+                stored.add(codecs.encodeChunk(chunks, i, compressed));
+            }
+            CacheChunks.Manifest manifest = new CacheChunks.Manifest(CacheChunks.newChunkKeyPrefix("key"),
+                    chunks.getChunkSize(), chunks.getChunkCount(), chunks.getLength(), compressed);
+            return codecs.decode(CacheChunks.Manifest.parse(manifest.toBytes()), stored, pool);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.claracore.rediscacheclient.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CacheExecutorTest {
+    private final TtlInfo ttlInfo = TtlInfo.builder().ttl(10).timeUnit(TimeUnit.MINUTES)
+            .cacheType(TimedCacheable.CacheType.REDIS).build();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private CacheExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void tasksRunOnTheCacheThreads() throws Exception {
+        executor = new CacheExecutor(false, 2, 10, 4);
+        CompletableFuture<String> thread = new CompletableFuture<>();
+
+        assertThat(executor.execute("posts", ttlInfo, () -> thread.complete(Thread.currentThread().getName()))).isTrue();
+
+        assertThat(thread.get(5, TimeUnit.SECONDS)).startsWith("cache-io-");
+        assertThat(executor.isVirtual()).isFalse();
+    }
+
+    @Test
+    void tasksOfACacheAtItsMaximumConcurrencyAreNotRun() throws Exception {
+        executor = new CacheExecutor(false, 4, 10, 4);
+        TtlInfo limited = ttlInfo.toBuilder().maxConcurrency(1).build();
+        CountDownLatch done = new CountDownLatch(1);
+
+        assertThat(executor.execute("posts", limited, this::awaitRelease)).isTrue();
+        assertThat(executor.execute("posts", limited, done::countDown)).isFalse();
+        assertThat(executor.execute("users", limited, done::countDown)).isTrue();
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+
+        release.countDown();
+        assertThat(awaitExecuted("posts", limited)).isTrue();
+    }
+
+    @Test
+    void tasksRejectedByAFullPoolReleaseTheirPermit() throws Exception {
+        executor = new CacheExecutor(false, 1, 1, 4);
+        TtlInfo limited = ttlInfo.toBuilder().maxConcurrency(3).build();
+
+        assertThat(executor.execute("posts", limited, this::awaitRelease)).isTrue();
+        assertThat(executor.execute("posts", limited, () -> {
+        })).isTrue();
+        assertThat(executor.execute("posts", limited, () -> {
+        })).isFalse();
+
+        release.countDown();
+        assertThat(awaitExecuted("posts", limited)).isTrue();
+    }
+
+    @Test
+    void unboundTasksRunOnTheCallerWhenThePoolIsFull() throws Exception {
+        executor = new CacheExecutor(false, 1, 1, 4);
+        executor.run(this::awaitRelease);
+        executor.run(() -> {
+        });
+
+        CompletableFuture<String> thread = executor.supply(() -> Thread.currentThread().getName());
+
+        assertThat(thread).isCompletedWithValue(Thread.currentThread().getName());
+        assertThat(executor.supply(() -> {
+            throw new IllegalStateException("failed");
+        })).isCompletedExceptionally();
+    }
+
+    @Test
+    void invalidSettingsAreRejected() {
+        assertThatThrownBy(() -> new CacheExecutor(false, 0, 10, 4)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new CacheExecutor(false, 2, 10, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Retries a task until the permits of the running tasks of the cache are released.
+     */
+    private boolean awaitExecuted(String cacheName, TtlInfo ttlInfo) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            if (executor.execute(cacheName, ttlInfo, () -> {
+            })) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return false;
+    }
+}
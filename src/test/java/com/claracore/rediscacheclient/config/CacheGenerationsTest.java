@@ -0,0 +1,78 @@
+package com.claracore.rediscacheclient.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CacheGenerationsTest {
+    private static final String GENERATION_KEY = "app:posts#generation";
+
+    private final RedisCacheStore cacheStore = mock(RedisCacheStore.class);
+    private final TtlInfo ttlInfo = TtlInfo.builder().ttl(10).timeUnit(TimeUnit.MINUTES)
+            .cacheType(TimedCacheable.CacheType.REDIS).generations(true).build();
+
+    @Test
+    void generationIsReadOnceWithinTheRefreshInterval() {
+        when(cacheStore.getBytes(GENERATION_KEY)).thenReturn(bytes(3));
+        CacheGenerations generations = new CacheGenerations(cacheStore, 60_000);
+
+        assertThat(generations.current(GENERATION_KEY)).isEqualTo(3);
+        assertThat(generations.current(GENERATION_KEY)).isEqualTo(3);
+
+        verify(cacheStore, times(1)).getBytes(GENERATION_KEY);
+    }
+
+    @Test
+    void missingGenerationIsZero() {
+        CacheGenerations generations = new CacheGenerations(cacheStore, 60_000);
+
+        assertThat(generations.current(GENERATION_KEY)).isZero();
+    }
+
+    @Test
+    void generationNeverGoesBack() {
+        when(cacheStore.increment(GENERATION_KEY)).thenReturn(4L);
+        when(cacheStore.getBytes(GENERATION_KEY)).thenReturn(bytes(3));
+        CacheGenerations generations = new CacheGenerations(cacheStore, 0);
+
+        assertThat(generations.increment(GENERATION_KEY)).isEqualTo(4);
+
+        assertThat(generations.current(GENERATION_KEY)).isEqualTo(4);
+    }
+
+    @Test
+    void lastKnownGenerationIsKeptWhenRedisFails() {
+        when(cacheStore.getBytes(GENERATION_KEY)).thenReturn(bytes(3))
+                .thenThrow(new CircuitBreakerOpenException("Redis circuit breaker is OPEN, call not permitted"));
+        CacheGenerations generations = new CacheGenerations(cacheStore, 0);
+
+        assertThat(generations.current(GENERATION_KEY)).isEqualTo(3);
+        assertThat(generations.current(GENERATION_KEY)).isEqualTo(3);
+    }
+
+    @Test
+    void redisKeysCarryTheCurrentGeneration() {
+        when(cacheStore.getBytes(GENERATION_KEY)).thenReturn(bytes(3));
+        when(cacheStore.increment(GENERATION_KEY)).thenReturn(4L);
+        CacheGenerations generations = new CacheGenerations(cacheStore, 60_000);
+        CacheKeys cacheKeys = new CacheKeys("app", generations);
+
+        assertThat(cacheKeys.toGenerationKey("posts", ttlInfo)).isEqualTo(GENERATION_KEY);
+        assertThat(cacheKeys.toRedisKey("posts", ttlInfo, "key")).isEqualTo("app:posts@3:key");
+        generations.increment(GENERATION_KEY);
+        assertThat(cacheKeys.toRedisKey("posts", ttlInfo, "key")).isEqualTo("app:posts@4:key");
+        assertThat(cacheKeys.toRedisKey("posts", ttlInfo.toBuilder().generations(false).build(), "key"))
+                .isEqualTo("app:posts:key");
+    }
+
+    private static byte[] bytes(long generation) {
+        return Long.toString(generation).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,104 @@
+package com.claracore.rediscacheclient.config;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CacheInterceptorApiTest {
+    private static final String KEY = "app:posts:42";
+
+    private final RedisCacheStore cacheStore = mock(RedisCacheStore.class);
+    private final CacheMetrics cacheMetrics = mock(CacheMetrics.class);
+    private final TtlRegistry ttlRegistry = new TtlRegistry();
+    private final CacheInterceptorApi interceptor = new CacheInterceptorApi(cacheStore, null, null, new CacheKeys("app"),
+            new NearCacheManager(), ttlRegistry, mock(CacheRefresher.class), mock(WriteBehindQueue.class), cacheMetrics,
+            mock(HotKeyDetector.class), mock(CacheWarmUp.class), mock(CacheEvictor.class), mock(CacheMemory.class),
+            mock(CacheExecutor.class));
+    private final Cache cache = mock(Cache.class);
+    private final TtlInfo ttlInfo = TtlInfo.builder().ttl(10).timeUnit(TimeUnit.MINUTES)
+            .cacheType(TimedCacheable.CacheType.REDIS).build();
+
+    @BeforeEach
+    void setUp() {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(false, 2, 2, 50, Duration.ofMinutes(1), 100, Duration.ofMinutes(1), 1);
+        when(cacheStore.getCircuitBreaker()).thenReturn(breaker);
+        when(cache.getName()).thenReturn("posts");
+    }
+
+    @Test
+    void freshEnvelopeIsServed() {
+        ttlRegistry.register("posts", ttlInfo.toBuilder().staleWhileRevalidate(1).build());
+        when(cacheStore.get(KEY)).thenReturn(envelope("value", 60_000));
+
+        Cache.ValueWrapper value = interceptor.doGet(cache, 42L);
+
+        assertThat(value.get()).isEqualTo("value");
+        verify(cacheMetrics).recordHit("posts");
+        verify(cacheMetrics, never()).recordStale("posts", false);
+    }
+
+    @Test
+    void expiredEntryIsServedWhileRevalidated() {
+        ttlRegistry.register("posts", ttlInfo.toBuilder().staleWhileRevalidate(1).build());
+        when(cacheStore.get(KEY)).thenReturn(envelope("stale", -1_000));
+
+        Cache.ValueWrapper value = interceptor.doGet(cache, 42L);
+
+        assertThat(value.get()).isEqualTo("stale");
+        verify(cacheMetrics).recordStale("posts", false);
+        verify(cacheMetrics).recordHit("posts");
+    }
+
+    @Test
+    void expiredEntryPastTheStalePeriodIsAMiss() {
+        ttlRegistry.register("posts", ttlInfo.toBuilder().staleWhileRevalidate(1).build());
+        when(cacheStore.get(KEY)).thenReturn(envelope("stale", -TimeUnit.MINUTES.toMillis(2)));
+
+        assertThat(interceptor.doGet(cache, 42L)).isNull();
+        verify(cacheMetrics).recordMiss("posts");
+    }
+
+    @Test
+    void expiredEntryOfACacheWithoutStalePeriodIsAMiss() {
+        ttlRegistry.register("posts", ttlInfo);
+        when(cacheStore.get(KEY)).thenReturn(envelope("stale", -1_000));
+
+        assertThat(interceptor.doGet(cache, 42L)).isNull();
+        verify(cacheMetrics, never()).recordStale("posts", false);
+    }
+
+    @Test
+    void staleEntriesAreKeptInRedisForTheLongestStalePeriod() {
+        TtlInfo stale = ttlInfo.toBuilder().staleWhileRevalidate(1).staleIfError(5).build();
+
+        assertThat(stale.getEntryTtlMillis(envelope("value", 60_000)))
+                .isBetween(TimeUnit.MINUTES.toMillis(6) - 1_000, TimeUnit.MINUTES.toMillis(6));
+        assertThat(stale.getEntryTtlMillis("value")).isEqualTo(TimeUnit.MINUTES.toMillis(10));
+    }
+
+    @Test
+    void firstExpiredValueIsKeptForAFailingInvocation() {
+        CacheInvocationContext context = new CacheInvocationContext(mock(MethodInvocation.class));
+
+        context.recordStale("posts", KEY, "first");
+        context.recordStale("users", "app:users:1", "second");
+
+        assertThat(context.hasStaleValue()).isTrue();
+        assertThat(context.getStaleCacheName()).isEqualTo("posts");
+        assertThat(context.getStaleValue()).isEqualTo("first");
+    }
+
+    private static CacheEnvelope envelope(Object value, long expiresInMillis) {
+        return new CacheEnvelope(value, 10, System.currentTimeMillis() + expiresInMillis);
+    }
+}
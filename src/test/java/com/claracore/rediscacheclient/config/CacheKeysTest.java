@@ -0,0 +1,75 @@
+package com.claracore.rediscacheclient.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CacheKeysTest {
+    private final TtlInfo ttlInfo = TtlInfo.builder().ttl(10).timeUnit(TimeUnit.MINUTES)
+            .cacheType(TimedCacheable.CacheType.REDIS).build();
+
+    @Test
+    void redisKeysAreNamespacedPerCache() {
+        assertThat(new CacheKeys("app").toRedisKey("posts", ttlInfo, 42L)).isEqualTo("app:posts:42");
+        assertThat(new CacheKeys("").toRedisKey("posts", ttlInfo, 42L)).isEqualTo("posts:42");
+        assertThat(new CacheKeys(null).toKeyPrefix("posts", ttlInfo)).isEqualTo("posts:");
+    }
+
+    @Test
+    void hashTaggedCachesShareOneSlot() {
+        TtlInfo hashTagged = ttlInfo.toBuilder().hashTag(true).build();
+        CacheKeys cacheKeys = new CacheKeys("app");
+
+        assertThat(cacheKeys.toRedisKey("posts", hashTagged, "key")).isEqualTo("app:{posts}:key");
+        assertThat(cacheKeys.toGenerationKey("posts", hashTagged)).isEqualTo("app:{posts}#generation");
+        assertThat(cacheKeys.toIndexKey("posts", hashTagged)).isEqualTo("app:{posts}#index");
+    }
+
+    @Test
+    void patternsEscapeTheGlobCharacters() {
+        assertThat(new CacheKeys("app").toPattern("posts[v2]*", ttlInfo)).isEqualTo("app:posts\\[v2\\]\\*:*");
+    }
+
+    @Test
+    void scalarKeysAreWrittenAsIs() {
+        assertThat(CacheKeys.encode("key")).isEqualTo("key");
+        assertThat(CacheKeys.encode(42)).isEqualTo("42");
+        assertThat(CacheKeys.encode(true)).isEqualTo("true");
+        assertThat(CacheKeys.encode(TimeUnit.SECONDS)).isEqualTo("SECONDS");
+        assertThat(CacheKeys.encode(new byte[]{-1, -1})).isEqualTo("__8");
+    }
+
+    @Test
+    void compositeKeysSeparateTheirElements() {
+        assertThat(CacheKeys.encodeComposite("a", 1, null).value()).isEqualTo("a:1:\\0");
+        assertThat(CacheKeys.encode(List.of("a", "b"))).isEqualTo("a:b");
+        assertThat(CacheKeys.encode(new String[]{"a", "b"})).isEqualTo("a:b");
+        assertThat(CacheKeys.encode(List.of(List.of("a", "b"), "c"))).isEqualTo("a\\:b:c");
+    }
+
+    @Test
+    void separatorsInKeysCannotCollideWithComposites() {
+        assertThat(CacheKeys.encode("a:b")).isEqualTo("a\\:b").isNotEqualTo(CacheKeys.encode(List.of("a", "b")));
+        assertThat(CacheKeys.encode("a:b")).isNotEqualTo(CacheKeys.encodeComposite("a", "b").value());
+        assertThat(CacheKeys.encode("\\0")).isNotEqualTo(CacheKeys.encode(Arrays.asList((Object) null)));
+        assertThat(CacheKeys.encode(List.of("a:b"))).isEqualTo(CacheKeys.encode("a:b"));
+    }
+
+    @Test
+    void encodedKeysAreNotEncodedAgain() {
+        CacheKeys.EncodedKey key = CacheKeys.encodeComposite("a:b", "c");
+
+        assertThat(CacheKeys.encode(key)).isEqualTo("a\\:b:c");
+        assertThat(new CacheKeys("app").toRedisKey("posts", ttlInfo, key)).isEqualTo("app:posts:a\\:b:c");
+    }
+
+    @Test
+    void keysWithoutStringFormAreRejected() {
+        assertThatThrownBy(() -> CacheKeys.encode(new Object())).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,128 @@
+package com.claracore.rediscacheclient.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CacheMemoryTest {
+    private final RedisCacheStore cacheStore = mock(RedisCacheStore.class);
+    private final CacheKeys cacheKeys = new CacheKeys("app");
+    private final TtlRegistry ttlRegistry = new TtlRegistry();
+    private final NearCacheManager nearCacheManager = new NearCacheManager();
+    private final CacheMetrics cacheMetrics = mock(CacheMetrics.class);
+    private final CacheExecutor cacheExecutor = mock(CacheExecutor.class);
+    private final CacheMemory cacheMemory = new CacheMemory(cacheStore, cacheKeys, ttlRegistry, nearCacheManager, cacheMetrics,
+            cacheExecutor, 4, 1, 2);
+    private final TtlInfo ttlInfo = TtlInfo.builder().ttl(10).timeUnit(TimeUnit.MINUTES)
+            .cacheType(TimedCacheable.CacheType.REDIS).build();
+    private final TtlInfo bounded = ttlInfo.toBuilder().maxEntries(100).build();
+    private String indexKey;
+    private String sizesKey;
+
+    @BeforeEach
+    void setUp() {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(false, 2, 2, 50, Duration.ofMinutes(1), 100, Duration.ofMinutes(1), 1);
+        when(cacheStore.getCircuitBreaker()).thenReturn(breaker);
+        when(cacheExecutor.execute(anyString(), any(TtlInfo.class), any(Runnable.class))).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(2).run();
+            return true;
+        });
+        indexKey = cacheKeys.toIndexKey("posts", bounded);
+        sizesKey = cacheKeys.toIndexSizesKey("posts", bounded);
+    }
+
+    @Test
+    void writesOfBoundedCachesAreIndexed() {
+        cacheMemory.recordPut("posts", bounded, "app:posts:1", 128, 60_000);
+        cacheMemory.recordPut("users", ttlInfo, "app:users:1", 128, 60_000);
+
+        verify(cacheStore).addToIndex(eq(indexKey), eq(sizesKey), eq("app:posts:1"), anyLong(), eq(128), eq(60_000L));
+        verify(cacheStore, never()).addToIndex(anyString(), anyString(), eq("app:users:1"), anyLong(), anyInt(), anyLong());
+    }
+
+    @Test
+    void writesAreIndexedOnTheCallerWhenTheCacheIsBusy() {
+        when(cacheExecutor.execute(anyString(), any(TtlInfo.class), any(Runnable.class))).thenReturn(false);
+
+        cacheMemory.recordPut("posts", bounded, "app:posts:1", 128, 60_000);
+
+        verify(cacheStore).addToIndex(eq(indexKey), eq(sizesKey), eq("app:posts:1"), anyLong(), eq(128), eq(60_000L));
+    }
+
+    @Test
+    void hitsOfBoundedCachesRefreshTheirAccessTime() {
+        cacheMemory.recordAccess("posts", bounded, "app:posts:1");
+        cacheMemory.recordAccess("users", ttlInfo, "app:users:1");
+
+        verify(cacheStore).touchIndex(eq(indexKey), eq("app:posts:1"), anyLong());
+        verify(cacheStore, never()).touchIndex(anyString(), eq("app:users:1"), anyLong());
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvictedUntilTheCacheIsWithinBounds() {
+        ttlRegistry.register("posts", bounded);
+        NearCache nearCache = nearCacheManager.getNearCache("posts", bounded.toBuilder().nearCache(true).build());
+        nearCache.put("app:posts:3", "value");
+        when(cacheStore.oldestInIndex(indexKey, 2)).thenReturn(List.of("app:posts:1", "app:posts:2"));
+        when(cacheStore.missing(List.of("app:posts:1", "app:posts:2"))).thenReturn(List.of("app:posts:1"));
+        when(cacheStore.trimIndex(indexKey, sizesKey, 100, 0, 2))
+                .thenReturn(new RedisCacheStore.IndexTrim(101, 4096, List.of("app:posts:3", "app:posts:4")))
+                .thenReturn(new RedisCacheStore.IndexTrim(100, 4000, List.of("app:posts:5")));
+        when(cacheStore.unlink(List.of("app:posts:3", "app:posts:4"))).thenReturn(2L);
+        when(cacheStore.unlink(List.of("app:posts:5"))).thenReturn(1L);
+
+        cacheMemory.enforce();
+
+        verify(cacheStore).removeFromIndex(indexKey, sizesKey, List.of("app:posts:1"));
+        verify(cacheMetrics).recordMemory("posts", 100, 4000);
+        verify(cacheMetrics).recordMemoryEvictions("posts", 3);
+        assertThat(nearCache.get("app:posts:3")).isNull();
+    }
+
+    @Test
+    void boundsAreNotEnforcedWhileRedisIsBypassed() {
+        ttlRegistry.register("posts", bounded);
+        ttlRegistry.register("users", ttlInfo);
+        when(cacheStore.getCircuitBreaker()).thenReturn(mock(RedisCircuitBreaker.class));
+
+        cacheMemory.enforce();
+
+        verify(cacheStore, never()).trimIndex(anyString(), anyString(), anyLong(), anyLong(), anyInt());
+    }
+
+    @Test
+    void memoryPerEntryIsSampledFromTheLastWrittenKeys() {
+        for (int i = 0; i < 6; i++) {
+            cacheMemory.recordPut("posts", ttlInfo, "app:posts:" + i, 128, 60_000);
+        }
+        when(cacheStore.memoryUsage(any())).thenReturn(Map.of("app:posts:4", 200L, "app:posts:5", 400L));
+
+        cacheMemory.sample();
+
+        verify(cacheStore).memoryUsage(List.of("app:posts:4", "app:posts:5", "app:posts:2", "app:posts:3"));
+        verify(cacheMetrics).recordMemoryUsage("posts", 300);
+    }
+
+    @Test
+    void clearedCacheDropsItsIndex() {
+        cacheMemory.clear("posts", bounded);
+
+        verify(cacheStore).unlink(List.of(indexKey, sizesKey));
+        verify(cacheMetrics).recordMemory("posts", 0, 0);
+    }
+}
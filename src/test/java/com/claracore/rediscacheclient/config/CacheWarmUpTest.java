@@ -0,0 +1,178 @@
+package com.claracore.rediscacheclient.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.interceptor.CacheOperationSource;
+import org.springframework.cache.interceptor.CacheableOperation;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CacheWarmUpTest {
+    private final RedisCacheStore cacheStore = mock(RedisCacheStore.class);
+    private final NearCacheManager nearCacheManager = new NearCacheManager();
+    private final TtlRegistry ttlRegistry = new TtlRegistry();
+    private final BeanFactory beanFactory = mock(BeanFactory.class);
+    private final CacheOperationSource cacheOperationSource = mock(CacheOperationSource.class);
+    private final CacheExecutor cacheExecutor = new CacheExecutor(false, 2, 100, 4);
+    private final PostService postService = new PostService();
+    private final TtlInfo ttlInfo = TtlInfo.builder().ttl(10).timeUnit(TimeUnit.MINUTES)
+            .cacheType(TimedCacheable.CacheType.REDIS).nearCache(true).warmUpKeys(10).build();
+    @TempDir
+    Path directory;
+    private Path manifest;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        manifest = directory.resolve("warm-up.json");
+        ttlRegistry.register("posts", ttlInfo);
+        ObjectProvider<PostService> provider = mock(ObjectProvider.class);
+        when(provider.getIfUnique()).thenReturn(postService);
+        when(beanFactory.getBeanProvider(PostService.class)).thenReturn(provider);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheExecutor.shutdown();
+    }
+
+    @Test
+    void mostFrequentKeysArePersistedWithTheirInvocation() throws Exception {
+        CacheWarmUp warmUp = warmUp(false);
+
+        for (int i = 0; i < 3; i++) {
+            warmUp.recordAccess("posts", ttlInfo, "app:posts:42", invocation(42L));
+        }
+        warmUp.recordAccess("posts", ttlInfo, "app:posts:1", null);
+        warmUp.persist();
+
+        Map<String, List<Map<String, Object>>> written = new ObjectMapper().readValue(manifest.toFile(), Map.class);
+        assertThat(written.get("posts")).extracting(entry -> entry.get("key")).containsExactly("app:posts:42", "app:posts:1");
+        Map<String, Object> entry = written.get("posts").get(0);
+        assertThat(entry.get("target")).isEqualTo(PostService.class.getName());
+        assertThat(entry.get("method")).isEqualTo("getPost");
+        assertThat(entry.get("args")).isEqualTo(List.of("42"));
+    }
+
+    @Test
+    void nothingIsPersistedWhileNoKeyWasSampled() {
+        CacheWarmUp warmUp = warmUp(false);
+
+        warmUp.recordAccess("posts", ttlInfo.toBuilder().warmUpKeys(0).build(), "app:posts:42", invocation(42L));
+        warmUp.persist();
+
+        assertThat(manifest).doesNotExist();
+    }
+
+    @Test
+    void manifestKeysAreLoadedIntoTheNearCache() throws Exception {
+        writeManifest(entry("app:posts:1", null));
+        when(cacheStore.multiGet(anyCollection())).thenReturn(Map.of("app:posts:1", "cached"));
+
+        warmUp(false).run(null);
+
+        assertThat(nearCacheManager.getNearCache("posts", ttlInfo).get("app:posts:1")).isEqualTo("cached");
+        assertThat(postService.calls).isEmpty();
+    }
+
+    @Test
+    void missingKeysAreRecomputedThroughTheBean() throws Exception {
+        cacheIn("posts");
+        writeManifest(entry("app:posts:1", null), entry("app:posts:42", "getPost"));
+        when(cacheStore.multiGet(anyCollection())).thenReturn(Map.of("app:posts:1", "cached"));
+
+        warmUp(true).run(null);
+
+        assertThat(postService.calls).containsExactly(42L);
+    }
+
+    @Test
+    void methodsNotCachedInTheWarmedCacheAreNotInvoked() throws Exception {
+        cacheIn("users");
+        writeManifest(entry("app:posts:42", "getPost"));
+        when(cacheStore.multiGet(anyCollection())).thenReturn(Map.of());
+
+        warmUp(true).run(null);
+
+        assertThat(postService.calls).isEmpty();
+    }
+
+    @Test
+    void nonPublicMethodsAreNotInvoked() throws Exception {
+        cacheIn("posts");
+        writeManifest(entry("app:posts:42", "loadPost"));
+        when(cacheStore.multiGet(anyCollection())).thenReturn(Map.of());
+
+        warmUp(true).run(null);
+
+        assertThat(postService.calls).isEmpty();
+    }
+
+    private CacheWarmUp warmUp(boolean reinvoke) {
+        return new CacheWarmUp(cacheStore, nearCacheManager, ttlRegistry, beanFactory, cacheOperationSource, cacheExecutor,
+                manifest.toString(), 1, 10, 2, 5_000, reinvoke);
+    }
+
+    private void cacheIn(String cacheName) throws Exception {
+        CacheableOperation.Builder operation = new CacheableOperation.Builder();
+        operation.setName("getPost");
+        operation.setCacheName(cacheName);
+        when(cacheOperationSource.getCacheOperations(eq(PostService.class.getMethod("getPost", Long.class)), eq(PostService.class)))
+                .thenReturn(List.of(operation.build()));
+    }
+
+    private MethodInvocation invocation(Long id) {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        try {
+            when(invocation.getMethod()).thenReturn(PostService.class.getMethod("getPost", Long.class));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+        when(invocation.getThis()).thenReturn(postService);
+        when(invocation.getArguments()).thenReturn(new Object[]{id});
+        return invocation;
+    }
+
+    private static CacheWarmUp.ManifestEntry entry(String key, String method) {
+        if (method == null) {
+            return new CacheWarmUp.ManifestEntry(key, null, null, null, null);
+        }
+        return new CacheWarmUp.ManifestEntry(key, PostService.class.getName(), method, List.of(Long.class.getName()),
+                List.of(key.substring(key.lastIndexOf(':') + 1)));
+    }
+
+    private void writeManifest(CacheWarmUp.ManifestEntry... entries) throws Exception {
+        Files.write(manifest, new ObjectMapper().writeValueAsBytes(Map.of("posts", List.of(entries))));
+    }
+
+    public static class PostService {
+        private final List<Long> calls = new ArrayList<>();
+
+        public String getPost(Long id) {
+            calls.add(id);
+            return "post " + id;
+        }
+
+        String loadPost(Long id) {
+            calls.add(id);
+            return "post " + id;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.claracore.rediscacheclient.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FrequencySketchTest {
+
+    @Test
+    void unseenKeyHasNoFrequency() {
+        FrequencySketch sketch = new FrequencySketch(16);
+
+        assertThat(sketch.frequency("key".hashCode())).isZero();
+    }
+
+    @Test
+    void incrementRaisesFrequencyUpToTheCap() {
+        FrequencySketch sketch = new FrequencySketch(16);
+        int hash = "key".hashCode();
+
+        for (int i = 1; i <= FrequencySketch.MAX_FREQUENCY; i++) {
+            sketch.increment(hash);
+            assertThat(sketch.frequency(hash)).isEqualTo(i);
+        }
+        sketch.increment(hash);
+
+        assertThat(sketch.frequency(hash)).isEqualTo(FrequencySketch.MAX_FREQUENCY);
+    }
+
+    @Test
+    void countersAreHalvedOnceTheSampleSizeIsReached() {
+        FrequencySketch sketch = new FrequencySketch(16);
+        int hash = "key".hashCode();
+        for (int i = 0; i < FrequencySketch.MAX_FREQUENCY; i++) {
+            sketch.increment(hash);
+        }
+
+        int increments = 0;
+        while (sketch.frequency(hash) == FrequencySketch.MAX_FREQUENCY && increments < 1_000) {
+            sketch.increment(("other" + increments).hashCode());
+            increments++;
+        }
+
+        assertThat(increments).isLessThanOrEqualTo(10 * 16);
+        assertThat(sketch.frequency(hash)).isEqualTo(FrequencySketch.MAX_FREQUENCY >>> 1);
+    }
+
+    @Test
+    void concurrentIncrementsAreNotLost() throws InterruptedException {
+        FrequencySketch sketch = new FrequencySketch(1024);
+        int hash = "key".hashCode();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 3; i++) {
+                    sketch.increment(hash);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(sketch.frequency(hash)).isEqualTo(12);
+    }
+}
@@ -0,0 +1,134 @@
+package com.claracore.rediscacheclient.config;
+
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.map.MapEvent;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+import com.hazelcast.map.listener.MapClearedListener;
+import com.hazelcast.map.listener.MapListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HazelcastCacheStoreTest {
+    private static final String KEY = "app:posts:42";
+
+    private final HazelcastInstance instance = mock(HazelcastInstance.class);
+    @SuppressWarnings("unchecked")
+    private final IMap<String, byte[]> map = mock(IMap.class);
+    private final CacheCodecs cacheCodecs = new CacheCodecs(List.of(new JsonCacheCodec(new GenericJackson2JsonRedisSerializer())));
+    private final NearCacheManager nearCacheManager = new NearCacheManager();
+    private final AtomicInteger instancesCreated = new AtomicInteger();
+    private final HazelcastCacheStore store = new HazelcastCacheStore(() -> {
+        instancesCreated.incrementAndGet();
+        return instance;
+    }, true, cacheCodecs, nearCacheManager);
+    private final TtlInfo ttlInfo = TtlInfo.builder().ttl(10).timeUnit(TimeUnit.MINUTES)
+            .cacheType(TimedCacheable.CacheType.HAZELCAST).build();
+
+    @BeforeEach
+    void setUp() {
+        when(instance.<String, byte[]>getMap("posts")).thenReturn(map);
+    }
+
+    @Test
+    void instanceIsCreatedOnFirstUseOnly() {
+        assertThat(instancesCreated).hasValue(0);
+
+        store.get("posts", KEY);
+        store.get("posts", KEY);
+
+        assertThat(instancesCreated).hasValue(1);
+        verify(map, times(1)).addEntryListener(any(MapListener.class), eq(false));
+    }
+
+    @Test
+    void entriesAreStoredEncodedWithTheTtlOfTheCache() {
+        int size = store.set("posts", KEY, "value", ttlInfo);
+
+        byte[] data = cacheCodecs.encode("value", ttlInfo);
+        assertThat(size).isEqualTo(data.length);
+        verify(map).set(eq(KEY), eq(data), eq(TimeUnit.MINUTES.toMillis(10)), eq(TimeUnit.MILLISECONDS));
+        when(map.get(KEY)).thenReturn(data);
+        assertThat(store.get("posts", KEY)).isEqualTo("value");
+    }
+
+    @Test
+    void slidingEntriesExpireWhenIdle() {
+        store.set("posts", KEY, "value", ttlInfo.toBuilder().slidingExpiration(true).build());
+
+        verify(map).set(eq(KEY), any(byte[].class), eq(0L), eq(TimeUnit.MILLISECONDS),
+                eq(TimeUnit.MINUTES.toMillis(10)), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void asyncReadsAreDecoded() {
+        when(map.getAsync(KEY)).thenReturn(CompletableFuture.completedFuture(cacheCodecs.encode("value", ttlInfo)));
+
+        assertThat(store.getAsync("posts", KEY).join()).isEqualTo("value");
+    }
+
+    @Test
+    void modifiedEntriesAreDroppedFromTheNearCache() {
+        NearCache nearCache = nearCacheManager.getNearCache("posts", ttlInfo.toBuilder().nearCache(true).build());
+        nearCache.put(KEY, "value");
+        store.get("posts", KEY);
+
+        @SuppressWarnings("unchecked")
+        EntryEvent<String, byte[]> event = mock(EntryEvent.class);
+        when(event.getKey()).thenReturn(KEY);
+        listener(EntryUpdatedListener.class).entryUpdated(event);
+
+        assertThat(nearCache.get(KEY)).isNull();
+    }
+
+    @Test
+    void clearedMapClearsTheNearCacheOfItsCacheOnly() {
+        TtlInfo nearCached = ttlInfo.toBuilder().nearCache(true).build();
+        NearCache posts = nearCacheManager.getNearCache("posts", nearCached);
+        NearCache users = nearCacheManager.getNearCache("users", nearCached);
+        posts.put(KEY, "value");
+        users.put("app:users:1", "user");
+        store.get("posts", KEY);
+
+        MapEvent event = mock(MapEvent.class);
+        when(event.getName()).thenReturn("posts");
+        listener(MapClearedListener.class).mapCleared(event);
+
+        assertThat(posts.get(KEY)).isNull();
+        assertThat(users.get("app:users:1")).isEqualTo("user");
+    }
+
+    @Test
+    void onlyOwnedInstancesAreShutDown() {
+        new HazelcastCacheStore(() -> instance, false, cacheCodecs, nearCacheManager).shutdown();
+        store.shutdown();
+        verify(instance, never()).shutdown();
+
+        store.get("posts", KEY);
+        store.shutdown();
+        verify(instance).shutdown();
+    }
+
+    private <T> T listener(Class<T> type) {
+        ArgumentCaptor<MapListener> captor = ArgumentCaptor.forClass(MapListener.class);
+        verify(map).addEntryListener(captor.capture(), eq(false));
+        return type.cast(captor.getValue());
+    }
+}
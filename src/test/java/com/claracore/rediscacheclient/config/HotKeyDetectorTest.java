@@ -0,0 +1,88 @@
+package com.claracore.rediscacheclient.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HotKeyDetectorTest {
+    // With a sample rate of 1 and a window of 60s, a rate of 1 lookup per second takes 120 samples
+    private static final int SAMPLES_PER_LOOKUP_PER_SECOND = 120;
+
+    private final TtlInfo ttlInfo = TtlInfo.builder().ttl(10).timeUnit(TimeUnit.MINUTES)
+            .cacheType(TimedCacheable.CacheType.REDIS).hotKeyThreshold(1).build();
+
+    @Test
+    void keyBecomesHotOnceItsRateReachesTheThreshold() {
+        HotKeyDetector detector = new HotKeyDetector(1, 4, 60_000);
+
+        for (int i = 1; i < SAMPLES_PER_LOOKUP_PER_SECOND; i++) {
+            assertThat(detector.recordAccess("cache", ttlInfo, "key")).isFalse();
+        }
+
+        assertThat(detector.recordAccess("cache", ttlInfo, "key")).isTrue();
+        assertThat(detector.isHot("cache", "key")).isTrue();
+        assertThat(detector.isHot("other", "key")).isFalse();
+        assertThat(detector.getHotKeys("cache")).containsEntry("key", 1L);
+    }
+
+    @Test
+    void detectionIsDisabledWithoutThreshold() {
+        HotKeyDetector detector = new HotKeyDetector(1, 4, 60_000);
+        TtlInfo disabled = ttlInfo.toBuilder().hotKeyThreshold(0).build();
+
+        for (int i = 0; i < 2 * SAMPLES_PER_LOOKUP_PER_SECOND; i++) {
+            assertThat(detector.recordAccess("cache", disabled, "key")).isFalse();
+        }
+
+        assertThat(detector.getHotKeys("cache")).isEmpty();
+    }
+
+    @Test
+    void hotterKeyReplacesTheCoolestOneWhenTopKIsFull() {
+        HotKeyDetector detector = new HotKeyDetector(1, 1, 60_000);
+        for (int i = 0; i < SAMPLES_PER_LOOKUP_PER_SECOND; i++) {
+            detector.recordAccess("cache", ttlInfo, "warm");
+        }
+
+        for (int i = 0; i < SAMPLES_PER_LOOKUP_PER_SECOND; i++) {
+            detector.recordAccess("cache", ttlInfo, "hot");
+        }
+        assertThat(detector.getHotKeys("cache")).containsOnlyKeys("warm");
+
+        for (int i = 0; i < SAMPLES_PER_LOOKUP_PER_SECOND; i++) {
+            detector.recordAccess("cache", ttlInfo, "hot");
+        }
+        assertThat(detector.getHotKeys("cache")).containsOnlyKeys("hot");
+    }
+
+    @Test
+    void hotKeysAreListedHottestFirst() {
+        HotKeyDetector detector = new HotKeyDetector(1, 4, 60_000);
+        for (int i = 0; i < SAMPLES_PER_LOOKUP_PER_SECOND; i++) {
+            detector.recordAccess("cache", ttlInfo, "warm");
+        }
+        for (int i = 0; i < 2 * SAMPLES_PER_LOOKUP_PER_SECOND; i++) {
+            detector.recordAccess("cache", ttlInfo, "hot");
+        }
+
+        assertThat(detector.getHotKeys("cache").keySet()).containsExactly("hot", "warm");
+    }
+
+    @Test
+    void replicaKeysDropTheHashTag() {
+        assertThat(HotKeyDetector.replicaKey("app:{cache}:key", 2)).isEqualTo("app:cache:key:replica:2");
+        assertThat(HotKeyDetector.replicaKeys("app:cache:key", 2))
+                .isEqualTo(List.of("app:cache:key:replica:0", "app:cache:key:replica:1"));
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThatThrownBy(() -> new HotKeyDetector(0, 4, 1_000)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new HotKeyDetector(16, 0, 1_000)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new HotKeyDetector(16, 4, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
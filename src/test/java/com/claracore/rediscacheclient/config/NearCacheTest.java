@@ -0,0 +1,90 @@
+package com.claracore.rediscacheclient.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NearCacheTest {
+    private final NearCache nearCache = new NearCache(1000, 10, 0, TimeUnit.MINUTES);
+
+    @Test
+    void valueReadBeforeAnInvalidationIsDropped() {
+        long sequence = nearCache.getInvalidationSequence("app:posts:1");
+
+        nearCache.invalidate("app:posts:1");
+        nearCache.populate("app:posts:1", "stale", sequence);
+
+        assertThat(nearCache.get("app:posts:1")).isNull();
+    }
+
+    @Test
+    void invalidationsOfOtherSegmentsDoNotDropTheValue() {
+        String key = "app:posts:1";
+        String other = otherSegmentKey(key);
+        long sequence = nearCache.getInvalidationSequence(key);
+
+        nearCache.invalidate(other);
+        nearCache.populate(key, "value", sequence);
+
+        assertThat(nearCache.get(key)).isEqualTo("value");
+    }
+
+    @Test
+    void clearDropsTheValuesOfABatchReadBeforeIt() {
+        long[] sequences = nearCache.getInvalidationSequences();
+
+        nearCache.clear();
+        nearCache.populate("app:posts:1", "stale", sequences);
+
+        assertThat(nearCache.get("app:posts:1")).isNull();
+    }
+
+    @Test
+    void batchValuesArePopulatedWithoutInvalidation() {
+        long[] sequences = nearCache.getInvalidationSequences();
+
+        nearCache.populate("app:posts:1", "one", sequences);
+        nearCache.populate("app:posts:2", "two", sequences);
+
+        assertThat(nearCache.get("app:posts:1")).isEqualTo("one");
+        assertThat(nearCache.get("app:posts:2")).isEqualTo("two");
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+        NearCache small = new NearCache(1, 10, 0, TimeUnit.MINUTES);
+        String key = "app:posts:1";
+        String sameSegment = sameSegmentKey(key);
+
+        small.put(key, "one");
+        small.put(sameSegment, "two");
+
+        assertThat(small.get(key)).isNull();
+        assertThat(small.get(sameSegment)).isEqualTo("two");
+    }
+
+    private static String otherSegmentKey(String key) {
+        return findKey(key, false);
+    }
+
+    private static String sameSegmentKey(String key) {
+        return findKey(key, true);
+    }
+
+    /**
+     * Finds a key whose invalidation does or does not reach the segment of the given key.
+     */
+    private static String findKey(String key, boolean sameSegment) {
+        NearCache probe = new NearCache(1000, 10, 0, TimeUnit.MINUTES);
+        for (int i = 0; ; i++) {
+            String candidate = "app:posts:" + key.hashCode() + "-" + i;
+            long before = probe.getInvalidationSequence(key);
+            probe.invalidate(candidate);
+            if ((probe.getInvalidationSequence(key) != before) == sameSegment) {
+                return candidate;
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.claracore.rediscacheclient.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NegativeEntriesTest {
+
+    @Test
+    void emptyResultsAreNegative() {
+        assertThat(NegativeEntries.isNegative(null)).isTrue();
+        assertThat(NegativeEntries.isNegative(NullValue.INSTANCE)).isTrue();
+        assertThat(NegativeEntries.isNegative(Optional.empty())).isTrue();
+        assertThat(NegativeEntries.isNegative(List.of())).isTrue();
+        assertThat(NegativeEntries.isNegative(Map.of())).isTrue();
+        assertThat(NegativeEntries.isNegative("")).isTrue();
+        assertThat(NegativeEntries.isNegative(new int[0])).isTrue();
+    }
+
+    @Test
+    void nonEmptyResultsAreNotNegative() {
+        assertThat(NegativeEntries.isNegative(Optional.of("value"))).isFalse();
+        assertThat(NegativeEntries.isNegative(List.of("value"))).isFalse();
+        assertThat(NegativeEntries.isNegative(Map.of("key", "value"))).isFalse();
+        assertThat(NegativeEntries.isNegative("value")).isFalse();
+        assertThat(NegativeEntries.isNegative(new int[1])).isFalse();
+        assertThat(NegativeEntries.isNegative(0)).isFalse();
+    }
+
+    @Test
+    void nullIsStoredAsNullValue() {
+        List<String> empty = List.of();
+
+        assertThat(NegativeEntries.toStored(null)).isSameAs(NullValue.INSTANCE);
+        assertThat(NegativeEntries.toStored(empty)).isSameAs(empty);
+    }
+
+    @Test
+    void negativeEntriesExpireFirstInTheNearCache() throws InterruptedException {
+        NearCache nearCache = new NearCache(100, 60_000, 1, TimeUnit.MILLISECONDS);
+
+        nearCache.put("negative", NullValue.INSTANCE);
+        nearCache.put("positive", "value");
+        Thread.sleep(5);
+
+        assertThat(nearCache.get("negative")).isNull();
+        assertThat(nearCache.get("positive")).isEqualTo("value");
+    }
+}
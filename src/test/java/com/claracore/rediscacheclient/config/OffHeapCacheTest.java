@@ -0,0 +1,123 @@
+package com.claracore.rediscacheclient.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapCacheTest {
+    private static final long TTL = TimeUnit.MINUTES.toMillis(10);
+    private static final long SMALL = 16 * 4096;
+
+    @Test
+    void storedValueIsReturnedUntilInvalidated() {
+        OffHeapCache cache = new OffHeapCache(SMALL);
+
+        assertThat(cache.put("app:posts:1", bytes("first"), TTL)).isTrue();
+        assertThat(cache.put("app:posts:1", bytes("second"), TTL)).isTrue();
+
+        assertThat(cache.get("app:posts:1")).isEqualTo(bytes("second"));
+        assertThat(cache.size()).isEqualTo(1);
+        cache.invalidate("app:posts:1");
+        assertThat(cache.get("app:posts:1")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void expiredEntriesAreDroppedOnAccess() throws InterruptedException {
+        OffHeapCache cache = new OffHeapCache(SMALL);
+
+        cache.put("app:posts:1", bytes("value"), 1);
+        Thread.sleep(5);
+
+        assertThat(cache.get("app:posts:1")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void entriesLargerThanAQuarterOfASegmentAreNotStored() {
+        OffHeapCache cache = new OffHeapCache(SMALL);
+        cache.put("app:posts:1", bytes("small"), TTL);
+
+        assertThat(cache.put("app:posts:1", new byte[2048], TTL)).isFalse();
+
+        assertThat(cache.get("app:posts:1")).isNull();
+    }
+
+    @Test
+    void oldestEntriesAreEvictedWhenTheLogIsFull() {
+        OffHeapCache cache = new OffHeapCache(SMALL);
+
+        for (int i = 0; i < 2000; i++) {
+            assertThat(cache.put("app:posts:" + i, new byte[100], TTL)).isTrue();
+        }
+
+        assertThat(cache.usedBytes()).isLessThanOrEqualTo(SMALL);
+        assertThat(cache.size()).isLessThan(SMALL / 100);
+        assertThat(cache.get("app:posts:0")).isNull();
+        for (int i = 1990; i < 2000; i++) {
+            assertThat(cache.get("app:posts:" + i)).hasSize(100);
+        }
+    }
+
+    @Test
+    void entriesReadAgainSurviveAFullTurnOfTheLog() {
+        OffHeapCache cache = new OffHeapCache(SMALL);
+        cache.put("app:posts:hot", bytes("hot"), TTL);
+
+        for (int i = 0; i < 2000; i++) {
+            cache.put("app:posts:" + i, new byte[100], TTL);
+            assertThat(cache.get("app:posts:hot")).isEqualTo(bytes("hot"));
+        }
+
+        assertThat(cache.get("app:posts:0")).isNull();
+    }
+
+    @Test
+    void indexKeepsTheOtherEntriesWhenEntriesAreRemoved() {
+        OffHeapCache cache = new OffHeapCache(16L * 1024 * 1024);
+        for (int i = 0; i < 5000; i++) {
+            cache.put("app:posts:" + i, bytes("value " + i), TTL);
+        }
+
+        for (int i = 0; i < 5000; i += 2) {
+            cache.invalidate("app:posts:" + i);
+        }
+
+        assertThat(cache.size()).isEqualTo(2500);
+        for (int i = 0; i < 5000; i++) {
+            assertThat(cache.get("app:posts:" + i)).isEqualTo(i % 2 == 0 ? null : bytes("value " + i));
+        }
+    }
+
+    @Test
+    void clearRemovesAllEntries() {
+        OffHeapCache cache = new OffHeapCache(SMALL);
+        cache.put("app:posts:1", bytes("value"), TTL);
+        cache.put("app:posts:2", bytes("value"), TTL);
+
+        cache.clear();
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.usedBytes()).isZero();
+        assertThat(cache.get("app:posts:1")).isNull();
+        assertThat(cache.put("app:posts:1", bytes("again"), TTL)).isTrue();
+        assertThat(cache.get("app:posts:1")).isEqualTo(bytes("again"));
+    }
+
+    @Test
+    void cacheMatchesTheConfigurationOfItsMemoryBudget() {
+        OffHeapCache cache = new OffHeapCache(SMALL);
+        TtlInfo ttlInfo = TtlInfo.builder().ttl(10).timeUnit(TimeUnit.MINUTES)
+                .cacheType(TimedCacheable.CacheType.LOCAL_OFFHEAP).offHeapMaxBytes(SMALL).build();
+
+        assertThat(cache.matches(ttlInfo)).isTrue();
+        assertThat(cache.matches(ttlInfo.toBuilder().offHeapMaxBytes(2 * SMALL).build())).isFalse();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,150 @@
+package com.claracore.rediscacheclient.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+class RedisCircuitBreakerTest {
+    private static final Duration NEVER = Duration.ofMinutes(1);
+
+    @Test
+    void opensOnceTheFailureRateReachesTheThreshold() {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(true, 10, 4, 50, NEVER, 100, NEVER, 1);
+
+        succeed(breaker);
+        fail(breaker);
+        fail(breaker);
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+        assertThat(breaker.getFailureRate()).isCloseTo(66.7, offset(0.1));
+
+        succeed(breaker);
+
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+        assertThat(breaker.isCallPermitted()).isFalse();
+        assertThatThrownBy(() -> breaker.execute(() -> "value")).isInstanceOf(CircuitBreakerOpenException.class);
+        assertThatThrownBy(() -> breaker.executeAsync(() -> CompletableFuture.completedFuture("value")))
+                .isInstanceOf(CircuitBreakerOpenException.class);
+    }
+
+    @Test
+    void opensOnceTheSlowCallRateReachesTheThreshold() {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(true, 10, 2, 100, Duration.ZERO, 100, NEVER, 1);
+
+        succeed(breaker);
+        assertThat(breaker.getSlowCallRate()).isEqualTo(100);
+        succeed(breaker);
+
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void oldOutcomesLeaveTheSlidingWindow() {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(true, 4, 4, 50, NEVER, 100, NEVER, 1);
+
+        fail(breaker);
+        for (int i = 0; i < 4; i++) {
+            succeed(breaker);
+        }
+
+        assertThat(breaker.getFailureRate()).isZero();
+        fail(breaker);
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void closesWhenTheTrialCallsSucceed() {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(true, 2, 2, 50, NEVER, 100, Duration.ZERO, 2);
+        fail(breaker);
+        fail(breaker);
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+        assertThat(breaker.isCallPermitted()).isTrue();
+
+        succeed(breaker);
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.HALF_OPEN);
+        breaker.executeAsync(() -> CompletableFuture.completedFuture("value")).join();
+
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void opensAgainOnAFailedTrialCall() {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(true, 2, 2, 50, NEVER, 100, Duration.ZERO, 2);
+        fail(breaker);
+        fail(breaker);
+
+        succeed(breaker);
+        breaker.executeAsync(() -> CompletableFuture.failedFuture(new IllegalStateException("timeout")));
+
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void rejectsCallsBeyondTheTrialCalls() {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(true, 2, 2, 50, NEVER, 100, Duration.ZERO, 1);
+        fail(breaker);
+        fail(breaker);
+        CompletableFuture<String> trial = new CompletableFuture<>();
+
+        breaker.executeAsync(() -> trial);
+
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.isCallPermitted()).isFalse();
+        assertThatThrownBy(() -> breaker.execute(() -> "value")).isInstanceOf(CircuitBreakerOpenException.class);
+        trial.complete("value");
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void disabledBreakerLetsEveryCallThrough() {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(false, 2, 2, 50, NEVER, 100, NEVER, 1);
+
+        for (int i = 0; i < 4; i++) {
+            fail(breaker);
+        }
+
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+        assertThat(breaker.execute(() -> "value")).isEqualTo("value");
+    }
+
+    @Test
+    void countsTheCallsByOutcome() {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(true, 2, 2, 50, NEVER, 100, NEVER, 1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        breaker.registerMeters(registry);
+
+        succeed(breaker);
+        fail(breaker);
+        assertThatThrownBy(() -> breaker.execute(() -> "value")).isInstanceOf(CircuitBreakerOpenException.class);
+
+        assertThat(registry.get("timedcache.circuit.calls").tag("outcome", "success").counter().count()).isEqualTo(1);
+        assertThat(registry.get("timedcache.circuit.calls").tag("outcome", "failure").counter().count()).isEqualTo(1);
+        assertThat(registry.get("timedcache.circuit.calls").tag("outcome", "rejected").counter().count()).isEqualTo(1);
+        assertThat(registry.get("timedcache.circuit.state").tag("state", "open").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsInvalidWindows() {
+        assertThatThrownBy(() -> new RedisCircuitBreaker(true, 0, 1, 50, NEVER, 100, NEVER, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RedisCircuitBreaker(true, 10, 11, 50, NEVER, 100, NEVER, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RedisCircuitBreaker(true, 10, 5, 50, NEVER, 100, NEVER, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void succeed(RedisCircuitBreaker breaker) {
+        breaker.execute(() -> "value");
+    }
+
+    private static void fail(RedisCircuitBreaker breaker) {
+        assertThatThrownBy(() -> breaker.execute(() -> {
+            throw new IllegalStateException("Redis unavailable");
+        })).isInstanceOf(IllegalStateException.class);
+    }
+}
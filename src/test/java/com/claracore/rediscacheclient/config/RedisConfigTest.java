@@ -0,0 +1,116 @@
+package com.claracore.rediscacheclient.config;
+
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RedisConfigTest {
+    private final RedisConfig redisConfig = new RedisConfig();
+    private LettuceConnectionFactory connectionFactory;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(redisConfig, "clusterNodes", "localhost:7000,localhost:7001");
+        ReflectionTestUtils.setField(redisConfig, "maxRedirects", 3);
+        ReflectionTestUtils.setField(redisConfig, "timeout", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(redisConfig, "connectionMode", "shared");
+        ReflectionTestUtils.setField(redisConfig, "readFrom", "UPSTREAM");
+        ReflectionTestUtils.setField(redisConfig, "adaptiveTopologyRefresh", true);
+        ReflectionTestUtils.setField(redisConfig, "topologyRefreshPeriod", 60_000L);
+        ReflectionTestUtils.setField(redisConfig, "requestQueueSize", 1_000);
+        ReflectionTestUtils.setField(redisConfig, "poolMaxTotal", 16);
+        ReflectionTestUtils.setField(redisConfig, "poolMaxIdle", 8);
+        ReflectionTestUtils.setField(redisConfig, "poolMinIdle", 2);
+        ReflectionTestUtils.setField(redisConfig, "ioThreadPoolSize", 2);
+        ReflectionTestUtils.setField(redisConfig, "computationThreadPoolSize", 2);
+        ReflectionTestUtils.setField(redisConfig, "reconnectDelay", 5_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (connectionFactory != null) {
+            connectionFactory.getClientConfiguration().getClientResources().ifPresent(resources -> resources.shutdown());
+        }
+    }
+
+    @Test
+    void readRoutingIsResolvedByName() {
+        assertThat(RedisConfig.readFrom("UPSTREAM")).isSameAs(ReadFrom.UPSTREAM);
+        assertThat(RedisConfig.readFrom("REPLICA_PREFERRED")).isSameAs(ReadFrom.REPLICA_PREFERRED);
+        assertThat(RedisConfig.readFrom("lowestLatency")).isSameAs(ReadFrom.LOWEST_LATENCY);
+        assertThat(RedisConfig.readFrom("any-replica")).isSameAs(ReadFrom.ANY_REPLICA);
+        assertThatThrownBy(() -> RedisConfig.readFrom("nearest-node")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void sharedModeMultiplexesOneNativeConnection() {
+        ReflectionTestUtils.setField(redisConfig, "readFrom", "REPLICA_PREFERRED");
+
+        connectionFactory = redisConfig.redisConnectionFactory();
+
+        assertThat(connectionFactory.getShareNativeConnection()).isTrue();
+        assertThat(connectionFactory.getClientConfiguration()).isNotInstanceOf(LettucePoolingClientConfiguration.class);
+        assertThat(connectionFactory.getClientConfiguration().getReadFrom()).contains(ReadFrom.REPLICA_PREFERRED);
+    }
+
+    @Test
+    void poolModeBorrowsDedicatedConnections() {
+        ReflectionTestUtils.setField(redisConfig, "connectionMode", "POOL");
+
+        connectionFactory = redisConfig.redisConnectionFactory();
+
+        assertThat(connectionFactory.getShareNativeConnection()).isFalse();
+        assertThat(connectionFactory.getClientConfiguration()).isInstanceOf(LettucePoolingClientConfiguration.class);
+        GenericObjectPoolConfig<?> poolConfig = ((LettucePoolingClientConfiguration) connectionFactory.getClientConfiguration()).getPoolConfig();
+        assertThat(poolConfig.getMaxTotal()).isEqualTo(16);
+        assertThat(poolConfig.getMaxIdle()).isEqualTo(8);
+        assertThat(poolConfig.getMinIdle()).isEqualTo(2);
+    }
+
+    @Test
+    void unknownConnectionModeIsRejected() {
+        ReflectionTestUtils.setField(redisConfig, "connectionMode", "dedicated");
+
+        assertThatThrownBy(redisConfig::redisConnectionFactory)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("dedicated");
+    }
+
+    @Test
+    void topologyIsRefreshedAdaptivelyAndPeriodically() {
+        connectionFactory = redisConfig.redisConnectionFactory();
+
+        ClusterClientOptions clientOptions = (ClusterClientOptions) connectionFactory.getClientConfiguration().getClientOptions().orElseThrow();
+        ClusterTopologyRefreshOptions topologyRefresh = clientOptions.getTopologyRefreshOptions();
+        assertThat(topologyRefresh.getAdaptiveRefreshTriggers())
+                .containsExactlyInAnyOrder(ClusterTopologyRefreshOptions.RefreshTrigger.values());
+        assertThat(topologyRefresh.isPeriodicRefreshEnabled()).isTrue();
+        assertThat(topologyRefresh.getRefreshPeriod()).isEqualTo(Duration.ofMinutes(1));
+        assertThat(clientOptions.getSocketOptions().isTcpNoDelay()).isTrue();
+        assertThat(clientOptions.getRequestQueueSize()).isEqualTo(1_000);
+    }
+
+    @Test
+    void periodicRefreshCanBeDisabled() {
+        ReflectionTestUtils.setField(redisConfig, "adaptiveTopologyRefresh", false);
+        ReflectionTestUtils.setField(redisConfig, "topologyRefreshPeriod", 0L);
+
+        connectionFactory = redisConfig.redisConnectionFactory();
+
+        ClusterClientOptions clientOptions = (ClusterClientOptions) connectionFactory.getClientConfiguration().getClientOptions().orElseThrow();
+        assertThat(clientOptions.getTopologyRefreshOptions().getAdaptiveRefreshTriggers()).isEmpty();
+        assertThat(clientOptions.getTopologyRefreshOptions().isPeriodicRefreshEnabled()).isFalse();
+    }
+}
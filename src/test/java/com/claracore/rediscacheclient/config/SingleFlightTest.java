@@ -0,0 +1,121 @@
+package com.claracore.rediscacheclient.config;
+
+import io.lettuce.core.RedisCommandTimeoutException;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SingleFlightTest {
+    private static final String KEY = "app:posts:42";
+    private static final String LEASE_KEY = RedisKeys.companionKey(KEY, ":lease");
+
+    private final RedisCacheStore cacheStore = mock(RedisCacheStore.class);
+    private final SingleFlight singleFlight = new SingleFlight(cacheStore);
+    private final TtlInfo ttlInfo = TtlInfo.builder().ttl(10).timeUnit(TimeUnit.MINUTES)
+            .cacheType(TimedCacheable.CacheType.REDIS).singleFlight(true).build();
+    private final AtomicInteger invocations = new AtomicInteger();
+
+    @Test
+    void leaseHolderInvokesTheMethodOnce() {
+        when(cacheStore.setIfAbsent(eq(LEASE_KEY), any(), eq(ttlInfo.getSingleFlightLease()))).thenReturn(true);
+        CacheInvocationContext context = newContext();
+
+        Object result = singleFlight.execute(context, () -> "value" + invocations.incrementAndGet());
+
+        assertThat(result).isEqualTo("value1");
+        assertThat(context.getLeaseKey()).isEqualTo(LEASE_KEY);
+        assertThat(context.getLeaseToken()).isNotNull();
+        assertThat(context.isResultShared()).isFalse();
+    }
+
+    @Test
+    void waiterReadsTheResultOfTheLeaseHolder() throws NoSuchMethodException {
+        when(cacheStore.setIfAbsent(eq(LEASE_KEY), any(), anyLong())).thenReturn(false);
+        when(cacheStore.get(KEY)).thenReturn(null, "shared");
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.getMethod()).thenReturn(Object.class.getMethod("toString"));
+        CacheInvocationContext context = new CacheInvocationContext(invocation);
+        context.recordMiss("posts", KEY, ttlInfo);
+
+        Object result = singleFlight.execute(context, () -> "value" + invocations.incrementAndGet());
+
+        assertThat(result).isEqualTo("shared");
+        assertThat(invocations).hasValue(0);
+        assertThat(context.isResultShared()).isTrue();
+        assertThat(context.getLeaseToken()).isNull();
+    }
+
+    @Test
+    void methodIsInvokedWithoutLeaseWhileTheBreakerIsOpen() {
+        when(cacheStore.setIfAbsent(eq(LEASE_KEY), any(), anyLong()))
+                .thenThrow(new CircuitBreakerOpenException("Redis circuit breaker is OPEN, call not permitted"));
+        CacheInvocationContext context = newContext();
+
+        Object result = singleFlight.execute(context, () -> "value" + invocations.incrementAndGet());
+
+        assertThat(result).isEqualTo("value1");
+        assertThat(context.getLeaseToken()).isNull();
+    }
+
+    @Test
+    void fencedPutWritesWithTheLeaseTokenAndReleasesIt() {
+        when(cacheStore.setIfLeaseHolder(eq(KEY), any(), eq(60_000L), eq(LEASE_KEY), eq("instance:1"))).thenReturn(true);
+        CacheInvocationContext context = heldLease();
+
+        singleFlight.fencedPut(context, new byte[]{1}, 60_000);
+
+        verify(cacheStore).setIfLeaseHolder(eq(KEY), any(), eq(60_000L), eq(LEASE_KEY), eq("instance:1"));
+        assertThat(context.getLeaseToken()).isNull();
+    }
+
+    @Test
+    void failedFencedPutKeepsTheLeaseToRelease() {
+        when(cacheStore.setIfLeaseHolder(eq(KEY), any(), anyLong(), eq(LEASE_KEY), eq("instance:1")))
+                .thenThrow(new RedisCommandTimeoutException("Command timed out"));
+        CacheInvocationContext context = heldLease();
+
+        assertThatThrownBy(() -> singleFlight.fencedPut(context, new byte[]{1}, 60_000))
+                .isInstanceOf(RedisCommandTimeoutException.class);
+        assertThat(context.getLeaseToken()).isEqualTo("instance:1");
+
+        singleFlight.release(context);
+
+        verify(cacheStore).removeIfEquals(LEASE_KEY, "instance:1");
+        assertThat(context.getLeaseToken()).isNull();
+    }
+
+    @Test
+    void releaseIsSkippedWhileTheBreakerIsOpen() {
+        when(cacheStore.removeIfEquals(LEASE_KEY, "instance:1"))
+                .thenThrow(new CircuitBreakerOpenException("Redis circuit breaker is OPEN, call not permitted"));
+        CacheInvocationContext context = heldLease();
+
+        assertThatCode(() -> singleFlight.release(context)).doesNotThrowAnyException();
+        assertThat(context.getLeaseToken()).isNull();
+    }
+
+    private CacheInvocationContext newContext() {
+        CacheInvocationContext context = new CacheInvocationContext(mock(MethodInvocation.class));
+        context.recordMiss("posts", KEY, ttlInfo);
+        return context;
+    }
+
+    private CacheInvocationContext heldLease() {
+        CacheInvocationContext context = newContext();
+        context.setLeaseKey(LEASE_KEY);
+        context.setLeaseToken("instance:1");
+        return context;
+    }
+}
@@ -0,0 +1,124 @@
+package com.claracore.rediscacheclient.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TtlInfoTest {
+    private final TtlInfo redis = TtlInfo.builder().ttl(10).timeUnit(TimeUnit.MINUTES)
+            .cacheType(TimedCacheable.CacheType.REDIS).build();
+
+    @Test
+    void settingsOverrideTheConfiguration() {
+        Map<String, String> settings = Map.of(
+                CacheConstants.CACHE_TYPE, "local_offheap",
+                CacheConstants.NEAR_CACHE, "true",
+                CacheConstants.NEAR_CACHE_MAX_ENTRIES, "500",
+                CacheConstants.CODEC, SmileCacheCodec.NAME,
+                CacheConstants.COMPRESSION_THRESHOLD, "1024",
+                CacheConstants.REFRESH_AHEAD_BETA, "1.5",
+                CacheConstants.HOT_KEY_THRESHOLD, "200",
+                CacheConstants.TTL_EXPRESSION, "#result.ttl",
+                CacheConstants.MAX_ENTRIES, "1000",
+                CacheConstants.CHUNK_THRESHOLD, "65536");
+
+        TtlInfo ttlInfo = redis.withSettings(settings::get);
+
+        assertThat(ttlInfo.getCacheType()).isEqualTo(TimedCacheable.CacheType.LOCAL_OFFHEAP);
+        assertThat(ttlInfo.isNearCache()).isTrue();
+        assertThat(ttlInfo.getNearCacheMaxEntries()).isEqualTo(500);
+        assertThat(ttlInfo.getCodec()).isEqualTo(SmileCacheCodec.NAME);
+        assertThat(ttlInfo.getCompressionThreshold()).isEqualTo(1024);
+        assertThat(ttlInfo.getRefreshAheadBeta()).isEqualTo(1.5);
+        assertThat(ttlInfo.getHotKeyThreshold()).isEqualTo(200);
+        assertThat(ttlInfo.getTtlExpression()).isEqualTo("#result.ttl");
+        assertThat(ttlInfo.isMemoryBounded()).isTrue();
+        assertThat(ttlInfo.isChunked()).isTrue();
+    }
+
+    @Test
+    void absentSettingsKeepTheirValue() {
+        TtlInfo configured = redis.toBuilder().nearCache(true).ttlExpression("#result.ttl").build();
+
+        TtlInfo ttlInfo = configured.withSettings(Map.of(CacheConstants.TTL_JITTER, "10")::get);
+
+        assertThat(ttlInfo).isEqualTo(configured.toBuilder().ttlJitter(10).build());
+        assertThat(ttlInfo.getNearCacheMaxEntries()).isEqualTo(CacheConstants.DEFAULT_NEAR_CACHE_MAX_ENTRIES);
+        assertThat(ttlInfo.getCodec()).isEqualTo(CacheConstants.DEFAULT_CODEC);
+    }
+
+    @Test
+    void blankTtlExpressionClearsIt() {
+        TtlInfo configured = redis.toBuilder().ttlExpression("#result.ttl").build();
+
+        TtlInfo ttlInfo = configured.withSettings(Map.of(CacheConstants.TTL_EXPRESSION, " ")::get);
+
+        assertThat(ttlInfo.getTtlExpression()).isNull();
+        assertThat(ttlInfo.isEnvelopeStored()).isFalse();
+    }
+
+    @Test
+    void invalidSettingsAreRejected() {
+        assertThatThrownBy(() -> redis.withSettings(Map.of(CacheConstants.CACHE_TYPE, "memcached")::get))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> redis.withSettings(Map.of(CacheConstants.MAX_ENTRIES, "many")::get))
+                .isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    void validConfigurationPasses() {
+        assertThatCode(redis::validate).doesNotThrowAnyException();
+        assertThatCode(() -> redis.toBuilder().generations(true).maxEntries(1000).chunkThreshold(65_536)
+                .admissionMinFrequency(FrequencySketch.MAX_FREQUENCY).ttlJitter(99).build().validate())
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    void outOfRangeSettingsAreRejected() {
+        assertInvalid(redis.toBuilder().ttl(0).build(), "TTL must be positive");
+        assertInvalid(redis.toBuilder().codec("").build(), "Codec must not be empty");
+        assertInvalid(redis.toBuilder().admissionMinFrequency(FrequencySketch.MAX_FREQUENCY + 1).build(),
+                "Admission frequency must be between 0 and 15");
+        assertInvalid(redis.toBuilder().ttlJitter(100).build(), "TTL jitter must be between 0 and 99 percent");
+        assertInvalid(redis.toBuilder().maxBytes(-1).build(), "Max entries and max bytes must not be negative");
+        assertInvalid(redis.toBuilder().chunkSize(0).build(),
+                "Chunk threshold must not be negative and chunk size must be positive");
+    }
+
+    @Test
+    void redisOnlySettingsAreRejectedForOtherCaches() {
+        TtlInfo offHeap = redis.toBuilder().cacheType(TimedCacheable.CacheType.LOCAL_OFFHEAP).build();
+
+        assertInvalid(offHeap.toBuilder().generations(true).build(), "Generations are only supported by Redis caches");
+        assertInvalid(offHeap.toBuilder().maxEntries(1000).build(), "Max entries and max bytes are only supported by Redis caches");
+        assertInvalid(offHeap.toBuilder().chunkThreshold(65_536).build(), "Chunking is only supported by Redis caches");
+    }
+
+    @Test
+    void slidingExpirationExcludesEnvelopesAndNegativeCaching() {
+        TtlInfo sliding = redis.toBuilder().slidingExpiration(true).build();
+
+        assertThatCode(sliding::validate).doesNotThrowAnyException();
+        assertInvalid(sliding.toBuilder().refreshAhead(true).build(), "Sliding expiration cannot be combined");
+        assertInvalid(sliding.toBuilder().staleIfError(5).build(), "Sliding expiration cannot be combined");
+        assertInvalid(sliding.toBuilder().negativeTtl(5).build(), "Sliding expiration cannot be combined");
+    }
+
+    @Test
+    void entryTtlUsesTheNegativeTtlForNegativeEntries() {
+        TtlInfo ttlInfo = redis.toBuilder().timeUnit(TimeUnit.SECONDS).negativeTtl(5).build();
+
+        assertThat(ttlInfo.getEntryTtlMillis("value")).isEqualTo(10_000);
+        assertThat(ttlInfo.getEntryTtlMillis(NullValue.INSTANCE)).isEqualTo(5_000);
+    }
+
+    private static void assertInvalid(TtlInfo ttlInfo, String message) {
+        assertThatThrownBy(ttlInfo::validate).isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith(message);
+    }
+}
@@ -0,0 +1,66 @@
+package com.claracore.rediscacheclient.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TtlRegistryTest {
+    private final TtlInfo posts = TtlInfo.builder().ttl(10).timeUnit(TimeUnit.MINUTES)
+            .cacheType(TimedCacheable.CacheType.REDIS).build();
+    private final TtlInfo users = posts.toBuilder().ttl(30).build();
+    private final TtlRegistry registry = new TtlRegistry();
+
+    @Test
+    void unknownCacheHasNoConfiguration() {
+        assertThat(registry.get("posts")).isNull();
+        assertThat(registry.getSnapshot()).isEmpty();
+    }
+
+    @Test
+    void batchIsPublishedAsOneSnapshot() {
+        registry.register("posts", posts);
+        Map<String, TtlInfo> before = registry.getSnapshot();
+
+        registry.registerAll(Map.of("posts", users, "users", users));
+
+        assertThat(before).containsExactly(Map.entry("posts", posts));
+        assertThat(registry.getSnapshot()).containsOnly(Map.entry("posts", users), Map.entry("users", users));
+        assertThat(registry.get("posts")).isSameAs(users);
+    }
+
+    @Test
+    void snapshotsAreImmutable() {
+        registry.register("posts", posts);
+
+        assertThatThrownBy(() -> registry.getSnapshot().put("users", users))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void listenersReceiveTheRegisteredAndTheChangedCaches() {
+        registry.register("posts", posts);
+        List<String> notified = new ArrayList<>();
+
+        registry.addListener((cacheName, ttlInfo) -> notified.add(cacheName + "=" + ttlInfo.getTtl()));
+        registry.register("users", users);
+        registry.registerAll(Map.of());
+
+        assertThat(notified).containsExactly("posts=10", "users=30");
+    }
+
+    @Test
+    void listenersSeeTheSnapshotOfTheChange() {
+        List<TtlInfo> published = new ArrayList<>();
+        registry.addListener((cacheName, ttlInfo) -> published.add(registry.get(cacheName)));
+
+        registry.registerAll(Map.of("posts", posts, "users", users));
+
+        assertThat(published).containsExactlyInAnyOrder(posts, users);
+    }
+}
@@ -0,0 +1,130 @@
+package com.claracore.rediscacheclient.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WriteBehindQueueTest {
+    private static final long NEVER = TimeUnit.HOURS.toMillis(1);
+
+    private final RedisCacheStore cacheStore = mock(RedisCacheStore.class);
+    private final CacheMemory cacheMemory = mock(CacheMemory.class);
+    private final TtlInfo ttlInfo = TtlInfo.builder().ttl(10).timeUnit(TimeUnit.MINUTES)
+            .cacheType(TimedCacheable.CacheType.REDIS).writeBehind(true).build();
+    private final List<List<CacheWrite>> batches = new ArrayList<>();
+    private WriteBehindQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(false, 2, 2, 50, Duration.ofMinutes(1), 100, Duration.ofMinutes(1), 1);
+        when(cacheStore.getCircuitBreaker()).thenReturn(breaker);
+        when(cacheStore.multiSet(any(Collection.class))).thenAnswer(invocation -> {
+            batches.add(new ArrayList<>(invocation.<Collection<CacheWrite>>getArgument(0)));
+            return Map.of();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void repeatedWritesOfAKeyAreCoalesced() {
+        queue = new WriteBehindQueue(cacheStore, cacheMemory, 10, 10, NEVER, WriteBehindQueue.OverflowPolicy.DROP);
+
+        queue.enqueue("posts", "app:posts:1", "first", ttlInfo);
+        queue.enqueue("posts", "app:posts:1", "second", ttlInfo);
+        queue.enqueue("posts", "app:posts:2", "other", ttlInfo);
+
+        assertThat(queue.getPending("app:posts:1")).isEqualTo("second");
+        queue.shutdown();
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).extracting(CacheWrite::getKey, CacheWrite::getStored)
+                .containsExactly(tuple("app:posts:1", "second"),
+                        tuple("app:posts:2", "other"));
+        assertThat(queue.getPending("app:posts:1")).isNull();
+    }
+
+    @Test
+    void flushIsSplitIntoBatches() {
+        queue = new WriteBehindQueue(cacheStore, cacheMemory, 10, 2, NEVER, WriteBehindQueue.OverflowPolicy.DROP);
+
+        for (int i = 0; i < 5; i++) {
+            queue.enqueue("posts", "app:posts:" + i, "value", ttlInfo);
+        }
+        queue.shutdown();
+
+        assertThat(batches).extracting(List::size).containsExactly(2, 2, 1);
+    }
+
+    @Test
+    void overflowingWritesAreDropped() {
+        queue = new WriteBehindQueue(cacheStore, cacheMemory, 1, 10, NEVER, WriteBehindQueue.OverflowPolicy.DROP);
+
+        queue.enqueue("posts", "app:posts:1", "queued", ttlInfo);
+        queue.enqueue("posts", "app:posts:2", "dropped", ttlInfo);
+
+        assertThat(queue.getPending("app:posts:2")).isNull();
+        verify(cacheStore, never()).set(anyString(), any(), any(TtlInfo.class));
+        queue.enqueue("posts", "app:posts:1", "replaced", ttlInfo);
+        assertThat(queue.getPending("app:posts:1")).isEqualTo("replaced");
+    }
+
+    @Test
+    void overflowingWritesAreWrittenSynchronously() {
+        when(cacheStore.set("app:posts:2", "direct", ttlInfo)).thenReturn(64);
+        queue = new WriteBehindQueue(cacheStore, cacheMemory, 1, 10, NEVER, WriteBehindQueue.OverflowPolicy.SYNC);
+
+        queue.enqueue("posts", "app:posts:1", "queued", ttlInfo);
+        queue.enqueue("posts", "app:posts:2", "direct", ttlInfo);
+
+        verify(cacheStore).set("app:posts:2", "direct", ttlInfo);
+        verify(cacheMemory).recordPut(eq("posts"), eq(ttlInfo), eq("app:posts:2"), eq(64), anyLong());
+        assertThat(queue.getPending("app:posts:2")).isNull();
+    }
+
+    @Test
+    void discardedWritesAreNotFlushedAndFreeTheirSlot() {
+        queue = new WriteBehindQueue(cacheStore, cacheMemory, 1, 10, NEVER, WriteBehindQueue.OverflowPolicy.DROP);
+
+        queue.enqueue("posts", "app:posts:1", "evicted", ttlInfo);
+        queue.discardAll("app:posts:");
+        queue.enqueue("posts", "app:posts:2", "kept", ttlInfo);
+        queue.shutdown();
+
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).extracting(CacheWrite::getKey).containsExactly("app:posts:2");
+    }
+
+    @Test
+    void writtenEntriesAreRecordedInTheCacheMemory() {
+        when(cacheStore.multiSet(any(Collection.class))).thenReturn(Map.of("app:posts:1", 128));
+        queue = new WriteBehindQueue(cacheStore, cacheMemory, 10, 10, NEVER, WriteBehindQueue.OverflowPolicy.DROP);
+
+        queue.enqueue("posts", "app:posts:1", "value", ttlInfo);
+        queue.shutdown();
+
+        verify(cacheMemory).recordPut("posts", ttlInfo, "app:posts:1", 128, TimeUnit.MINUTES.toMillis(10));
+    }
+}